@@ -0,0 +1,37 @@
+package org.digitalnao.jared.trujillo.benchmarks;
+
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of {@code benchmarks.jar}. Accepts the usual JMH command line and enables the
+ * GC profiler when no profiler is given, so allocation rate ({@code gc.alloc.rate.norm})
+ * is always reported next to throughput and latency percentiles.
+ *
+ * Example: {@code java -jar target/benchmarks.jar JsonRead -p rows=1000,100000}
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+        // utility class; not meant to be instantiated
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions cmd = new CommandLineOptions(args);
+        if (cmd.shouldHelp() || cmd.shouldList() || cmd.shouldListWithParams()
+                || cmd.shouldListProfilers() || cmd.shouldListResultFormats()) {
+            Main.main(args);
+            return;
+        }
+
+        OptionsBuilder options = new OptionsBuilder();
+        options.parent(cmd);
+        if (cmd.getProfilers().isEmpty()) {
+            options.addProfiler(GCProfiler.class);
+        }
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,90 @@
+package org.digitalnao.jared.trujillo.benchmarks;
+
+import org.digitalnao.jared.trujillo.classes.User;
+import org.digitalnao.jared.trujillo.handlers.CsvHandlerFactory;
+import org.digitalnao.jared.trujillo.handlers.JsonHandlerFactory;
+import org.digitalnao.jared.trujillo.interfaces.CsvHandler;
+import org.digitalnao.jared.trujillo.interfaces.JsonHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generated {@code User_Codec} against Jackson's reflective bean (de)serializers. Every parameter
+ * combination runs in its own fork, so the codec switch is set before the first handler call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CodecBenchmark {
+
+    static final String DISABLE_CODECS = "jsoncsv.codecs.disabled";
+
+    @Param({ "generated", "reflective" })
+    public String serializers;
+
+    @Param({ "100000" })
+    public int rows;
+
+    private final CsvHandler csv = CsvHandlerFactory.createCsvHandler();
+    private final JsonHandler json = JsonHandlerFactory.createJsonHandler();
+
+    private Path dir;
+    private String input;
+    private List<User> users;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        System.setProperty(DISABLE_CODECS, Boolean.toString("reflective".equals(serializers)));
+        dir = UserDatasets.createTempDirectory();
+        input = UserDatasets.writeJsonArray(dir, rows).toString();
+        users = UserDatasets.userList(rows);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        UserDatasets.delete(dir);
+    }
+
+    @Benchmark
+    public long writeCsvRows() {
+        return csv.writeToCsv(users.iterator(), User.class, OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public List<User> readJsonList() {
+        return json.fromJsonList(input, User.class);
+    }
+
+    /**
+     * First row written in a fresh JVM: includes building the serializer and the CSV schema,
+     * which is where bean introspection is paid.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1)
+    @Fork(20)
+    public long firstRow() {
+        return csv.writeToCsv(List.of(UserDatasets.user(1)).iterator(), User.class, OutputStream.nullOutputStream());
+    }
+}
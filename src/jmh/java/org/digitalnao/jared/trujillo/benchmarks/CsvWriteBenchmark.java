@@ -0,0 +1,65 @@
+package org.digitalnao.jared.trujillo.benchmarks;
+
+import org.digitalnao.jared.trujillo.classes.User;
+import org.digitalnao.jared.trujillo.handlers.CsvHandlerFactory;
+import org.digitalnao.jared.trujillo.interfaces.CsvHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writing users to CSV from a materialized list and from a lazy iterator.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx4g" })
+public class CsvWriteBenchmark {
+
+    @Param({ "1000", "100000", "1000000", "10000000" })
+    public int rows;
+
+    private final CsvHandler csv = CsvHandlerFactory.createCsvHandler();
+
+    private Path dir;
+    private String output;
+    private List<User> users;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dir = UserDatasets.createTempDirectory();
+        output = dir.resolve("users").toString();
+        users = UserDatasets.userList(rows);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        UserDatasets.delete(dir);
+    }
+
+    @Benchmark
+    public void writeToCsvList() {
+        csv.writeToCsv(users, User.class, output);
+    }
+
+    @Benchmark
+    public long writeToCsvIterator() {
+        return csv.writeToCsv(UserDatasets.users(rows), User.class, output);
+    }
+}
@@ -0,0 +1,79 @@
+package org.digitalnao.jared.trujillo.benchmarks;
+
+import org.digitalnao.jared.trujillo.classes.User;
+import org.digitalnao.jared.trujillo.handlers.JsonCsvConverterFactory;
+import org.digitalnao.jared.trujillo.handlers.JsonHandlerFactory;
+import org.digitalnao.jared.trujillo.interfaces.JsonCsvConverter;
+import org.digitalnao.jared.trujillo.interfaces.JsonHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading a JSON array of users: full materialization, root detection, and streaming conversion with
+ * data binding or with the direct reader.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx4g" })
+public class JsonReadBenchmark {
+
+    @Param({ "1000", "100000", "1000000", "10000000" })
+    public int rows;
+
+    private final JsonHandler json = JsonHandlerFactory.createJsonHandler();
+    private final JsonCsvConverter converter = JsonCsvConverterFactory.createJsonCsvConverter();
+
+    private Path dir;
+    private String input;
+    private String output;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dir = UserDatasets.createTempDirectory();
+        input = UserDatasets.writeJsonArray(dir, rows).toString();
+        output = dir.resolve("out").toString();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        UserDatasets.delete(dir);
+    }
+
+    @Benchmark
+    public List<User> fromJsonList() {
+        return json.fromJsonList(input, User.class);
+    }
+
+    @Benchmark
+    public boolean isJsonArray() {
+        return json.isJsonArray(input);
+    }
+
+    @Benchmark
+    public long convertStreaming() {
+        return converter.convert(input, output, User.class);
+    }
+
+    @Benchmark
+    public long convertDirect() {
+        return converter.convertDirect(input, output, User.class);
+    }
+}
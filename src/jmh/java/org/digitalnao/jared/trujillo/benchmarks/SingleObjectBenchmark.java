@@ -0,0 +1,69 @@
+package org.digitalnao.jared.trujillo.benchmarks;
+
+import org.digitalnao.jared.trujillo.classes.User;
+import org.digitalnao.jared.trujillo.handlers.CsvHandlerFactory;
+import org.digitalnao.jared.trujillo.handlers.JsonHandlerFactory;
+import org.digitalnao.jared.trujillo.interfaces.CsvHandler;
+import org.digitalnao.jared.trujillo.interfaces.JsonHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-call overhead of the single-object paths, dominated by file open/close and handler setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SingleObjectBenchmark {
+
+    private final JsonHandler json = JsonHandlerFactory.createJsonHandler();
+    private final CsvHandler csv = CsvHandlerFactory.createCsvHandler();
+    private final User user = UserDatasets.user(1);
+
+    private Path dir;
+    private String input;
+    private String output;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dir = UserDatasets.createTempDirectory();
+        input = UserDatasets.writeJsonObject(dir).toString();
+        output = dir.resolve("user").toString();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        UserDatasets.delete(dir);
+    }
+
+    @Benchmark
+    public User fromJson() {
+        return json.fromJson(input, User.class);
+    }
+
+    @Benchmark
+    public boolean isJsonArray() {
+        return json.isJsonArray(input);
+    }
+
+    @Benchmark
+    public void writeToCsvObject() {
+        csv.writeToCsv(user, User.class, output);
+    }
+}
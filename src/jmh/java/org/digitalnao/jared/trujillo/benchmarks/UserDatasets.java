@@ -0,0 +1,116 @@
+package org.digitalnao.jared.trujillo.benchmarks;
+
+import org.digitalnao.jared.trujillo.classes.User;
+import org.digitalnao.jared.trujillo.handlers.JsonHandlerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Deterministic synthetic {@link User} datasets for the benchmarks.
+ * Files are written lazily, so even the 10M-row inputs never sit in memory while being generated.
+ */
+final class UserDatasets {
+
+    private static final String[] FIRST_NAMES = { "Juan", "Maria", "José", "Ana", "Luis", "Sofía", "Carlos", "Lucía" };
+    private static final String[] LAST_NAMES = { "García", "Hernández", "López", "Martínez", "Pérez", "O'Brien" };
+
+    private UserDatasets() {
+        // utility class; not meant to be instantiated
+    }
+
+    /**
+     * Builds the user with the given id. Some names contain commas and quotes so that
+     * CSV quoting is exercised the way real exports do.
+     *
+     * @param id user identifier
+     * @return synthetic user
+     */
+    static User user(int id) {
+        String first = FIRST_NAMES[id % FIRST_NAMES.length];
+        String last = LAST_NAMES[(id / FIRST_NAMES.length) % LAST_NAMES.length];
+        String name = id % 10 == 0 ? last + ", " + first : first + " " + last;
+        return new User(id, name, first.toLowerCase() + "." + id + "@example.com");
+    }
+
+    /**
+     * @param rows number of users
+     * @return lazy iterator over users {@code 0 .. rows-1}
+     */
+    static Iterator<User> users(int rows) {
+        return IntStream.range(0, rows).mapToObj(UserDatasets::user).iterator();
+    }
+
+    /**
+     * @param rows number of users
+     * @return fully materialized list of users {@code 0 .. rows-1}
+     */
+    static List<User> userList(int rows) {
+        List<User> users = new ArrayList<>(rows);
+        users(rows).forEachRemaining(users::add);
+        return users;
+    }
+
+    /**
+     * Writes a JSON file whose root is an array of {@code rows} users.
+     *
+     * @param dir  target directory
+     * @param rows number of users
+     * @return the written file
+     */
+    static Path writeJsonArray(Path dir, int rows) {
+        Path file = dir.resolve("users-" + rows + ".json");
+        JsonHandlerFactory.createJsonHandler().writeJsonArray(users(rows), User.class, file.toString());
+        return file;
+    }
+
+    /**
+     * Writes a JSON file whose root is a single user object.
+     *
+     * @param dir target directory
+     * @return the written file
+     */
+    static Path writeJsonObject(Path dir) {
+        Path file = dir.resolve("user.json");
+        try {
+            Files.writeString(file, "{\"id\":1,\"name\":\"Juan García\",\"email\":\"juan.1@example.com\"}");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return file;
+    }
+
+    /**
+     * Creates a scratch directory for one benchmark trial.
+     *
+     * @return new temporary directory
+     */
+    static Path createTempDirectory() {
+        try {
+            return Files.createTempDirectory("json-csv-bench");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Deletes a scratch directory and everything in it.
+     *
+     * @param dir directory created by {@link #createTempDirectory()}
+     */
+    static void delete(Path dir) {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
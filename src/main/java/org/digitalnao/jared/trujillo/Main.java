@@ -1,12 +1,23 @@
 package org.digitalnao.jared.trujillo;
 
+import org.digitalnao.jared.trujillo.classes.ConvertCommand;
 import org.digitalnao.jared.trujillo.classes.Views;
 
 public class Main {
 
+    /**
+     * Starts the interactive menu when called without arguments; otherwise runs the
+     * headless {@code convert} command and exits with its status code.
+     *
+     * @param args empty for the menu, or a {@code convert} command line
+     */
     public static void main(String[] args) {
-        Views views = new Views();
-        views.run();
+        if (args.length == 0) {
+            Views views = new Views();
+            views.run();
+            return;
+        }
+        System.exit(new ConvertCommand(System.in, System.out, System.err).run(args));
     }
 
 }
\ No newline at end of file
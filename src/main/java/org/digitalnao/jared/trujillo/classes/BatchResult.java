@@ -0,0 +1,64 @@
+package org.digitalnao.jared.trujillo.classes;
+
+import java.util.List;
+
+/**
+ * Per-file results and aggregate throughput of a batch conversion.
+ *
+ * @param files results in input order (sorted by file name)
+ * @param nanos wall-clock time of the whole batch
+ */
+public record BatchResult(List<FileConversionResult> files, long nanos) {
+
+    /**
+     * Creates a batch result with an unmodifiable copy of the per-file results.
+     *
+     * @param files results in input order
+     * @param nanos wall-clock time of the whole batch
+     */
+    public BatchResult {
+        files = List.copyOf(files);
+    }
+
+    /** @return number of files converted without errors */
+    public long succeeded() {
+        return files.stream().filter(FileConversionResult::succeeded).count();
+    }
+
+    /** @return number of files that failed */
+    public long failed() {
+        return files.size() - succeeded();
+    }
+
+    /** @return results of the files that failed */
+    public List<FileConversionResult> failures() {
+        return files.stream().filter(f -> !f.succeeded()).toList();
+    }
+
+    /** @return total rows written across all files */
+    public long rows() {
+        return files.stream().mapToLong(FileConversionResult::rows).sum();
+    }
+
+    /** @return total input bytes across all files */
+    public long bytesRead() {
+        return files.stream().mapToLong(FileConversionResult::bytesRead).sum();
+    }
+
+    /** @return rows written per second of wall-clock time */
+    public double rowsPerSecond() {
+        return nanos == 0 ? 0 : rows() * 1_000_000_000.0 / nanos;
+    }
+
+    /** @return input megabytes (2<sup>20</sup> bytes) read per second of wall-clock time */
+    public double megabytesPerSecond() {
+        return nanos == 0 ? 0 : bytesRead() * 1_000_000_000.0 / nanos / (1024 * 1024);
+    }
+
+    /** @return one-line summary for logging */
+    public String summary() {
+        return String.format("%d files (%d ok, %d failed), %d rows in %.2f s: %.0f rows/s, %.2f MB/s",
+                files.size(), succeeded(), failed(), rows(), nanos / 1_000_000_000.0,
+                rowsPerSecond(), megabytesPerSecond());
+    }
+}
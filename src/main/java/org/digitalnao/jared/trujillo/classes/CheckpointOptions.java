@@ -0,0 +1,55 @@
+package org.digitalnao.jared.trujillo.classes;
+
+/**
+ * Settings of a resumable JSON to CSV conversion. Every {@code interval} records the output is
+ * flushed and a sidecar file next to it ({@code users.csv.checkpoint}) records how far the input
+ * was read and how long the output was. A rerun with the same input finds the sidecar, cuts the
+ * output back to that length and carries on from that input offset. The sidecar is deleted once
+ * the conversion completes.
+ *
+ * Example usage:
+ * CheckpointOptions options = CheckpointOptions.defaults().withInterval(500_000);
+ *
+ * @param interval records written between checkpoints
+ * @param sync     {@code true} to force the output, then the checkpoint itself, to the storage
+ *                 device, so a checkpoint survives a machine crash and not only a killed process
+ */
+public record CheckpointOptions(long interval, boolean sync) {
+
+    /** Extension appended to the output file name to name its checkpoint. */
+    public static final String SUFFIX = ".checkpoint";
+    /** Records between checkpoints used by {@link #defaults()}. */
+    public static final long DEFAULT_INTERVAL = 100_000;
+
+    /**
+     * Validates the settings.
+     *
+     * @throws IllegalArgumentException if the interval is not positive
+     */
+    public CheckpointOptions {
+        if (interval <= 0) {
+            throw new IllegalArgumentException("The checkpoint interval must be positive: " + interval);
+        }
+    }
+
+    /** @return a checkpoint every {@value #DEFAULT_INTERVAL} records, synced to the device */
+    public static CheckpointOptions defaults() {
+        return new CheckpointOptions(DEFAULT_INTERVAL, true);
+    }
+
+    /**
+     * @param interval records between checkpoints
+     * @return copy with the given interval
+     */
+    public CheckpointOptions withInterval(long interval) {
+        return new CheckpointOptions(interval, sync);
+    }
+
+    /**
+     * @param sync whether the output is forced to the device before each checkpoint
+     * @return copy with the given sync policy
+     */
+    public CheckpointOptions withSync(boolean sync) {
+        return new CheckpointOptions(interval, sync);
+    }
+}
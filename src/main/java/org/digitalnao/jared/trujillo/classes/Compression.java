@@ -0,0 +1,106 @@
+package org.digitalnao.jared.trujillo.classes;
+
+import java.util.Locale;
+
+/**
+ * Compression codec of an input or output file. Inputs are recognized by their magic bytes, so a
+ * compressed file is read correctly whatever its name; outputs are compressed according to the
+ * extension that follows the format one ({@code users.csv.gz}, {@code users.jsonl.zst}).
+ */
+public enum Compression {
+
+    /** Plain, uncompressed data. */
+    NONE("", new byte[0]),
+
+    /** Gzip members ({@code .gz}); any gzip reader accepts the concatenated members. */
+    GZIP(".gz", new byte[] { 0x1f, (byte) 0x8b }),
+
+    /** Zstandard frames ({@code .zst}). */
+    ZSTD(".zst", new byte[] { 0x28, (byte) 0xb5, 0x2f, (byte) 0xfd }),
+
+    /** LZ4 frames ({@code .lz4}), the format of the {@code lz4} command line tool. */
+    LZ4(".lz4", new byte[] { 0x04, 0x22, 0x4d, 0x18 });
+
+    /** Number of leading bytes {@link #detect} needs to recognize every codec. */
+    public static final int MAGIC_LENGTH = 4;
+
+    private final String extension;
+    private final byte[] magic;
+
+    Compression(String extension, byte[] magic) {
+        this.extension = extension;
+        this.magic = magic;
+    }
+
+    /** @return file extension of the codec, with its dot; empty for {@link #NONE} */
+    public String extension() {
+        return extension;
+    }
+
+    /**
+     * Recognizes a codec by the first bytes of the data.
+     *
+     * @param header leading bytes of the data
+     * @param length number of valid bytes in {@code header}
+     * @return the matching codec, or {@link #NONE}
+     */
+    public static Compression detect(byte[] header, int length) {
+        for (Compression compression : values()) {
+            if (compression != NONE && compression.magic.length <= length && startsWith(header, compression.magic)) {
+                return compression;
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * @param filename file name or path
+     * @return the codec named by the last extension, or {@link #NONE}
+     */
+    public static Compression fromFilename(String filename) {
+        if (filename != null) {
+            String lower = filename.toLowerCase(Locale.ROOT);
+            for (Compression compression : values()) {
+                if (compression != NONE && lower.endsWith(compression.extension)) {
+                    return compression;
+                }
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * @param filename file name or path
+     * @return the name without its compression extension ({@code users.json.gz} gives {@code users.json})
+     */
+    public static String stripExtension(String filename) {
+        Compression compression = fromFilename(filename);
+        return filename.substring(0, filename.length() - compression.extension.length());
+    }
+
+    /**
+     * Parses a codec name as given on the command line.
+     *
+     * @param name {@code none}, {@code gzip}, {@code zstd} or {@code lz4}, or their extensions
+     * @return the codec
+     * @throws IllegalArgumentException if the name is unknown
+     */
+    public static Compression of(String name) {
+        switch (name.toLowerCase(Locale.ROOT)) {
+            case "none": return NONE;
+            case "gzip": case "gz": return GZIP;
+            case "zstd": case "zst": return ZSTD;
+            case "lz4": return LZ4;
+            default: throw new IllegalArgumentException("unknown compression: " + name);
+        }
+    }
+
+    private static boolean startsWith(byte[] header, byte[] magic) {
+        for (int i = 0; i < magic.length; i++) {
+            if (header[i] != magic[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
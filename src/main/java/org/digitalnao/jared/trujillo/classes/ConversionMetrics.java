@@ -0,0 +1,43 @@
+package org.digitalnao.jared.trujillo.classes;
+
+/**
+ * Cost of one conversion, split by stage. I/O stages are timed exactly, on every read and write
+ * call of the underlying streams. Record stages are sampled (one record in
+ * {@code 2^SAMPLE_SHIFT}) and extrapolated, which keeps the overhead well under one percent.
+ * Jackson parses and binds in a single pass, so both are reported together as {@code bindNanos}.
+ *
+ * Open, bind and serialize are zero when records are not pulled through a bound iterator: flattened
+ * conversions, and parallel JSON Lines conversions whose chunks run on other threads.
+ *
+ * @param source            input file name, or {@code "-"} for a stream
+ * @param target            output file name, or {@code "-"} for a stream
+ * @param records           records written, or {@code 0} if the conversion failed
+ * @param bytesIn           bytes read from the input (compressed size for compressed files)
+ * @param bytesOut          bytes written to the output (compressed size for compressed files)
+ * @param openNanos         opening the input and output until the first record is requested,
+ *                          excluding {@code readNanos} and {@code writeNanos}
+ * @param readNanos         inside input read calls
+ * @param bindNanos         parsing and binding records, excluding {@code readNanos} (estimated)
+ * @param serializeNanos    serializing records, excluding {@code writeNanos} (estimated)
+ * @param writeNanos        inside output write and flush calls
+ * @param totalNanos        wall-clock time of the whole conversion
+ * @param largestWriteBytes largest single write call that reached the output, i.e. the most output
+ *                          the buffers above it released at once; not their occupancy
+ */
+public record ConversionMetrics(String source, String target, long records, long bytesIn, long bytesOut,
+                                long openNanos, long readNanos, long bindNanos, long serializeNanos,
+                                long writeNanos, long totalNanos, long largestWriteBytes) {
+
+    /** One record in {@code 2^SAMPLE_SHIFT} has its bind and serialize stages timed. */
+    public static final int SAMPLE_SHIFT = 5;
+
+    /** @return records written per second of wall-clock time */
+    public double recordsPerSecond() {
+        return totalNanos == 0 ? 0 : records * 1_000_000_000.0 / totalNanos;
+    }
+
+    /** @return input megabytes (2^20 bytes) read per second of wall-clock time */
+    public double megabytesPerSecond() {
+        return totalNanos == 0 ? 0 : bytesIn / 1_048_576.0 * 1_000_000_000.0 / totalNanos;
+    }
+}
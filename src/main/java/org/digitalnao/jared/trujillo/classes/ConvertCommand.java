@@ -0,0 +1,604 @@
+package org.digitalnao.jared.trujillo.classes;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.digitalnao.jared.trujillo.exceptions.CsvHandlerException;
+import org.digitalnao.jared.trujillo.exceptions.JsonHandlerException;
+import org.digitalnao.jared.trujillo.handlers.CompressedStreams;
+import org.digitalnao.jared.trujillo.handlers.JsonCsvConverterFactory;
+import org.digitalnao.jared.trujillo.interfaces.JsonCsvConverter;
+
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Headless command line for scripted conversions of {@link User} records, meant for cron and
+ * container jobs without a TTY. Data goes to the output stream only; messages and statistics go to
+ * the error stream, so the command can sit in the middle of a Unix pipe.
+ *
+ * Usage:
+ * convert --in &lt;file|-&gt; --out &lt;file|-&gt; [--format csv|json|jsonl] [--threads N] [--buffer-size BYTES] [--stats]
+ *         [--flatten [--sample N] [--arrays indexed|joined] [--array-separator S] [--ignore-late-columns]]
+ *         [--select COLUMNS] [--where EXPR]... [--compress gzip|zstd|lz4] [--pipeline [--batch-size N]]
+ *         [--checkpoint N] [--sort COLUMNS [--dedup sorted|hash] [--sort-memory BYTES]] [--direct]
+ *         [--incremental FIELD [--rescan]]
+ *
+ * The output format comes from the {@code --out} extension, or from {@code --format} when writing
+ * to standard output (default {@code csv}). CSV output reads JSON (array, object or JSON Lines);
+ * JSON output reads CSV. With {@code --flatten}, any JSON is converted to CSV with columns
+ * discovered from the data instead of the {@link User} fields. {@code --select} and {@code --where}
+ * keep only some columns and rows of a CSV output; see {@link RowQuery}. Compressed input (gzip, zstd,
+ * LZ4) is recognized by its magic bytes; file output is compressed when {@code --out} ends with
+ * {@code .gz}, {@code .zst} or {@code .lz4}, and standard output with {@code --compress}.
+ * {@code --pipeline} converts JSON to CSV with a reader thread, {@code --threads} workers and an
+ * ordered writer; see {@link PipelineOptions}. {@code --checkpoint} saves the progress of a JSON to CSV
+ * file conversion every N records, and a rerun of the same command resumes it; see {@link CheckpointOptions}.
+ * {@code --sort} orders the CSV rows by the given columns, spilling to disk when they exceed the
+ * memory budget, and {@code --dedup} keeps only the first row of each key; see {@link SortOptions}.
+ * {@code --direct} reads the {@link User} records straight from the JSON bytes instead of binding them,
+ * with the same output; see {@link JsonCsvConverter#convertDirect(String, String, Class)}.
+ * {@code --incremental} keeps an index next to a CSV file and, on the next run, converts only the
+ * records that are new or changed since; see {@link IncrementalOptions}.
+ * Exit codes follow {@code sysexits.h}.
+ *
+ * Example usage:
+ * int status = new ConvertCommand(System.in, System.out, System.err).run(args);
+ */
+public class ConvertCommand {
+
+    /** Successful conversion. */
+    public static final int EXIT_OK = 0;
+    /** Invalid command line. */
+    public static final int EXIT_USAGE = 64;
+    /** The input is malformed or does not match {@link User}. */
+    public static final int EXIT_DATA_ERROR = 65;
+    /** The input file does not exist or cannot be read. */
+    public static final int EXIT_NO_INPUT = 66;
+    /** Unexpected internal failure. */
+    public static final int EXIT_SOFTWARE = 70;
+    /** The output could not be written. */
+    public static final int EXIT_IO_ERROR = 74;
+
+    private static final String STDIO = "-";
+    private static final String USAGE = String.join(System.lineSeparator(),
+            "Usage: convert --in <file|-> --out <file|-> [options]",
+            "  --in <file|->          JSON (.json, .jsonl, .ndjson) or CSV (.csv) input, optionally .gz, .zst or .lz4;",
+            "                         '-' reads standard input",
+            "  --out <file|->         .csv, .json, .jsonl or .ndjson output, compressed if followed by .gz, .zst or .lz4;",
+            "                         '-' writes standard output",
+            "  --format <fmt>         csv, json or jsonl; required to match --out, defaults to csv for '-'",
+            "  --threads <n>          workers for parallel JSON Lines conversion (default: available processors)",
+            "  --buffer-size <bytes>  CSV output buffer size (default: 65536)",
+            "  --stats                print rows, bytes, throughput and time per stage to standard error",
+            "  --flatten              convert any JSON to CSV, discovering columns from the data",
+            "  --sample <n>           records sampled for --flatten columns; 0 scans the whole file (default: 1000)",
+            "  --arrays <mode>        indexed (tags.0, tags.1) or joined (one column) arrays for --flatten",
+            "  --array-separator <s>  separator of joined array elements (default: |)",
+            "  --ignore-late-columns  drop columns first seen after the sample instead of failing",
+            "  --select <columns>     comma-separated columns to write, in order (dotted paths with --flatten)",
+            "  --where <expr>         keep rows where field=value, field~regex, field>=n, field<=n or field=min..max;",
+            "                         repeat for several conditions, all of which must hold",
+            "  --compress <codec>     gzip, zstd or lz4 compression of standard output, in parallel blocks",
+            "  --pipeline             overlap reading, binding and writing on --threads workers (JSON to CSV)",
+            "  --batch-size <n>       records per --pipeline hand-off (default: 256)",
+            "  --checkpoint <n>       save progress every n records next to --out; rerun to resume (JSON to CSV files)",
+            "  --sort <columns>       comma-separated columns to order CSV rows by; '-id' sorts id descending",
+            "  --dedup <mode>         keep the first row of each --sort key: sorted (no extra memory) or hash",
+            "  --sort-memory <bytes>  rows buffered by --sort before spilling a run to disk (default: 67108864)",
+            "  --direct               read flat records without data binding; same CSV, less CPU (JSON to CSV)",
+            "  --incremental <field>  keep one row per value of field and, on later runs, convert only new or",
+            "                         changed records, using an index next to --out (JSON to CSV files)",
+            "  --rescan               with --incremental, read the whole input to find records edited in place",
+            "  --help                 print this message");
+
+    private final InputStream in;
+    private final PrintStream out;
+    private final PrintStream err;
+
+    /**
+     * Creates a command bound to the given standard streams.
+     *
+     * @param in  standard input, read when {@code --in -} is given
+     * @param out standard output, written when {@code --out -} is given
+     * @param err destination of messages, usage and statistics
+     */
+    public ConvertCommand(InputStream in, PrintStream out, PrintStream err) {
+        this.in = in;
+        this.out = out;
+        this.err = err;
+    }
+
+    /**
+     * Parses the arguments and runs the conversion.
+     *
+     * @param args command line, starting with {@code convert}
+     * @return process exit code ({@link #EXIT_OK} on success)
+     */
+    public int run(String[] args) {
+        Options options;
+        try {
+            options = Options.parse(args);
+        } catch (IllegalArgumentException e) {
+            err.println("convert: " + e.getMessage());
+            err.println(USAGE);
+            return EXIT_USAGE;
+        }
+        if (options.help) {
+            out.println(USAGE);
+            return EXIT_OK;
+        }
+        if (!STDIO.equals(options.in) && !Files.isReadable(Path.of(options.in))) {
+            err.println("convert: input not found or not readable: " + options.in);
+            return EXIT_NO_INPUT;
+        }
+
+        try {
+            long start = System.nanoTime();
+            CountingInputStream input = null;
+            AtomicReference<ConversionMetrics> metrics = new AtomicReference<>();
+            AtomicReference<PipelineResult> pipeline = new AtomicReference<>();
+            AtomicReference<SortResult> sorted = new AtomicReference<>();
+            AtomicReference<IncrementalResult> exported = new AtomicReference<>();
+            long rows;
+            try (JsonCsvConverter converter = options.stats
+                    ? JsonCsvConverterFactory.createJsonCsvConverter(options.threads, options.bufferSize, metrics::set)
+                    : JsonCsvConverterFactory.createJsonCsvConverter(options.threads, options.bufferSize)) {
+                if (options.isFileToFile()) {
+                    rows = convertFiles(converter, options, pipeline, sorted, exported);
+                } else {
+                    input = new CountingInputStream(openInput(options.in));
+                    rows = convertStreams(converter, options, input, pipeline, sorted);
+                }
+            } finally {
+                if (input != null && !STDIO.equals(options.in)) {
+                    input.close();
+                }
+            }
+            if (options.stats) {
+                long bytes = input != null ? input.count : Files.size(Path.of(options.in));
+                printStats(rows, bytes, System.nanoTime() - start);
+                printStages(metrics.get());
+                if (pipeline.get() != null) {
+                    err.println("pipeline: " + pipeline.get().summary());
+                }
+                if (sorted.get() != null) {
+                    err.println("sort: " + sorted.get().summary());
+                }
+                if (exported.get() != null) {
+                    err.println("incremental: " + exported.get().summary());
+                }
+            }
+            return EXIT_OK;
+        } catch (RuntimeException | IOException e) {
+            err.println("convert: " + e.getMessage());
+            return exitCode(e);
+        }
+    }
+
+    private long convertFiles(JsonCsvConverter converter, Options options, AtomicReference<PipelineResult> pipeline,
+                              AtomicReference<SortResult> sorted, AtomicReference<IncrementalResult> exported) {
+        if (options.format == Format.CSV) {
+            // a compressed name is kept whole; a plain one is passed without the .csv the converter appends
+            String base = Compression.fromFilename(options.out) != Compression.NONE
+                    ? options.out
+                    : options.out.substring(0, options.out.length() - ".csv".length());
+            if (options.pipeline) {
+                pipeline.set(converter.convertPipelined(options.in, base, User.class, options.pipelineOptions()));
+                return pipeline.get().records();
+            }
+            if (options.direct) {
+                return converter.convertDirect(options.in, base, User.class);
+            }
+            if (options.incremental != null) {
+                exported.set(converter.convertIncremental(options.in, base, User.class, options.incremental));
+                return exported.get().records();
+            }
+            if (options.sort != null) {
+                sorted.set(converter.convertSorted(options.in, base, User.class, options.sort));
+                return sorted.get().records();
+            }
+            if (options.checkpoint > 0) {
+                return converter.convertResumable(options.in, base, User.class,
+                        CheckpointOptions.defaults().withInterval(options.checkpoint));
+            }
+            if (options.flatten) {
+                return converter.convertFlattened(options.in, base, options.flattenOptions, options.query);
+            }
+            if (!options.query.isAll()) {
+                return converter.convert(options.in, base, User.class, options.query);
+            }
+            return isJsonLines(options.in)
+                    ? converter.convertJsonLines(options.in, base, User.class)
+                    : converter.convert(options.in, base, User.class);
+        }
+        return converter.convertToJson(options.in, options.out, User.class);
+    }
+
+    private long convertStreams(JsonCsvConverter converter, Options options, InputStream input,
+                                AtomicReference<PipelineResult> pipeline, AtomicReference<SortResult> sorted)
+            throws IOException {
+        OutputStream output = STDIO.equals(options.out)
+                ? CompressedStreams.compress(new UnclosableOutputStream(out), options.compression)
+                : CompressedStreams.compress(Files.newOutputStream(Path.of(options.out)), Compression.fromFilename(options.out));
+        try {
+            if (options.flatten) {
+                return converter.convertFlattened(input, output, options.flattenOptions, options.query);
+            }
+            if (options.pipeline) {
+                pipeline.set(converter.convertPipelined(input, output, User.class, options.pipelineOptions()));
+                return pipeline.get().records();
+            }
+            if (options.direct) {
+                return converter.convertDirect(input, output, User.class);
+            }
+            if (options.sort != null) {
+                sorted.set(converter.convertSorted(input, output, User.class, options.sort));
+                return sorted.get().records();
+            }
+            if (options.format == Format.CSV) {
+                return converter.convert(input, output, User.class, options.query);
+            }
+            return converter.convertToJson(input, output, User.class, options.format == Format.JSONL);
+        } finally {
+            // closing finishes the last compressed block; standard output itself stays open
+            output.close();
+            out.flush();
+        }
+    }
+
+    private InputStream openInput(String name) throws IOException {
+        return STDIO.equals(name) ? in : new BufferedInputStream(Files.newInputStream(Path.of(name)));
+    }
+
+    private void printStats(long rows, long bytes, long nanos) {
+        double seconds = Math.max(nanos, 1) / 1_000_000_000.0;
+        err.printf(Locale.ROOT, "rows=%d bytes=%d time=%.3fs rows/s=%.0f MB/s=%.2f%n",
+                rows, bytes, seconds, rows / seconds, bytes / 1_048_576.0 / seconds);
+    }
+
+    private void printStages(ConversionMetrics metrics) {
+        if (metrics == null) {
+            return;
+        }
+        err.printf(Locale.ROOT, "open=%dms read=%dms bind=%dms serialize=%dms write=%dms largest-write=%d%n",
+                millis(metrics.openNanos()), millis(metrics.readNanos()), millis(metrics.bindNanos()),
+                millis(metrics.serializeNanos()), millis(metrics.writeNanos()), metrics.largestWriteBytes());
+    }
+
+    private static long millis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    private static int exitCode(Exception e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof JsonProcessingException) {
+                return EXIT_DATA_ERROR;
+            }
+            if (cause instanceof IOException) {
+                return EXIT_IO_ERROR;
+            }
+        }
+        return e instanceof JsonHandlerException || e instanceof CsvHandlerException ? EXIT_DATA_ERROR : EXIT_SOFTWARE;
+    }
+
+    private static boolean isJsonLines(String name) {
+        String lower = Compression.stripExtension(name).toLowerCase(Locale.ROOT);
+        return lower.endsWith(".jsonl") || lower.endsWith(".ndjson");
+    }
+
+    /** Output formats accepted by {@code --format}. */
+    private enum Format {
+        CSV, JSON, JSONL;
+
+        static Format of(String value) {
+            switch (value.toLowerCase(Locale.ROOT)) {
+                case "csv": return CSV;
+                case "json": return JSON;
+                case "jsonl":
+                case "ndjson": return JSONL;
+                default: throw new IllegalArgumentException("unknown format: " + value);
+            }
+        }
+
+        static Format fromExtension(String name) {
+            String lower = Compression.stripExtension(name).toLowerCase(Locale.ROOT);
+            if (lower.endsWith(".csv")) {
+                return CSV;
+            }
+            if (lower.endsWith(".json")) {
+                return JSON;
+            }
+            if (isJsonLines(lower)) {
+                return JSONL;
+            }
+            return null;
+        }
+    }
+
+    /** Parsed and validated command line. */
+    private static final class Options {
+
+        String in;
+        String out;
+        Format format;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int bufferSize = 64 * 1024;
+        boolean stats;
+        boolean help;
+        boolean flatten;
+        boolean pipeline;
+        int batchSize = PipelineOptions.DEFAULT_BATCH_SIZE;
+        int checkpoint;
+        List<String> sortKeys;
+        SortOptions.Dedup dedup;
+        long sortMemory = SortOptions.DEFAULT_MEMORY_BYTES;
+        SortOptions sort;
+        boolean direct;
+        String incrementalId;
+        boolean rescan;
+        IncrementalOptions incremental;
+        FlattenOptions flattenOptions = FlattenOptions.defaults();
+        RowQuery query = RowQuery.all();
+        Compression compression = Compression.NONE;
+
+        static Options parse(String[] args) {
+            Options options = new Options();
+            if (args.length == 1 && ("--help".equals(args[0]) || "-h".equals(args[0]))) {
+                options.help = true;
+                return options;
+            }
+            if (args.length == 0 || !"convert".equals(args[0])) {
+                throw new IllegalArgumentException("expected the 'convert' command");
+            }
+
+            for (int i = 1; i < args.length; i++) {
+                String arg = args[i];
+                String value = null;
+                int equals = arg.indexOf('=');
+                if (arg.startsWith("--") && equals > 0) {
+                    value = arg.substring(equals + 1);
+                    arg = arg.substring(0, equals);
+                }
+                switch (arg) {
+                    case "--help": case "-h": options.help = true; break;
+                    case "--stats": options.stats = true; break;
+                    case "--in": options.in = value != null ? value : next(args, ++i, arg); break;
+                    case "--out": options.out = value != null ? value : next(args, ++i, arg); break;
+                    case "--format": options.format = Format.of(value != null ? value : next(args, ++i, arg)); break;
+                    case "--threads": options.threads = positive(value != null ? value : next(args, ++i, arg), arg); break;
+                    case "--buffer-size": options.bufferSize = positive(value != null ? value : next(args, ++i, arg), arg); break;
+                    case "--flatten": options.flatten = true; break;
+                    case "--pipeline": options.pipeline = true; break;
+                    case "--direct": options.direct = true; break;
+                    case "--incremental": options.incrementalId = value != null ? value : next(args, ++i, arg); break;
+                    case "--rescan": options.rescan = true; break;
+                    case "--batch-size": options.batchSize = positive(value != null ? value : next(args, ++i, arg), arg); break;
+                    case "--checkpoint": options.checkpoint = positive(value != null ? value : next(args, ++i, arg), arg); break;
+                    case "--sort": options.sortKeys = columns(value != null ? value : next(args, ++i, arg)); break;
+                    case "--dedup": options.dedup = dedup(value != null ? value : next(args, ++i, arg)); break;
+                    case "--sort-memory": options.sortMemory = positive(value != null ? value : next(args, ++i, arg), arg); break;
+                    case "--sample":
+                        options.flattenOptions = options.flattenOptions.withSampleSize(
+                                nonNegative(value != null ? value : next(args, ++i, arg), arg));
+                        break;
+                    case "--arrays":
+                        options.flattenOptions = arrays(options.flattenOptions, value != null ? value : next(args, ++i, arg));
+                        break;
+                    case "--array-separator":
+                        options.flattenOptions = options.flattenOptions.withArraySeparator(
+                                value != null ? value : next(args, ++i, arg));
+                        break;
+                    case "--ignore-late-columns": options.flattenOptions = options.flattenOptions.withIgnoreLateColumns(true); break;
+                    case "--select":
+                        options.query = new RowQuery(columns(value != null ? value : next(args, ++i, arg)),
+                                options.query.predicates());
+                        break;
+                    case "--compress": options.compression = Compression.of(value != null ? value : next(args, ++i, arg)); break;
+                    case "--where":
+                        options.query = options.query.where(FieldPredicate.parse(value != null ? value : next(args, ++i, arg)));
+                        break;
+                    default: throw new IllegalArgumentException("unknown option: " + arg);
+                }
+            }
+            if (!options.help) {
+                options.validate();
+            }
+            return options;
+        }
+
+        PipelineOptions pipelineOptions() {
+            return new PipelineOptions(threads, batchSize, 2 * threads);
+        }
+
+        boolean isFileToFile() {
+            return !STDIO.equals(in) && !STDIO.equals(out);
+        }
+
+        private void validate() {
+            if (in == null || in.isBlank()) {
+                throw new IllegalArgumentException("--in is required");
+            }
+            if (out == null || out.isBlank()) {
+                throw new IllegalArgumentException("--out is required");
+            }
+            if (!STDIO.equals(out)) {
+                Format fromExtension = Format.fromExtension(out);
+                if (fromExtension == null) {
+                    throw new IllegalArgumentException("--out must end with .csv, .json, .jsonl or .ndjson: " + out);
+                }
+                if (format != null && format != fromExtension) {
+                    throw new IllegalArgumentException("--format " + format.name().toLowerCase(Locale.ROOT)
+                            + " does not match --out " + out);
+                }
+                format = fromExtension;
+            } else if (format == null) {
+                format = Format.CSV;
+            }
+            if (flatten) {
+                if (format != Format.CSV) {
+                    throw new IllegalArgumentException("--flatten only writes CSV");
+                }
+                if (STDIO.equals(in) && flattenOptions.isFullScan() && !query.isProjected()) {
+                    throw new IllegalArgumentException("--sample 0 scans the whole input and needs a file, not '-'");
+                }
+            }
+            if (!query.isAll() && format != Format.CSV) {
+                throw new IllegalArgumentException("--select and --where only apply to CSV output");
+            }
+            if (pipeline && (format != Format.CSV || flatten || !query.isAll())) {
+                throw new IllegalArgumentException("--pipeline only converts JSON to CSV, without --flatten, --select or --where");
+            }
+            if (checkpoint > 0 && (format != Format.CSV || !isFileToFile() || pipeline || flatten || !query.isAll())) {
+                throw new IllegalArgumentException("--checkpoint only converts a JSON file to a CSV file, "
+                        + "without --pipeline, --flatten, --select or --where");
+            }
+            if (sortKeys != null) {
+                if (format != Format.CSV || pipeline || checkpoint > 0 || flatten || !query.isAll()) {
+                    throw new IllegalArgumentException("--sort only converts JSON to CSV, "
+                            + "without --pipeline, --checkpoint, --flatten, --select or --where");
+                }
+                sort = new SortOptions(sortKeys, sortMemory, dedup != null ? dedup : SortOptions.Dedup.NONE, null);
+            } else if (dedup != null || sortMemory != SortOptions.DEFAULT_MEMORY_BYTES) {
+                throw new IllegalArgumentException("--dedup and --sort-memory need --sort");
+            }
+            if (direct && (format != Format.CSV || pipeline || checkpoint > 0 || flatten || !query.isAll()
+                    || sort != null)) {
+                throw new IllegalArgumentException("--direct only converts JSON to CSV, "
+                        + "without --pipeline, --checkpoint, --flatten, --select, --where or --sort");
+            }
+            if (incrementalId != null) {
+                if (format != Format.CSV || !isFileToFile() || pipeline || checkpoint > 0 || flatten
+                        || !query.isAll() || sort != null || direct) {
+                    throw new IllegalArgumentException("--incremental only converts a JSON file to a CSV file, "
+                            + "without --pipeline, --checkpoint, --flatten, --select, --where, --sort or --direct");
+                }
+                incremental = IncrementalOptions.byId(incrementalId).withRescan(rescan);
+            } else if (rescan) {
+                throw new IllegalArgumentException("--rescan needs --incremental");
+            }
+            if (compression != Compression.NONE && !STDIO.equals(out)) {
+                throw new IllegalArgumentException("--compress applies to '-'; name the file .gz, .zst or .lz4 instead");
+            }
+            if (!STDIO.equals(in)) {
+                boolean csvInput = Compression.stripExtension(in).toLowerCase(Locale.ROOT).endsWith(".csv");
+                if (csvInput == (format == Format.CSV)) {
+                    throw new IllegalArgumentException(format == Format.CSV
+                            ? "CSV output needs a JSON input: " + in
+                            : "JSON output needs a CSV input: " + in);
+                }
+            }
+        }
+
+        private static String next(String[] args, int index, String option) {
+            if (index >= args.length) {
+                throw new IllegalArgumentException(option + " needs a value");
+            }
+            return args[index];
+        }
+
+        private static List<String> columns(String value) {
+            List<String> columns = new ArrayList<>();
+            for (String column : value.split(",")) {
+                columns.add(column.trim());
+            }
+            return columns;
+        }
+
+        private static FlattenOptions arrays(FlattenOptions options, String mode) {
+            switch (mode.toLowerCase(Locale.ROOT)) {
+                case "indexed": return options.withIndexedArrays();
+                case "joined": return options.withJoinedArrays(options.arraySeparator());
+                default: throw new IllegalArgumentException("--arrays must be indexed or joined: " + mode);
+            }
+        }
+
+        private static SortOptions.Dedup dedup(String mode) {
+            switch (mode.toLowerCase(Locale.ROOT)) {
+                case "sorted": return SortOptions.Dedup.SORTED;
+                case "hash": return SortOptions.Dedup.HASH;
+                default: throw new IllegalArgumentException("--dedup must be sorted or hash: " + mode);
+            }
+        }
+
+        private static int nonNegative(String value, String option) {
+            try {
+                int number = Integer.parseInt(value);
+                if (number >= 0) {
+                    return number;
+                }
+            } catch (NumberFormatException ignored) {
+                // reported below
+            }
+            throw new IllegalArgumentException(option + " must be a non-negative integer: " + value);
+        }
+
+        private static int positive(String value, String option) {
+            try {
+                int number = Integer.parseInt(value);
+                if (number > 0) {
+                    return number;
+                }
+            } catch (NumberFormatException ignored) {
+                // reported below
+            }
+            throw new IllegalArgumentException(option + " must be a positive integer: " + value);
+        }
+    }
+
+    /** Counts the bytes read from standard input or an input file for {@code --stats}. */
+    private static final class CountingInputStream extends FilterInputStream {
+
+        long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+    }
+
+    /** Keeps standard output open when the compressor wrapping it is closed. */
+    private static final class UnclosableOutputStream extends FilterOutputStream {
+
+        UnclosableOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package org.digitalnao.jared.trujillo.classes;
+
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Condition on one field of a JSON record, checked against the field's scalar text while the record
+ * is read, before anything is bound or written. Strings compare by their content, numbers and
+ * booleans by their JSON literal ({@code 10}, {@code true}). A missing field, a {@code null} and an
+ * object or array never match.
+ *
+ * Example usage:
+ * FieldPredicate adults = FieldPredicate.between("age", 18, 65);
+ * FieldPredicate mexico = FieldPredicate.parse("address.country=MX");
+ */
+public final class FieldPredicate {
+
+    private enum Kind { EQUALS, RANGE, REGEX }
+
+    private final String field;
+    private final Kind kind;
+    private final String value;
+    private final double min;
+    private final double max;
+    private final Pattern pattern;
+
+    private FieldPredicate(String field, Kind kind, String value, double min, double max, Pattern pattern) {
+        if (field == null || field.isBlank()) {
+            throw new IllegalArgumentException("The field of a predicate cannot be null neither blank");
+        }
+        this.field = field;
+        this.kind = kind;
+        this.value = value;
+        this.min = min;
+        this.max = max;
+        this.pattern = pattern;
+    }
+
+    /**
+     * @param field field name, dotted for nested fields in flattened conversions
+     * @param value expected text or literal
+     * @return predicate matching when the field's text equals {@code value}
+     */
+    public static FieldPredicate equalTo(String field, String value) {
+        if (value == null) {
+            throw new IllegalArgumentException("The value of an equality predicate cannot be null");
+        }
+        return new FieldPredicate(field, Kind.EQUALS, value, 0, 0, null);
+    }
+
+    /**
+     * @param field field name
+     * @param min   lowest accepted number, inclusive
+     * @param max   highest accepted number, inclusive
+     * @return predicate matching numeric values (or numeric strings) within the range
+     */
+    public static FieldPredicate between(String field, double min, double max) {
+        if (Double.isNaN(min) || Double.isNaN(max) || min > max) {
+            throw new IllegalArgumentException("Invalid range for '" + field + "': " + min + ".." + max);
+        }
+        return new FieldPredicate(field, Kind.RANGE, null, min, max, null);
+    }
+
+    /**
+     * @param field field name
+     * @param min   lowest accepted number, inclusive
+     * @return predicate matching numbers at or above {@code min}
+     */
+    public static FieldPredicate atLeast(String field, double min) {
+        return between(field, min, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * @param field field name
+     * @param max   highest accepted number, inclusive
+     * @return predicate matching numbers at or below {@code max}
+     */
+    public static FieldPredicate atMost(String field, double max) {
+        return between(field, Double.NEGATIVE_INFINITY, max);
+    }
+
+    /**
+     * @param field field name
+     * @param regex regular expression the whole text must match
+     * @return predicate matching text that matches {@code regex}
+     * @throws IllegalArgumentException if the expression is invalid
+     */
+    public static FieldPredicate matches(String field, String regex) {
+        try {
+            return new FieldPredicate(field, Kind.REGEX, regex, 0, 0, Pattern.compile(regex));
+        } catch (PatternSyntaxException | NullPointerException e) {
+            throw new IllegalArgumentException("Invalid regular expression for '" + field + "': " + regex, e);
+        }
+    }
+
+    /**
+     * Parses the command line form of a predicate: {@code field=value}, {@code field~regex},
+     * {@code field>=number}, {@code field<=number} or {@code field=min..max}.
+     *
+     * @param expression predicate expression
+     * @return the parsed predicate
+     * @throws IllegalArgumentException if the expression is not valid
+     */
+    public static FieldPredicate parse(String expression) {
+        if (expression == null) {
+            throw new IllegalArgumentException("The predicate cannot be null");
+        }
+        int regex = expression.indexOf('~');
+        int equals = expression.indexOf('=');
+        try {
+            if (regex > 0 && (equals < 0 || regex < equals)) {
+                return matches(expression.substring(0, regex), expression.substring(regex + 1));
+            }
+            if (equals > 1 && expression.charAt(equals - 1) == '>') {
+                return atLeast(expression.substring(0, equals - 1), Double.parseDouble(expression.substring(equals + 1)));
+            }
+            if (equals > 1 && expression.charAt(equals - 1) == '<') {
+                return atMost(expression.substring(0, equals - 1), Double.parseDouble(expression.substring(equals + 1)));
+            }
+            if (equals > 0) {
+                String field = expression.substring(0, equals);
+                String value = expression.substring(equals + 1);
+                int range = value.indexOf("..");
+                if (range > 0 && isNumber(value.substring(0, range)) && isNumber(value.substring(range + 2))) {
+                    return between(field, Double.parseDouble(value.substring(0, range)),
+                            Double.parseDouble(value.substring(range + 2)));
+                }
+                return equalTo(field, value);
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number in predicate: " + expression, e);
+        }
+        throw new IllegalArgumentException("Expected field=value, field~regex, field>=n, field<=n or field=min..max: "
+                + expression);
+    }
+
+    /** @return the field the predicate reads */
+    public String field() {
+        return field;
+    }
+
+    /**
+     * Tests the text of a scalar value.
+     *
+     * @param text the field's text, or {@code null} if it is missing, null, or not a scalar
+     * @return whether the value is accepted
+     */
+    public boolean test(String text) {
+        if (text == null) {
+            return false;
+        }
+        switch (kind) {
+            case EQUALS:
+                return value.equals(text);
+            case REGEX:
+                return pattern.matcher(text).matches();
+            default:
+                double number = toNumber(text);
+                return number >= min && number <= max;
+        }
+    }
+
+    @Override
+    public String toString() {
+        switch (kind) {
+            case EQUALS: return field + "=" + value;
+            case REGEX: return field + "~" + value;
+            default: return field + "=" + min + ".." + max;
+        }
+    }
+
+    private static boolean isNumber(String text) {
+        return !Double.isNaN(toNumber(text));
+    }
+
+    /** Parses a decimal number, or returns NaN; the char check avoids an exception per non-number. */
+    private static double toNumber(String text) {
+        int length = text.length();
+        if (length == 0) {
+            return Double.NaN;
+        }
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if ((c < '0' || c > '9') && c != '-' && c != '+' && c != '.' && c != 'e' && c != 'E') {
+                return Double.NaN;
+            }
+        }
+        try {
+            return Double.parseDouble(text);
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+}
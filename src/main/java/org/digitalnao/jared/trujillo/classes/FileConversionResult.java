@@ -0,0 +1,22 @@
+package org.digitalnao.jared.trujillo.classes;
+
+import java.nio.file.Path;
+
+/**
+ * Outcome of converting one file in a batch.
+ *
+ * @param input      JSON file that was converted
+ * @param output     CSV file that was (or would have been) written
+ * @param rows       number of rows written, excluding the header; {@code 0} on failure
+ * @param bytesRead  size of the input file in bytes
+ * @param nanos      wall-clock time spent on this file
+ * @param error      failure cause, or {@code null} if the conversion succeeded
+ */
+public record FileConversionResult(Path input, Path output, long rows, long bytesRead, long nanos,
+                                   RuntimeException error) {
+
+    /** @return {@code true} if the file was converted without errors */
+    public boolean succeeded() {
+        return error == null;
+    }
+}
@@ -0,0 +1,101 @@
+package org.digitalnao.jared.trujillo.classes;
+
+/**
+ * Settings of a schema-less JSON to CSV conversion, where columns are discovered from the data
+ * instead of a target class. Nested objects become dotted column names ({@code address.city});
+ * arrays become indexed columns ({@code tags.0}, {@code tags.1}) or one joined column.
+ *
+ * Example usage:
+ * FlattenOptions options = FlattenOptions.defaults().withSampleSize(FlattenOptions.FULL_SCAN);
+ *
+ * @param sampleSize         records read before the header is fixed, or {@link #FULL_SCAN} to
+ *                           pre-scan the whole input (files only)
+ * @param arrays             how arrays are flattened
+ * @param arraySeparator     separator between joined array elements
+ * @param ignoreLateColumns  {@code true} to drop columns first seen after the sample; {@code false}
+ *                           to fail instead of losing data silently
+ */
+public record FlattenOptions(int sampleSize, ArrayMode arrays, String arraySeparator, boolean ignoreLateColumns) {
+
+    /** Sample size that reads the whole input once to discover every column before writing. */
+    public static final int FULL_SCAN = 0;
+    /** Records sampled by {@link #defaults()}. */
+    public static final int DEFAULT_SAMPLE_SIZE = 1000;
+
+    /**
+     * Validates the settings.
+     *
+     * @throws IllegalArgumentException if the sample size is negative, or the array mode or
+     *                                  separator is null
+     */
+    public FlattenOptions {
+        if (sampleSize < 0) {
+            throw new IllegalArgumentException("The sample size cannot be negative: " + sampleSize);
+        }
+        if (arrays == null) {
+            throw new IllegalArgumentException("The array mode cannot be null");
+        }
+        if (arraySeparator == null) {
+            throw new IllegalArgumentException("The array separator cannot be null");
+        }
+    }
+
+    /** @return sample of {@value #DEFAULT_SAMPLE_SIZE} records, indexed arrays, failing on late columns */
+    public static FlattenOptions defaults() {
+        return new FlattenOptions(DEFAULT_SAMPLE_SIZE, ArrayMode.INDEXED, "|", false);
+    }
+
+    /**
+     * @param sampleSize records to sample, or {@link #FULL_SCAN}
+     * @return copy with the given sample size
+     */
+    public FlattenOptions withSampleSize(int sampleSize) {
+        return new FlattenOptions(sampleSize, arrays, arraySeparator, ignoreLateColumns);
+    }
+
+    /** @return copy that flattens arrays into {@code name.0}, {@code name.1}, ... columns */
+    public FlattenOptions withIndexedArrays() {
+        return new FlattenOptions(sampleSize, ArrayMode.INDEXED, arraySeparator, ignoreLateColumns);
+    }
+
+    /**
+     * @param separator text placed between elements
+     * @return copy that writes each array into one column, elements joined by {@code separator}
+     */
+    public FlattenOptions withJoinedArrays(String separator) {
+        return new FlattenOptions(sampleSize, ArrayMode.JOINED, separator, ignoreLateColumns);
+    }
+
+    /**
+     * @param separator text placed between joined array elements
+     * @return copy with the given separator; the array mode is unchanged
+     */
+    public FlattenOptions withArraySeparator(String separator) {
+        return new FlattenOptions(sampleSize, arrays, separator, ignoreLateColumns);
+    }
+
+    /**
+     * @param ignore whether columns first seen after the sample are dropped
+     * @return copy with the given late-column policy
+     */
+    public FlattenOptions withIgnoreLateColumns(boolean ignore) {
+        return new FlattenOptions(sampleSize, arrays, arraySeparator, ignore);
+    }
+
+    /** @return whether the whole input is scanned before writing */
+    public boolean isFullScan() {
+        return sampleSize == FULL_SCAN;
+    }
+
+    /**
+     * How JSON arrays are mapped to CSV columns.
+     */
+    public enum ArrayMode {
+
+        /** One column per position: {@code tags.0}, {@code tags.1}; objects inside go on to {@code items.0.id}. */
+        INDEXED,
+
+        /** One column per array; scalars are joined by the separator, nested values kept as compact JSON. */
+        JOINED
+    }
+}
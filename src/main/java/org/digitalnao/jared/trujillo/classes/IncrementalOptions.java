@@ -0,0 +1,58 @@
+package org.digitalnao.jared.trujillo.classes;
+
+/**
+ * Settings of an incremental JSON to CSV export. An index next to the CSV file
+ * ({@code users.csv.index}) remembers how far the input was read and a hash of every record's
+ * content under its {@code idField} value. The next export of the same input then converts only
+ * what changed since:
+ * <ul>
+ *   <li>an input that was not modified is not read at all;</li>
+ *   <li>an input that only grew, whose exported part still starts and ends with the same bytes,
+ *       is read from where the last export stopped; new records are appended and records whose id
+ *       was exported before replace their row;</li>
+ *   <li>any other input is tokenized again, but only new and changed records are bound and
+ *       serialized; the rows of unchanged records are copied from the previous CSV file, and rows
+ *       of records that are gone are dropped.</li>
+ * </ul>
+ * The CSV file holds one row per id, at the position where the id first appeared, with the content
+ * of its latest record.
+ *
+ * Example usage:
+ * IncrementalOptions options = IncrementalOptions.byId("id");
+ *
+ * @param idField top-level JSON field that identifies a record; it must also be a CSV column
+ * @param rescan  {@code true} to tokenize the whole input even if it only grew, which also finds
+ *                records edited in place inside the part exported before
+ */
+public record IncrementalOptions(String idField, boolean rescan) {
+
+    /** Extension appended to the output file name to name its index. */
+    public static final String SUFFIX = ".index";
+
+    /**
+     * Validates the settings.
+     *
+     * @throws IllegalArgumentException if the id field is null or blank
+     */
+    public IncrementalOptions {
+        if (idField == null || idField.isBlank()) {
+            throw new IllegalArgumentException("The parameter 'idField' cannot be null or blank.");
+        }
+    }
+
+    /**
+     * @param idField top-level JSON field identifying a record
+     * @return incremental export keyed by {@code idField} that reads only the appended part of a grown input
+     */
+    public static IncrementalOptions byId(String idField) {
+        return new IncrementalOptions(idField, false);
+    }
+
+    /**
+     * @param rescan whether the whole input is tokenized on every export
+     * @return copy with the given rescan policy
+     */
+    public IncrementalOptions withRescan(boolean rescan) {
+        return new IncrementalOptions(idField, rescan);
+    }
+}
@@ -0,0 +1,38 @@
+package org.digitalnao.jared.trujillo.classes;
+
+/**
+ * Outcome of an incremental export. {@code added} and {@code changed} are the records that were
+ * bound and serialized; everything else was skipped or copied, so together with {@code bytesRead}
+ * they show how much of the input the export actually had to process.
+ *
+ * @param mode      how the export was done
+ * @param records   rows in the CSV file, excluding the header
+ * @param added     records with an id that was not exported before
+ * @param changed   records whose row was replaced because their content changed
+ * @param removed   rows dropped because their id is no longer in the input
+ * @param unchanged records read whose content was already exported
+ * @param bytesRead input bytes tokenized, {@code 0} when the input was not modified
+ * @param nanos     wall-clock time of the export
+ */
+public record IncrementalResult(Mode mode, long records, long added, long changed, long removed, long unchanged,
+                                long bytesRead, long nanos) {
+
+    /** How an incremental export was done. */
+    public enum Mode {
+        /** There was no usable index: every record was converted and a new index written. */
+        FULL,
+        /** The input was not modified since the last export; nothing was read or written. */
+        UNCHANGED,
+        /** The input only grew: the records after the last exported one were read. */
+        APPENDED,
+        /** The whole input was tokenized and compared with the index. */
+        RESCANNED
+    }
+
+    /** @return one-line summary for logging */
+    public String summary() {
+        return String.format("%s: %d rows, %d added, %d changed, %d removed, %d unchanged, %d bytes read, %.2f s",
+                mode.name().toLowerCase(), records, added, changed, removed, unchanged, bytesRead,
+                nanos / 1_000_000_000.0);
+    }
+}
@@ -0,0 +1,19 @@
+package org.digitalnao.jared.trujillo.classes;
+
+/**
+ * How a JSON handler reads input files.
+ */
+public enum InputMode {
+
+    /** Read through buffered file streams (heap buffers filled by {@code read} calls). */
+    STANDARD,
+
+    /**
+     * Memory-map the file with {@code FileChannel.map} and parse straight from the page cache.
+     * Files over 2 GiB are mapped as consecutive regions. Best for large files read once, sequentially.
+     */
+    MEMORY_MAPPED,
+
+    /** Memory-map files at or above the handler's size threshold; read smaller files normally. */
+    AUTO
+}
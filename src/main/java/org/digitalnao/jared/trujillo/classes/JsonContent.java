@@ -0,0 +1,78 @@
+package org.digitalnao.jared.trujillo.classes;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Values read from a JSON file whose root may be either a single object or an array.
+ * The content is parsed lazily in a single pass: array elements are produced one at a time
+ * while iterating, so the file is never held in memory as a whole.
+ *
+ * Instances hold an open file and must be closed, ideally with try-with-resources.
+ *
+ * @param <T> value type
+ */
+public final class JsonContent<T> implements AutoCloseable {
+
+    private final boolean array;
+    private final Iterator<T> values;
+    private final Closeable source;
+
+    /**
+     * Creates the content view over an already positioned reader.
+     *
+     * @param array  whether the root of the file is a JSON array
+     * @param values lazy iterator over the root object or the array elements
+     * @param source resource released by {@link #close()}
+     */
+    public JsonContent(boolean array, Iterator<T> values, Closeable source) {
+        this.array = array;
+        this.values = values;
+        this.source = source;
+    }
+
+    /** @return {@code true} if the root of the file is a JSON array */
+    public boolean isArray() {
+        return array;
+    }
+
+    /**
+     * Returns the lazy iterator over the values. It can be consumed only once.
+     *
+     * @return iterator over the root object or the array elements
+     */
+    public Iterator<T> iterator() {
+        return values;
+    }
+
+    /**
+     * Returns a sequential stream over the values. It can be consumed only once;
+     * closing the stream closes this content.
+     *
+     * @return stream over the root object or the array elements
+     */
+    public Stream<T> stream() {
+        Spliterator<T> spliterator = Spliterators.spliteratorUnknownSize(values, Spliterator.ORDERED);
+        return StreamSupport.stream(spliterator, false).onClose(this::close);
+    }
+
+    /**
+     * Releases the underlying file.
+     *
+     * @throws UncheckedIOException if the file cannot be closed
+     */
+    @Override
+    public void close() {
+        try {
+            source.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package org.digitalnao.jared.trujillo.classes;
+
+/**
+ * Tuning of a pipelined JSON to CSV conversion: a reader thread cuts the input into batches of
+ * records, worker threads bind and serialize the batches, and the calling thread writes them in
+ * input order. Stages are connected by bounded queues, so a slow stage holds back the others
+ * instead of letting batches pile up in memory.
+ *
+ * Example usage:
+ * PipelineOptions options = PipelineOptions.defaults().withWorkers(4).withBatchSize(500);
+ *
+ * @param workers       threads binding and serializing batches
+ * @param batchSize     records handed from one stage to the next at once
+ * @param queueCapacity batches that may wait between stages; with {@code workers} batches being
+ *                      processed, at most {@code queueCapacity + workers} batches are in memory
+ */
+public record PipelineOptions(int workers, int batchSize, int queueCapacity) {
+
+    /** Records per batch used by {@link #defaults()}. */
+    public static final int DEFAULT_BATCH_SIZE = 256;
+
+    /**
+     * Validates the settings.
+     *
+     * @throws IllegalArgumentException if any value is not positive
+     */
+    public PipelineOptions {
+        if (workers <= 0) {
+            throw new IllegalArgumentException("The number of workers must be positive: " + workers);
+        }
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("The batch size must be positive: " + batchSize);
+        }
+        if (queueCapacity <= 0) {
+            throw new IllegalArgumentException("The queue capacity must be positive: " + queueCapacity);
+        }
+    }
+
+    /**
+     * @return one worker per available processor but one (left to the reader), batches of
+     *         {@value #DEFAULT_BATCH_SIZE} records and a queue of two batches per worker
+     */
+    public static PipelineOptions defaults() {
+        int workers = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        return new PipelineOptions(workers, DEFAULT_BATCH_SIZE, 2 * workers);
+    }
+
+    /**
+     * @param workers binding and serializing threads
+     * @return copy with the given number of workers
+     */
+    public PipelineOptions withWorkers(int workers) {
+        return new PipelineOptions(workers, batchSize, queueCapacity);
+    }
+
+    /**
+     * @param batchSize records per hand-off
+     * @return copy with the given batch size
+     */
+    public PipelineOptions withBatchSize(int batchSize) {
+        return new PipelineOptions(workers, batchSize, queueCapacity);
+    }
+
+    /**
+     * @param queueCapacity batches that may wait between stages
+     * @return copy with the given queue capacity
+     */
+    public PipelineOptions withQueueCapacity(int queueCapacity) {
+        return new PipelineOptions(workers, batchSize, queueCapacity);
+    }
+}
@@ -0,0 +1,29 @@
+package org.digitalnao.jared.trujillo.classes;
+
+/**
+ * Outcome of a pipelined conversion, with the figures needed to tune {@link PipelineOptions}.
+ * A reader often blocked means the workers or the writer are the bottleneck (add workers, or
+ * accept that the output is); a writer often waiting means parsing is (fewer workers will do).
+ *
+ * @param records            rows written, excluding the header
+ * @param batches            batches handed from the reader to the workers
+ * @param peakQueueDepth     most batches waiting for a worker at once
+ * @param readerBlockedNanos time the reader spent waiting for room in the queue (backpressure)
+ * @param writerWaitNanos    time the writer spent waiting for the next batch in order
+ * @param nanos              wall-clock time of the conversion
+ */
+public record PipelineResult(long records, long batches, int peakQueueDepth, long readerBlockedNanos,
+                             long writerWaitNanos, long nanos) {
+
+    /** @return rows written per second of wall-clock time */
+    public double recordsPerSecond() {
+        return nanos == 0 ? 0 : records * 1_000_000_000.0 / nanos;
+    }
+
+    /** @return one-line summary for logging */
+    public String summary() {
+        return String.format("%d rows in %d batches, %.2f s: %.0f rows/s, peak queue %d, reader blocked %d ms, writer waited %d ms",
+                records, batches, nanos / 1_000_000_000.0, recordsPerSecond(), peakQueueDepth,
+                readerBlockedNanos / 1_000_000, writerWaitNanos / 1_000_000);
+    }
+}
@@ -0,0 +1,93 @@
+package org.digitalnao.jared.trujillo.classes;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Column projection and row filter applied while JSON is read, before records are bound or written.
+ * Fields that are neither selected nor tested are skipped at the token level; records failing any
+ * predicate are dropped. An empty selection keeps every column.
+ *
+ * Example usage:
+ * RowQuery query = RowQuery.all().select("id", "email").where(FieldPredicate.matches("email", ".*@example\\.com"));
+ *
+ * @param columns    selected columns in output order; empty for all columns
+ * @param predicates conditions every written record meets
+ */
+public record RowQuery(List<String> columns, List<FieldPredicate> predicates) {
+
+    private static final RowQuery ALL = new RowQuery(List.of(), List.of());
+
+    /**
+     * Validates the query and keeps unmodifiable copies of its lists.
+     *
+     * @throws IllegalArgumentException if a column is blank or repeated, or a list is null
+     */
+    public RowQuery {
+        if (columns == null || predicates == null) {
+            throw new IllegalArgumentException("The columns and predicates cannot be null");
+        }
+        Set<String> unique = new LinkedHashSet<>();
+        for (String column : columns) {
+            if (column == null || column.isBlank()) {
+                throw new IllegalArgumentException("A selected column cannot be null neither blank");
+            }
+            if (!unique.add(column)) {
+                throw new IllegalArgumentException("Column selected twice: " + column);
+            }
+        }
+        columns = List.copyOf(columns);
+        predicates = List.copyOf(predicates);
+    }
+
+    /** @return query keeping every column and every row */
+    public static RowQuery all() {
+        return ALL;
+    }
+
+    /**
+     * @param columns columns to keep, in output order
+     * @return copy selecting only {@code columns}
+     */
+    public RowQuery select(String... columns) {
+        return new RowQuery(Arrays.asList(columns), predicates);
+    }
+
+    /**
+     * @param predicate condition to add; all conditions must hold
+     * @return copy with the extra condition
+     */
+    public RowQuery where(FieldPredicate predicate) {
+        if (predicate == null) {
+            throw new IllegalArgumentException("The predicate cannot be null");
+        }
+        List<FieldPredicate> all = new ArrayList<>(predicates);
+        all.add(predicate);
+        return new RowQuery(columns, all);
+    }
+
+    /** @return whether only some columns are selected */
+    public boolean isProjected() {
+        return !columns.isEmpty();
+    }
+
+    /** @return whether rows are filtered */
+    public boolean isFiltered() {
+        return !predicates.isEmpty();
+    }
+
+    /** @return whether the query keeps everything */
+    public boolean isAll() {
+        return !isProjected() && !isFiltered();
+    }
+
+    /** @return selected columns followed by the fields only read by predicates, without repeats */
+    public List<String> fields() {
+        Set<String> fields = new LinkedHashSet<>(columns);
+        predicates.forEach(p -> fields.add(p.field()));
+        return List.copyOf(fields);
+    }
+}
@@ -0,0 +1,102 @@
+package org.digitalnao.jared.trujillo.classes;
+
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Settings of a sorted JSON to CSV conversion. Rows are buffered until their estimated heap size
+ * reaches {@code memoryBytes}; each full buffer is sorted and spilled to a temporary run file, and
+ * the runs are merged into the output. An input that fits the budget is sorted in memory and never
+ * touches the disk. Rows with equal keys keep their input order.
+ *
+ * Example usage:
+ * SortOptions options = SortOptions.by("country", "-id").withDedup(SortOptions.Dedup.SORTED);
+ *
+ * @param keys           CSV columns to sort by, most significant first; a leading {@code -} sorts
+ *                       that column in descending order ({@code -id})
+ * @param memoryBytes    estimated heap the buffered rows may take before they are spilled; it also
+ *                       bounds the read buffers of a merge, and so the number of runs merged at once
+ * @param dedup          how records with equal keys are reduced to the first one read
+ * @param spillDirectory directory of the run files, or {@code null} for the system temporary directory
+ */
+public record SortOptions(List<String> keys, long memoryBytes, Dedup dedup, Path spillDirectory) {
+
+    /** Memory budget used by {@link #by(String...)}. */
+    public static final long DEFAULT_MEMORY_BYTES = 64L * 1024 * 1024;
+
+    /** How duplicates, records whose sort keys are all equal, are dropped. */
+    public enum Dedup {
+        /** Every record is written. */
+        NONE,
+        /** Duplicates are dropped as they meet in the sorted runs and the merge; needs no extra memory. */
+        SORTED,
+        /**
+         * Duplicates are dropped as they are read, before they are buffered or spilled, which saves
+         * disk when they are common; every distinct key is kept in a hash set on the heap.
+         */
+        HASH
+    }
+
+    /**
+     * Validates the settings.
+     *
+     * @throws IllegalArgumentException if there is no key, a key is blank or repeats a column, the
+     *                                  memory budget is not positive or the dedup mode is null
+     */
+    public SortOptions {
+        if (keys == null || keys.isEmpty()) {
+            throw new IllegalArgumentException("At least one sort key is required.");
+        }
+        keys = List.copyOf(keys);
+        Set<String> columns = new HashSet<>();
+        for (String key : keys) {
+            if (key.isBlank() || key.equals("-")) {
+                throw new IllegalArgumentException("A sort key cannot be blank: " + keys);
+            }
+            if (!columns.add(key.startsWith("-") ? key.substring(1) : key)) {
+                throw new IllegalArgumentException("A column can only be sorted once: " + keys);
+            }
+        }
+        if (memoryBytes <= 0) {
+            throw new IllegalArgumentException("The memory budget must be positive: " + memoryBytes);
+        }
+        if (dedup == null) {
+            throw new IllegalArgumentException("The parameter 'dedup' cannot be null.");
+        }
+    }
+
+    /**
+     * @param keys CSV columns to sort by, a leading {@code -} for descending order
+     * @return sort by {@code keys} with a {@value #DEFAULT_MEMORY_BYTES}-byte budget, no dedup and
+     *         run files in the system temporary directory
+     */
+    public static SortOptions by(String... keys) {
+        return new SortOptions(List.of(keys), DEFAULT_MEMORY_BYTES, Dedup.NONE, null);
+    }
+
+    /**
+     * @param memoryBytes estimated heap of the buffered rows before a spill
+     * @return copy with the given memory budget
+     */
+    public SortOptions withMemoryBytes(long memoryBytes) {
+        return new SortOptions(keys, memoryBytes, dedup, spillDirectory);
+    }
+
+    /**
+     * @param dedup how duplicates are dropped
+     * @return copy with the given dedup mode
+     */
+    public SortOptions withDedup(Dedup dedup) {
+        return new SortOptions(keys, memoryBytes, dedup, spillDirectory);
+    }
+
+    /**
+     * @param spillDirectory directory of the run files, or {@code null} for the system temporary directory
+     * @return copy spilling to the given directory
+     */
+    public SortOptions withSpillDirectory(Path spillDirectory) {
+        return new SortOptions(keys, memoryBytes, dedup, spillDirectory);
+    }
+}
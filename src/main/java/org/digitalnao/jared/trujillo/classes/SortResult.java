@@ -0,0 +1,28 @@
+package org.digitalnao.jared.trujillo.classes;
+
+/**
+ * Outcome of a sorted conversion, with the figures needed to tune {@link SortOptions}. Runs and
+ * spilled bytes show how far the input exceeded the memory budget; more than one merge pass means
+ * there were more runs than could be merged at once, and a larger budget would save a pass over the
+ * spilled data.
+ *
+ * @param records      rows written, excluding the header
+ * @param duplicates   records dropped by dedup
+ * @param runs         sorted runs spilled to disk, {@code 0} when the input was sorted in memory
+ * @param spilledBytes bytes written to run files, intermediate merges included
+ * @param mergePasses  passes merging runs, the final merge into the output included
+ * @param nanos        wall-clock time of the conversion
+ */
+public record SortResult(long records, long duplicates, int runs, long spilledBytes, int mergePasses, long nanos) {
+
+    /** @return rows written per second of wall-clock time */
+    public double recordsPerSecond() {
+        return nanos == 0 ? 0 : records * 1_000_000_000.0 / nanos;
+    }
+
+    /** @return one-line summary for logging */
+    public String summary() {
+        return String.format("%d rows, %d duplicates dropped, %.2f s: %.0f rows/s, %d runs spilled (%d bytes), %d merge passes",
+                records, duplicates, nanos / 1_000_000_000.0, recordsPerSecond(), runs, spilledBytes, mergePasses);
+    }
+}
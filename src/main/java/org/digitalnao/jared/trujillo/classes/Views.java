@@ -1,23 +1,23 @@
 package org.digitalnao.jared.trujillo.classes;
 
-import org.digitalnao.jared.trujillo.handlers.CsvHandlerFactory;
+import org.digitalnao.jared.trujillo.handlers.JsonCsvConverterFactory;
 import org.digitalnao.jared.trujillo.handlers.JsonHandlerFactory;
-import org.digitalnao.jared.trujillo.interfaces.CsvHandler;
+import org.digitalnao.jared.trujillo.interfaces.JsonCsvConverter;
 import org.digitalnao.jared.trujillo.interfaces.JsonHandler;
 
-import java.util.List;
 import java.util.Scanner;
 
 /**
  * The Views class provides a console-based interface
  * to read JSON files and optionally convert them to CSV format.
  *
- * This class interacts with JsonHandler and CsvHandler
+ * This class interacts with JsonHandler and JsonCsvConverter
  * through their respective factories, and manages user input via a menu.
  *
  * Features include:
  * - Reading and displaying JSON object or array content
  * - Converting JSON data into CSV format and saving it to a file
+ * - Converting any JSON into CSV, with columns discovered from the data
  * - Console-based menu loop for user interaction
  *
  * Example usage:
@@ -30,6 +30,8 @@ public class Views {
     Scanner scanner = new Scanner(System.in);
     /** JSON handler instance created using the factory. */
     JsonHandler jsonHandler = JsonHandlerFactory.createJsonHandler();
+    /** Streaming JSON to CSV converter created using the factory. */
+    JsonCsvConverter converter = JsonCsvConverterFactory.createJsonCsvConverter();
 
     /**
      * Starts the main program loop, displaying a menu to the user
@@ -45,16 +47,17 @@ public class Views {
             switch (input) {
                 case 1: readJsonFile(); break;
                 case 2: readJsonAndConvertToCsv(); break;
-                case 3:
+                case 3: convertAnyJsonToCsv(); break;
+                case 4:
                     System.out.println("Bye bye");
                     break;
 
                 default:
-                    System.out.println("Invalid option, Please choose 1-3.");
+                    System.out.println("Invalid option, Please choose 1-4.");
                     break;
             }
 
-        } while(input != 3);
+        } while(input != 4);
 
     }
 
@@ -62,7 +65,8 @@ public class Views {
      * Displays the main application menu with available options:
      * 1. Read JSON file
      * 2. Read JSON file and convert to CSV
-     * 3. Exit
+     * 3. Convert any JSON file to CSV
+     * 4. Exit
      */
     private void displayMenu() {
         System.out.println("\n====================================");
@@ -70,9 +74,10 @@ public class Views {
         System.out.println("====================================");
         System.out.println("1.- Read JSON file");
         System.out.println("2.- Read JSON file and convert to CSV");
-        System.out.println("3.- Exit");
+        System.out.println("3.- Convert any JSON file to CSV (columns from the data)");
+        System.out.println("4.- Exit");
         System.out.println("====================================");
-        System.out.print("Choose an option (1-3): ");
+        System.out.print("Choose an option (1-4): ");
     }
 
     /**
@@ -106,29 +111,21 @@ public class Views {
      */
     private String getCsvNewFilepath() {
         System.out.println("Enter CSV file path:");
-        return this.scanner.next().trim();
+        return this.scanner.nextLine().trim();
     }
 
     /**
      * Reads a JSON file specified by the user and displays its content.
      * If the JSON file contains an array, all objects are printed.
      * If the JSON file contains a single object, that object is printed.
+     * The file is parsed once; array elements are printed as they are read.
      */
     private void readJsonFile() {
         String filepath = this.getJsonFilepath();
 
-        try {
-            if (jsonHandler.isJsonArray(filepath)) {
-                List<User> userList = jsonHandler.fromJsonList(filepath, User.class);
-                System.out.println("\nJSON LIST CONTENT:");
-                userList.forEach(user -> {
-                    System.out.println(user.toString());
-                });
-            } else {
-                User user = jsonHandler.fromJson(filepath, User.class);
-                System.out.println("\nJSON OBJECT CONTENT:");
-                System.out.println(user.toString());
-            }
+        try (JsonContent<User> content = jsonHandler.readJson(filepath, User.class)) {
+            System.out.println(content.isArray() ? "\nJSON LIST CONTENT:" : "\nJSON OBJECT CONTENT:");
+            content.iterator().forEachRemaining(user -> System.out.println(user.toString()));
         } catch(Exception e) {
             System.out.println(e);
         }
@@ -141,28 +138,43 @@ public class Views {
      * Reads a JSON file and converts its content to a CSV file.
      * If the JSON file contains an array, all objects are written to the CSV file.
      * If the JSON file contains a single object, only that object is written.
+     * The file is streamed, so arrays of any size are converted in constant memory.
      */
     private void readJsonAndConvertToCsv() {
 
         String filepath = this.getJsonFilepath();
-
-        CsvHandler csvHandler = CsvHandlerFactory.createCsvHandler();
         String csvFilepath = this.getCsvNewFilepath();
 
         try {
-            if (jsonHandler.isJsonArray(filepath)) {
-                List<User> userList = jsonHandler.fromJsonList(filepath, User.class);
-                csvHandler.writeToCsv(userList, User.class, csvFilepath);
-            } else {
-                User user = jsonHandler.fromJson(filepath, User.class);
-                csvHandler.writeToCsv(user, User.class, csvFilepath);
-            }
+            long rows = converter.convert(filepath, csvFilepath, User.class);
+            System.out.println("CSV file generated successfully (" + rows + " rows)");
         } catch(Exception e) {
             System.out.println(e);
         }
 
         System.out.println("Enter to continue ...");
         this.scanner.nextLine();
+    }
+
+    /**
+     * Converts a JSON file of any shape to a CSV file without binding it to {@link User}.
+     * Columns are discovered by scanning the whole file first; nested objects become dotted
+     * column names and arrays become indexed columns.
+     */
+    private void convertAnyJsonToCsv() {
+
+        String filepath = this.getJsonFilepath();
+        String csvFilepath = this.getCsvNewFilepath();
+
+        try {
+            FlattenOptions options = FlattenOptions.defaults().withSampleSize(FlattenOptions.FULL_SCAN);
+            long rows = converter.convertFlattened(filepath, csvFilepath, options);
+            System.out.println("CSV file generated successfully (" + rows + " rows)");
+        } catch(Exception e) {
+            System.out.println(e);
+        }
+
+        System.out.println("Enter to continue ...");
         this.scanner.nextLine();
     }
 
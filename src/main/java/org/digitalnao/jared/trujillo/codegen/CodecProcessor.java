@@ -0,0 +1,358 @@
+package org.digitalnao.jared.trujillo.codegen;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Annotation processor that writes a {@code ModelCodec} named {@code Foo_Codec} next to every class
+ * {@code Foo} annotated with {@code @JsonPropertyOrder}. The codec calls getters and setters
+ * directly, so serializing a row needs no bean introspection and every call site is monomorphic.
+ *
+ * A codec is only generated when it provably matches Jackson's own behaviour: a public top-level
+ * class with a public no-arg constructor, no other Jackson annotations, no public fields, and a
+ * property order naming exactly its getter/setter pairs of type {@code String}, {@code int},
+ * {@code long}, {@code double}, {@code float}, {@code boolean} or their wrappers. Anything else
+ * is reported as a note and left to the reflective path.
+ *
+ * The processor runs in a dedicated compiler execution (see {@code pom.xml}); it is not registered
+ * as a service, so projects depending on this library never run it by accident.
+ */
+@SupportedAnnotationTypes(CodecProcessor.PROPERTY_ORDER)
+public final class CodecProcessor extends AbstractProcessor {
+
+    static final String PROPERTY_ORDER = "com.fasterxml.jackson.annotation.JsonPropertyOrder";
+    static final String SUFFIX = "_Codec";
+
+    private static final Map<String, PropertyKind> KINDS = Map.ofEntries(
+            Map.entry("java.lang.String", PropertyKind.STRING),
+            Map.entry("int", PropertyKind.INT), Map.entry("java.lang.Integer", PropertyKind.INT),
+            Map.entry("long", PropertyKind.LONG), Map.entry("java.lang.Long", PropertyKind.LONG),
+            Map.entry("double", PropertyKind.DOUBLE), Map.entry("java.lang.Double", PropertyKind.DOUBLE),
+            Map.entry("float", PropertyKind.FLOAT), Map.entry("java.lang.Float", PropertyKind.FLOAT),
+            Map.entry("boolean", PropertyKind.BOOLEAN), Map.entry("java.lang.Boolean", PropertyKind.BOOLEAN));
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment round) {
+        for (TypeElement annotation : annotations) {
+            for (Element element : round.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() == ElementKind.CLASS) {
+                    generate((TypeElement) element);
+                }
+            }
+        }
+        return false;
+    }
+
+    private void generate(TypeElement type) {
+        Messager messager = processingEnv.getMessager();
+        List<Property> properties;
+        try {
+            properties = properties(type);
+        } catch (UnsupportedModelException e) {
+            messager.printMessage(Diagnostic.Kind.NOTE,
+                    "No codec generated for " + type.getQualifiedName() + ": " + e.getMessage(), type);
+            return;
+        }
+
+        String pkg = ((PackageElement) type.getEnclosingElement()).getQualifiedName().toString();
+        String name = type.getSimpleName() + SUFFIX;
+        String qualified = pkg.isEmpty() ? name : pkg + "." + name;
+        try (Writer out = processingEnv.getFiler().createSourceFile(qualified, type).openWriter()) {
+            out.write(source(pkg, name, type.getSimpleName().toString(), properties));
+        } catch (IOException e) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "Could not write " + qualified + ": " + e.getMessage(), type);
+        }
+    }
+
+    private List<Property> properties(TypeElement type) throws UnsupportedModelException {
+        if (type.getNestingKind() != NestingKind.TOP_LEVEL || !type.getModifiers().contains(Modifier.PUBLIC)
+                || type.getModifiers().contains(Modifier.ABSTRACT) || !type.getTypeParameters().isEmpty()) {
+            throw new UnsupportedModelException("only public, concrete, non-generic top-level classes are supported");
+        }
+        if (!"java.lang.Object".equals(type.getSuperclass().toString())) {
+            throw new UnsupportedModelException("inherited properties are not supported");
+        }
+        boolean noArgConstructor = ElementFilter.constructorsIn(type.getEnclosedElements()).stream()
+                .anyMatch(c -> c.getParameters().isEmpty() && c.getModifiers().contains(Modifier.PUBLIC));
+        if (!noArgConstructor) {
+            throw new UnsupportedModelException("a public no-arg constructor is required");
+        }
+
+        AnnotationMirror order = null;
+        for (AnnotationMirror mirror : type.getAnnotationMirrors()) {
+            String annotation = mirror.getAnnotationType().toString();
+            if (PROPERTY_ORDER.equals(annotation)) {
+                order = mirror;
+            } else if (annotation.startsWith("com.fasterxml.jackson.")) {
+                throw new UnsupportedModelException("@" + annotation + " is not supported");
+            }
+        }
+        for (Element member : type.getEnclosedElements()) {
+            for (AnnotationMirror mirror : member.getAnnotationMirrors()) {
+                if (mirror.getAnnotationType().toString().startsWith("com.fasterxml.jackson.")) {
+                    throw new UnsupportedModelException("member annotation on " + member.getSimpleName() + " is not supported");
+                }
+            }
+            if (member.getKind() == ElementKind.FIELD && member.getModifiers().contains(Modifier.PUBLIC)
+                    && !member.getModifiers().contains(Modifier.STATIC)) {
+                throw new UnsupportedModelException("public field " + member.getSimpleName() + " is not supported");
+            }
+        }
+
+        Map<String, ExecutableElement> getters = new LinkedHashMap<>();
+        Map<String, ExecutableElement> setters = new LinkedHashMap<>();
+        for (ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+            if (!method.getModifiers().contains(Modifier.PUBLIC) || method.getModifiers().contains(Modifier.STATIC)) {
+                continue;
+            }
+            String methodName = method.getSimpleName().toString();
+            if (method.getParameters().isEmpty() && method.getReturnType().getKind() != TypeKind.VOID) {
+                if (methodName.startsWith("get") && methodName.length() > 3) {
+                    getters.put(decapitalize(methodName.substring(3)), method);
+                } else if (methodName.startsWith("is") && methodName.length() > 2
+                        && method.getReturnType().getKind() == TypeKind.BOOLEAN) {
+                    getters.put(decapitalize(methodName.substring(2)), method);
+                }
+            } else if (method.getParameters().size() == 1 && methodName.startsWith("set") && methodName.length() > 3) {
+                if (setters.put(decapitalize(methodName.substring(3)), method) != null) {
+                    throw new UnsupportedModelException("overloaded setter " + methodName + " is not supported");
+                }
+            }
+        }
+
+        List<String> names = orderedNames(order);
+        if (!getters.keySet().equals(setters.keySet()) || !getters.keySet().equals(Set.copyOf(names))
+                || names.size() != getters.size()) {
+            throw new UnsupportedModelException("@JsonPropertyOrder must list exactly the getter/setter pairs " + getters.keySet());
+        }
+
+        List<Property> properties = new ArrayList<>();
+        for (String name : names) {
+            ExecutableElement getter = getters.get(name);
+            TypeMirror valueType = getter.getReturnType();
+            VariableElement parameter = setters.get(name).getParameters().get(0);
+            if (!processingEnv.getTypeUtils().isSameType(valueType, parameter.asType())) {
+                throw new UnsupportedModelException("getter and setter types of '" + name + "' differ");
+            }
+            PropertyKind kind = KINDS.get(valueType.toString());
+            if (kind == null) {
+                throw new UnsupportedModelException("type " + valueType + " of '" + name + "' is not supported");
+            }
+            properties.add(new Property(name, getter.getSimpleName().toString(),
+                    setters.get(name).getSimpleName().toString(), kind, valueType.getKind().isPrimitive()));
+        }
+        return properties;
+    }
+
+    private static List<String> orderedNames(AnnotationMirror order) throws UnsupportedModelException {
+        List<String> names = new ArrayList<>();
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : order.getElementValues().entrySet()) {
+            String key = entry.getKey().getSimpleName().toString();
+            if ("value".equals(key)) {
+                @SuppressWarnings("unchecked")
+                List<? extends AnnotationValue> values = (List<? extends AnnotationValue>) entry.getValue().getValue();
+                values.forEach(v -> names.add((String) v.getValue()));
+            } else if ("alphabetic".equals(key) && Boolean.TRUE.equals(entry.getValue().getValue())) {
+                throw new UnsupportedModelException("alphabetic ordering is not supported");
+            }
+        }
+        return names;
+    }
+
+    /** Same rule as Jackson's default accessor naming: lower-case the leading upper-case run. */
+    private static String decapitalize(String name) {
+        char[] chars = name.toCharArray();
+        for (int i = 0; i < chars.length && Character.isUpperCase(chars[i]); i++) {
+            chars[i] = Character.toLowerCase(chars[i]);
+        }
+        return new String(chars);
+    }
+
+    private static String source(String pkg, String name, String model, List<Property> properties) {
+        StringBuilder src = new StringBuilder();
+        if (!pkg.isEmpty()) {
+            src.append("package ").append(pkg).append(";\n\n");
+        }
+        src.append("import com.fasterxml.jackson.core.JsonGenerator;\n")
+           .append("import com.fasterxml.jackson.core.JsonParser;\n")
+           .append("import com.fasterxml.jackson.core.JsonToken;\n")
+           .append("import com.fasterxml.jackson.databind.DeserializationContext;\n")
+           .append("import com.fasterxml.jackson.dataformat.csv.CsvSchema;\n")
+           .append("import org.digitalnao.jared.trujillo.interfaces.CsvFieldWriter;\n")
+           .append("import org.digitalnao.jared.trujillo.interfaces.ModelCodec;\n\n")
+           .append("import java.io.IOException;\n\n")
+           .append("/** Generated codec for {@link ").append(model).append("}; do not edit. */\n")
+           .append("@javax.annotation.processing.Generated(\"").append(CodecProcessor.class.getName()).append("\")\n")
+           .append("public final class ").append(name).append(" implements ModelCodec<").append(model).append("> {\n\n")
+           .append("    private static final CsvSchema SCHEMA = CsvSchema.builder()\n");
+        for (Property p : properties) {
+            src.append("            .addColumn(\"").append(p.name).append("\", CsvSchema.ColumnType.")
+               .append(p.kind.columnType).append(")\n");
+        }
+        src.append("            .build();\n\n")
+           .append("    @Override\n    public Class<").append(model).append("> type() {\n")
+           .append("        return ").append(model).append(".class;\n    }\n\n")
+           .append("    @Override\n    public CsvSchema csvSchema() {\n        return SCHEMA;\n    }\n\n")
+           .append("    @Override\n    public ").append(model).append(" newInstance() {\n")
+           .append("        return new ").append(model).append("();\n    }\n\n")
+           .append("    @Override\n    public void write(").append(model)
+           .append(" value, JsonGenerator generator) throws IOException {\n")
+           .append("        generator.writeStartObject(value);\n");
+        for (Property p : properties) {
+            src.append(p.writeStatement());
+        }
+        src.append("        generator.writeEndObject();\n    }\n\n")
+           .append("    @Override\n    public void writeCsv(").append(model)
+           .append(" value, CsvFieldWriter row) throws IOException {\n");
+        for (Property p : properties) {
+            src.append(p.csvStatement());
+        }
+        src.append("        row.endRow();\n    }\n\n")
+           .append("    @Override\n    public boolean readProperty(").append(model)
+           .append(" value, String name, JsonParser parser, DeserializationContext context) throws IOException {\n")
+           .append("        JsonToken token = parser.currentToken();\n")
+           .append("        switch (name) {\n");
+        for (Property p : properties) {
+            src.append("            case \"").append(p.name).append("\":\n")
+               .append("                value.").append(p.setter).append('(').append(p.readExpression()).append(");\n")
+               .append("                return true;\n");
+        }
+        src.append("            default:\n                return false;\n        }\n    }\n}\n");
+        return src.toString();
+    }
+
+    /** Supported property types with the generator call and parser fast path of each. */
+    private enum PropertyKind {
+        STRING("STRING", "String", "writeStringField", "writeString", "VALUE_STRING", "parser.getText()"),
+        INT("NUMBER", "int", "writeNumberField", "writeInt", "VALUE_NUMBER_INT", "parser.getIntValue()"),
+        LONG("NUMBER", "long", "writeNumberField", "writeLong", "VALUE_NUMBER_INT", "parser.getLongValue()"),
+        DOUBLE("NUMBER", "double", "writeNumberField", "writeDouble", "VALUE_NUMBER_FLOAT", "parser.getDoubleValue()"),
+        FLOAT("NUMBER", "float", "writeNumberField", "writeFloat", "VALUE_NUMBER_FLOAT", "parser.getFloatValue()"),
+        BOOLEAN("BOOLEAN", "boolean", "writeBooleanField", "writeBoolean", "VALUE_TRUE", "true");
+
+        final String columnType;
+        final String primitive;
+        final String writeMethod;
+        final String csvMethod;
+        final String fastToken;
+        final String fastValue;
+
+        PropertyKind(String columnType, String primitive, String writeMethod, String csvMethod,
+                     String fastToken, String fastValue) {
+            this.columnType = columnType;
+            this.primitive = primitive;
+            this.writeMethod = writeMethod;
+            this.csvMethod = csvMethod;
+            this.fastToken = fastToken;
+            this.fastValue = fastValue;
+        }
+
+        String boxed() {
+            switch (this) {
+                case STRING: return "String";
+                case INT: return "Integer";
+                case BOOLEAN: return "Boolean";
+                default: return Character.toUpperCase(primitive.charAt(0)) + primitive.substring(1);
+            }
+        }
+    }
+
+    private static final class Property {
+
+        final String name;
+        final String getter;
+        final String setter;
+        final PropertyKind kind;
+        final boolean primitive;
+
+        Property(String name, String getter, String setter, PropertyKind kind, boolean primitive) {
+            this.name = name;
+            this.getter = getter;
+            this.setter = setter;
+            this.kind = kind;
+            this.primitive = primitive;
+        }
+
+        String writeStatement() {
+            String call = "generator." + kind.writeMethod + "(\"" + name + "\", ";
+            if (primitive || kind == PropertyKind.STRING) {
+                return "        " + call + "value." + getter + "());\n";
+            }
+            // wrappers: Jackson writes null for a null wrapper and the plain value otherwise
+            return "        " + kind.boxed() + " " + name + "Value = value." + getter + "();\n"
+                    + "        if (" + name + "Value == null) {\n"
+                    + "            generator.writeNullField(\"" + name + "\");\n"
+                    + "        } else {\n"
+                    + "            " + call + name + "Value);\n"
+                    + "        }\n";
+        }
+
+        String csvStatement() {
+            String call = "row." + kind.csvMethod + "(";
+            if (primitive || kind == PropertyKind.STRING) {
+                return "        " + call + "value." + getter + "());\n";
+            }
+            return "        " + kind.boxed() + " " + name + "Value = value." + getter + "();\n"
+                    + "        if (" + name + "Value == null) {\n"
+                    + "            row.writeNull();\n"
+                    + "        } else {\n"
+                    + "            " + call + name + "Value);\n"
+                    + "        }\n";
+        }
+
+        String readExpression() {
+            // anything outside the fast path (coercions, nulls for primitives, errors) goes through
+            // Jackson's own deserializer for the type so the behaviour is identical
+            String fallback = "context.readValue(parser, " + (primitive ? kind.primitive : kind.boxed()) + ".class)";
+            if (kind == PropertyKind.BOOLEAN) {
+                String fast = "token == JsonToken.VALUE_TRUE ? Boolean.TRUE : token == JsonToken.VALUE_FALSE ? Boolean.FALSE : " + fallback;
+                return primitive ? fast : "token == JsonToken.VALUE_NULL ? null : " + fast;
+            }
+            if (primitive) {
+                return "token == JsonToken." + kind.fastToken + " ? " + kind.fastValue + " : " + fallback;
+            }
+            // cast keeps the wrapper type, so a null from the fallback is never unboxed
+            String value = kind == PropertyKind.STRING ? kind.fastValue : "(" + kind.boxed() + ") " + kind.fastValue;
+            return "token == JsonToken.VALUE_NULL ? null : token == JsonToken." + kind.fastToken
+                    + " ? " + value + " : " + fallback;
+        }
+    }
+
+    private static final class UnsupportedModelException extends Exception {
+
+        private static final long serialVersionUID = 1L;
+
+        UnsupportedModelException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package org.digitalnao.jared.trujillo.exceptions;
+
+/**
+ * Unchecked exception for columnar (Arrow) output errors.
+ */
+public class ColumnarHandlerException extends RuntimeException {
+    /**
+     * Creates an exception with the given message and cause.
+     *
+     * @param message description of the error
+     * @param cause   underlying cause (may be {@code null})
+     */
+    public ColumnarHandlerException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    /**
+     * Creates an exception with the given message.
+     *
+     * @param message description of the error
+     */
+    public ColumnarHandlerException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,572 @@
+package org.digitalnao.jared.trujillo.handlers;
+
+import org.digitalnao.jared.trujillo.handlers.RecordColumns.Column;
+import org.digitalnao.jared.trujillo.interfaces.CsvFieldWriter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Column vectors of one Arrow record batch, filled a row at a time through the same
+ * {@link CsvFieldWriter} calls a generated codec makes for a CSV row. Each column keeps its values
+ * in a primitive array of the batch capacity ({@code int[]} for an {@code int} property, and so on),
+ * so filling a batch boxes nothing; strings are encoded as UTF-8 into one growing byte array with
+ * an offsets array, as Arrow lays them out.
+ *
+ * The arrays are allocated once and reused by every batch after {@link #clear()}, so memory is
+ * bounded by the capacity whatever the number of rows written.
+ */
+final class ArrowBatch implements CsvFieldWriter {
+
+    private final List<Column> schema;
+    private final int capacity;
+    private final Vector[] vectors;
+    private int column;
+    private int rows;
+
+    /**
+     * @param schema   columns in write order
+     * @param capacity rows per batch
+     */
+    ArrowBatch(List<Column> schema, int capacity) {
+        this.schema = schema;
+        this.capacity = capacity;
+        this.vectors = new Vector[schema.size()];
+        for (int i = 0; i < vectors.length; i++) {
+            vectors[i] = switch (schema.get(i).type()) {
+                case INT32 -> new IntVector(capacity);
+                case INT64 -> new LongVector(capacity);
+                case FLOAT32 -> new FloatVector(capacity);
+                case FLOAT64 -> new DoubleVector(capacity);
+                case BOOL -> new BooleanVector(capacity);
+                case UTF8 -> new TextVector(capacity);
+            };
+        }
+    }
+
+    List<Column> schema() {
+        return schema;
+    }
+
+    /** @return rows in the batch */
+    int rows() {
+        return rows;
+    }
+
+    /** @return whether no more rows fit */
+    boolean isFull() {
+        return rows == capacity;
+    }
+
+    /** Empties the batch, keeping its arrays. */
+    void clear() {
+        for (Vector vector : vectors) {
+            vector.clear(rows);
+        }
+        rows = 0;
+        column = 0;
+    }
+
+    @Override
+    public void writeString(String value) throws IOException {
+        if (value == null) {
+            writeNull();
+        } else {
+            next().putString(value);
+        }
+    }
+
+    @Override
+    public void writeInt(int value) throws IOException {
+        next().putLong(value);
+    }
+
+    @Override
+    public void writeLong(long value) throws IOException {
+        next().putLong(value);
+    }
+
+    @Override
+    public void writeDouble(double value) throws IOException {
+        next().putDouble(value);
+    }
+
+    @Override
+    public void writeFloat(float value) throws IOException {
+        next().putFloat(value);
+    }
+
+    @Override
+    public void writeBoolean(boolean value) throws IOException {
+        next().putBoolean(value);
+    }
+
+    @Override
+    public void writeNull() throws IOException {
+        int index = column;
+        Vector vector = next();
+        if (!schema.get(index).nullable()) {
+            throw new IOException("Column '" + schema.get(index).name() + "' cannot be null");
+        }
+        vector.putNull();
+    }
+
+    @Override
+    public void endRow() throws IOException {
+        if (column != vectors.length) {
+            throw new IOException("Row " + rows + " has " + column + " values; expected " + vectors.length);
+        }
+        column = 0;
+        rows++;
+    }
+
+    /**
+     * Appends the Arrow buffers of every column to {@code body}: validity bitmap (empty when
+     * there are no nulls), then values, or offsets and values for text. Each buffer is padded to
+     * 8 bytes.
+     *
+     * @param body   record batch body being assembled
+     * @param nodes  receives the length and null count of each column
+     * @param layout receives the offset and length of each buffer within the body
+     */
+    void writeBuffers(Body body, List<long[]> nodes, List<long[]> layout) {
+        for (Vector vector : vectors) {
+            nodes.add(new long[] {rows, vector.nullCount});
+            layout.add(body.add(vector.nullCount == 0 ? null : vector.validity, (rows + 7) / 8));
+            vector.writeValues(body, rows, layout);
+        }
+    }
+
+    private Vector next() throws IOException {
+        if (column == vectors.length) {
+            throw new IOException("Row " + rows + " has more than " + vectors.length + " values");
+        }
+        Vector vector = vectors[column++];
+        vector.markValid(rows);
+        return vector;
+    }
+
+    /**
+     * Little-endian body of a record batch, with each buffer starting on an 8-byte boundary.
+     */
+    static final class Body {
+
+        private ByteBuffer buffer = ByteBuffer.allocate(64 * 1024).order(ByteOrder.LITTLE_ENDIAN);
+
+        /** @return the body bytes and their count, in {@link #array()} up to {@link #length()} */
+        byte[] array() {
+            return buffer.array();
+        }
+
+        int length() {
+            return buffer.position();
+        }
+
+        void clear() {
+            buffer.clear();
+        }
+
+        /** Appends {@code length} bytes of {@code bytes}, or an empty buffer for {@code null}. */
+        long[] add(byte[] bytes, int length) {
+            if (bytes == null) {
+                return new long[] {buffer.position(), 0};
+            }
+            ByteBuffer target = reserve(length);
+            long offset = target.position();
+            target.put(bytes, 0, length);
+            return pad(offset);
+        }
+
+        long[] addInts(int[] values, int count) {
+            ByteBuffer target = reserve(4L * count);
+            long offset = target.position();
+            target.asIntBuffer().put(values, 0, count);
+            target.position((int) offset + 4 * count);
+            return pad(offset);
+        }
+
+        long[] addLongs(long[] values, int count) {
+            ByteBuffer target = reserve(8L * count);
+            long offset = target.position();
+            target.asLongBuffer().put(values, 0, count);
+            target.position((int) offset + 8 * count);
+            return pad(offset);
+        }
+
+        long[] addFloats(float[] values, int count) {
+            ByteBuffer target = reserve(4L * count);
+            long offset = target.position();
+            target.asFloatBuffer().put(values, 0, count);
+            target.position((int) offset + 4 * count);
+            return pad(offset);
+        }
+
+        long[] addDoubles(double[] values, int count) {
+            ByteBuffer target = reserve(8L * count);
+            long offset = target.position();
+            target.asDoubleBuffer().put(values, 0, count);
+            target.position((int) offset + 8 * count);
+            return pad(offset);
+        }
+
+        private long[] pad(long offset) {
+            long length = buffer.position() - offset;
+            while ((buffer.position() & 7) != 0) {
+                buffer.put((byte) 0);
+            }
+            return new long[] {offset, length};
+        }
+
+        private ByteBuffer reserve(long bytes) {
+            long needed = buffer.position() + bytes + 8;
+            if (needed > buffer.capacity()) {
+                if (needed > Integer.MAX_VALUE - 8) {
+                    throw new IllegalStateException("A record batch body cannot exceed 2 GiB; use smaller batches");
+                }
+                ByteBuffer grown = ByteBuffer.allocate((int) Math.max(needed, Math.min(Integer.MAX_VALUE - 8,
+                        2L * buffer.capacity()))).order(ByteOrder.LITTLE_ENDIAN);
+                buffer.flip();
+                grown.put(buffer);
+                buffer = grown;
+            }
+            return buffer;
+        }
+    }
+
+    /** Values and validity of one column. */
+    private abstract static class Vector {
+
+        final byte[] validity;
+        int nullCount;
+
+        Vector(int capacity) {
+            this.validity = new byte[(capacity + 7) / 8];
+        }
+
+        void markValid(int row) {
+            validity[row >>> 3] |= (byte) (1 << (row & 7));
+        }
+
+        void putNull() {
+            // markValid ran before the value was known
+            int row = rows();
+            validity[row >>> 3] &= (byte) ~(1 << (row & 7));
+            nullCount++;
+            skip();
+        }
+
+        void clear(int rows) {
+            Arrays.fill(validity, 0, (rows + 7) / 8, (byte) 0);
+            nullCount = 0;
+        }
+
+        abstract int rows();
+
+        /** Leaves the current slot at its default value. */
+        abstract void skip();
+
+        void putString(String value) throws IOException {
+            throw new IOException("Cannot write text '" + value + "' to a " + getClass().getSimpleName());
+        }
+
+        void putLong(long value) throws IOException {
+            throw new IOException("Cannot write number " + value + " to a " + getClass().getSimpleName());
+        }
+
+        void putDouble(double value) throws IOException {
+            throw new IOException("Cannot write number " + value + " to a " + getClass().getSimpleName());
+        }
+
+        void putFloat(float value) throws IOException {
+            putDouble(value);
+        }
+
+        void putBoolean(boolean value) throws IOException {
+            throw new IOException("Cannot write boolean " + value + " to a " + getClass().getSimpleName());
+        }
+
+        abstract void writeValues(Body body, int rows, List<long[]> layout);
+    }
+
+    private static final class IntVector extends Vector {
+
+        private final int[] values;
+        private int size;
+
+        IntVector(int capacity) {
+            super(capacity);
+            this.values = new int[capacity];
+        }
+
+        @Override
+        int rows() {
+            return size;
+        }
+
+        @Override
+        void skip() {
+            values[size++] = 0;
+        }
+
+        @Override
+        void putLong(long value) throws IOException {
+            if ((int) value != value) {
+                throw new IOException("Number " + value + " does not fit a 32-bit column");
+            }
+            values[size++] = (int) value;
+        }
+
+        @Override
+        void clear(int rows) {
+            super.clear(rows);
+            size = 0;
+        }
+
+        @Override
+        void writeValues(Body body, int rows, List<long[]> layout) {
+            layout.add(body.addInts(values, rows));
+        }
+    }
+
+    private static final class LongVector extends Vector {
+
+        private final long[] values;
+        private int size;
+
+        LongVector(int capacity) {
+            super(capacity);
+            this.values = new long[capacity];
+        }
+
+        @Override
+        int rows() {
+            return size;
+        }
+
+        @Override
+        void skip() {
+            values[size++] = 0;
+        }
+
+        @Override
+        void putLong(long value) {
+            values[size++] = value;
+        }
+
+        @Override
+        void clear(int rows) {
+            super.clear(rows);
+            size = 0;
+        }
+
+        @Override
+        void writeValues(Body body, int rows, List<long[]> layout) {
+            layout.add(body.addLongs(values, rows));
+        }
+    }
+
+    private static final class FloatVector extends Vector {
+
+        private final float[] values;
+        private int size;
+
+        FloatVector(int capacity) {
+            super(capacity);
+            this.values = new float[capacity];
+        }
+
+        @Override
+        int rows() {
+            return size;
+        }
+
+        @Override
+        void skip() {
+            values[size++] = 0;
+        }
+
+        @Override
+        void putLong(long value) {
+            values[size++] = value;
+        }
+
+        @Override
+        void putDouble(double value) {
+            values[size++] = (float) value;
+        }
+
+        @Override
+        void clear(int rows) {
+            super.clear(rows);
+            size = 0;
+        }
+
+        @Override
+        void writeValues(Body body, int rows, List<long[]> layout) {
+            layout.add(body.addFloats(values, rows));
+        }
+    }
+
+    private static final class DoubleVector extends Vector {
+
+        private final double[] values;
+        private int size;
+
+        DoubleVector(int capacity) {
+            super(capacity);
+            this.values = new double[capacity];
+        }
+
+        @Override
+        int rows() {
+            return size;
+        }
+
+        @Override
+        void skip() {
+            values[size++] = 0;
+        }
+
+        @Override
+        void putLong(long value) {
+            values[size++] = value;
+        }
+
+        @Override
+        void putDouble(double value) {
+            values[size++] = value;
+        }
+
+        @Override
+        void clear(int rows) {
+            super.clear(rows);
+            size = 0;
+        }
+
+        @Override
+        void writeValues(Body body, int rows, List<long[]> layout) {
+            layout.add(body.addDoubles(values, rows));
+        }
+    }
+
+    private static final class BooleanVector extends Vector {
+
+        private final byte[] values;
+        private int size;
+
+        BooleanVector(int capacity) {
+            super(capacity);
+            this.values = new byte[(capacity + 7) / 8];
+        }
+
+        @Override
+        int rows() {
+            return size;
+        }
+
+        @Override
+        void skip() {
+            size++;
+        }
+
+        @Override
+        void putBoolean(boolean value) {
+            if (value) {
+                values[size >>> 3] |= (byte) (1 << (size & 7));
+            }
+            size++;
+        }
+
+        @Override
+        void clear(int rows) {
+            super.clear(rows);
+            Arrays.fill(values, 0, (rows + 7) / 8, (byte) 0);
+            size = 0;
+        }
+
+        @Override
+        void writeValues(Body body, int rows, List<long[]> layout) {
+            layout.add(body.add(values, (rows + 7) / 8));
+        }
+    }
+
+    /**
+     * Text column: value {@code i} is {@code data[offsets[i]..offsets[i + 1])}. Numbers and
+     * booleans written to it are stored as their text, the way the CSV output shows them.
+     */
+    private static final class TextVector extends Vector {
+
+        private final int[] offsets;
+        private byte[] data;
+        private int size;
+
+        TextVector(int capacity) {
+            super(capacity);
+            this.offsets = new int[capacity + 1];
+            this.data = new byte[Math.max(1024, capacity * 16)];
+        }
+
+        @Override
+        int rows() {
+            return size;
+        }
+
+        @Override
+        void skip() {
+            offsets[size + 1] = offsets[size];
+            size++;
+        }
+
+        @Override
+        void putString(String value) throws IOException {
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            int start = offsets[size];
+            if (start + (long) utf8.length > Integer.MAX_VALUE - 8) {
+                throw new IOException("A text column cannot hold more than 2 GiB per batch; use smaller batches");
+            }
+            if (start + utf8.length > data.length) {
+                data = Arrays.copyOf(data, (int) Math.min(Integer.MAX_VALUE - 8,
+                        Math.max(start + (long) utf8.length, 2L * data.length)));
+            }
+            System.arraycopy(utf8, 0, data, start, utf8.length);
+            offsets[size + 1] = start + utf8.length;
+            size++;
+        }
+
+        @Override
+        void putLong(long value) throws IOException {
+            putString(Long.toString(value));
+        }
+
+        @Override
+        void putDouble(double value) throws IOException {
+            putString(Double.toString(value));
+        }
+
+        @Override
+        void putFloat(float value) throws IOException {
+            putString(Float.toString(value));
+        }
+
+        @Override
+        void putBoolean(boolean value) throws IOException {
+            putString(Boolean.toString(value));
+        }
+
+        @Override
+        void clear(int rows) {
+            super.clear(rows);
+            size = 0;
+        }
+
+        @Override
+        void writeValues(Body body, int rows, List<long[]> layout) {
+            layout.add(body.addInts(offsets, rows + 1));
+            layout.add(body.add(data, offsets[rows]));
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package org.digitalnao.jared.trujillo.handlers;
+
+import org.digitalnao.jared.trujillo.exceptions.ColumnarHandlerException;
+import org.digitalnao.jared.trujillo.interfaces.ColumnarHandler;
+import org.digitalnao.jared.trujillo.interfaces.ModelCodec;
+import org.digitalnao.jared.trujillo.interfaces.RecordStore;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.LongStream;
+
+/**
+ * Arrow IPC implementation of {@link ColumnarHandler}. Typed records are split into the
+ * {@link RecordColumns} of their class, so a class with a generated {@link ModelCodec} hands every
+ * {@code int} to the batch as an {@code int}; an {@link OffHeapRecordStore} replays its stored
+ * columns into the batch without rebuilding the records.
+ *
+ * Instances are thread-safe; every call fills its own batch.
+ */
+final class ArrowIpcHandler implements ColumnarHandler {
+
+    static final int DEFAULT_BATCH_SIZE = 64 * 1024;
+    static final String EXTENSION = ".arrow";
+
+    private final JacksonTypeCache cache;
+    private final int batchSize;
+
+    ArrowIpcHandler() {
+        this(JacksonTypeCache.shared(), DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Creates a handler with an explicit batch size.
+     *
+     * @param cache     cache of CSV schemas and mappers
+     * @param batchSize rows per record batch
+     */
+    ArrowIpcHandler(JacksonTypeCache cache, int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("The batch size must be positive: " + batchSize);
+        }
+        this.cache = cache;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public <T> long writeArrow(Iterator<T> values, Class<T> type, String filename) throws ColumnarHandlerException {
+        validateSource(values);
+        validateType(type);
+        Path file = arrowPath(filename);
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file),
+                CsvJacksonHandler.DEFAULT_BUFFER_SIZE)) {
+            return writeRecords(values, type, out, true);
+        } catch (IOException e) {
+            throw handleException(e);
+        }
+    }
+
+    @Override
+    public <T> long writeArrow(Iterator<T> values, Class<T> type, OutputStream out) throws ColumnarHandlerException {
+        validateSource(values);
+        validateType(type);
+        validateDestination(out);
+        try {
+            OutputStream buffered = new BufferedOutputStream(out, CsvJacksonHandler.DEFAULT_BUFFER_SIZE);
+            return writeRecords(values, type, buffered, false);
+        } catch (IOException e) {
+            throw handleException(e);
+        }
+    }
+
+    @Override
+    public <T> long writeArrow(RecordStore<T> store, Class<T> type, String filename) throws ColumnarHandlerException {
+        validateSource(store);
+        validateType(type);
+        if (!(store instanceof OffHeapRecordStore<T> offHeap) || offHeap.type() != type) {
+            return writeArrow(store.iterator(), type, filename);
+        }
+        Iterator<Long> rows = LongStream.range(0, offHeap.size()).iterator();
+        Path file = arrowPath(filename);
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file),
+                CsvJacksonHandler.DEFAULT_BUFFER_SIZE)) {
+            return write(rows, offHeap::writeRow, offHeap.schema(), out, true);
+        } catch (IOException e) {
+            throw handleException(e);
+        }
+    }
+
+    @Override
+    public long writeArrow(Iterator<Map<String, String>> rows, List<String> columns, String filename)
+            throws ColumnarHandlerException {
+        validateSource(rows);
+        validateColumns(columns);
+        Path file = arrowPath(filename);
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file),
+                CsvJacksonHandler.DEFAULT_BUFFER_SIZE)) {
+            return writeMaps(rows, columns, out, true);
+        } catch (IOException e) {
+            throw handleException(e);
+        }
+    }
+
+    @Override
+    public long writeArrow(Iterator<Map<String, String>> rows, List<String> columns, OutputStream out)
+            throws ColumnarHandlerException {
+        validateSource(rows);
+        validateColumns(columns);
+        validateDestination(out);
+        try {
+            OutputStream buffered = new BufferedOutputStream(out, CsvJacksonHandler.DEFAULT_BUFFER_SIZE);
+            return writeMaps(rows, columns, buffered, false);
+        } catch (IOException e) {
+            throw handleException(e);
+        }
+    }
+
+    private <T> long writeRecords(Iterator<T> values, Class<T> type, OutputStream out, boolean file)
+            throws IOException {
+        RecordColumns<T> columns;
+        try {
+            columns = RecordColumns.of(cache, type);
+        } catch (IllegalArgumentException e) {
+            throw new ColumnarHandlerException(e.getMessage(), e);
+        }
+        return write(values, columns::write, columns.schema(), out, file);
+    }
+
+    private long writeMaps(Iterator<Map<String, String>> values, List<String> columns, OutputStream out,
+                           boolean file) throws IOException {
+        List<RecordColumns.Column> schema = new ArrayList<>(columns.size());
+        for (String column : columns) {
+            schema.add(new RecordColumns.Column(column, RecordColumns.ColumnType.UTF8, true));
+        }
+        RecordColumns.RowWriter<Map<String, String>> rows = (row, batch) -> {
+            for (String column : columns) {
+                batch.writeString(row.get(column));
+            }
+            batch.endRow();
+        };
+        return write(values, rows, schema, out, file);
+    }
+
+    private <T> long write(Iterator<T> values, RecordColumns.RowWriter<T> rows, List<RecordColumns.Column> schema,
+                           OutputStream out, boolean file) throws IOException {
+        ArrowIpcWriter writer = new ArrowIpcWriter(out, schema, file);
+        ArrowBatch batch = new ArrowBatch(schema, batchSize);
+        long count = 0;
+        while (values.hasNext()) {
+            T value = values.next();
+            if (value == null) {
+                continue;
+            }
+            rows.write(value, batch);
+            count++;
+            if (batch.isFull()) {
+                writer.write(batch);
+                batch.clear();
+            }
+        }
+        writer.write(batch);
+        writer.finish();
+        return count;
+    }
+
+    private Path arrowPath(String filename) {
+        if (filename == null || filename.isBlank()) {
+            throw new ColumnarHandlerException("The filename cannot be null nor blank");
+        }
+        return Path.of(filename + EXTENSION);
+    }
+
+    private ColumnarHandlerException handleException(Exception e) {
+        if (e instanceof ColumnarHandlerException columnar) {
+            return columnar;
+        }
+        if (e instanceof IOException) {
+            return new ColumnarHandlerException("Error writing Arrow data: " + e.getMessage(), e);
+        }
+        return new ColumnarHandlerException("Unexpected error writing Arrow data: " + e.getMessage(), e);
+    }
+
+    private void validateType(Class<?> type) {
+        if (type == null) {
+            throw new ColumnarHandlerException("The type parameter cannot be null.");
+        }
+    }
+
+    private void validateSource(Object source) {
+        if (source == null) {
+            throw new ColumnarHandlerException("The source of rows cannot be null.");
+        }
+    }
+
+    private void validateDestination(Object destination) {
+        if (destination == null) {
+            throw new ColumnarHandlerException("The destination cannot be null.");
+        }
+    }
+
+    private void validateColumns(List<String> columns) {
+        if (columns == null || columns.isEmpty()) {
+            throw new ColumnarHandlerException("The columns cannot be null or empty.");
+        }
+    }
+}
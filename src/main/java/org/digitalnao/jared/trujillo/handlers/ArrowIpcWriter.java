@@ -0,0 +1,172 @@
+package org.digitalnao.jared.trujillo.handlers;
+
+import org.digitalnao.jared.trujillo.handlers.FlatBufferEncoder.StructVector;
+import org.digitalnao.jared.trujillo.handlers.FlatBufferEncoder.Table;
+import org.digitalnao.jared.trujillo.handlers.FlatBufferEncoder.TableVector;
+import org.digitalnao.jared.trujillo.handlers.FlatBufferEncoder.Text;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes {@link ArrowBatch}es in the Arrow IPC format (metadata version V5): a schema message,
+ * one record batch message per batch and an end-of-stream marker. In file mode the stream is
+ * framed by the {@code ARROW1} magic and followed by a footer indexing the record batches, so
+ * readers can memory-map the file and jump to any batch.
+ *
+ * Every message is the {@code 0xFFFFFFFF} continuation marker, the length of its FlatBuffers
+ * metadata, the metadata and the body, all padded to 8 bytes.
+ */
+final class ArrowIpcWriter {
+
+    static final byte[] MAGIC = "ARROW1".getBytes(StandardCharsets.US_ASCII);
+
+    private static final short METADATA_V5 = 4;
+    private static final byte HEADER_SCHEMA = 1;
+    private static final byte HEADER_RECORD_BATCH = 3;
+    private static final byte TYPE_INT = 2;
+    private static final byte TYPE_FLOATING_POINT = 3;
+    private static final byte TYPE_UTF8 = 5;
+    private static final byte TYPE_BOOL = 6;
+    private static final short PRECISION_SINGLE = 1;
+    private static final short PRECISION_DOUBLE = 2;
+    private static final int CONTINUATION = 0xFFFFFFFF;
+
+    private final OutputStream out;
+    private final List<RecordColumns.Column> schema;
+    private final boolean file;
+    private final ArrowBatch.Body body = new ArrowBatch.Body();
+    private final List<long[]> blocks = new ArrayList<>();
+    private long position;
+
+    /**
+     * Writes the file magic, if any, and the schema message.
+     *
+     * @param out    destination; never closed
+     * @param schema columns of every batch
+     * @param file   {@code true} for the IPC file format, {@code false} for the stream format
+     * @throws IOException if the destination fails
+     */
+    ArrowIpcWriter(OutputStream out, List<RecordColumns.Column> schema, boolean file) throws IOException {
+        this.out = out;
+        this.schema = schema;
+        this.file = file;
+        if (file) {
+            write(MAGIC, MAGIC.length);
+            write(new byte[2], 2);
+        }
+        writeMessage(HEADER_SCHEMA, schemaTable(), 0);
+    }
+
+    /**
+     * Writes the rows of a batch as one record batch message; an empty batch is not written.
+     *
+     * @param batch filled batch; left as is
+     * @throws IOException if the destination fails
+     */
+    void write(ArrowBatch batch) throws IOException {
+        if (batch.rows() == 0) {
+            return;
+        }
+        body.clear();
+        List<long[]> nodes = new ArrayList<>(schema.size());
+        List<long[]> buffers = new ArrayList<>(schema.size() * 3);
+        batch.writeBuffers(body, nodes, buffers);
+
+        Table recordBatch = new Table()
+                .addLong(0, batch.rows())
+                .addOffset(1, structs(nodes))
+                .addOffset(2, structs(buffers));
+        long offset = position;
+        int metadata = writeMessage(HEADER_RECORD_BATCH, recordBatch, body.length());
+        write(body.array(), body.length());
+        blocks.add(new long[] {offset, metadata, body.length()});
+    }
+
+    /**
+     * Writes the end-of-stream marker and, in file mode, the footer and the closing magic.
+     *
+     * @throws IOException if the destination fails
+     */
+    void finish() throws IOException {
+        writeInt(CONTINUATION);
+        writeInt(0);
+        if (file) {
+            ByteBuffer data = ByteBuffer.allocate(24 * blocks.size()).order(ByteOrder.LITTLE_ENDIAN);
+            for (long[] block : blocks) {
+                data.putLong(block[0]).putInt((int) block[1]).putInt(0).putLong(block[2]);
+            }
+            Table footer = new Table()
+                    .addShort(0, METADATA_V5)
+                    .addOffset(1, schemaTable())
+                    .addOffset(2, new StructVector(0, new byte[0], 8))
+                    .addOffset(3, new StructVector(blocks.size(), data.array(), 8));
+            byte[] encoded = FlatBufferEncoder.encode(footer);
+            write(encoded, encoded.length);
+            writeInt(encoded.length);
+            write(MAGIC, MAGIC.length);
+        }
+        out.flush();
+    }
+
+    /** @return metadata length as recorded in the footer: prefix, metadata and padding */
+    private int writeMessage(byte headerType, Table header, long bodyLength) throws IOException {
+        Table message = new Table()
+                .addShort(0, METADATA_V5)
+                .addByte(1, headerType)
+                .addOffset(2, header)
+                .addLong(3, bodyLength);
+        byte[] encoded = FlatBufferEncoder.encode(message);
+        writeInt(CONTINUATION);
+        writeInt(encoded.length);
+        write(encoded, encoded.length);
+        return 8 + encoded.length;
+    }
+
+    private Table schemaTable() {
+        List<Table> fields = new ArrayList<>(schema.size());
+        for (RecordColumns.Column column : schema) {
+            Table field = new Table()
+                    .addOffset(0, new Text(column.name()))
+                    .addBoolean(1, column.nullable())
+                    .addOffset(5, new TableVector(List.of()));
+            switch (column.type()) {
+                case INT32 -> field.addByte(2, TYPE_INT).addOffset(3, new Table().addInt(0, 32).addBoolean(1, true));
+                case INT64 -> field.addByte(2, TYPE_INT).addOffset(3, new Table().addInt(0, 64).addBoolean(1, true));
+                case FLOAT32 -> field.addByte(2, TYPE_FLOATING_POINT)
+                        .addOffset(3, new Table().addShort(0, PRECISION_SINGLE));
+                case FLOAT64 -> field.addByte(2, TYPE_FLOATING_POINT)
+                        .addOffset(3, new Table().addShort(0, PRECISION_DOUBLE));
+                case BOOL -> field.addByte(2, TYPE_BOOL).addOffset(3, new Table());
+                case UTF8 -> field.addByte(2, TYPE_UTF8).addOffset(3, new Table());
+            }
+            fields.add(field);
+        }
+        // little endian is the default of the endianness field
+        return new Table().addShort(0, (short) 0).addOffset(1, new TableVector(fields));
+    }
+
+    /** FieldNode and Buffer structs are both two longs. */
+    private static StructVector structs(List<long[]> pairs) {
+        ByteBuffer data = ByteBuffer.allocate(16 * pairs.size()).order(ByteOrder.LITTLE_ENDIAN);
+        for (long[] pair : pairs) {
+            data.putLong(pair[0]).putLong(pair[1]);
+        }
+        return new StructVector(pairs.size(), data.array(), 8);
+    }
+
+    private void writeInt(int value) throws IOException {
+        byte[] bytes = {(byte) value, (byte) (value >>> 8), (byte) (value >>> 16), (byte) (value >>> 24)};
+        write(bytes, 4);
+    }
+
+    private void write(byte[] bytes, int length) throws IOException {
+        out.write(bytes, 0, length);
+        position += length;
+    }
+}
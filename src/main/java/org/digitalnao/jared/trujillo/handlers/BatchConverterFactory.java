@@ -0,0 +1,42 @@
+package org.digitalnao.jared.trujillo.handlers;
+
+import org.digitalnao.jared.trujillo.interfaces.BatchConverter;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Factory for creating {@link BatchConverter} instances.
+ */
+public final class BatchConverterFactory {
+
+    private BatchConverterFactory() {
+        // utility class; not meant to be instantiated
+    }
+
+    /**
+     * Creates a batch converter that runs each file on its own virtual thread,
+     * with at most twice the number of available processors converting at once.
+     *
+     * @return a new {@link BatchConverter} instance
+     */
+    public static BatchConverter createBatchConverter() {
+        return new JsonCsvBatchConverter(
+                JsonCsvConverterFactory.createJsonCsvConverter(), null, JsonCsvBatchConverter.DEFAULT_MAX_IN_FLIGHT);
+    }
+
+    /**
+     * Creates a batch converter that runs on a caller-supplied executor.
+     * The executor is not shut down by the converter.
+     *
+     * @param executor    executor running the conversions (non-null)
+     * @param maxInFlight maximum number of files converted at the same time (positive)
+     * @return a new {@link BatchConverter} instance
+     * @throws IllegalArgumentException if the executor is null or {@code maxInFlight} is not positive
+     */
+    public static BatchConverter createBatchConverter(ExecutorService executor, int maxInFlight) {
+        if (executor == null) {
+            throw new IllegalArgumentException("The executor cannot be null.");
+        }
+        return new JsonCsvBatchConverter(JsonCsvConverterFactory.createJsonCsvConverter(), executor, maxInFlight);
+    }
+}
@@ -0,0 +1,53 @@
+package org.digitalnao.jared.trujillo.handlers;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Unbuffered {@link OutputStream} over a {@link WritableByteChannel}. Bulk writes go straight to the
+ * channel, so it is meant to sit under a {@link java.io.BufferedOutputStream} of the desired size.
+ * When {@code force} is set and the channel is a {@link FileChannel}, {@link #flush()} also forces
+ * the written bytes to the storage device.
+ */
+final class ByteChannelOutputStream extends OutputStream {
+
+    private final WritableByteChannel channel;
+    private final boolean closeChannel;
+    private final boolean force;
+
+    ByteChannelOutputStream(WritableByteChannel channel, boolean closeChannel, boolean force) {
+        this.channel = channel;
+        this.closeChannel = closeChannel;
+        this.force = force;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[] { (byte) b }, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(b, off, len);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (force && channel instanceof FileChannel fileChannel) {
+            fileChannel.force(true);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closeChannel) {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package org.digitalnao.jared.trujillo.handlers;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import org.digitalnao.jared.trujillo.classes.CheckpointOptions;
+import org.digitalnao.jared.trujillo.classes.Compression;
+import org.digitalnao.jared.trujillo.exceptions.CsvHandlerException;
+import org.digitalnao.jared.trujillo.exceptions.JsonHandlerException;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Converts a JSON file to CSV in segments of {@link CheckpointOptions#interval()} records, saving a
+ * {@link ConversionCheckpoint} after each one, so that a failed run can be resumed instead of
+ * restarted.
+ *
+ * A checkpoint is taken right after a record ends: the parser's byte offset then points past the
+ * record's closing brace, and the output has been flushed up to the record's row. Resuming opens
+ * the input at that offset and skips the comma that separates array elements. The rest of an array
+ * is then parsed as {@code [} followed by the remaining input, which is again a valid array; JSON
+ * Lines and other root sequences need no prefix. Compressed inputs are decompressed up to the
+ * offset; compressed outputs end on a block boundary at every flush, so appending to them is valid.
+ */
+final class CheckpointedJsonCsvConverter {
+
+    private static final int INPUT_BUFFER_SIZE = 64 * 1024;
+    private static final byte[] ARRAY_PREFIX = {'['};
+
+    private final JsonJacksonHandler jsonHandler;
+    private final CsvJacksonHandler csvHandler;
+
+    CheckpointedJsonCsvConverter(JsonJacksonHandler jsonHandler, CsvJacksonHandler csvHandler) {
+        this.jsonHandler = jsonHandler;
+        this.csvHandler = csvHandler;
+    }
+
+    /**
+     * Converts {@code input} into {@code output}, resuming from the sidecar checkpoint if there is one.
+     *
+     * @param <T>     element type
+     * @param input   validated JSON input file
+     * @param output  CSV output file
+     * @param type    class used to bind elements and derive the CSV schema
+     * @param options checkpoint interval and sync policy
+     * @return records in the output, including those written by earlier runs
+     * @throws JsonHandlerException if the input is invalid or a record cannot be bound
+     * @throws CsvHandlerException  if the output or the checkpoint cannot be written, or the
+     *                              checkpoint belongs to another input or a longer output
+     */
+    <T> long convert(Path input, Path output, Class<T> type, CheckpointOptions options) {
+        Path sidecar = output.resolveSibling(output.getFileName() + CheckpointOptions.SUFFIX);
+        ConversionCheckpoint checkpoint = resumable(ConversionCheckpoint.load(sidecar), input, output, type);
+        boolean resumed = checkpoint != null;
+        long base = resumed ? checkpoint.inputOffset() : 0;
+
+        try (InputStream in = openInput(input, base)) {
+            boolean array = resumed && checkpoint.array();
+            InputStream source = in;
+            if (resumed) {
+                base += skipSeparator(in, array);
+                if (array) {
+                    source = new SequenceInputStream(new ByteArrayInputStream(ARRAY_PREFIX), in);
+                    base -= ARRAY_PREFIX.length;
+                }
+            }
+            try (JsonParser parser = jsonHandler.openParser(source);
+                 OutputStream out = csvHandler.openOutput(output, resumed ? checkpoint.outputLength() : 0,
+                         options.sync())) {
+                JsonToken first = parser.nextToken();
+                if (!resumed) {
+                    array = first == JsonToken.START_ARRAY;
+                    checkpoint = ConversionCheckpoint.start(input, type, array);
+                }
+                Iterator<T> values = first == null ? null : jsonHandler.readValues(parser, type);
+                long rows = checkpoint.records();
+                boolean header = !resumed;
+                while (true) {
+                    Segment<T> segment = new Segment<>(values, options.interval());
+                    rows += csvHandler.writeRows(ConversionMeter.meterRecords(segment), type, out, header);
+                    header = false;
+                    if (!segment.full()) {
+                        break;
+                    }
+                    out.flush();
+                    checkpoint = checkpoint.advance(base + parser.currentLocation().getByteOffset(),
+                            Files.size(output), rows);
+                    checkpoint.save(sidecar, options.sync());
+                }
+                out.flush();
+                Files.deleteIfExists(sidecar);
+                return rows;
+            }
+        } catch (IOException e) {
+            // parse errors belong to the JSON side; anything else failed while writing the CSV or checkpoint
+            throw e instanceof JsonProcessingException ? jsonHandler.handleException(e) : csvHandler.handleException(e);
+        }
+    }
+
+    /**
+     * Checks that a loaded checkpoint can be applied to this conversion.
+     *
+     * @return the checkpoint, or {@code null} to start from the beginning
+     */
+    private ConversionCheckpoint resumable(ConversionCheckpoint checkpoint, Path input, Path output, Class<?> type) {
+        if (checkpoint == null) {
+            return null;
+        }
+        try {
+            if (!checkpoint.sameConversion(ConversionCheckpoint.start(input, type, checkpoint.array()))) {
+                throw new CsvHandlerException("The checkpoint of " + output + " was taken on another input or type; "
+                        + "delete it to start over");
+            }
+            if (!Files.exists(output) || Files.size(output) < checkpoint.outputLength()) {
+                throw new CsvHandlerException("The output " + output + " is shorter than its checkpoint; "
+                        + "delete the checkpoint to start over");
+            }
+            return checkpoint;
+        } catch (IOException e) {
+            throw csvHandler.handleException(e);
+        }
+    }
+
+    /**
+     * Opens the uncompressed input at {@code offset}. A plain file is positioned directly; a
+     * compressed one has to be decompressed up to the offset.
+     */
+    static InputStream openInput(Path input, long offset) throws IOException {
+        Compression compression = CompressedStreams.detect(input);
+        if (compression == Compression.NONE) {
+            FileChannel channel = FileChannel.open(input, StandardOpenOption.READ).position(offset);
+            return new BufferedInputStream(ConversionMeter.meterInput(Channels.newInputStream(channel)),
+                    INPUT_BUFFER_SIZE);
+        }
+        InputStream raw = new BufferedInputStream(ConversionMeter.meterInput(Files.newInputStream(input)),
+                INPUT_BUFFER_SIZE);
+        InputStream in = new BufferedInputStream(CompressedStreams.decompress(raw, compression), INPUT_BUFFER_SIZE);
+        in.skipNBytes(offset);
+        return in;
+    }
+
+    /**
+     * Skips the whitespace after a checkpointed record and, inside an array, the comma before the
+     * next element.
+     *
+     * @return number of bytes skipped
+     */
+    static long skipSeparator(InputStream in, boolean array) throws IOException {
+        long skipped = 0;
+        boolean comma = !array;
+        while (true) {
+            in.mark(1);
+            int b = in.read();
+            if (b == ' ' || b == '\t' || b == '\r' || b == '\n' || (b == ',' && !comma)) {
+                comma |= b == ',';
+                skipped++;
+                continue;
+            }
+            in.reset();
+            return skipped;
+        }
+    }
+
+    /**
+     * At most {@code limit} values of an iterator. Once the limit is reached the underlying
+     * iterator is not touched, so the parser stays right after the last value.
+     */
+    private static final class Segment<T> implements Iterator<T> {
+
+        private final Iterator<T> values;
+        private final long limit;
+        private long count;
+
+        Segment(Iterator<T> values, long limit) {
+            this.values = values;
+            this.limit = limit;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return values != null && count < limit && values.hasNext();
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            count++;
+            return values.next();
+        }
+
+        /** @return whether the segment stopped at its limit rather than at the end of the input */
+        boolean full() {
+            return count == limit;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package org.digitalnao.jared.trujillo.handlers;
+
+import org.digitalnao.jared.trujillo.interfaces.ColumnarHandler;
+
+/**
+ * Factory for creating {@link ColumnarHandler} instances.
+ */
+public final class ColumnarHandlerFactory {
+
+    private ColumnarHandlerFactory() {
+        // utility class; not meant to be instantiated
+    }
+
+    /**
+     * Creates an Arrow IPC handler writing record batches of 65,536 rows.
+     * The handler is thread-safe and may be shared across threads.
+     *
+     * @return a new {@link ColumnarHandler} instance
+     */
+    public static ColumnarHandler createColumnarHandler() {
+        return new ArrowIpcHandler();
+    }
+
+    /**
+     * Creates an Arrow IPC handler with an explicit batch size. Each batch is held in memory until
+     * it is full, so the batch size bounds memory; larger batches mean less metadata and faster
+     * scans for the reader.
+     *
+     * @param batchSize rows per record batch (positive)
+     * @return a new {@link ColumnarHandler} instance
+     * @throws IllegalArgumentException if {@code batchSize} is not positive
+     */
+    public static ColumnarHandler createColumnarHandler(int batchSize) {
+        return new ArrowIpcHandler(JacksonTypeCache.shared(), batchSize);
+    }
+}
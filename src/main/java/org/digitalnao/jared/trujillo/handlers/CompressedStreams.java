@@ -0,0 +1,90 @@
+package org.digitalnao.jared.trujillo.handlers;
+
+import com.github.luben.zstd.ZstdInputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
+import org.apache.commons.compress.compressors.lz4.FramedLZ4CompressorInputStream;
+import org.digitalnao.jared.trujillo.classes.Compression;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Transparent compression for the handlers and the command line. Inputs are recognized by their
+ * magic bytes and decompressed across concatenated members or frames; outputs are compressed in
+ * independent blocks by {@link ParallelCompressorOutputStream} on the common fork-join pool.
+ */
+public final class CompressedStreams {
+
+    private CompressedStreams() {
+        // utility class; not meant to be instantiated
+    }
+
+    /**
+     * Wraps a stream with the decompressor its first bytes call for. Plain data passes through
+     * (buffered, since the header has to be peeked at).
+     *
+     * @param in data that may be compressed
+     * @return stream of the uncompressed data; closing it closes {@code in}
+     * @throws IOException if the header cannot be read or the decompressor rejects it
+     */
+    public static InputStream decompress(InputStream in) throws IOException {
+        InputStream buffered = in.markSupported() ? in : new BufferedInputStream(in);
+        buffered.mark(Compression.MAGIC_LENGTH);
+        byte[] header = buffered.readNBytes(Compression.MAGIC_LENGTH);
+        buffered.reset();
+        return decompress(buffered, Compression.detect(header, header.length));
+    }
+
+    /**
+     * Wraps a stream with an output compressor, or returns it unchanged for {@link Compression#NONE}.
+     * Blocks are compressed on the common fork-join pool.
+     *
+     * @param out         destination of the compressed data; closed when the result is closed
+     * @param compression codec to apply
+     * @return stream to write uncompressed data to; must be closed to finish the last block
+     */
+    public static OutputStream compress(OutputStream out, Compression compression) {
+        if (compression == Compression.NONE) {
+            return out;
+        }
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        return new ParallelCompressorOutputStream(out, compression, pool,
+                ParallelCompressorOutputStream.DEFAULT_BLOCK_SIZE, 2 * pool.getParallelism());
+    }
+
+    /**
+     * Reads the codec of a file from its first bytes.
+     *
+     * @param file file to inspect
+     * @return the codec, or {@link Compression#NONE} for plain data
+     * @throws IOException if the file cannot be read
+     */
+    static Compression detect(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] header = in.readNBytes(Compression.MAGIC_LENGTH);
+            return Compression.detect(header, header.length);
+        }
+    }
+
+    /**
+     * Wraps a stream known to hold data of the given codec.
+     *
+     * @param in          compressed data
+     * @param compression codec of the data
+     * @return stream of the uncompressed data; closing it closes {@code in}
+     * @throws IOException if the decompressor rejects the header
+     */
+    static InputStream decompress(InputStream in, Compression compression) throws IOException {
+        switch (compression) {
+            case GZIP: return new GzipCompressorInputStream(in, true);
+            case ZSTD: return new ZstdInputStream(in);
+            case LZ4: return new FramedLZ4CompressorInputStream(in, true);
+            default: return in;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package org.digitalnao.jared.trujillo.handlers;
+
+import org.digitalnao.jared.trujillo.exceptions.CsvHandlerException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Properties;
+
+/**
+ * Progress of a resumable conversion, kept in a properties sidecar next to the output. The input
+ * is identified by its path, size and modification time, so a checkpoint is never applied to a
+ * different or changed file. Offsets count uncompressed input bytes.
+ *
+ * @param input         absolute path of the input
+ * @param inputSize     input size when the conversion started
+ * @param inputModified input modification time (epoch millis) when the conversion started
+ * @param type          name of the record class
+ * @param array         whether the records are the elements of a root array
+ * @param inputOffset   input bytes consumed up to the end of the last written record
+ * @param outputLength  output bytes written up to and including that record
+ * @param records       records written so far
+ */
+record ConversionCheckpoint(String input, long inputSize, long inputModified, String type, boolean array,
+                            long inputOffset, long outputLength, long records) {
+
+    /**
+     * Describes a conversion that has not written anything yet.
+     *
+     * @param input input file
+     * @param type  record class
+     * @param array whether the input is a root array
+     * @return checkpoint at the start of the input
+     * @throws IOException if the input attributes cannot be read
+     */
+    static ConversionCheckpoint start(Path input, Class<?> type, boolean array) throws IOException {
+        return new ConversionCheckpoint(input.toAbsolutePath().normalize().toString(), Files.size(input),
+                Files.getLastModifiedTime(input).toMillis(), type.getName(), array, 0, 0, 0);
+    }
+
+    /**
+     * Reads a checkpoint sidecar.
+     *
+     * @param file sidecar path
+     * @return the checkpoint, or {@code null} if there is none
+     * @throws CsvHandlerException if the sidecar exists but cannot be read or is incomplete
+     */
+    static ConversionCheckpoint load(Path file) {
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            properties.load(in);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            throw new CsvHandlerException("Cannot read the checkpoint " + file, e);
+        }
+        try {
+            return new ConversionCheckpoint(required(properties, "input"),
+                    Long.parseLong(required(properties, "inputSize")),
+                    Long.parseLong(required(properties, "inputModified")),
+                    required(properties, "type"),
+                    Boolean.parseBoolean(required(properties, "array")),
+                    Long.parseLong(required(properties, "inputOffset")),
+                    Long.parseLong(required(properties, "outputLength")),
+                    Long.parseLong(required(properties, "records")));
+        } catch (IllegalArgumentException e) {
+            throw new CsvHandlerException("The checkpoint " + file + " is damaged; delete it to start over", e);
+        }
+    }
+
+    /**
+     * Writes the sidecar atomically: a crash leaves either the previous checkpoint or this one.
+     *
+     * @param file sidecar path
+     * @param sync whether the sidecar is forced to the storage device before it replaces the previous one
+     * @throws IOException if the sidecar cannot be written
+     */
+    void save(Path file, boolean sync) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("input", input);
+        properties.setProperty("inputSize", Long.toString(inputSize));
+        properties.setProperty("inputModified", Long.toString(inputModified));
+        properties.setProperty("type", type);
+        properties.setProperty("array", Boolean.toString(array));
+        properties.setProperty("inputOffset", Long.toString(inputOffset));
+        properties.setProperty("outputLength", Long.toString(outputLength));
+        properties.setProperty("records", Long.toString(records));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        properties.store(out, "json-csv-converter checkpoint");
+        replace(file, ByteBuffer.wrap(out.toByteArray()), sync);
+    }
+
+    /**
+     * Replaces a sidecar with {@code content} through a temporary file and an atomic move. With
+     * {@code force}, the temporary file reaches the storage device before the move, so that after a
+     * machine crash the sidecar is either the previous one or complete.
+     *
+     * @param file    sidecar path
+     * @param content new content of the sidecar
+     * @param force   whether to force the content to the storage device first
+     * @throws IOException if the sidecar cannot be written or moved
+     */
+    static void replace(Path file, ByteBuffer content, boolean force) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (content.hasRemaining()) {
+                channel.write(content);
+            }
+            if (force) {
+                channel.force(true);
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @param offset input bytes consumed
+     * @param length output bytes written
+     * @param count  records written
+     * @return copy at the given position
+     */
+    ConversionCheckpoint advance(long offset, long length, long count) {
+        return new ConversionCheckpoint(input, inputSize, inputModified, type, array, offset, length, count);
+    }
+
+    /**
+     * @param other checkpoint describing the current conversion
+     * @return whether this checkpoint was taken on the same input and record class
+     */
+    boolean sameConversion(ConversionCheckpoint other) {
+        return input.equals(other.input) && inputSize == other.inputSize
+                && inputModified == other.inputModified && type.equals(other.type);
+    }
+
+    private static String required(Properties properties, String key) {
+        String value = properties.getProperty(key);
+        if (value == null) {
+            throw new IllegalArgumentException("missing '" + key + "'");
+        }
+        return value;
+    }
+}
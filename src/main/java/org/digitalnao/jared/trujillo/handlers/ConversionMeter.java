@@ -0,0 +1,318 @@
+package org.digitalnao.jared.trujillo.handlers;
+
+import org.digitalnao.jared.trujillo.classes.ConversionMetrics;
+import org.digitalnao.jared.trujillo.interfaces.ConversionListener;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Measures one conversion on the thread running it. The converter, or a handler created with a
+ * listener, installs a meter for the duration of the call through {@link #run}; the handlers wrap
+ * the streams they open through
+ * {@link #meterInput(InputStream)} and {@link #meterOutput(OutputStream)}, and the converter wraps
+ * the record iterator through {@link #meterRecords(Iterator)}. Without an installed meter all three
+ * return their argument, so an unmetered conversion pays one thread-local lookup per stream.
+ *
+ * I/O calls are timed one by one, below the handlers' buffers, so each timing covers a whole
+ * buffer fill or flush. Records are sampled: one in {@code 2^SAMPLE_SHIFT} is timed from the
+ * request for it to its delivery (parse and bind) and from its delivery to the request for the
+ * next one (serialize), then the samples are scaled to all records.
+ *
+ * Not thread-safe; work done on other threads (parallel JSON Lines chunks) is not measured.
+ */
+final class ConversionMeter {
+
+    private static final ThreadLocal<ConversionMeter> CURRENT = new ThreadLocal<>();
+    private static final int SAMPLE_MASK = (1 << ConversionMetrics.SAMPLE_SHIFT) - 1;
+
+    private final long start = System.nanoTime();
+    private long bytesIn;
+    private long bytesOut;
+    private long readNanos;
+    private long writeNanos;
+    private long largestWrite;
+
+    private long openNanos;
+    private boolean opened;
+    private long readAtOpen;
+    private long writeAtOpen;
+    private long pulled;
+    private long bindSampled;
+    private long bindSamples;
+    private long serializeSampled;
+    private long serializeSamples;
+
+    private ConversionMeter() {
+    }
+
+    /**
+     * Installs a new meter on the calling thread.
+     *
+     * @return the installed meter, or {@code null} if a conversion is already metered on this
+     *         thread (the outer conversion keeps measuring)
+     */
+    private static ConversionMeter start() {
+        if (CURRENT.get() != null) {
+            return null;
+        }
+        ConversionMeter meter = new ConversionMeter();
+        CURRENT.set(meter);
+        return meter;
+    }
+
+    /**
+     * Runs a conversion under a fresh meter and reports it to the listener. Without a listener, or
+     * inside a conversion that is already metered, the conversion just runs.
+     *
+     * @param <R>        result type
+     * @param listener   receiver of the metrics, or {@code null} to measure nothing
+     * @param source     input name, or {@code "-"} for a stream
+     * @param target     output name, or {@code "-"} for a stream
+     * @param conversion the conversion to measure
+     * @param records    number of records written, given the result
+     * @return the result of the conversion
+     */
+    static <R> R run(ConversionListener listener, String source, String target, Supplier<R> conversion,
+                     ToLongFunction<R> records) {
+        ConversionMeter meter = listener == null ? null : start();
+        if (meter == null) {
+            return conversion.get();
+        }
+        R result;
+        try {
+            result = conversion.get();
+        } catch (RuntimeException e) {
+            listener.failed(meter.finish(source, target, 0), e);
+            throw e;
+        } finally {
+            meter.stop();
+        }
+        listener.converted(meter.finish(source, target, records.applyAsLong(result)));
+        return result;
+    }
+
+    /** @return whether a conversion is metered on the calling thread */
+    static boolean isActive() {
+        return CURRENT.get() != null;
+    }
+
+    /**
+     * Counts and times the reads of a stream if a conversion is metered on the calling thread.
+     *
+     * @param in stream to measure; may be {@code null}
+     * @return the metered stream, or {@code in} itself
+     */
+    static InputStream meterInput(InputStream in) {
+        ConversionMeter meter = CURRENT.get();
+        return meter == null || in == null ? in : meter.new MeteredInputStream(in);
+    }
+
+    /**
+     * Counts and times the writes of a stream if a conversion is metered on the calling thread.
+     *
+     * @param out stream to measure; may be {@code null}
+     * @return the metered stream, or {@code out} itself
+     */
+    static OutputStream meterOutput(OutputStream out) {
+        ConversionMeter meter = CURRENT.get();
+        return meter == null || out == null ? out : meter.new MeteredOutputStream(out);
+    }
+
+    /**
+     * Counts the records pulled from an iterator and samples their bind and serialize times if a
+     * conversion is metered on the calling thread.
+     *
+     * @param <T>    element type
+     * @param values records in conversion order; may be {@code null}
+     * @return the metered iterator, or {@code values} itself
+     */
+    static <T> Iterator<T> meterRecords(Iterator<T> values) {
+        ConversionMeter meter = CURRENT.get();
+        return meter == null || values == null ? values : meter.new MeteredIterator<>(values);
+    }
+
+    /**
+     * Counts input read outside of a metered stream, e.g. through a file channel, if a conversion
+     * is metered on the calling thread.
+     *
+     * @param bytes bytes read
+     */
+    static void countInput(long bytes) {
+        ConversionMeter meter = CURRENT.get();
+        if (meter != null) {
+            meter.bytesIn += bytes;
+        }
+    }
+
+    /** Removes the meter from the calling thread. */
+    void stop() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Summarizes the conversion so far.
+     *
+     * @param source  input name
+     * @param target  output name
+     * @param records records written
+     * @return metrics of the conversion
+     */
+    ConversionMetrics finish(String source, String target, long records) {
+        long total = System.nanoTime() - start;
+        // the sampled windows include the reads and writes of their records, which are known exactly
+        long bind = bindSamples == 0
+                ? 0 : Math.max(0, bindSampled * pulled / bindSamples - (readNanos - readAtOpen));
+        long serialize = serializeSamples == 0
+                ? 0 : Math.max(0, serializeSampled * pulled / serializeSamples - (writeNanos - writeAtOpen));
+        return new ConversionMetrics(source, target, records, bytesIn, bytesOut, openNanos, readNanos,
+                bind, serialize, writeNanos, total, largestWrite);
+    }
+
+    /**
+     * Closes the open stage at the first record request: everything since the start that was not
+     * spent reading or writing went into opening files and parsers.
+     */
+    private void open(long now) {
+        opened = true;
+        openNanos = Math.max(0, now - start - readNanos - writeNanos);
+        readAtOpen = readNanos;
+        writeAtOpen = writeNanos;
+    }
+
+    private final class MeteredInputStream extends FilterInputStream {
+
+        MeteredInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            long begin = System.nanoTime();
+            int b = in.read();
+            readNanos += System.nanoTime() - begin;
+            if (b >= 0) {
+                bytesIn++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            long begin = System.nanoTime();
+            int n = in.read(b, off, len);
+            readNanos += System.nanoTime() - begin;
+            if (n > 0) {
+                bytesIn += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = in.skip(n);
+            bytesIn += skipped;
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            // a reset would count the same bytes twice
+            return false;
+        }
+    }
+
+    private final class MeteredOutputStream extends FilterOutputStream {
+
+        MeteredOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            long begin = System.nanoTime();
+            out.write(b);
+            writeNanos += System.nanoTime() - begin;
+            bytesOut++;
+            largestWrite = Math.max(largestWrite, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            long begin = System.nanoTime();
+            out.write(b, off, len);
+            writeNanos += System.nanoTime() - begin;
+            bytesOut += len;
+            largestWrite = Math.max(largestWrite, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            long begin = System.nanoTime();
+            out.flush();
+            writeNanos += System.nanoTime() - begin;
+        }
+
+        @Override
+        public void close() throws IOException {
+            long begin = System.nanoTime();
+            out.close();
+            writeNanos += System.nanoTime() - begin;
+        }
+    }
+
+    private final class MeteredIterator<T> implements Iterator<T> {
+
+        private final Iterator<T> values;
+        private boolean binding;
+        private boolean serializing;
+        private long mark;
+
+        MeteredIterator(Iterator<T> values) {
+            this.values = values;
+        }
+
+        @Override
+        public boolean hasNext() {
+            request();
+            return values.hasNext();
+        }
+
+        @Override
+        public T next() {
+            request();
+            T value = values.next();
+            pulled++;
+            if (binding) {
+                long now = System.nanoTime();
+                bindSampled += now - mark;
+                bindSamples++;
+                binding = false;
+                serializing = true;
+                mark = now;
+            }
+            return value;
+        }
+
+        private void request() {
+            if (!opened) {
+                open(System.nanoTime());
+            }
+            if (serializing) {
+                serializeSampled += System.nanoTime() - mark;
+                serializeSamples++;
+                serializing = false;
+            }
+            if (!binding && (pulled & SAMPLE_MASK) == 0) {
+                binding = true;
+                mark = System.nanoTime();
+            }
+        }
+    }
+}
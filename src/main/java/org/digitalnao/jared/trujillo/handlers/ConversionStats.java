@@ -0,0 +1,200 @@
+package org.digitalnao.jared.trujillo.handlers;
+
+import org.digitalnao.jared.trujillo.classes.ConversionMetrics;
+import org.digitalnao.jared.trujillo.interfaces.ConversionListener;
+import org.digitalnao.jared.trujillo.interfaces.ConversionStatsMXBean;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-safe running totals of the conversions reported to it, readable directly or over JMX.
+ * Pass an instance as the listener of a converter, then {@link #register(String)} it to see the
+ * totals in JConsole or VisualVM.
+ *
+ * Example usage:
+ * ConversionStats stats = new ConversionStats();
+ * stats.register("orders");
+ * JsonCsvConverter converter = JsonCsvConverterFactory.createJsonCsvConverter(4, 64 * 1024, stats);
+ */
+public final class ConversionStats implements ConversionListener, ConversionStatsMXBean {
+
+    /** JMX domain of the registered statistics. */
+    public static final String DOMAIN = "org.digitalnao.jared.trujillo";
+
+    private final LongAdder conversions = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder records = new LongAdder();
+    private final LongAdder bytesIn = new LongAdder();
+    private final LongAdder bytesOut = new LongAdder();
+    private final LongAdder openNanos = new LongAdder();
+    private final LongAdder readNanos = new LongAdder();
+    private final LongAdder bindNanos = new LongAdder();
+    private final LongAdder serializeNanos = new LongAdder();
+    private final LongAdder writeNanos = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator largestWriteBytes = new LongAccumulator(Math::max, 0);
+    private volatile double lastRecordsPerSecond;
+
+    @Override
+    public void converted(ConversionMetrics metrics) {
+        conversions.increment();
+        add(metrics);
+        lastRecordsPerSecond = metrics.recordsPerSecond();
+    }
+
+    @Override
+    public void failed(ConversionMetrics metrics, RuntimeException error) {
+        failures.increment();
+        add(metrics);
+    }
+
+    /**
+     * Registers these statistics with the platform MBean server.
+     *
+     * @param name value of the {@code name} key, telling converters apart (non-blank)
+     * @return the name the statistics were registered under
+     * @throws IllegalArgumentException if the name is blank, invalid, or already registered
+     */
+    public ObjectName register(String name) {
+        ObjectName objectName = objectName(name);
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+            return objectName;
+        } catch (JMException e) {
+            throw new IllegalArgumentException("Cannot register the statistics as " + objectName, e);
+        }
+    }
+
+    /**
+     * Removes statistics registered under {@code name}; does nothing if there are none.
+     *
+     * @param name value of the {@code name} key used to register
+     * @throws IllegalArgumentException if the name is blank or invalid
+     */
+    public static void unregister(String name) {
+        ObjectName objectName = objectName(name);
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+        } catch (JMException e) {
+            throw new IllegalArgumentException("Cannot unregister the statistics " + objectName, e);
+        }
+    }
+
+    @Override
+    public long getConversions() {
+        return conversions.sum();
+    }
+
+    @Override
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    @Override
+    public long getRecords() {
+        return records.sum();
+    }
+
+    @Override
+    public long getBytesIn() {
+        return bytesIn.sum();
+    }
+
+    @Override
+    public long getBytesOut() {
+        return bytesOut.sum();
+    }
+
+    @Override
+    public long getOpenMillis() {
+        return millis(openNanos);
+    }
+
+    @Override
+    public long getReadMillis() {
+        return millis(readNanos);
+    }
+
+    @Override
+    public long getBindMillis() {
+        return millis(bindNanos);
+    }
+
+    @Override
+    public long getSerializeMillis() {
+        return millis(serializeNanos);
+    }
+
+    @Override
+    public long getWriteMillis() {
+        return millis(writeNanos);
+    }
+
+    @Override
+    public long getTotalMillis() {
+        return millis(totalNanos);
+    }
+
+    @Override
+    public double getRecordsPerSecond() {
+        long nanos = totalNanos.sum();
+        return nanos == 0 ? 0 : records.sum() * 1_000_000_000.0 / nanos;
+    }
+
+    @Override
+    public double getLastRecordsPerSecond() {
+        return lastRecordsPerSecond;
+    }
+
+    @Override
+    public long getLargestWriteBytes() {
+        return largestWriteBytes.get();
+    }
+
+    @Override
+    public void reset() {
+        for (LongAdder adder : new LongAdder[] {conversions, failures, records, bytesIn, bytesOut,
+                openNanos, readNanos, bindNanos, serializeNanos, writeNanos, totalNanos}) {
+            adder.reset();
+        }
+        largestWriteBytes.reset();
+        lastRecordsPerSecond = 0;
+    }
+
+    private void add(ConversionMetrics metrics) {
+        records.add(metrics.records());
+        bytesIn.add(metrics.bytesIn());
+        bytesOut.add(metrics.bytesOut());
+        openNanos.add(metrics.openNanos());
+        readNanos.add(metrics.readNanos());
+        bindNanos.add(metrics.bindNanos());
+        serializeNanos.add(metrics.serializeNanos());
+        writeNanos.add(metrics.writeNanos());
+        totalNanos.add(metrics.totalNanos());
+        largestWriteBytes.accumulate(metrics.largestWriteBytes());
+    }
+
+    private static long millis(LongAdder nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos.sum());
+    }
+
+    private static ObjectName objectName(String name) {
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("The statistics name cannot be blank");
+        }
+        try {
+            return new ObjectName(DOMAIN + ":type=ConversionStats,name=" + ObjectName.quote(name));
+        } catch (JMException e) {
+            throw new IllegalArgumentException("Invalid statistics name: " + name, e);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package org.digitalnao.jared.trujillo.handlers;
 
+import org.digitalnao.jared.trujillo.interfaces.ConversionListener;
 import org.digitalnao.jared.trujillo.interfaces.CsvHandler;
 
 /**
@@ -13,10 +14,42 @@ public final class CsvHandlerFactory {
 
     /**
      * Creates a default CSV handler backed by Jackson.
+     * The handler is thread-safe and may be shared across threads.
      *
      * @return a new {@link CsvHandler} instance
      */
     public static CsvHandler createCsvHandler() {
         return new CsvJacksonHandler();
     }
+
+    /**
+     * Creates a CSV handler with explicit output settings. Larger buffers mean fewer, bigger writes;
+     * {@code fsync} forces files and file channels to the storage device before a write returns,
+     * trading throughput for durability. Streams and writers supplied by the caller are never forced.
+     *
+     * @param bufferSize size in bytes of the output buffer (positive; the default is 64 KiB)
+     * @param fsync      whether to force written files to disk
+     * @return a new {@link CsvHandler} instance
+     * @throws IllegalArgumentException if {@code bufferSize} is not positive
+     */
+    public static CsvHandler createCsvHandler(int bufferSize, boolean fsync) {
+        return new CsvJacksonHandler(JacksonTypeCache.shared(), bufferSize, fsync);
+    }
+
+    /**
+     * Creates a CSV handler with explicit output settings that measures every {@code writeToCsv}
+     * call and reports its metrics to {@code listener}. Lazy reads are not measured.
+     *
+     * @param bufferSize size in bytes of the output buffer (positive; the default is 64 KiB)
+     * @param fsync      whether to force written files to disk
+     * @param listener   receiver of the metrics of each call (non-null)
+     * @return a new {@link CsvHandler} instance
+     * @throws IllegalArgumentException if {@code bufferSize} is not positive or {@code listener} is null
+     */
+    public static CsvHandler createCsvHandler(int bufferSize, boolean fsync, ConversionListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("The listener cannot be null");
+        }
+        return new MeteredCsvHandler(new CsvJacksonHandler(JacksonTypeCache.shared(), bufferSize, fsync), listener);
+    }
 }
@@ -1,25 +1,90 @@
 package org.digitalnao.jared.trujillo.handlers;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.exc.InvalidDefinitionException;
 import com.fasterxml.jackson.databind.exc.MismatchedInputException;
-import com.fasterxml.jackson.dataformat.csv.CsvMapper;
 import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import org.digitalnao.jared.trujillo.classes.Compression;
 import org.digitalnao.jared.trujillo.exceptions.CsvHandlerException;
 import org.digitalnao.jared.trujillo.interfaces.CsvHandler;
+import org.digitalnao.jared.trujillo.interfaces.ModelCodec;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.Flushable;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
- * CSV writer backed by Jackson with basic input validation and exception mapping.
+ * CSV writer and reader backed by Jackson with basic input validation and exception mapping.
+ * Rows are serialized straight into a buffered destination; no intermediate {@code String} is built.
+ * Instances hold no per-call state and are safe to share across threads.
  */
 final class CsvJacksonHandler implements CsvHandler {
 
-    CsvMapper csvMapper = new CsvMapper();
+    static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private final JacksonTypeCache cache;
+    private final int bufferSize;
+    private final boolean fsync;
+    private final ObjectReader headerReader;
+
+    /**
+     * Creates a handler backed by the shared {@link JacksonTypeCache}, with a 64 KiB
+     * output buffer and without forcing files to disk.
+     */
+    CsvJacksonHandler() {
+        this(JacksonTypeCache.shared());
+    }
+
+    CsvJacksonHandler(JacksonTypeCache cache) {
+        this(cache, DEFAULT_BUFFER_SIZE, false);
+    }
+
+    /**
+     * Creates a handler with explicit output settings.
+     *
+     * @param cache      cache of prebuilt writers
+     * @param bufferSize size in bytes of the buffer between the CSV generator and the destination
+     * @param fsync      whether files and file channels are forced to the storage device when done
+     */
+    CsvJacksonHandler(JacksonTypeCache cache, int bufferSize, boolean fsync) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("The buffer size must be positive: " + bufferSize);
+        }
+        this.cache = cache;
+        this.bufferSize = bufferSize;
+        this.fsync = fsync;
+        this.headerReader = cache.csvMapper().readerForMapOf(String.class).with(CsvSchema.emptySchema().withHeader());
+    }
 
     /**
      * Writes a single object to a CSV file with a header row.
@@ -36,14 +101,8 @@ final class CsvJacksonHandler implements CsvHandler {
         validateType(type);
         validateObject(object);
 
-        try {
-            CsvSchema schema = csvMapper.schemaFor(type).withHeader();
-            String csv = csvMapper.writer(schema).writeValueAsString(object);
-            Files.writeString(Path.of(filename + ".csv"), csv);
-            System.out.println("CSV file generated successfully");
-        } catch (Exception e) {
-            throw this.handleException(e);
-        }
+        writeFile(Collections.singletonList(object).iterator(), type, csvPath(filename));
+        System.out.println("CSV file generated successfully");
     }
 
     /**
@@ -61,19 +120,470 @@ final class CsvJacksonHandler implements CsvHandler {
         validateType(type);
         validateList(list);
 
+        writeFile(list.iterator(), type, csvPath(filename));
+        System.out.println("CSV list generated successfully");
+    }
+
+    /**
+     * Writes a list of objects to a stream with a header row. The stream is flushed but not closed.
+     *
+     * @param <T>  element type
+     * @param list non-null, non-empty list of elements to serialize
+     * @param type class used to derive the CSV schema (non-null)
+     * @param out  destination stream (non-null)
+     * @throws CsvHandlerException if arguments are invalid, serialization fails, or an I/O error occurs
+     */
+    @Override
+    public <T> void writeToCsv(List<T> list, Class<T> type, OutputStream out) throws CsvHandlerException {
+        validateType(type);
+        validateList(list);
+        validateDestination(out);
+
+        OutputStream buffered = new BufferedOutputStream(out, bufferSize);
+        writeRows(list.iterator(), type, buffered, true);
+        flush(buffered);
+    }
+
+    /**
+     * Writes a list of objects to a character stream with a header row. The writer is flushed but not closed.
+     *
+     * @param <T>    element type
+     * @param list   non-null, non-empty list of elements to serialize
+     * @param type   class used to derive the CSV schema (non-null)
+     * @param writer destination writer (non-null)
+     * @throws CsvHandlerException if arguments are invalid, serialization fails, or an I/O error occurs
+     */
+    @Override
+    public <T> void writeToCsv(List<T> list, Class<T> type, Writer writer) throws CsvHandlerException {
+        validateType(type);
+        validateList(list);
+        validateDestination(writer);
+
+        Writer buffered = new BufferedWriter(writer, bufferSize);
+        try (SequenceWriter sequence = headerWriter(type).writeValues(buffered)) {
+            writeAll(list.iterator(), sequence);
+        } catch (IOException e) {
+            throw this.handleException(e);
+        }
+        flush(buffered);
+    }
+
+    /**
+     * Writes a list of objects to a file with a header row. The file is created or truncated,
+     * and forced to disk before returning when the handler is configured to fsync.
+     *
+     * @param <T>  element type
+     * @param list non-null, non-empty list of elements to serialize
+     * @param type class used to derive the CSV schema (non-null)
+     * @param file destination file, used as given (no extension is appended)
+     * @throws CsvHandlerException if arguments are invalid, serialization fails, or an I/O error occurs
+     */
+    @Override
+    public <T> void writeToCsv(List<T> list, Class<T> type, Path file) throws CsvHandlerException {
+        validateType(type);
+        validateList(list);
+        validateDestination(file);
+
+        writeFile(list.iterator(), type, file);
+    }
+
+    /**
+     * Writes a list of objects to a byte channel with a header row. The channel is not closed;
+     * a {@link java.nio.channels.FileChannel} is forced to disk when the handler is configured to fsync.
+     *
+     * @param <T>     element type
+     * @param list    non-null, non-empty list of elements to serialize
+     * @param type    class used to derive the CSV schema (non-null)
+     * @param channel destination channel (non-null)
+     * @throws CsvHandlerException if arguments are invalid, serialization fails, or an I/O error occurs
+     */
+    @Override
+    public <T> void writeToCsv(List<T> list, Class<T> type, WritableByteChannel channel) throws CsvHandlerException {
+        validateType(type);
+        validateList(list);
+        validateDestination(channel);
+
+        OutputStream out = new BufferedOutputStream(
+                ConversionMeter.meterOutput(new ByteChannelOutputStream(channel, false, fsync)), bufferSize);
+        writeRows(list.iterator(), type, out, true);
+        flush(out);
+    }
+
+    /**
+     * Writes values to a CSV file with a header row, pulling them one at a time.
+     * An empty iterator produces a header-only file.
+     *
+     * @param <T>      element type
+     * @param values   source of the rows (non-null)
+     * @param type     class used to derive the CSV schema (non-null)
+     * @param filename base filename (the implementation appends {@code .csv})
+     * @return number of rows written, excluding the header
+     * @throws CsvHandlerException if arguments are invalid, serialization fails, or an I/O error occurs
+     */
+    @Override
+    public <T> long writeToCsv(Iterator<T> values, Class<T> type, String filename) throws CsvHandlerException {
+        validateFilename(filename);
+        validateType(type);
+        validateSource(values);
+
+        return writeFile(values, type, csvPath(filename));
+    }
+
+    /**
+     * Writes the elements of a stream to a CSV file with a header row. The stream is consumed
+     * lazily and closed afterwards. An empty stream produces a header-only file.
+     *
+     * @param <T>      element type
+     * @param values   source of the rows (non-null)
+     * @param type     class used to derive the CSV schema (non-null)
+     * @param filename base filename (the implementation appends {@code .csv})
+     * @return number of rows written, excluding the header
+     * @throws CsvHandlerException if arguments are invalid, serialization fails, or an I/O error occurs
+     */
+    @Override
+    public <T> long writeToCsv(Stream<T> values, Class<T> type, String filename) throws CsvHandlerException {
+        validateSource(values);
+        try (values) {
+            return writeToCsv(values.iterator(), type, filename);
+        }
+    }
+
+    /**
+     * Writes the elements of a spliterator to a CSV file with a header row, in encounter order.
+     * An empty spliterator produces a header-only file.
+     *
+     * @param <T>      element type
+     * @param values   source of the rows (non-null)
+     * @param type     class used to derive the CSV schema (non-null)
+     * @param filename base filename (the implementation appends {@code .csv})
+     * @return number of rows written, excluding the header
+     * @throws CsvHandlerException if arguments are invalid, serialization fails, or an I/O error occurs
+     */
+    @Override
+    public <T> long writeToCsv(Spliterator<T> values, Class<T> type, String filename) throws CsvHandlerException {
+        validateSource(values);
+        return writeToCsv(Spliterators.iterator(values), type, filename);
+    }
+
+    /**
+     * Writes values to a stream with a header row, pulling them one at a time.
+     * The stream is flushed but not closed.
+     *
+     * @param <T>    element type
+     * @param values source of the rows (non-null)
+     * @param type   class used to derive the CSV schema (non-null)
+     * @param out    destination stream (non-null)
+     * @return number of rows written, excluding the header
+     * @throws CsvHandlerException if arguments are invalid, serialization fails, or an I/O error occurs
+     */
+    @Override
+    public <T> long writeToCsv(Iterator<T> values, Class<T> type, OutputStream out) throws CsvHandlerException {
+        validateType(type);
+        validateSource(values);
+        validateDestination(out);
+
+        OutputStream buffered = new BufferedOutputStream(out, bufferSize);
+        long rows = writeRows(values, type, buffered, true);
+        flush(buffered);
+        return rows;
+    }
+
+    /**
+     * Reads a CSV file with a header row lazily, binding each row to {@code type}.
+     *
+     * @param <T>      row type
+     * @param filename path to the CSV file (expects {@code .csv})
+     * @param type     class whose properties match the header names (non-null)
+     * @return lazy stream of rows; must be closed
+     * @throws CsvHandlerException if the filename is invalid, the file is missing/unreadable/empty,
+     *                             or a row cannot be bound while iterating
+     */
+    @Override
+    public <T> Stream<T> readCsv(String filename, Class<T> type) throws CsvHandlerException {
+        validateType(type);
+        File file = validateCsvInput(filename);
+        return readRows(cache.csvReader(type), file);
+    }
+
+    /**
+     * Reads a CSV file lazily using its header row as schema; each row becomes a header-to-value map.
+     *
+     * @param filename path to the CSV file (expects {@code .csv})
+     * @return lazy stream of rows; must be closed
+     * @throws CsvHandlerException if the filename is invalid, the file is missing/unreadable/empty,
+     *                             or a row cannot be parsed while iterating
+     */
+    @Override
+    public Stream<Map<String, String>> readCsv(String filename) throws CsvHandlerException {
+        File file = validateCsvInput(filename);
+        return readRows(headerReader, file);
+    }
+
+    /**
+     * Reads CSV rows with a header row lazily from a stream, binding each row to {@code type}.
+     * Closing the returned stream does not close {@code in}.
+     *
+     * @param <T>  row type
+     * @param in   UTF-8 encoded CSV source (non-null)
+     * @param type class whose properties match the header names (non-null)
+     * @return lazy stream of rows; must be closed
+     * @throws CsvHandlerException if arguments are invalid or the source cannot be read
+     */
+    <T> Stream<T> readCsv(InputStream in, Class<T> type) throws CsvHandlerException {
+        validateType(type);
+        validateSource(in);
+        try {
+            return readRows(cache.csvReader(type).without(JsonParser.Feature.AUTO_CLOSE_SOURCE)
+                    .readValues(CompressedStreams.decompress(in)));
+        } catch (IOException e) {
+            throw this.handleException(e);
+        }
+    }
+
+    private <T> Stream<T> readRows(ObjectReader reader, File file) {
+        try {
+            Compression compression = CompressedStreams.detect(file.toPath());
+            if (compression != Compression.NONE || ConversionMeter.isActive()) {
+                InputStream in = ConversionMeter.meterInput(
+                        new BufferedInputStream(Files.newInputStream(file.toPath()), bufferSize));
+                return readRows(reader.readValues(CompressedStreams.decompress(in, compression)));
+            }
+            return readRows(reader.readValues(file));
+        } catch (IOException e) {
+            throw this.handleException(e);
+        }
+    }
+
+    private <T> Stream<T> readRows(MappingIterator<T> rows) {
+        Iterator<T> mapped = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                try {
+                    return rows.hasNextValue();
+                } catch (Exception e) {
+                    throw handleException(e);
+                }
+            }
+
+            @Override
+            public T next() {
+                try {
+                    return rows.nextValue();
+                } catch (Exception e) {
+                    throw handleException(e);
+                }
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(mapped, Spliterator.ORDERED), false)
+                .onClose(() -> close(rows));
+    }
+
+    private void close(Closeable source) {
+        try {
+            source.close();
+        } catch (IOException e) {
+            throw this.handleException(e);
+        }
+    }
+
+    /**
+     * Writes values to a stream one row at a time. The stream is flushed but not closed.
+     * Failures raised by the iterator itself propagate unchanged. Types with a generated codec
+     * are written through {@link CsvRowEncoder}, with the same output as Jackson's generator.
+     *
+     * @param <T>    element type
+     * @param values values to write, pulled lazily
+     * @param type   class used to derive the CSV schema (non-null)
+     * @param out    destination stream
+     * @param header whether to start with the header row (written even if there are no values)
+     * @return number of rows written, excluding the header
+     * @throws CsvHandlerException if the type is invalid, serialization fails, or an I/O error occurs
+     */
+    <T> long writeRows(Iterator<T> values, Class<T> type, OutputStream out, boolean header)
+            throws CsvHandlerException {
+        validateType(type);
+
+        ModelCodec<T> codec = GeneratedCodecModule.find(type);
+        if (codec != null) {
+            return encodeRows(values, codec, cache.csvSchema(type), out, header);
+        }
+        ObjectWriter writer = header ? headerWriter(type) : cache.csvRowWriter(type);
+        try (SequenceWriter sequence = writer.writeValues(out)) {
+            return writeAll(values, sequence);
+        } catch (IOException e) {
+            throw this.handleException(e);
+        }
+    }
+
+    /**
+     * Writes values to a stream with a header holding only the selected columns, in the given
+     * order. The other properties of {@code type} are not written. The stream is flushed but not closed.
+     *
+     * @param <T>     element type
+     * @param values  values to write, pulled lazily
+     * @param type    class used to derive the CSV schema (non-null)
+     * @param columns property names to write, in output order
+     * @param out     destination stream
+     * @return number of rows written, excluding the header
+     * @throws CsvHandlerException if a column is not a property of {@code type}, serialization fails,
+     *                             or an I/O error occurs
+     */
+    <T> long writeRows(Iterator<T> values, Class<T> type, List<String> columns, OutputStream out)
+            throws CsvHandlerException {
+        validateType(type);
+
+        ObjectWriter writer = cache.csvMapper().writer(this.projectedSchema(type, columns))
+                .with(JsonGenerator.Feature.IGNORE_UNKNOWN)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (SequenceWriter sequence = writer.writeValues(out)) {
+            return writeAll(values, sequence);
+        } catch (IOException e) {
+            throw this.handleException(e);
+        }
+    }
+
+    /**
+     * Opens a buffered stream to a file, creating or truncating it. With fsync enabled,
+     * closing the stream forces the file to the storage device. A file named {@code .gz},
+     * {@code .zst} or {@code .lz4} is compressed in independent blocks on several threads.
+     *
+     * @param file destination file
+     * @return buffered output stream; must be closed
+     * @throws CsvHandlerException if the file cannot be opened
+     */
+    OutputStream openOutput(Path file) throws CsvHandlerException {
+        return openOutput(file, 0, fsync);
+    }
+
+    /**
+     * Opens a buffered stream that appends to a file from {@code position}, dropping anything past
+     * it. A compressed file must end on a block boundary at {@code position}, so that the appended
+     * blocks continue a valid stream.
+     *
+     * @param file     destination file; created if {@code position} is {@code 0}
+     * @param position length to keep from the existing file
+     * @param force    whether every flush forces the written bytes to the storage device
+     * @return buffered output stream; must be closed
+     * @throws CsvHandlerException if the file cannot be opened or truncated
+     */
+    OutputStream openOutput(Path file, long position, boolean force) throws CsvHandlerException {
+        try {
+            FileChannel channel = position == 0
+                    ? FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                            StandardOpenOption.WRITE)
+                    : FileChannel.open(file, StandardOpenOption.WRITE);
+            if (position > 0) {
+                channel.truncate(position).position(position);
+            }
+            OutputStream out = ConversionMeter.meterOutput(new ByteChannelOutputStream(channel, true, force));
+            Compression compression = Compression.fromFilename(file.getFileName().toString());
+            if (compression != Compression.NONE) {
+                // the compressor buffers whole blocks itself
+                return CompressedStreams.compress(out, compression);
+            }
+            return new BufferedOutputStream(out, bufferSize);
+        } catch (IOException e) {
+            throw this.handleException(e);
+        }
+    }
+
+    private <T> long writeFile(Iterator<T> values, Class<T> type, Path file) {
+        try (OutputStream out = openOutput(file)) {
+            return writeRows(values, type, out, true);
+        } catch (IOException e) {
+            throw this.handleException(e);
+        }
+    }
+
+    private <T> long encodeRows(Iterator<T> values, ModelCodec<T> codec, CsvSchema schema,
+                                OutputStream out, boolean header) {
+        try (CsvRowEncoder encoder = CsvRowEncoder.open(out)) {
+            if (header) {
+                encoder.writeHeader(schema.getColumnNames());
+            }
+            long rows = 0;
+            while (values.hasNext()) {
+                T value = values.next();
+                // Jackson's sequence writer skips null elements, but they still count as written
+                if (value != null) {
+                    codec.writeCsv(value, encoder);
+                }
+                rows++;
+            }
+            return rows;
+        } catch (IOException e) {
+            throw this.handleException(e);
+        }
+    }
+
+    private CsvSchema projectedSchema(Class<?> type, List<String> columns) {
+        CsvSchema schema = cache.csvSchema(type);
+        CsvSchema.Builder projected = schema.rebuild().clearColumns();
+        for (String name : columns) {
+            CsvSchema.Column column = schema.column(name);
+            if (column == null) {
+                throw new CsvHandlerException("Column '" + name + "' is not a property of " + type.getSimpleName()
+                        + "; expected one of " + schema.getColumnNames());
+            }
+            projected.addColumn(name, column.getType());
+        }
+        return projected.build();
+    }
+
+    private <T> long writeAll(Iterator<T> values, SequenceWriter sequence) throws IOException {
+        long rows = 0;
+        while (values.hasNext()) {
+            sequence.write(values.next());
+            rows++;
+        }
+        return rows;
+    }
+
+    private ObjectWriter headerWriter(Class<?> type) {
+        return cache.csvWriter(type).without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    private void flush(Flushable destination) {
         try {
-            CsvSchema schema = csvMapper.schemaFor(type).withHeader();
-            String csv = csvMapper.writer(schema).writeValueAsString(list);
-            Files.writeString(Path.of(filename + ".csv"), csv);
-            System.out.println("CSV list generated successfully");
-        } catch (Exception e) {
+            destination.flush();
+        } catch (IOException e) {
             throw this.handleException(e);
         }
     }
 
-    private CsvHandlerException handleException(Exception e) {
+    /**
+     * Resolves the CSV file for a base filename. A name that already ends with {@code .csv} and a
+     * compression extension ({@code users.csv.gz}) is used as is, so compressed output can be named.
+     *
+     * @param filename base filename (non-blank)
+     * @return path with the {@code .csv} extension appended, or the compressed file name
+     * @throws CsvHandlerException if the filename is null or blank
+     */
+    Path csvPath(String filename) throws CsvHandlerException {
+        validateFilename(filename);
+        if (Compression.fromFilename(filename) != Compression.NONE
+                && Compression.stripExtension(filename).toLowerCase(Locale.ROOT).endsWith(".csv")) {
+            return Path.of(filename);
+        }
+        return Path.of(filename + ".csv");
+    }
+
+    /** @return cache of schemas and writers shared with the converters built on this handler */
+    JacksonTypeCache cache() {
+        return cache;
+    }
+
+    CsvHandlerException handleException(Exception e) {
         String message = e.getMessage();
 
+        if (e instanceof CsvHandlerException) {
+            return (CsvHandlerException) e;
+        }
+        if (e instanceof RuntimeJsonMappingException && e.getCause() instanceof Exception) {
+            return this.handleException((Exception) e.getCause());
+        }
+
         if (e instanceof InvalidDefinitionException) {
             return new CsvHandlerException("Invalid object definition for CSV: ", e);
         }
@@ -104,6 +614,27 @@ final class CsvJacksonHandler implements CsvHandler {
         }
     }
 
+    private File validateCsvInput(String filename) {
+        validateFilename(filename);
+        if (!Compression.stripExtension(filename).toLowerCase(Locale.ROOT).endsWith(".csv")) {
+            throw new CsvHandlerException("The filename needs to have the extension .csv: " + filename);
+        }
+        File file = new File(filename);
+        if (!file.exists()) {
+            throw new CsvHandlerException("CSV file not found: " + filename);
+        }
+        if (!file.isFile()) {
+            throw new CsvHandlerException("The path is not a regular file: " + filename);
+        }
+        if (!file.canRead()) {
+            throw new CsvHandlerException("Read permission denied for file: " + filename);
+        }
+        if (file.length() == 0) {
+            throw new CsvHandlerException("The file is empty: " + filename);
+        }
+        return file;
+    }
+
     private <T> void validateType(Class<T> type) {
         if (type == null) {
             throw new CsvHandlerException("The type parameter cannot be null.");
@@ -116,6 +647,18 @@ final class CsvJacksonHandler implements CsvHandler {
         }
     }
 
+    private void validateSource(Object source) {
+        if (source == null) {
+            throw new CsvHandlerException("The source of rows cannot be null.");
+        }
+    }
+
+    private void validateDestination(Object destination) {
+        if (destination == null) {
+            throw new CsvHandlerException("The destination cannot be null.");
+        }
+    }
+
     private <T> void validateList(List<T> list) {
         if (list == null || list.isEmpty()) {
             throw new CsvHandlerException("The list cannot be null or empty.");
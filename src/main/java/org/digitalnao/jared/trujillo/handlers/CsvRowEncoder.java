@@ -0,0 +1,366 @@
+package org.digitalnao.jared.trujillo.handlers;
+
+import org.digitalnao.jared.trujillo.interfaces.CsvFieldWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * CSV writer that encodes fields straight into a byte buffer as UTF-8, used for types with a
+ * generated {@link org.digitalnao.jared.trujillo.interfaces.ModelCodec}. Integers are formatted
+ * digit by digit and strings are quoted and escaped in place, so writing a row allocates nothing.
+ *
+ * The output is byte-for-byte what Jackson's {@code CsvGenerator} writes with the default schema
+ * settings: {@code ,} separator, {@code "} quote, {@code \n} line ends, and a field is quoted when
+ * it is longer than 24 chars or contains a char below {@code '-'} or a backslash. Doubles and
+ * floats still go through {@link Double#toString(double)}, exactly as Jackson formats them.
+ *
+ * Buffers are pooled per thread: {@link #open} takes the thread's buffer and {@link #close}
+ * returns it, so a nested writer on the same thread simply gets a fresh one.
+ */
+final class CsvRowEncoder implements CsvFieldWriter, AutoCloseable {
+
+    static final int BUFFER_SIZE = 16 * 1024;
+
+    /** Jackson's {@code CsvEncoder.MAX_QUOTE_CHECK}: longer values are always quoted. */
+    private static final int MAX_QUOTE_CHECK = 24;
+    /** Lowest char that never needs quoting: one past the separator, quote and line feed. */
+    private static final int MIN_SAFE_CHAR = ',' + 1;
+    /** Largest encoding of one char (three bytes) or one surrogate pair (four bytes). */
+    private static final int MAX_CHAR_BYTES = 4;
+    private static final byte[] MIN_INT = "-2147483648".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] MIN_LONG = "-9223372036854775808".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] TRUE = "true".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] FALSE = "false".getBytes(StandardCharsets.US_ASCII);
+
+    private static final ThreadLocal<byte[]> BUFFERS = new ThreadLocal<>();
+
+    private final OutputStream out;
+    private byte[] buffer;
+    private int tail;
+    private int column;
+
+    private CsvRowEncoder(OutputStream out, byte[] buffer) {
+        this.out = out;
+        this.buffer = buffer;
+    }
+
+    /**
+     * Creates an encoder writing to {@code out}, borrowing this thread's buffer when it is free.
+     *
+     * @param out destination stream, never closed by the encoder
+     * @return encoder; must be closed to flush the last rows and give the buffer back
+     */
+    static CsvRowEncoder open(OutputStream out) {
+        byte[] buffer = BUFFERS.get();
+        if (buffer == null) {
+            buffer = new byte[BUFFER_SIZE];
+        } else {
+            BUFFERS.set(null);
+        }
+        return new CsvRowEncoder(out, buffer);
+    }
+
+    /**
+     * Writes the column names as a header row.
+     *
+     * @param names column names, in order
+     * @throws IOException if the destination fails
+     */
+    void writeHeader(Iterable<String> names) throws IOException {
+        for (String name : names) {
+            writeString(name);
+        }
+        endRow();
+    }
+
+    @Override
+    public void writeString(String value) throws IOException {
+        separator();
+        if (value == null) {
+            return;
+        }
+        int length = value.length();
+        boolean quote = length > MAX_QUOTE_CHECK;
+        boolean plain = true;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < MIN_SAFE_CHAR || c == '\\') {
+                quote = true;
+                plain &= c != '"';
+            } else if (c >= 0x80) {
+                plain = false;
+            }
+        }
+        if (!quote) {
+            writeRaw(value, plain);
+            return;
+        }
+        ensure(1);
+        buffer[tail++] = '"';
+        if (plain) {
+            writeAscii(value);
+        } else {
+            writeQuoted(value);
+        }
+        ensure(1);
+        buffer[tail++] = '"';
+    }
+
+    /**
+     * Writes a text field held as ASCII bytes, such as a JSON string without escapes, quoting it
+     * by the same rules as {@link #writeString(String)}. The bytes are copied as they are.
+     *
+     * @param bytes  source bytes; the field must not contain a {@code "} or a non-ASCII byte
+     * @param offset first byte of the field
+     * @param length number of bytes
+     * @throws IOException if the destination fails
+     */
+    void writeAsciiString(byte[] bytes, int offset, int length) throws IOException {
+        separator();
+        boolean quote = length > MAX_QUOTE_CHECK;
+        for (int i = offset, end = offset + length; i < end && !quote; i++) {
+            quote = bytes[i] < MIN_SAFE_CHAR || bytes[i] == '\\';
+        }
+        if (quote) {
+            ensure(1);
+            buffer[tail++] = '"';
+        }
+        for (int start = offset, end = offset + length; start < end; ) {
+            if (tail == buffer.length) {
+                flushBuffer();
+            }
+            int chunk = Math.min(end - start, buffer.length - tail);
+            System.arraycopy(bytes, start, buffer, tail, chunk);
+            tail += chunk;
+            start += chunk;
+        }
+        if (quote) {
+            ensure(1);
+            buffer[tail++] = '"';
+        }
+    }
+
+    @Override
+    public void writeInt(int value) throws IOException {
+        separator();
+        if (value == Integer.MIN_VALUE) {
+            writeBytes(MIN_INT);
+            return;
+        }
+        ensure(11);
+        if (value < 0) {
+            buffer[tail++] = '-';
+            value = -value;
+        }
+        int end = tail + digits(value);
+        for (int i = end - 1; i >= tail; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        tail = end;
+    }
+
+    @Override
+    public void writeLong(long value) throws IOException {
+        if (value == (int) value) {
+            writeInt((int) value);
+            return;
+        }
+        separator();
+        if (value == Long.MIN_VALUE) {
+            writeBytes(MIN_LONG);
+            return;
+        }
+        ensure(20);
+        if (value < 0) {
+            buffer[tail++] = '-';
+            value = -value;
+        }
+        int end = tail + digits(value);
+        for (int i = end - 1; i >= tail; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        tail = end;
+    }
+
+    @Override
+    public void writeDouble(double value) throws IOException {
+        separator();
+        writeAscii(Double.toString(value));
+    }
+
+    @Override
+    public void writeFloat(float value) throws IOException {
+        separator();
+        writeAscii(Float.toString(value));
+    }
+
+    @Override
+    public void writeBoolean(boolean value) throws IOException {
+        separator();
+        writeBytes(value ? TRUE : FALSE);
+    }
+
+    @Override
+    public void writeNull() throws IOException {
+        separator();
+    }
+
+    @Override
+    public void endRow() throws IOException {
+        ensure(1);
+        buffer[tail++] = '\n';
+        column = 0;
+    }
+
+    /**
+     * Writes the buffered bytes and flushes the destination.
+     *
+     * @throws IOException if the destination fails
+     */
+    void flush() throws IOException {
+        flushBuffer();
+        out.flush();
+    }
+
+    /**
+     * Flushes the buffered rows and returns the buffer to this thread's pool. The destination
+     * stream stays open.
+     *
+     * @throws IOException if the destination fails
+     */
+    @Override
+    public void close() throws IOException {
+        if (buffer == null) {
+            return;
+        }
+        try {
+            flush();
+        } finally {
+            BUFFERS.set(buffer);
+            buffer = null;
+        }
+    }
+
+    private void separator() throws IOException {
+        if (column++ > 0) {
+            ensure(1);
+            buffer[tail++] = ',';
+        }
+    }
+
+    private void writeQuoted(String value) throws IOException {
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                ensure(2);
+                buffer[tail++] = '"';
+                buffer[tail++] = '"';
+            } else {
+                i = writeChar(value, i, c);
+            }
+        }
+    }
+
+    private void writeRaw(String value, boolean ascii) throws IOException {
+        if (ascii) {
+            writeAscii(value);
+            return;
+        }
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            i = writeChar(value, i, value.charAt(i));
+        }
+    }
+
+    /**
+     * Copies a string known to be plain ASCII. {@link String#getBytes(int, int, byte[], int)} keeps
+     * the low byte of each char, which is exactly UTF-8 here, and is a bulk copy for Latin-1 strings.
+     */
+    @SuppressWarnings("deprecation")
+    private void writeAscii(String value) throws IOException {
+        int length = value.length();
+        for (int start = 0; start < length; ) {
+            if (tail == buffer.length) {
+                flushBuffer();
+            }
+            int end = Math.min(length, start + buffer.length - tail);
+            value.getBytes(start, end, buffer, tail);
+            tail += end - start;
+            start = end;
+        }
+    }
+
+    /**
+     * Encodes the char at {@code index} as UTF-8, consuming the low surrogate of a pair too.
+     *
+     * @return index of the last char consumed
+     */
+    private int writeChar(String value, int index, char c) throws IOException {
+        ensure(MAX_CHAR_BYTES);
+        byte[] buf = buffer;
+        if (c < 0x80) {
+            buf[tail++] = (byte) c;
+        } else if (c < 0x800) {
+            buf[tail++] = (byte) (0xC0 | (c >> 6));
+            buf[tail++] = (byte) (0x80 | (c & 0x3F));
+        } else if (!Character.isSurrogate(c)) {
+            buf[tail++] = (byte) (0xE0 | (c >> 12));
+            buf[tail++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+            buf[tail++] = (byte) (0x80 | (c & 0x3F));
+        } else {
+            char low = index + 1 < value.length() ? value.charAt(index + 1) : 0;
+            if (!Character.isHighSurrogate(c) || !Character.isLowSurrogate(low)) {
+                throw new IOException(String.format("Broken surrogate pair: 0x%04x at index %d", (int) c, index));
+            }
+            int codePoint = Character.toCodePoint(c, low);
+            buf[tail++] = (byte) (0xF0 | (codePoint >> 18));
+            buf[tail++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+            buf[tail++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+            buf[tail++] = (byte) (0x80 | (codePoint & 0x3F));
+            return index + 1;
+        }
+        return index;
+    }
+
+    private void writeBytes(byte[] bytes) throws IOException {
+        ensure(bytes.length);
+        System.arraycopy(bytes, 0, buffer, tail, bytes.length);
+        tail += bytes.length;
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (tail + bytes > buffer.length) {
+            flushBuffer();
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        if (tail > 0) {
+            out.write(buffer, 0, tail);
+            tail = 0;
+        }
+    }
+
+    private static int digits(int value) {
+        int digits = 1;
+        while (value >= 10) {
+            value /= 10;
+            digits++;
+        }
+        return digits;
+    }
+
+    private static int digits(long value) {
+        int digits = 1;
+        while (value >= 10) {
+            value /= 10;
+            digits++;
+        }
+        return digits;
+    }
+}
@@ -0,0 +1,285 @@
+package org.digitalnao.jared.trujillo.handlers;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import com.fasterxml.jackson.databind.util.ClassUtil;
+import org.digitalnao.jared.trujillo.classes.JsonContent;
+import org.digitalnao.jared.trujillo.exceptions.JsonHandlerException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * JSON to CSV conversion that reads flat records with a {@link FlatJsonScanner} instead of data
+ * binding. The input is read into a byte buffer and every record the scanner accepts goes straight
+ * from the buffer to the {@link CsvRowEncoder}. A record it does not accept, and anything that is
+ * not a record, is parsed by Jackson from the same position, bound and written like any other
+ * row; Jackson hands back the bytes it read ahead, and the scanner carries on after the record.
+ * A malformed record therefore fails with the same error as in the Jackson conversion.
+ *
+ * Classes that are not flat, and inputs that are not UTF-8, are converted entirely by Jackson.
+ * Instances are stateless and thread-safe.
+ */
+final class DirectJsonCsvConverter {
+
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final byte[] UTF8_BOM = { (byte) 0xEF, (byte) 0xBB, (byte) 0xBF };
+    private static final byte[] ARRAY_START = { '[' };
+
+    private final JsonJacksonHandler jsonHandler;
+    private final CsvJacksonHandler csvHandler;
+
+    DirectJsonCsvConverter(JsonJacksonHandler jsonHandler, CsvJacksonHandler csvHandler) {
+        this.jsonHandler = jsonHandler;
+        this.csvHandler = csvHandler;
+    }
+
+    /**
+     * Rows written by a conversion.
+     *
+     * @param records   rows written, excluding the header
+     * @param fallbacks records converted by Jackson instead of the scanner
+     */
+    record Counts(long records, long fallbacks) {
+    }
+
+    /**
+     * Converts the JSON on {@code in} (a root array, a single object or JSON Lines) to CSV with a
+     * header row. Neither stream is closed.
+     *
+     * @param <T>  element type
+     * @param in   uncompressed UTF-8 JSON
+     * @param out  destination of the CSV rows
+     * @param type class used to derive the CSV schema and to bind records the scanner leaves to Jackson
+     * @return rows written and how many were left to Jackson
+     * @throws IOException          if the input cannot be read or the output written
+     * @throws JsonHandlerException if the input is empty or malformed, or a record cannot be bound
+     */
+    <T> Counts convert(InputStream in, OutputStream out, Class<T> type) throws IOException {
+        JacksonTypeCache cache = csvHandler.cache();
+        RecordColumns<T> columns;
+        FlatJsonScanner scanner;
+        try {
+            columns = RecordColumns.of(cache, type);
+            scanner = FlatJsonScanner.of(cache, columns, type);
+        } catch (IllegalArgumentException e) {
+            scanner = null;
+            columns = null;
+        }
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int limit = in.readNBytes(buffer, 0, 4);
+        if (scanner == null || !isUtf8(buffer, limit)) {
+            InputStream whole = new SequenceInputStream(new ByteArrayInputStream(buffer, 0, limit), in);
+            try (JsonContent<T> content = jsonHandler.readJson(whole, type)) {
+                long rows = csvHandler.writeRows(content.iterator(), type, out, true);
+                return new Counts(rows, rows);
+            }
+        }
+
+        csvHandler.writeRows(Collections.emptyIterator(), type, out, true);
+        Reader<T> reader = new Reader<>(in, buffer, limit, scanner, columns, jsonHandler.jsonFactory(),
+                cache.jsonReader(type));
+        try (CsvRowEncoder row = CsvRowEncoder.open(out)) {
+            reader.convert(row);
+        }
+        return new Counts(reader.records, reader.fallbacks);
+    }
+
+    /**
+     * Tells UTF-8 from the other encodings Jackson detects: UTF-16 and UTF-32 have a zero byte
+     * among the first two of any JSON text, or start with a {@code FE FF} or {@code FF FE} mark.
+     */
+    private static boolean isUtf8(byte[] head, int length) {
+        if (length < 2) {
+            return true;
+        }
+        int first = head[0] & 0xFF;
+        return head[0] != 0 && head[1] != 0 && first != 0xFE && first != 0xFF;
+    }
+
+    /** Buffer and position of one conversion. */
+    private final class Reader<T> {
+
+        private final InputStream in;
+        private final FlatJsonScanner scanner;
+        private final RecordColumns<T> columns;
+        private final JsonFactory factory;
+        private final ObjectReader reader;
+        private byte[] buffer;
+        private int position;
+        private int limit;
+        private boolean eof;
+        long records;
+        long fallbacks;
+
+        Reader(InputStream in, byte[] buffer, int limit, FlatJsonScanner scanner, RecordColumns<T> columns,
+               JsonFactory factory, ObjectReader reader) {
+            this.in = in;
+            this.buffer = buffer;
+            this.limit = limit;
+            this.scanner = scanner;
+            this.columns = columns;
+            this.factory = factory;
+            this.reader = reader;
+        }
+
+        void convert(CsvRowEncoder row) throws IOException {
+            fill();
+            if (limit >= UTF8_BOM.length && Arrays.equals(buffer, 0, UTF8_BOM.length, UTF8_BOM, 0, UTF8_BOM.length)) {
+                position = UTF8_BOM.length;
+            }
+            if (!skipWhitespace()) {
+                throw new JsonHandlerException("The JSON input is empty");
+            }
+            boolean array = buffer[position] == '[';
+            if (array) {
+                position++;
+                if (!skipWhitespace()) {
+                    throw unclosedArray();
+                }
+                if (buffer[position] == ']') {
+                    return;
+                }
+            }
+            while (true) {
+                record(row);
+                if (!skipWhitespace()) {
+                    if (array) {
+                        throw unclosedArray();
+                    }
+                    return;
+                }
+                if (!array) {
+                    continue;
+                }
+                byte next = buffer[position++];
+                if (next == ']') {
+                    return;
+                }
+                if (next != ',' || !skipWhitespace()) {
+                    throw next == ',' ? unclosedArray() : malformed("Unexpected character '"
+                            + (char) next + "' after record " + records + "; expected ',' or ']'");
+                }
+            }
+        }
+
+        /** Converts the record at the current position, with the scanner if it can. */
+        private void record(CsvRowEncoder row) throws IOException {
+            if (buffer[position] == '{') {
+                while (true) {
+                    int end = scanner.scan(buffer, position, limit);
+                    if (end >= 0) {
+                        scanner.write(row);
+                        position = end;
+                        records++;
+                        return;
+                    }
+                    // a record longer than the buffer is left to Jackson rather than buffered whole
+                    if (end == FlatJsonScanner.UNSUPPORTED || eof || position == 0 && limit == buffer.length) {
+                        break;
+                    }
+                    fill();
+                }
+            }
+            fallback(row);
+        }
+
+        /**
+         * Binds the record at the current position with Jackson, which reads past the buffer if it
+         * needs to, then puts the bytes it did not consume back in the buffer.
+         */
+        private void fallback(CsvRowEncoder row) throws IOException {
+            ByteArrayInputStream buffered = new ByteArrayInputStream(buffer, position, limit - position);
+            ByteArrayOutputStream unread = new ByteArrayOutputStream();
+            // inside an array, as data binding reads it, a scalar needs no separator after it
+            InputStream element = new SequenceInputStream(Collections.enumeration(
+                    List.of(new ByteArrayInputStream(ARRAY_START), buffered, in)));
+            try (JsonParser parser = factory.createParser(element)) {
+                parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+                parser.nextToken();
+                if (parser.nextToken() == JsonToken.END_ARRAY) {
+                    // a ']' right after a ',' is a trailing comma, which data binding's parser rejects
+                    throw malformed("Unexpected character (']') after record " + records + ": expected a value");
+                }
+                T value = reader.readValue(parser);
+                if (value == null) {
+                    // a null element binds to null here, but data binding rejects it while iterating
+                    throw MismatchedInputException.from(parser, reader.getValueType(),
+                            "Cannot deserialize value of type " + ClassUtil.getTypeDescription(reader.getValueType())
+                                    + " from Null value (token `JsonToken.VALUE_NULL`)");
+                }
+                columns.write(value, row);
+                parser.releaseBuffered(unread);
+            } catch (IOException | RuntimeException e) {
+                throw jsonHandler.handleException(e);
+            }
+            // what Jackson read ahead comes first, then what it never read from the buffer
+            byte[] ahead = unread.toByteArray();
+            int rest = ahead.length + buffered.available();
+            if (rest > buffer.length) {
+                buffer = new byte[rest];
+            }
+            buffered.readNBytes(buffer, ahead.length, buffered.available());
+            System.arraycopy(ahead, 0, buffer, 0, ahead.length);
+            position = 0;
+            limit = rest;
+            records++;
+            fallbacks++;
+        }
+
+        /**
+         * Skips whitespace, reading more input as needed.
+         *
+         * @return {@code false} at the end of the input
+         */
+        private boolean skipWhitespace() throws IOException {
+            while (true) {
+                position = FlatJsonScanner.skipWhitespace(buffer, position, limit);
+                if (position < limit) {
+                    return true;
+                }
+                if (eof) {
+                    return false;
+                }
+                fill();
+            }
+        }
+
+        /** Moves the unread bytes to the front of the buffer and reads more after them. */
+        private void fill() throws IOException {
+            if (position > 0) {
+                System.arraycopy(buffer, position, buffer, 0, limit - position);
+                limit -= position;
+                position = 0;
+            }
+            int read = in.read(buffer, limit, buffer.length - limit);
+            if (read < 0) {
+                eof = true;
+            } else {
+                limit += read;
+            }
+        }
+
+        private JsonHandlerException unclosedArray() {
+            return malformed("Unexpected end of the JSON input after record " + records
+                    + ": the root array is not closed");
+        }
+
+        /** @return the exception data binding reports for a syntax error, with {@code detail} as its cause */
+        private JsonHandlerException malformed(String detail) {
+            return jsonHandler.handleException(new JsonParseException(null, detail));
+        }
+    }
+}
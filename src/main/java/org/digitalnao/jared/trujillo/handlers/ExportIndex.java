@@ -0,0 +1,421 @@
+package org.digitalnao.jared.trujillo.handlers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Index of an incremental export, kept in a binary sidecar next to the CSV file. It identifies the
+ * input (path, size, modification time, and hashes of the first and last bytes of the exported
+ * part), the CSV columns, how far the input was read, and for every id the content hashes of its
+ * first and last record and where its row is in the CSV file. Offsets into the input count
+ * uncompressed bytes.
+ *
+ * The sidecar is read and written whole on every export, so the entries live in primitive arrays
+ * rather than one object per id: the ids are UTF-8 bytes in a single arena, found through an
+ * open-addressing table, and the sidecar stores the arrays as they are. Loading an index of
+ * millions of ids is then a bulk read and a pass that rebuilds the table.
+ *
+ * The sidecar is a cache: one that cannot be read, or that belongs to another type, set of
+ * columns, id field or CSV file, is ignored and the export starts over.
+ */
+final class ExportIndex {
+
+    /** Bytes hashed at the start and at the end of the exported part of the input. */
+    static final int FINGERPRINT_BYTES = 64 * 1024;
+
+    private static final int MAGIC = 0x4A435849;
+    private static final int VERSION = 2;
+    private static final long FNV_OFFSET = 0xCBF29CE484222325L;
+    private static final long FNV_PRIME = 0x100000001B3L;
+
+    final String input;
+    final String type;
+    final long columns;
+    final String idField;
+    final boolean array;
+    final Entries entries;
+    long inputSize;
+    long inputModified;
+    long inputOffset;
+    long headHash;
+    long tailHash;
+    long outputLength;
+
+    private ExportIndex(String input, String type, long columns, String idField, boolean array, Entries entries) {
+        this.input = input;
+        this.type = type;
+        this.columns = columns;
+        this.idField = idField;
+        this.array = array;
+        this.entries = entries;
+    }
+
+    /**
+     * Starts an empty index.
+     *
+     * @param input   input file
+     * @param type    record class
+     * @param columns CSV columns of {@code type}, in order
+     * @param idField field identifying a record
+     * @param array   whether the records are the elements of a root array
+     * @return index without entries, at the start of the input
+     */
+    static ExportIndex start(Path input, Class<?> type, List<String> columns, String idField, boolean array) {
+        return new ExportIndex(identity(input), type.getName(), hash(columns), idField, array, new Entries(16, 256));
+    }
+
+    /**
+     * Reads an index sidecar.
+     *
+     * @param file sidecar path
+     * @return the index, or {@code null} if there is none or it cannot be read
+     */
+    static ExportIndex load(Path file) {
+        try {
+            ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(file));
+            if (in.getInt() != MAGIC || in.getInt() != VERSION) {
+                return null;
+            }
+            String input = readString(in);
+            String type = readString(in);
+            long columns = in.getLong();
+            String idField = readString(in);
+            boolean array = in.get() != 0;
+            long inputSize = in.getLong();
+            long inputModified = in.getLong();
+            long inputOffset = in.getLong();
+            long headHash = in.getLong();
+            long tailHash = in.getLong();
+            long outputLength = in.getLong();
+            ExportIndex index = new ExportIndex(input, type, columns, idField, array, Entries.read(in));
+            index.inputSize = inputSize;
+            index.inputModified = inputModified;
+            index.inputOffset = inputOffset;
+            index.headHash = headHash;
+            index.tailHash = tailHash;
+            index.outputLength = outputLength;
+            return index;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | RuntimeException e) {
+            // a truncated or foreign sidecar only costs a full export
+            return null;
+        }
+    }
+
+    /**
+     * Writes the sidecar atomically and forces it to the storage device before it replaces the
+     * previous one, so that a crash leaves either the previous index or this one.
+     *
+     * @param file sidecar path
+     * @throws IOException if the sidecar cannot be written
+     */
+    void save(Path file) throws IOException {
+        byte[] input = this.input.getBytes(StandardCharsets.UTF_8);
+        byte[] type = this.type.getBytes(StandardCharsets.UTF_8);
+        byte[] idField = this.idField.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer out = ByteBuffer.allocate(4 * 5 + input.length + type.length + 8 + idField.length + 1 + 8 * 6
+                + entries.serializedSize());
+        out.putInt(MAGIC).putInt(VERSION);
+        out.putInt(input.length).put(input);
+        out.putInt(type.length).put(type);
+        out.putLong(columns);
+        out.putInt(idField.length).put(idField);
+        out.put((byte) (array ? 1 : 0));
+        out.putLong(inputSize).putLong(inputModified).putLong(inputOffset);
+        out.putLong(headHash).putLong(tailHash).putLong(outputLength);
+        entries.write(out);
+        ConversionCheckpoint.replace(file, out.flip(), true);
+    }
+
+    /**
+     * @param input   input file of this export
+     * @param output  CSV file of this export
+     * @param type    record class
+     * @param columns CSV columns of {@code type}, in order
+     * @param idField field identifying a record
+     * @return whether the index describes this input, type, columns and id field, and the CSV file
+     *         has not been modified since it was written
+     * @throws IOException if the file attributes cannot be read
+     */
+    boolean describes(Path input, Path output, Class<?> type, List<String> columns, String idField)
+            throws IOException {
+        return this.input.equals(identity(input)) && this.type.equals(type.getName()) && this.columns == hash(columns)
+                && this.idField.equals(idField) && Files.exists(output) && Files.size(output) == outputLength;
+    }
+
+    /**
+     * @param input input attributes read before the export opened it
+     * @return whether the input has the size and modification time it had when the index was saved
+     */
+    boolean unmodified(Snapshot input) {
+        return input.size() == inputSize && input.modified() == inputModified;
+    }
+
+    /**
+     * Records the input attributes read before the export and the fingerprint of its first
+     * {@code offset} bytes. If the input no longer has those attributes, the fingerprint may hash
+     * other bytes than the exported ones, so the offset is dropped and the next export rescans.
+     *
+     * @param input    input file
+     * @param snapshot input attributes read before the input was opened
+     * @param offset   uncompressed input bytes exported
+     * @throws IOException if the input cannot be read
+     */
+    void advance(Path input, Snapshot snapshot, long offset) throws IOException {
+        inputSize = snapshot.size();
+        inputModified = snapshot.modified();
+        inputOffset = offset;
+        headHash = hashHead(input, offset);
+        tailHash = hashTail(input, offset);
+        if (!snapshot.equals(Snapshot.of(input))) {
+            inputOffset = 0;
+        }
+    }
+
+    /**
+     * @param input   input file
+     * @param current input attributes read before the export opened it
+     * @return whether the input still starts and, at the exported offset, still ends like the
+     *         exported part, so that the records after the offset are the only new ones
+     * @throws IOException if the input cannot be read
+     */
+    boolean grew(Path input, Snapshot current) throws IOException {
+        return current.size() >= inputSize && hashHead(input, inputOffset) == headHash
+                && hashTail(input, inputOffset) == tailHash;
+    }
+
+    /** @return initial content hash, extended with {@link #mix(long, int)} and {@link #mix(long, String)} */
+    static long seed() {
+        return FNV_OFFSET;
+    }
+
+    /** @return {@code hash} extended with one value */
+    static long mix(long hash, int value) {
+        return (hash ^ value) * FNV_PRIME;
+    }
+
+    /** @return {@code hash} extended with a string and its length */
+    static long mix(long hash, String text) {
+        hash = mix(hash, text.length());
+        for (int i = 0; i < text.length(); i++) {
+            hash = (hash ^ text.charAt(i)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    private static long hash(List<String> columns) {
+        long hash = mix(FNV_OFFSET, columns.size());
+        for (String column : columns) {
+            hash = mix(hash, column);
+        }
+        return hash;
+    }
+
+    private static long hash(byte[] bytes, int from, int length) {
+        long hash = mix(FNV_OFFSET, length);
+        for (int i = from; i < from + length; i++) {
+            hash = (hash ^ (bytes[i] & 0xFF)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    private static long hashHead(Path input, long offset) throws IOException {
+        return hashRange(input, 0, Math.min(offset, FINGERPRINT_BYTES));
+    }
+
+    private static long hashTail(Path input, long offset) throws IOException {
+        return hashRange(input, Math.max(0, offset - FINGERPRINT_BYTES), offset);
+    }
+
+    private static long hashRange(Path input, long from, long to) throws IOException {
+        try (InputStream in = CheckpointedJsonCsvConverter.openInput(input, from)) {
+            byte[] bytes = in.readNBytes((int) (to - from));
+            return hash(bytes, 0, bytes.length);
+        }
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static String identity(Path input) {
+        return input.toAbsolutePath().normalize().toString();
+    }
+
+    /**
+     * Size and modification time of an input, read once before an export opens it so that bytes
+     * appended while it is read are left for the next export.
+     */
+    record Snapshot(long size, long modified) {
+
+        /** @return the current attributes of {@code input} */
+        static Snapshot of(Path input) throws IOException {
+            return new Snapshot(Files.size(input), Files.getLastModifiedTime(input).toMillis());
+        }
+    }
+
+    /**
+     * Ids with the content hash of their last record, the hash of their first one (the same unless
+     * the id repeats) and their CSV row, numbered in the order they were added. The row offset of an
+     * entry is {@code -1} until its row is written.
+     */
+    static final class Entries {
+
+        private byte[] ids;
+        private int[] starts;
+        long[] hashes;
+        long[] firsts;
+        long[] offsets;
+        int[] lengths;
+        private int size;
+        // entry number + 1 per slot, 0 for a free slot; at most half full
+        private int[] slots;
+
+        private Entries(int capacity, int idBytes) {
+            ids = new byte[idBytes];
+            starts = new int[capacity + 1];
+            hashes = new long[capacity];
+            firsts = new long[capacity];
+            offsets = new long[capacity];
+            lengths = new int[capacity];
+            slots = new int[Integer.highestOneBit(capacity) * 4];
+        }
+
+        /** @return number of ids */
+        int size() {
+            return size;
+        }
+
+        /**
+         * @param id record id
+         * @return number of the entry of {@code id}, or {@code -1} if there is none
+         */
+        int find(String id) {
+            byte[] bytes = id.getBytes(StandardCharsets.UTF_8);
+            return find(bytes, 0, bytes.length);
+        }
+
+        /**
+         * @param other entries of another index
+         * @param entry number of an entry in {@code other}
+         * @return number of the entry with the same id here, or {@code -1} if there is none
+         */
+        int find(Entries other, int entry) {
+            return find(other.ids, other.starts[entry], other.starts[entry + 1] - other.starts[entry]);
+        }
+
+        /**
+         * Adds an id that is not in the table yet.
+         *
+         * @return number of the new entry
+         */
+        int add(String id, long hash, long offset, int length) {
+            byte[] bytes = id.getBytes(StandardCharsets.UTF_8);
+            if (size == hashes.length) {
+                int capacity = size * 2;
+                starts = Arrays.copyOf(starts, capacity + 1);
+                hashes = Arrays.copyOf(hashes, capacity);
+                firsts = Arrays.copyOf(firsts, capacity);
+                offsets = Arrays.copyOf(offsets, capacity);
+                lengths = Arrays.copyOf(lengths, capacity);
+            }
+            int start = starts[size];
+            if (start + bytes.length > ids.length) {
+                ids = Arrays.copyOf(ids, Math.max(ids.length * 2, start + bytes.length));
+            }
+            System.arraycopy(bytes, 0, ids, start, bytes.length);
+            starts[size + 1] = start + bytes.length;
+            hashes[size] = hash;
+            firsts[size] = hash;
+            offsets[size] = offset;
+            lengths[size] = length;
+            int entry = size++;
+            if (size * 2 > slots.length) {
+                rehash(slots.length * 2);
+            } else {
+                place(entry);
+            }
+            return entry;
+        }
+
+        private int find(byte[] id, int from, int length) {
+            int mask = slots.length - 1;
+            for (int slot = slot(id, from, length, mask); slots[slot] != 0; slot = (slot + 1) & mask) {
+                int entry = slots[slot] - 1;
+                if (Arrays.equals(ids, starts[entry], starts[entry + 1], id, from, from + length)) {
+                    return entry;
+                }
+            }
+            return -1;
+        }
+
+        private void place(int entry) {
+            int mask = slots.length - 1;
+            int slot = slot(ids, starts[entry], starts[entry + 1] - starts[entry], mask);
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = entry + 1;
+        }
+
+        private void rehash(int capacity) {
+            slots = new int[capacity];
+            for (int entry = 0; entry < size; entry++) {
+                place(entry);
+            }
+        }
+
+        private static int slot(byte[] id, int from, int length, int mask) {
+            long hash = hash(id, from, length);
+            return (int) (hash ^ (hash >>> 32)) & mask;
+        }
+
+        private int serializedSize() {
+            return 4 + 4 + starts[size] + 4 * (size + 1) + 8 * size * 3 + 4 * size;
+        }
+
+        private void write(ByteBuffer out) {
+            out.putInt(size).putInt(starts[size]).put(ids, 0, starts[size]);
+            out.asIntBuffer().put(starts, 0, size + 1);
+            out.position(out.position() + 4 * (size + 1));
+            out.asLongBuffer().put(hashes, 0, size);
+            out.position(out.position() + 8 * size);
+            out.asLongBuffer().put(firsts, 0, size);
+            out.position(out.position() + 8 * size);
+            out.asLongBuffer().put(offsets, 0, size);
+            out.position(out.position() + 8 * size);
+            out.asIntBuffer().put(lengths, 0, size);
+            out.position(out.position() + 4 * size);
+        }
+
+        private static Entries read(ByteBuffer in) {
+            int size = in.getInt();
+            Entries entries = new Entries(Math.max(size, 16), in.getInt());
+            in.get(entries.ids, 0, entries.ids.length);
+            in.asIntBuffer().get(entries.starts, 0, size + 1);
+            in.position(in.position() + 4 * (size + 1));
+            in.asLongBuffer().get(entries.hashes, 0, size);
+            in.position(in.position() + 8 * size);
+            in.asLongBuffer().get(entries.firsts, 0, size);
+            in.position(in.position() + 8 * size);
+            in.asLongBuffer().get(entries.offsets, 0, size);
+            in.position(in.position() + 8 * size);
+            in.asIntBuffer().get(entries.lengths, 0, size);
+            in.position(in.position() + 4 * size);
+            entries.size = size;
+            entries.rehash(entries.slots.length);
+            return entries;
+        }
+    }
+}
@@ -0,0 +1,520 @@
+package org.digitalnao.jared.trujillo.handlers;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.digitalnao.jared.trujillo.classes.SortOptions;
+import org.digitalnao.jared.trujillo.classes.SortResult;
+import org.digitalnao.jared.trujillo.exceptions.CsvHandlerException;
+import org.digitalnao.jared.trujillo.exceptions.JsonHandlerException;
+import org.digitalnao.jared.trujillo.interfaces.CsvFieldWriter;
+import org.digitalnao.jared.trujillo.interfaces.ModelCodec;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Converts JSON to CSV sorted by some of the CSV columns, with an external merge sort: records are
+ * bound one at a time, rendered to their CSV row and buffered with their sort keys; when the
+ * buffered rows reach the memory budget they are sorted and spilled to a run file. At the end the
+ * runs are merged into the output, in several passes if there are more runs than read buffers fit
+ * the budget. An input that fits the budget is sorted in memory.
+ *
+ * Rows are rendered once, when read, exactly as {@link CsvJacksonHandler} renders them, so the
+ * merge copies bytes and never binds a record again. Keys are compared as the types the columns
+ * are written as (numbers numerically, text by UTF-16 code unit), with empty values first. Sorting
+ * and merging are stable, so rows with equal keys keep their input order and dedup keeps the first.
+ *
+ * Run files are deleted when the conversion ends, also on failure.
+ */
+final class ExternalSortJsonCsvConverter {
+
+    static final int MERGE_BUFFER_SIZE = 64 * 1024;
+
+    private static final int MAX_FAN_IN = 128;
+    /** Estimated heap of a buffered row besides its bytes: the row, its arrays and its list slot. */
+    private static final int ROW_OVERHEAD = 64;
+    private static final int KEY_OVERHEAD = 24;
+    private static final byte NULL = 0;
+    private static final byte INTEGER = 1;
+    private static final byte DECIMAL = 2;
+    private static final byte BOOLEAN = 3;
+    private static final byte TEXT = 4;
+
+    private final JsonJacksonHandler jsonHandler;
+    private final CsvJacksonHandler csvHandler;
+
+    ExternalSortJsonCsvConverter(JsonJacksonHandler jsonHandler, CsvJacksonHandler csvHandler) {
+        this.jsonHandler = jsonHandler;
+        this.csvHandler = csvHandler;
+    }
+
+    /**
+     * Converts the records of a parser, writing the header and the sorted rows to {@code out}.
+     *
+     * @param <T>     element type
+     * @param parser  parser at the start of the input; closed by the caller
+     * @param out     destination stream; flushed by the caller
+     * @param type    class used to bind elements and derive the CSV schema
+     * @param options sort keys, memory budget, dedup mode and spill directory
+     * @return rows written with spill and merge statistics
+     * @throws IOException          if the input, a run file or the output fails
+     * @throws JsonHandlerException if a record cannot be bound
+     * @throws CsvHandlerException  if a sort key is not a column of {@code type} or a row cannot be rendered
+     */
+    <T> SortResult convert(JsonParser parser, OutputStream out, Class<T> type, SortOptions options)
+            throws IOException {
+        long start = System.nanoTime();
+        try (Sort<T> sort = new Sort<>(type, options)) {
+            if (parser.nextToken() != null) {
+                Iterator<T> values = ConversionMeter.meterRecords(jsonHandler.readValues(parser, type));
+                while (values.hasNext()) {
+                    T value = values.next();
+                    if (value != null) {
+                        sort.add(value);
+                    }
+                }
+            }
+            csvHandler.writeRows(Collections.emptyIterator(), type, out, true);
+            long rows = sort.finish(out);
+            return new SortResult(rows, sort.duplicates, sort.spills, sort.spilledBytes, sort.mergePasses,
+                    System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * A buffered row: its sort keys and its rendered CSV line.
+     */
+    private record Row(Object[] keys, byte[] csv) {
+    }
+
+    /**
+     * State of one sort: the buffer, the runs on disk and the statistics.
+     */
+    private final class Sort<T> implements AutoCloseable {
+
+        private final SortOptions options;
+        private final RecordColumns<T> columns;
+        private final KeyReader keyReader;
+        private final Comparator<Object[]> order;
+        private final ModelCodec<T> codec;
+        private final ObjectWriter rowWriter;
+        private final ByteArrayOutputStream scratch = new ByteArrayOutputStream(256);
+        private final CsvRowEncoder encoder;
+        private final Set<List<Object>> seen;
+        private final List<Row> buffer = new ArrayList<>();
+        private final List<Path> runs = new ArrayList<>();
+        private long bufferedBytes;
+
+        long duplicates;
+        int spills;
+        long spilledBytes;
+        int mergePasses;
+
+        Sort(Class<T> type, SortOptions options) {
+            this.options = options;
+            JacksonTypeCache cache = csvHandler.cache();
+            try {
+                this.columns = RecordColumns.of(cache, type);
+            } catch (IllegalArgumentException e) {
+                throw new CsvHandlerException(e.getMessage(), e);
+            }
+            List<String> names = columns.schema().stream().map(RecordColumns.Column::name).toList();
+            int[] slots = new int[names.size()];
+            Arrays.fill(slots, -1);
+            boolean[] descending = new boolean[options.keys().size()];
+            for (int k = 0; k < descending.length; k++) {
+                String key = options.keys().get(k);
+                descending[k] = key.startsWith("-");
+                String name = descending[k] ? key.substring(1) : key;
+                int index = names.indexOf(name);
+                if (index < 0) {
+                    throw new CsvHandlerException("Sort key '" + name + "' is not a column of " + type.getSimpleName()
+                            + "; expected one of " + names);
+                }
+                slots[index] = k;
+            }
+            this.keyReader = new KeyReader(slots, descending.length);
+            this.order = (a, b) -> compare(a, b, descending);
+            this.codec = GeneratedCodecModule.find(type);
+            this.rowWriter = codec == null ? cache.csvRowWriter(type) : null;
+            this.encoder = codec != null ? CsvRowEncoder.open(scratch) : null;
+            this.seen = options.dedup() == SortOptions.Dedup.HASH ? new HashSet<>() : null;
+        }
+
+        void add(T value) throws IOException {
+            columns.write(value, keyReader);
+            Object[] keys = keyReader.take();
+            if (seen != null && !seen.add(Arrays.asList(keys))) {
+                duplicates++;
+                return;
+            }
+            byte[] csv = render(value);
+            buffer.add(new Row(keys, csv));
+            bufferedBytes += estimate(keys, csv);
+            if (bufferedBytes >= options.memoryBytes()) {
+                spill();
+            }
+        }
+
+        /** Writes every row in order, merging the runs if anything was spilled. */
+        long finish(OutputStream out) throws IOException {
+            if (runs.isEmpty()) {
+                long rows = 0;
+                for (Row row : sorted()) {
+                    out.write(row.csv());
+                    rows++;
+                }
+                return rows;
+            }
+            if (!buffer.isEmpty()) {
+                spill();
+            }
+            int fanIn = (int) Math.max(2, Math.min(MAX_FAN_IN, options.memoryBytes() / MERGE_BUFFER_SIZE));
+            List<Path> pending = new ArrayList<>(runs);
+            while (pending.size() > fanIn) {
+                // merging consecutive runs keeps the input order of equal keys
+                List<Path> merged = new ArrayList<>();
+                for (int from = 0; from < pending.size(); from += fanIn) {
+                    List<Path> group = pending.subList(from, Math.min(pending.size(), from + fanIn));
+                    if (group.size() == 1) {
+                        merged.add(group.get(0));
+                        continue;
+                    }
+                    Path run = newRun();
+                    try (RunWriter writer = new RunWriter(run)) {
+                        merge(group, writer::write);
+                    }
+                    spilledBytes += Files.size(run);
+                    for (Path done : group) {
+                        Files.deleteIfExists(done);
+                    }
+                    merged.add(run);
+                }
+                mergePasses++;
+                pending = merged;
+            }
+            long[] rows = new long[1];
+            merge(pending, row -> {
+                out.write(row.csv());
+                rows[0]++;
+            });
+            mergePasses++;
+            return rows[0];
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                if (encoder != null) {
+                    encoder.close();
+                }
+            } finally {
+                for (Path run : runs) {
+                    Files.deleteIfExists(run);
+                }
+            }
+        }
+
+        private byte[] render(T value) throws IOException {
+            if (codec == null) {
+                return rowWriter.writeValueAsBytes(value);
+            }
+            scratch.reset();
+            codec.writeCsv(value, encoder);
+            encoder.flush();
+            return scratch.toByteArray();
+        }
+
+        /** @return the buffered rows sorted, without sort-based duplicates; the buffer is emptied */
+        private List<Row> sorted() {
+            List<Row> rows = new ArrayList<>(buffer);
+            buffer.clear();
+            bufferedBytes = 0;
+            rows.sort((a, b) -> order.compare(a.keys(), b.keys()));
+            if (options.dedup() != SortOptions.Dedup.SORTED) {
+                return rows;
+            }
+            List<Row> distinct = new ArrayList<>(rows.size());
+            for (Row row : rows) {
+                if (!distinct.isEmpty() && order.compare(distinct.get(distinct.size() - 1).keys(), row.keys()) == 0) {
+                    duplicates++;
+                } else {
+                    distinct.add(row);
+                }
+            }
+            return distinct;
+        }
+
+        private void spill() throws IOException {
+            Path run = newRun();
+            try (RunWriter writer = new RunWriter(run)) {
+                for (Row row : sorted()) {
+                    writer.write(row);
+                }
+            }
+            spilledBytes += Files.size(run);
+            spills++;
+        }
+
+        private Path newRun() throws IOException {
+            Path run = options.spillDirectory() == null
+                    ? Files.createTempFile("json-csv-sort-", ".run")
+                    : Files.createTempFile(options.spillDirectory(), "json-csv-sort-", ".run");
+            runs.add(run);
+            return run;
+        }
+
+        /** Merges runs in key order, ties going to the earlier run, dropping sort-based duplicates. */
+        private void merge(List<Path> group, RowSink sink) throws IOException {
+            List<RunReader> readers = new ArrayList<>(group.size());
+            try {
+                PriorityQueue<RunReader> heads = new PriorityQueue<>(group.size(), (a, b) -> {
+                    int byKey = order.compare(a.row.keys(), b.row.keys());
+                    return byKey != 0 ? byKey : Integer.compare(a.index, b.index);
+                });
+                for (Path run : group) {
+                    RunReader reader = new RunReader(run, readers.size(), keyReader.keys);
+                    readers.add(reader);
+                    if (reader.advance()) {
+                        heads.add(reader);
+                    }
+                }
+                Object[] last = null;
+                boolean dedup = options.dedup() == SortOptions.Dedup.SORTED;
+                while (!heads.isEmpty()) {
+                    RunReader head = heads.poll();
+                    Row row = head.row;
+                    if (dedup && last != null && order.compare(last, row.keys()) == 0) {
+                        duplicates++;
+                    } else {
+                        sink.accept(row);
+                        last = row.keys();
+                    }
+                    if (head.advance()) {
+                        heads.add(head);
+                    }
+                }
+            } finally {
+                for (RunReader reader : readers) {
+                    reader.in.close();
+                }
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface RowSink {
+        void accept(Row row) throws IOException;
+    }
+
+    /**
+     * Picks the sort keys out of the fields of a record, typed as they are written: whole numbers
+     * as {@link Long}, decimals as {@link Double}, then {@link Boolean} and {@link String}.
+     */
+    private static final class KeyReader implements CsvFieldWriter {
+
+        private final int[] slots;
+        private final int keys;
+        private Object[] values;
+        private int column;
+
+        /**
+         * @param slots key index of each column, {@code -1} for columns that are not keys
+         * @param keys  number of keys
+         */
+        KeyReader(int[] slots, int keys) {
+            this.slots = slots;
+            this.keys = keys;
+            this.values = new Object[keys];
+        }
+
+        /** @return keys of the record just written; the next record gets a new array */
+        Object[] take() {
+            Object[] taken = values;
+            values = new Object[keys];
+            return taken;
+        }
+
+        @Override
+        public void writeString(String value) {
+            put(value);
+        }
+
+        @Override
+        public void writeInt(int value) {
+            put((long) value);
+        }
+
+        @Override
+        public void writeLong(long value) {
+            put(value);
+        }
+
+        @Override
+        public void writeDouble(double value) {
+            put(value);
+        }
+
+        @Override
+        public void writeFloat(float value) {
+            put((double) value);
+        }
+
+        @Override
+        public void writeBoolean(boolean value) {
+            put(value);
+        }
+
+        @Override
+        public void writeNull() {
+            put(null);
+        }
+
+        @Override
+        public void endRow() {
+            column = 0;
+        }
+
+        private void put(Object value) {
+            int slot = slots[column++];
+            if (slot >= 0) {
+                values[slot] = value;
+            }
+        }
+    }
+
+    /** Writes rows to a run file: per row its keys, each a type tag and a value, then its CSV line. */
+    private static final class RunWriter implements AutoCloseable {
+
+        private final DataOutputStream out;
+
+        RunWriter(Path run) throws IOException {
+            this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(run), MERGE_BUFFER_SIZE));
+        }
+
+        void write(Row row) throws IOException {
+            for (Object key : row.keys()) {
+                switch (key) {
+                    case null -> out.writeByte(NULL);
+                    case Long number -> {
+                        out.writeByte(INTEGER);
+                        out.writeLong(number);
+                    }
+                    case Double number -> {
+                        out.writeByte(DECIMAL);
+                        out.writeDouble(number);
+                    }
+                    case Boolean flag -> {
+                        out.writeByte(BOOLEAN);
+                        out.writeBoolean(flag);
+                    }
+                    default -> {
+                        byte[] text = ((String) key).getBytes(StandardCharsets.UTF_8);
+                        out.writeByte(TEXT);
+                        out.writeInt(text.length);
+                        out.write(text);
+                    }
+                }
+            }
+            out.writeInt(row.csv().length);
+            out.write(row.csv());
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+
+    /** Reads a run file back one row at a time. */
+    private static final class RunReader {
+
+        final DataInputStream in;
+        final int index;
+        private final int keys;
+        Row row;
+
+        RunReader(Path run, int index, int keys) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(run), MERGE_BUFFER_SIZE));
+            this.index = index;
+            this.keys = keys;
+        }
+
+        /** @return {@code true} with the next row in {@link #row}, {@code false} at the end of the run */
+        boolean advance() throws IOException {
+            int tag = in.read();
+            if (tag < 0) {
+                row = null;
+                return false;
+            }
+            Object[] values = new Object[keys];
+            for (int k = 0; k < keys; k++) {
+                values[k] = readKey(k == 0 ? tag : in.readByte());
+            }
+            byte[] csv = new byte[in.readInt()];
+            in.readFully(csv);
+            row = new Row(values, csv);
+            return true;
+        }
+
+        private Object readKey(int tag) throws IOException {
+            return switch (tag) {
+                case NULL -> null;
+                case INTEGER -> in.readLong();
+                case DECIMAL -> in.readDouble();
+                case BOOLEAN -> in.readBoolean();
+                case TEXT -> {
+                    byte[] text = new byte[in.readInt()];
+                    in.readFully(text);
+                    yield new String(text, StandardCharsets.UTF_8);
+                }
+                default -> throw new IOException("Corrupt sort run: unknown key tag " + tag);
+            };
+        }
+    }
+
+    /** Orders key arrays column by column; empty values come first, whatever the direction. */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compare(Object[] a, Object[] b, boolean[] descending) {
+        for (int k = 0; k < a.length; k++) {
+            Object x = a[k];
+            Object y = b[k];
+            if (x == y) {
+                continue;
+            }
+            if (x == null || y == null) {
+                return x == null ? -1 : 1;
+            }
+            int c = ((Comparable) x).compareTo(y);
+            if (c != 0) {
+                return descending[k] ? -c : c;
+            }
+        }
+        return 0;
+    }
+
+    private static long estimate(Object[] keys, byte[] csv) {
+        long bytes = ROW_OVERHEAD + csv.length;
+        for (Object key : keys) {
+            bytes += KEY_OVERHEAD + (key instanceof String text ? text.length() : 0);
+        }
+        return bytes;
+    }
+}
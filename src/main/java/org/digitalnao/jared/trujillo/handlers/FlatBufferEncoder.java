@@ -0,0 +1,231 @@
+package org.digitalnao.jared.trujillo.handlers;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Minimal FlatBuffers encoder for the Arrow IPC metadata written by {@link ArrowIpcWriter}: tables
+ * with scalar and offset fields, strings, vectors of structs and vectors of tables. Only what the
+ * Arrow schema, record batch and footer messages need is supported.
+ *
+ * The tree is built first and encoded front to back: a table is written before the objects it
+ * refers to, so every offset points forward as the format requires, and each table is preceded by
+ * its vtable. Scalars are aligned to their size and the encoded buffer is padded to 8 bytes, so it
+ * can be embedded at any 8-byte aligned position of an Arrow stream.
+ */
+final class FlatBufferEncoder {
+
+    private ByteBuffer buffer = ByteBuffer.allocate(256).order(ByteOrder.LITTLE_ENDIAN);
+
+    private FlatBufferEncoder() {
+    }
+
+    /**
+     * Encodes a tree with {@code root} as its root table.
+     *
+     * @param root root table
+     * @return encoded buffer, padded to a multiple of 8 bytes
+     */
+    static byte[] encode(Table root) {
+        FlatBufferEncoder encoder = new FlatBufferEncoder();
+        encoder.buffer.putInt(0);
+        int rootPosition = encoder.place(root);
+        encoder.buffer.putInt(0, rootPosition);
+        encoder.align(8, 0);
+        byte[] bytes = new byte[encoder.buffer.position()];
+        encoder.buffer.get(0, bytes);
+        return bytes;
+    }
+
+    /** A node of the tree: table, string or vector. */
+    abstract static sealed class Node permits Table, Text, StructVector, TableVector {
+    }
+
+    /** A table; fields are identified by their schema id. */
+    static final class Table extends Node {
+
+        private final List<Field> fields = new ArrayList<>();
+
+        Table addLong(int id, long value) {
+            fields.add(new Field(id, 8, value, null));
+            return this;
+        }
+
+        Table addInt(int id, int value) {
+            fields.add(new Field(id, 4, value, null));
+            return this;
+        }
+
+        Table addShort(int id, short value) {
+            fields.add(new Field(id, 2, value, null));
+            return this;
+        }
+
+        Table addByte(int id, int value) {
+            fields.add(new Field(id, 1, value, null));
+            return this;
+        }
+
+        Table addBoolean(int id, boolean value) {
+            return addByte(id, value ? 1 : 0);
+        }
+
+        Table addOffset(int id, Node child) {
+            fields.add(new Field(id, 4, 0, child));
+            return this;
+        }
+    }
+
+    /** A UTF-8 string. */
+    static final class Text extends Node {
+
+        private final byte[] utf8;
+
+        Text(String value) {
+            this.utf8 = value.getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    /** A vector of structs, given as their little-endian bytes. */
+    static final class StructVector extends Node {
+
+        private final int count;
+        private final byte[] data;
+        private final int alignment;
+
+        /**
+         * @param count     number of structs
+         * @param data      structs laid out back to back, padding included
+         * @param alignment alignment of the struct (its largest member)
+         */
+        StructVector(int count, byte[] data, int alignment) {
+            this.count = count;
+            this.data = data;
+            this.alignment = alignment;
+        }
+    }
+
+    /** A vector of tables. */
+    static final class TableVector extends Node {
+
+        private final List<Table> tables;
+
+        TableVector(List<Table> tables) {
+            this.tables = tables;
+        }
+    }
+
+    private record Field(int id, int size, long value, Node child) {
+    }
+
+    private int place(Node node) {
+        return switch (node) {
+            case Table table -> placeTable(table);
+            case Text text -> placeText(text);
+            case StructVector vector -> placeStructs(vector);
+            case TableVector vector -> placeTables(vector);
+        };
+    }
+
+    private int placeTable(Table table) {
+        List<Field> fields = new ArrayList<>(table.fields);
+        // largest first: with the table at 4 mod 8, every field lands on its own alignment
+        fields.sort(Comparator.comparingInt(Field::size).reversed());
+        int maxId = fields.stream().mapToInt(Field::id).max().orElse(-1);
+        short[] slots = new short[maxId + 1];
+        int tableSize = 4;
+        for (Field field : fields) {
+            slots[field.id()] = (short) tableSize;
+            tableSize += field.size();
+        }
+
+        align(2, 0);
+        int vtable = buffer.position();
+        ensure(4 + 2 * slots.length);
+        buffer.putShort((short) (4 + 2 * slots.length)).putShort((short) tableSize);
+        for (short slot : slots) {
+            buffer.putShort(slot);
+        }
+
+        align(8, 4);
+        int start = buffer.position();
+        ensure(tableSize);
+        buffer.putInt(start - vtable);
+        List<Field> children = new ArrayList<>();
+        for (Field field : fields) {
+            switch (field.size()) {
+                case 8 -> buffer.putLong(field.value());
+                case 4 -> buffer.putInt((int) field.value());
+                case 2 -> buffer.putShort((short) field.value());
+                default -> buffer.put((byte) field.value());
+            }
+            if (field.child() != null) {
+                children.add(field);
+            }
+        }
+        for (Field field : children) {
+            int slot = start + slots[field.id()];
+            // placing the child may grow the buffer, so it has to happen before the buffer is read
+            int child = place(field.child());
+            buffer.putInt(slot, child - slot);
+        }
+        return start;
+    }
+
+    private int placeText(Text text) {
+        align(4, 0);
+        int start = buffer.position();
+        ensure(4 + text.utf8.length + 1);
+        buffer.putInt(text.utf8.length).put(text.utf8).put((byte) 0);
+        return start;
+    }
+
+    private int placeStructs(StructVector vector) {
+        // the length prefix sits right before the first struct, which needs the struct alignment
+        int alignment = Math.max(4, vector.alignment);
+        align(alignment, alignment - 4);
+        int start = buffer.position();
+        ensure(4 + vector.data.length);
+        buffer.putInt(vector.count).put(vector.data);
+        return start;
+    }
+
+    private int placeTables(TableVector vector) {
+        align(4, 0);
+        int start = buffer.position();
+        ensure(4 + 4 * vector.tables.size());
+        buffer.putInt(vector.tables.size());
+        for (int i = 0; i < vector.tables.size(); i++) {
+            buffer.putInt(0);
+        }
+        for (int i = 0; i < vector.tables.size(); i++) {
+            int slot = start + 4 + 4 * i;
+            int child = place(vector.tables.get(i));
+            buffer.putInt(slot, child - slot);
+        }
+        return start;
+    }
+
+    /** Pads with zeros until the position is {@code remainder} modulo {@code alignment}. */
+    private void align(int alignment, int remainder) {
+        int padding = Math.floorMod(remainder - buffer.position(), alignment);
+        ensure(padding);
+        for (int i = 0; i < padding; i++) {
+            buffer.put((byte) 0);
+        }
+    }
+
+    private void ensure(int bytes) {
+        if (buffer.remaining() < bytes) {
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes))
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            buffer.flip();
+            grown.put(buffer);
+            buffer = grown;
+        }
+    }
+}
@@ -0,0 +1,571 @@
+package org.digitalnao.jared.trujillo.handlers;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.introspect.AnnotatedMember;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reads flat JSON objects straight from UTF-8 bytes into a reusable holder, one value slot per CSV
+ * column, and writes the holder as a CSV row without binding a model instance. Strings are scanned
+ * eight bytes at a time (SWAR): one {@code long} load and a few arithmetic operations flag any
+ * quote, backslash, control or non-ASCII byte in the word, so plain ASCII text is located without
+ * looking at each byte and copied to the CSV as it is.
+ *
+ * The scanner accepts only what it can convert exactly as Jackson would: every column present
+ * once and nothing else, integers within range of the property, JSON numbers for doubles, literals
+ * for booleans, strings (escapes and valid UTF-8 included) for text, and {@code null} for
+ * properties that are not primitives. Anything else, whether Jackson would coerce it or reject
+ * it, makes {@link #scan} report {@link #UNSUPPORTED} so the caller can hand the record to Jackson.
+ * Instances keep per-record state and are not thread-safe.
+ */
+final class FlatJsonScanner {
+
+    /** The bytes end before the record does. */
+    static final int INCOMPLETE = -1;
+    /** The record has something the scanner does not convert. */
+    static final int UNSUPPORTED = -2;
+
+    private static final Set<Class<?>> SUPPORTED_TYPES = Set.of(int.class, Integer.class, long.class, Long.class,
+            double.class, Double.class, boolean.class, Boolean.class, String.class);
+
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final long ONES = 0x0101010101010101L;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+    private static final long QUOTES = ONES * '"';
+    private static final long BACKSLASHES = ONES * '\\';
+    private static final long SPACES = ONES * ' ';
+
+    /** Slot states of a column; {@code RAW} text is still in the input buffer. */
+    private static final byte MISSING = 0;
+    private static final byte NULL = 1;
+    private static final byte NUMBER = 2;
+    private static final byte REAL = 3;
+    private static final byte TRUE = 4;
+    private static final byte FALSE = 5;
+    private static final byte RAW = 6;
+    private static final byte TEXT = 7;
+
+    private final byte[][] names;
+    private final RecordColumns.ColumnType[] types;
+    private final boolean[] nullable;
+    private final boolean[] narrow;
+
+    private final byte[] states;
+    private final long[] numbers;
+    private final double[] reals;
+    private final int[] starts;
+    private final int[] lengths;
+    private final String[] texts;
+    private char[] chars = new char[256];
+    private byte[] raw;
+
+    private FlatJsonScanner(List<RecordColumns.Column> columns, boolean[] narrow) {
+        int count = columns.size();
+        this.names = new byte[count][];
+        this.types = new RecordColumns.ColumnType[count];
+        this.nullable = new boolean[count];
+        this.narrow = narrow;
+        for (int i = 0; i < count; i++) {
+            RecordColumns.Column column = columns.get(i);
+            names[i] = column.name().getBytes(StandardCharsets.UTF_8);
+            types[i] = column.type();
+            nullable[i] = column.nullable();
+        }
+        this.states = new byte[count];
+        this.numbers = new long[count];
+        this.reals = new double[count];
+        this.starts = new int[count];
+        this.lengths = new int[count];
+        this.texts = new String[count];
+    }
+
+    /**
+     * Creates a scanner for a model class, if the class is flat: every CSV column is a property of
+     * type {@code int}, {@code long}, {@code double}, {@code boolean} (or their wrappers) or
+     * {@code String} that is both readable and settable under the same name, without a custom
+     * serializer, deserializer or format. Getters must return what the setters were given, since
+     * the rows are written from the JSON values without creating an instance.
+     *
+     * @param cache   cache of CSV schemas and mappers
+     * @param columns columns of the class
+     * @param type    model class
+     * @return a scanner, or {@code null} if the class is not flat
+     */
+    static FlatJsonScanner of(JacksonTypeCache cache, RecordColumns<?> columns, Class<?> type) {
+        ObjectMapper mapper = cache.jsonMapper();
+        BeanDescription description = mapper.getDeserializationConfig().introspect(mapper.constructType(type));
+        Map<String, BeanPropertyDefinition> properties = new HashMap<>();
+        for (BeanPropertyDefinition property : description.findProperties()) {
+            properties.put(property.getName(), property);
+        }
+        List<RecordColumns.Column> schema = columns.schema();
+        boolean[] narrow = new boolean[schema.size()];
+        for (int i = 0; i < schema.size(); i++) {
+            BeanPropertyDefinition property = properties.get(schema.get(i).name());
+            if (property == null || !property.hasSetter() && !property.hasField()) {
+                return null;
+            }
+            Class<?> raw = property.getRawPrimaryType();
+            if (!SUPPORTED_TYPES.contains(raw) || isCustomized(property.getMutator())
+                    || isCustomized(property.getAccessor())) {
+                return null;
+            }
+            narrow[i] = raw == int.class || raw == Integer.class;
+        }
+        return new FlatJsonScanner(schema, narrow);
+    }
+
+    private static boolean isCustomized(AnnotatedMember member) {
+        return member != null && (member.hasAnnotation(JsonDeserialize.class)
+                || member.hasAnnotation(JsonSerialize.class) || member.hasAnnotation(JsonFormat.class));
+    }
+
+    /**
+     * Reads the object starting at {@code start} into the holder.
+     *
+     * @param buffer input bytes
+     * @param start  index of the record's {@code '{'}
+     * @param limit  end of the valid bytes
+     * @return index just past the record's {@code '}'}, {@link #INCOMPLETE} or {@link #UNSUPPORTED}
+     */
+    int scan(byte[] buffer, int start, int limit) {
+        Arrays.fill(states, MISSING);
+        raw = buffer;
+        int found = 0;
+        int i = skipWhitespace(buffer, start + 1, limit);
+        if (i >= limit) {
+            return INCOMPLETE;
+        }
+        if (buffer[i] == '}') {
+            return UNSUPPORTED;
+        }
+        while (true) {
+            if (buffer[i] != '"') {
+                return UNSUPPORTED;
+            }
+            int nameEnd = findSpecial(buffer, i + 1, limit);
+            if (nameEnd >= limit) {
+                return INCOMPLETE;
+            }
+            if (buffer[nameEnd] != '"') {
+                return UNSUPPORTED;
+            }
+            int column = column(buffer, i + 1, nameEnd, found);
+            if (column < 0 || states[column] != MISSING) {
+                return UNSUPPORTED;
+            }
+            i = skipWhitespace(buffer, nameEnd + 1, limit);
+            if (i >= limit) {
+                return INCOMPLETE;
+            }
+            if (buffer[i] != ':') {
+                return UNSUPPORTED;
+            }
+            i = skipWhitespace(buffer, i + 1, limit);
+            if (i >= limit) {
+                return INCOMPLETE;
+            }
+            i = value(buffer, i, limit, column);
+            if (i < 0) {
+                return i;
+            }
+            found++;
+            i = skipWhitespace(buffer, i, limit);
+            if (i >= limit) {
+                return INCOMPLETE;
+            }
+            if (buffer[i] == '}') {
+                return found == names.length ? i + 1 : UNSUPPORTED;
+            }
+            if (buffer[i] != ',') {
+                return UNSUPPORTED;
+            }
+            i = skipWhitespace(buffer, i + 1, limit);
+            if (i >= limit) {
+                return INCOMPLETE;
+            }
+        }
+    }
+
+    /**
+     * Writes the record read by the last successful {@link #scan} as one CSV row. The input buffer
+     * must not have changed since.
+     *
+     * @param row destination row
+     * @throws IOException if the destination fails or a text is not valid UTF-16
+     */
+    void write(CsvRowEncoder row) throws IOException {
+        for (int i = 0; i < states.length; i++) {
+            switch (states[i]) {
+                case NUMBER -> row.writeLong(numbers[i]);
+                case REAL -> row.writeDouble(reals[i]);
+                case TRUE -> row.writeBoolean(true);
+                case FALSE -> row.writeBoolean(false);
+                case RAW -> row.writeAsciiString(raw, starts[i], lengths[i]);
+                case TEXT -> row.writeString(texts[i]);
+                default -> row.writeNull();
+            }
+        }
+        row.endRow();
+    }
+
+    /**
+     * Finds the first byte from {@code from} that is a quote, a backslash, below {@code 0x20} or
+     * non-ASCII. Per word: a byte equal to {@code c} becomes zero in {@code word ^ c}, and
+     * {@code (x - 0x01..) & ~x} sets the high bit of each zero byte of {@code x}; subtracting
+     * {@code 0x20..} sets it for bytes below {@code 0x20}; the word's own high bits flag non-ASCII
+     * bytes. Borrows only run upwards from a flagged byte, so the lowest flag is always exact.
+     *
+     * @return index of the byte, or {@code limit} if there is none
+     */
+    static int findSpecial(byte[] buffer, int from, int limit) {
+        int i = from;
+        for (; i + Long.BYTES <= limit; i += Long.BYTES) {
+            long word = (long) LONGS.get(buffer, i);
+            long quotes = word ^ QUOTES;
+            long backslashes = word ^ BACKSLASHES;
+            long flags = ((quotes - ONES) & ~quotes | (backslashes - ONES) & ~backslashes | (word - SPACES) | word)
+                    & HIGH_BITS;
+            if (flags != 0) {
+                return i + (Long.numberOfTrailingZeros(flags) >>> 3);
+            }
+        }
+        for (; i < limit; i++) {
+            int c = buffer[i] & 0xFF;
+            if (c == '"' || c == '\\' || c < ' ' || c >= 0x80) {
+                return i;
+            }
+        }
+        return limit;
+    }
+
+    /**
+     * @return index of the first byte from {@code from} that is not JSON whitespace, or {@code limit}
+     */
+    static int skipWhitespace(byte[] buffer, int from, int limit) {
+        int i = from;
+        while (i < limit) {
+            byte c = buffer[i];
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+                break;
+            }
+            i++;
+        }
+        return i;
+    }
+
+    /** Matches a property name, trying the next column in schema order first. */
+    private int column(byte[] buffer, int from, int to, int expected) {
+        if (expected < names.length && Arrays.equals(buffer, from, to, names[expected], 0, names[expected].length)) {
+            return expected;
+        }
+        for (int i = 0; i < names.length; i++) {
+            if (Arrays.equals(buffer, from, to, names[i], 0, names[i].length)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int value(byte[] buffer, int i, int limit, int column) {
+        byte c = buffer[i];
+        if (c == 'n') {
+            if (!nullable[column]) {
+                return UNSUPPORTED;
+            }
+            states[column] = NULL;
+            return literal(buffer, i, limit, "null");
+        }
+        switch (types[column]) {
+            case UTF8:
+                return c == '"' ? string(buffer, i + 1, limit, column) : UNSUPPORTED;
+            case BOOL:
+                if (c == 't') {
+                    states[column] = TRUE;
+                    return literal(buffer, i, limit, "true");
+                }
+                if (c == 'f') {
+                    states[column] = FALSE;
+                    return literal(buffer, i, limit, "false");
+                }
+                return UNSUPPORTED;
+            case FLOAT64:
+                return real(buffer, i, limit, column);
+            default:
+                return integer(buffer, i, limit, column);
+        }
+    }
+
+    private static int literal(byte[] buffer, int i, int limit, String literal) {
+        for (int k = 0; k < literal.length(); k++, i++) {
+            if (i >= limit) {
+                return INCOMPLETE;
+            }
+            if (buffer[i] != literal.charAt(k)) {
+                return UNSUPPORTED;
+            }
+        }
+        return i;
+    }
+
+    /**
+     * Reads a JSON integer that fits the property. The digits are accumulated as a negative
+     * number, whose range includes {@link Long#MIN_VALUE}, and checked for overflow digit by digit.
+     * Overflow, leading zeros, fractions and exponents are left to Jackson.
+     */
+    private int integer(byte[] buffer, int i, int limit, int column) {
+        boolean negative = buffer[i] == '-';
+        int digits = negative ? i + 1 : i;
+        int end = digits;
+        long bound = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long value = 0;
+        boolean overflow = false;
+        while (end < limit && buffer[end] >= '0' && buffer[end] <= '9') {
+            int digit = buffer[end] - '0';
+            overflow |= value < bound / 10 || value * 10 < bound + digit;
+            value = value * 10 - digit;
+            end++;
+        }
+        if (end >= limit) {
+            return INCOMPLETE;
+        }
+        int length = end - digits;
+        byte next = buffer[end];
+        if (length == 0 || overflow || (length > 1 && buffer[digits] == '0')
+                || next == '.' || next == 'e' || next == 'E') {
+            return UNSUPPORTED;
+        }
+        value = negative ? value : -value;
+        if (narrow[column] && value != (int) value) {
+            return UNSUPPORTED;
+        }
+        numbers[column] = value;
+        states[column] = NUMBER;
+        return end;
+    }
+
+    /**
+     * Reads a JSON number as a double. An integer is converted from its {@code long} value, as
+     * Jackson does ({@code -0} is {@code 0.0}); anything with a fraction or exponent goes through
+     * {@link Double#parseDouble(String)}, which is what Jackson calls too.
+     */
+    private int real(byte[] buffer, int i, int limit, int column) {
+        int end = integer(buffer, i, limit, column);
+        if (end != UNSUPPORTED) {
+            if (end >= 0) {
+                reals[column] = numbers[column];
+                states[column] = REAL;
+            }
+            return end;
+        }
+        int k = buffer[i] == '-' ? i + 1 : i;
+        int intStart = k;
+        k = digits(buffer, k, limit);
+        if (k == intStart || (k - intStart > 1 && buffer[intStart] == '0')) {
+            return k >= limit ? INCOMPLETE : UNSUPPORTED;
+        }
+        if (k < limit && buffer[k] == '.') {
+            int fraction = ++k;
+            k = digits(buffer, k, limit);
+            if (k == fraction) {
+                return k >= limit ? INCOMPLETE : UNSUPPORTED;
+            }
+        }
+        if (k < limit && (buffer[k] == 'e' || buffer[k] == 'E')) {
+            k++;
+            if (k < limit && (buffer[k] == '+' || buffer[k] == '-')) {
+                k++;
+            }
+            int exponent = k;
+            k = digits(buffer, k, limit);
+            if (k == exponent) {
+                return k >= limit ? INCOMPLETE : UNSUPPORTED;
+            }
+        }
+        if (k >= limit) {
+            return INCOMPLETE;
+        }
+        String text = new String(buffer, i, k - i, StandardCharsets.ISO_8859_1);
+        if (text.indexOf('.') < 0 && text.indexOf('e') < 0 && text.indexOf('E') < 0) {
+            // a plain integer out of long range: Jackson reads it as a BigInteger first
+            return UNSUPPORTED;
+        }
+        reals[column] = Double.parseDouble(text);
+        states[column] = REAL;
+        return k;
+    }
+
+    private static int digits(byte[] buffer, int i, int limit) {
+        while (i < limit && buffer[i] >= '0' && buffer[i] <= '9') {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Reads a string whose content starts at {@code i}. Plain ASCII is located with
+     * {@link #findSpecial} and left in the buffer; anything else is decoded to a {@link String}.
+     */
+    private int string(byte[] buffer, int i, int limit, int column) {
+        int end = findSpecial(buffer, i, limit);
+        if (end >= limit) {
+            return INCOMPLETE;
+        }
+        if (buffer[end] == '"') {
+            starts[column] = i;
+            lengths[column] = end - i;
+            states[column] = RAW;
+            return end + 1;
+        }
+        return decode(buffer, i, end, limit, column);
+    }
+
+    /**
+     * Decodes a string with escapes or non-ASCII text. UTF-8 is decoded strictly (no overlong
+     * forms, no encoded surrogates); whatever is rejected here is left to Jackson.
+     */
+    private int decode(byte[] buffer, int start, int special, int limit, int column) {
+        int count = 0;
+        int i = start;
+        int plainEnd = special;
+        while (true) {
+            int run = plainEnd - i;
+            ensureChars(count + run + 2);
+            for (int k = 0; k < run; k++) {
+                chars[count++] = (char) buffer[i + k];
+            }
+            i = plainEnd;
+            if (i >= limit) {
+                return INCOMPLETE;
+            }
+            int c = buffer[i] & 0xFF;
+            if (c == '"') {
+                texts[column] = new String(chars, 0, count);
+                states[column] = TEXT;
+                return i + 1;
+            }
+            if (c < ' ') {
+                return UNSUPPORTED;
+            }
+            if (c == '\\') {
+                if (i + 1 >= limit) {
+                    return INCOMPLETE;
+                }
+                int escaped = escape(buffer, i + 1, limit);
+                if (escaped < 0) {
+                    return escaped;
+                }
+                chars[count++] = (char) escaped;
+                i += buffer[i + 1] == 'u' ? 6 : 2;
+            } else {
+                int sequence = sequenceLength(c);
+                if (sequence == 0) {
+                    return UNSUPPORTED;
+                }
+                if (i + sequence > limit) {
+                    return INCOMPLETE;
+                }
+                int codePoint = codePoint(buffer, i, c, sequence);
+                if (codePoint < 0) {
+                    return UNSUPPORTED;
+                }
+                count += Character.toChars(codePoint, chars, count);
+                i += sequence;
+            }
+            plainEnd = findSpecial(buffer, i, limit);
+        }
+    }
+
+    /** @return the escaped char whose letter is at {@code i}, or a negative status */
+    private static int escape(byte[] buffer, int i, int limit) {
+        switch (buffer[i]) {
+            case '"': return '"';
+            case '\\': return '\\';
+            case '/': return '/';
+            case 'b': return '\b';
+            case 'f': return '\f';
+            case 'n': return '\n';
+            case 'r': return '\r';
+            case 't': return '\t';
+            case 'u':
+                if (i + 5 > limit) {
+                    return INCOMPLETE;
+                }
+                int value = 0;
+                for (int k = 1; k <= 4; k++) {
+                    int digit = Character.digit(buffer[i + k], 16);
+                    if (digit < 0) {
+                        return UNSUPPORTED;
+                    }
+                    value = value << 4 | digit;
+                }
+                return value;
+            default:
+                return UNSUPPORTED;
+        }
+    }
+
+    /** @return bytes of the UTF-8 sequence led by {@code c}, or {@code 0} for an invalid lead byte */
+    private static int sequenceLength(int c) {
+        if (c >= 0xC2 && c <= 0xDF) {
+            return 2;
+        }
+        if (c >= 0xE0 && c <= 0xEF) {
+            return 3;
+        }
+        if (c >= 0xF0 && c <= 0xF4) {
+            return 4;
+        }
+        return 0;
+    }
+
+    /** @return the code point of a complete sequence, or {@code -1} if it is not valid UTF-8 */
+    private static int codePoint(byte[] buffer, int i, int lead, int length) {
+        int second = buffer[i + 1] & 0xFF;
+        int low = 0x80;
+        int high = 0xBF;
+        if (lead == 0xE0) {
+            low = 0xA0;
+        } else if (lead == 0xED) {
+            high = 0x9F;
+        } else if (lead == 0xF0) {
+            low = 0x90;
+        } else if (lead == 0xF4) {
+            high = 0x8F;
+        }
+        if (second < low || second > high) {
+            return -1;
+        }
+        int codePoint = lead & (0xFF >> (length + 1));
+        codePoint = codePoint << 6 | (second & 0x3F);
+        for (int k = 2; k < length; k++) {
+            int next = buffer[i + k] & 0xFF;
+            if ((next & 0xC0) != 0x80) {
+                return -1;
+            }
+            codePoint = codePoint << 6 | (next & 0x3F);
+        }
+        return codePoint;
+    }
+
+    private void ensureChars(int capacity) {
+        if (capacity > chars.length) {
+            chars = Arrays.copyOf(chars, Math.max(capacity, chars.length * 2));
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package org.digitalnao.jared.trujillo.handlers;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.Version;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.DeserializationConfig;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.Deserializers;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.ser.Serializers;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import org.digitalnao.jared.trujillo.interfaces.ModelCodec;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * Jackson module that serves generated {@link ModelCodec}s ({@code Foo_Codec} for class {@code Foo})
+ * as serializers and deserializers. Types without a codec return {@code null} from the lookups,
+ * so Jackson falls back to its reflective bean (de)serializers.
+ *
+ * Generated codecs can be switched off with {@code -Djsoncsv.codecs.disabled=true}, e.g. to compare
+ * against the reflective path.
+ */
+final class GeneratedCodecModule extends Module {
+
+    static final String DISABLE_PROPERTY = "jsoncsv.codecs.disabled";
+    static final String SUFFIX = "_Codec";
+
+    private static final ClassValue<Optional<ModelCodec<?>>> CODECS = new ClassValue<>() {
+        @Override
+        protected Optional<ModelCodec<?>> computeValue(Class<?> type) {
+            return Optional.ofNullable(load(type));
+        }
+    };
+
+    /**
+     * Finds the generated codec of a class.
+     *
+     * @param <T>  model type
+     * @param type model class
+     * @return the codec, or {@code null} if none was generated or codecs are disabled
+     */
+    @SuppressWarnings("unchecked")
+    static <T> ModelCodec<T> find(Class<T> type) {
+        if (Boolean.getBoolean(DISABLE_PROPERTY)) {
+            return null;
+        }
+        return (ModelCodec<T>) CODECS.get(type).orElse(null);
+    }
+
+    private static ModelCodec<?> load(Class<?> type) {
+        ClassLoader loader = type.getClassLoader();
+        if (loader == null || type.isPrimitive() || type.isArray()) {
+            return null;
+        }
+        try {
+            Class<?> codecClass = Class.forName(type.getName() + SUFFIX, true, loader);
+            if (!ModelCodec.class.isAssignableFrom(codecClass)) {
+                return null;
+            }
+            ModelCodec<?> codec = (ModelCodec<?>) codecClass.getDeclaredConstructor().newInstance();
+            return codec.type() == type ? codec : null;
+        } catch (ClassNotFoundException e) {
+            return null;
+        } catch (ReflectiveOperationException | LinkageError e) {
+            // a broken codec must not break serialization; the reflective path still works
+            return null;
+        }
+    }
+
+    @Override
+    public String getModuleName() {
+        return "GeneratedCodecModule";
+    }
+
+    @Override
+    public Version version() {
+        return Version.unknownVersion();
+    }
+
+    @Override
+    public void setupModule(SetupContext context) {
+        context.addSerializers(new Serializers.Base() {
+            @Override
+            public JsonSerializer<?> findSerializer(SerializationConfig config, JavaType type, BeanDescription beanDesc) {
+                ModelCodec<?> codec = find(type.getRawClass());
+                return codec == null ? null : new CodecSerializer<>(codec);
+            }
+        });
+        context.addDeserializers(new Deserializers.Base() {
+            @Override
+            public JsonDeserializer<?> findBeanDeserializer(JavaType type, DeserializationConfig config,
+                                                            BeanDescription beanDesc) {
+                ModelCodec<?> codec = find(type.getRawClass());
+                return codec == null ? null : new CodecDeserializer<>(codec);
+            }
+        });
+    }
+
+    /**
+     * Serializer delegating to {@link ModelCodec#write}.
+     */
+    private static final class CodecSerializer<T> extends StdSerializer<T> {
+
+        private static final long serialVersionUID = 1L;
+
+        // generated codecs are stateless singletons looked up per type, never serialized
+        private final transient ModelCodec<T> codec;
+
+        CodecSerializer(ModelCodec<T> codec) {
+            super(codec.type());
+            this.codec = codec;
+        }
+
+        @Override
+        public void serialize(T value, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            codec.write(value, generator);
+        }
+    }
+
+    /**
+     * Deserializer that creates an instance and binds each property through {@link ModelCodec#readProperty}.
+     * Unknown properties go through the context, so {@code FAIL_ON_UNKNOWN_PROPERTIES} is honoured.
+     */
+    private static final class CodecDeserializer<T> extends StdDeserializer<T> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient ModelCodec<T> codec;
+
+        CodecDeserializer(ModelCodec<T> codec) {
+            super(codec.type());
+            this.codec = codec;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            JsonToken token = parser.currentToken();
+            if (token == JsonToken.START_OBJECT) {
+                token = parser.nextToken();
+            } else if (token != JsonToken.FIELD_NAME && token != JsonToken.END_OBJECT) {
+                return (T) context.handleUnexpectedToken(handledType(), parser);
+            }
+
+            T value = codec.newInstance();
+            for (; token == JsonToken.FIELD_NAME; token = parser.nextToken()) {
+                String name = parser.currentName();
+                parser.nextToken();
+                if (!codec.readProperty(value, name, parser, context)) {
+                    context.handleUnknownProperty(parser, this, value, name);
+                }
+            }
+            return value;
+        }
+
+        @Override
+        public Collection<Object> getKnownPropertyNames() {
+            Collection<Object> names = new ArrayList<>();
+            for (CsvSchema.Column column : codec.csvSchema()) {
+                names.add(column.getName());
+            }
+            return names;
+        }
+    }
+}
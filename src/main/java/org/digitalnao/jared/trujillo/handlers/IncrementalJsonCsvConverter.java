@@ -0,0 +1,525 @@
+package org.digitalnao.jared.trujillo.handlers;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import org.digitalnao.jared.trujillo.classes.Compression;
+import org.digitalnao.jared.trujillo.classes.IncrementalOptions;
+import org.digitalnao.jared.trujillo.classes.IncrementalResult;
+import org.digitalnao.jared.trujillo.exceptions.CsvHandlerException;
+import org.digitalnao.jared.trujillo.exceptions.JsonHandlerException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Exports a JSON file to CSV incrementally, keeping an {@link ExportIndex} next to the CSV file so
+ * that the next export of the same input converts only what changed; see {@link IncrementalOptions}.
+ *
+ * Records are copied out of the parser one at a time and hashed token by token, so reformatting
+ * the input does not count as a change. Only new and changed records are bound and serialized, in
+ * batches; a {@link RowOffsets} stream under the CSV writer finds where each of their rows ends,
+ * which is what the index points to. A changed record that was exported before has its row
+ * replaced by rewriting the CSV file around it, a plain copy of bytes. When an id repeats, only its
+ * last record counts: the rows of repeated ids are settled once the input has been read, so each is
+ * serialized at most once and one that ends as it was exported is left alone.
+ *
+ * Resuming a grown input works like {@link CheckpointedJsonCsvConverter}: the input is opened
+ * right after the last exported record, and the rest of an array is read as {@code [} followed by
+ * the remaining input.
+ */
+final class IncrementalJsonCsvConverter {
+
+    private static final int BATCH_SIZE = 256;
+    private static final byte[] ARRAY_PREFIX = {'['};
+
+    private final JsonJacksonHandler jsonHandler;
+    private final CsvJacksonHandler csvHandler;
+
+    IncrementalJsonCsvConverter(JsonJacksonHandler jsonHandler, CsvJacksonHandler csvHandler) {
+        this.jsonHandler = jsonHandler;
+        this.csvHandler = csvHandler;
+    }
+
+    /**
+     * Brings {@code output} up to date with {@code input}, using and then replacing the index
+     * sidecar next to it.
+     *
+     * @param <T>     element type
+     * @param input   validated JSON input file
+     * @param output  uncompressed CSV output file
+     * @param type    class used to bind elements and derive the CSV schema
+     * @param options id field and rescan policy
+     * @return how the export was done and what it changed
+     * @throws JsonHandlerException if the input is invalid, a record has no id, or a record cannot be bound
+     * @throws CsvHandlerException  if the id field is not a column, the output is compressed, or the
+     *                              CSV file or the index cannot be written
+     */
+    <T> IncrementalResult convert(Path input, Path output, Class<T> type, IncrementalOptions options) {
+        long start = System.nanoTime();
+        if (Compression.fromFilename(output.getFileName().toString()) != Compression.NONE) {
+            throw new CsvHandlerException("An incremental export replaces rows in place and needs an "
+                    + "uncompressed CSV file: " + output);
+        }
+        List<String> columns = csvHandler.cache().csvSchema(type).getColumnNames();
+        if (!columns.contains(options.idField())) {
+            throw new CsvHandlerException("Id field '" + options.idField() + "' is not a column of "
+                    + type.getSimpleName() + "; expected one of " + columns);
+        }
+        Path sidecar = output.resolveSibling(output.getFileName() + IncrementalOptions.SUFFIX);
+
+        try {
+            ExportIndex.Snapshot snapshot = ExportIndex.Snapshot.of(input);
+            ExportIndex index = ExportIndex.load(sidecar);
+            if (index != null && !index.describes(input, output, type, columns, options.idField())) {
+                index = null;
+            }
+            IncrementalResult.Mode mode;
+            Export<T> export;
+            if (index == null) {
+                mode = IncrementalResult.Mode.FULL;
+                export = rebuild(input, snapshot, output, type, columns, options.idField(), null);
+            } else if (!options.rescan() && index.unmodified(snapshot)) {
+                return new IncrementalResult(IncrementalResult.Mode.UNCHANGED, index.entries.size(), 0, 0, 0, 0, 0,
+                        System.nanoTime() - start);
+            } else if (!options.rescan() && index.inputOffset > 0 && index.grew(input, snapshot)) {
+                mode = IncrementalResult.Mode.APPENDED;
+                export = append(input, snapshot, output, type, index);
+            } else {
+                mode = IncrementalResult.Mode.RESCANNED;
+                export = rebuild(input, snapshot, output, type, columns, options.idField(), index);
+            }
+            export.index.advance(input, export.snapshot, export.end);
+            export.index.outputLength = Files.size(output);
+            export.index.save(sidecar);
+            return new IncrementalResult(mode, export.index.entries.size(), export.added, export.changed,
+                    export.removed, export.unchanged, export.bytesRead, System.nanoTime() - start);
+        } catch (IOException e) {
+            // parse errors belong to the JSON side; anything else failed while writing the CSV or index
+            throw e instanceof JsonProcessingException ? jsonHandler.handleException(e) : csvHandler.handleException(e);
+        }
+    }
+
+    /**
+     * Reads the records after the last exported one, appending new rows to the CSV file and
+     * replacing the rows of ids that come again with other content.
+     */
+    private <T> Export<T> append(Path input, ExportIndex.Snapshot snapshot, Path output, Class<T> type,
+                                 ExportIndex index) throws IOException {
+        long base = index.inputOffset;
+        Export<T> export;
+        try (InputStream in = CheckpointedJsonCsvConverter.openInput(input, base)) {
+            base += CheckpointedJsonCsvConverter.skipSeparator(in, index.array);
+            InputStream source = in;
+            if (index.array) {
+                source = new SequenceInputStream(new ByteArrayInputStream(ARRAY_PREFIX), in);
+                base -= ARRAY_PREFIX.length;
+            }
+            try (JsonParser parser = jsonHandler.openParser(source);
+                 RowOffsets rows = new RowOffsets(csvHandler.openOutput(output, index.outputLength, false),
+                         index.outputLength)) {
+                export = new Export<>(type, snapshot, index, null, null, rows);
+                export.end = index.inputOffset;
+                // JSON Lines that did not grow past a trailing separator have no more tokens
+                if (parser.nextToken() != null) {
+                    JsonRecords records = new JsonRecords(parser);
+                    export.read(parser, records, records.next(), base);
+                }
+                export.bytesRead = base + parser.currentLocation().getByteOffset() - index.inputOffset;
+            }
+        }
+        if (!export.patches.isEmpty()) {
+            patch(output, export.patches, index.entries);
+        }
+        return export;
+    }
+
+    /**
+     * Writes a new CSV file from the whole input, copying the rows of records that are unchanged
+     * in {@code previous} instead of binding them again.
+     */
+    private <T> Export<T> rebuild(Path input, ExportIndex.Snapshot snapshot, Path output, Class<T> type,
+                                  List<String> columns, String idField, ExportIndex previous) throws IOException {
+        Path temp = output.resolveSibling(output.getFileName() + ".tmp");
+        try {
+            Export<T> export;
+            try (InputStream in = CheckpointedJsonCsvConverter.openInput(input, 0);
+                 JsonParser parser = jsonHandler.openParser(in);
+                 FileChannel old = previous == null ? null : FileChannel.open(output, StandardOpenOption.READ);
+                 RowOffsets rows = new RowOffsets(csvHandler.openOutput(temp, 0, false), 0)) {
+                JsonRecords records = new JsonRecords(parser);
+                boolean first = records.next();
+                export = new Export<>(type, snapshot, ExportIndex.start(input, type, columns, idField, records.array()),
+                        previous == null ? null : previous.entries, old, rows);
+                csvHandler.writeRows(Collections.emptyIterator(), type, rows, true);
+                rows.clear();
+                export.read(parser, records, first, 0);
+                export.bytesRead = parser.currentLocation().getByteOffset();
+            }
+            if (previous != null) {
+                for (int entry = 0; entry < previous.entries.size(); entry++) {
+                    if (export.index.entries.find(previous.entries, entry) < 0) {
+                        export.removed++;
+                    }
+                }
+            }
+            if (!export.patches.isEmpty()) {
+                patch(temp, export.patches, export.index.entries);
+            }
+            Files.move(temp, output, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return export;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Rewrites {@code file} with the rows at the patched offsets replaced, then moves the index
+     * entries behind each patch by how much the rows before them grew or shrank.
+     */
+    private static void patch(Path file, TreeMap<Long, Patch> patches, ExportIndex.Entries entries)
+            throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".patch");
+        try {
+            try (FileChannel source = FileChannel.open(file, StandardOpenOption.READ);
+                 FileChannel target = FileChannel.open(temp, StandardOpenOption.CREATE,
+                         StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                long position = 0;
+                for (Map.Entry<Long, Patch> patch : patches.entrySet()) {
+                    transfer(source, position, patch.getKey(), target);
+                    ByteBuffer row = ByteBuffer.wrap(patch.getValue().row());
+                    while (row.hasRemaining()) {
+                        target.write(row);
+                    }
+                    position = patch.getKey() + patch.getValue().length();
+                }
+                transfer(source, position, source.size(), target);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+
+        long[] offsets = new long[patches.size()];
+        long[] shifts = new long[patches.size()];
+        int i = 0;
+        long shift = 0;
+        for (Map.Entry<Long, Patch> patch : patches.entrySet()) {
+            shift += patch.getValue().row().length - patch.getValue().length();
+            offsets[i] = patch.getKey();
+            shifts[i++] = shift;
+        }
+        for (int entry = 0; entry < entries.size(); entry++) {
+            int found = Arrays.binarySearch(offsets, entries.offsets[entry]);
+            // a patched row moves by the patches before it; any other row by those before its offset
+            int before = found >= 0 ? found - 1 : -found - 2;
+            if (found >= 0) {
+                entries.lengths[entry] = patches.get(entries.offsets[entry]).row().length;
+            }
+            entries.offsets[entry] += before >= 0 ? shifts[before] : 0;
+        }
+    }
+
+    private static void transfer(FileChannel source, long from, long to, FileChannel target) throws IOException {
+        while (from < to) {
+            from += source.transferTo(from, to - from, target);
+        }
+    }
+
+    /**
+     * New content for the row at an offset.
+     *
+     * @param length length of the row being replaced
+     * @param row    replacement row, line separator included
+     */
+    private record Patch(int length, byte[] row) {
+    }
+
+    /**
+     * Id and content hash of a record.
+     */
+    private record Keyed(String id, long hash) {
+    }
+
+    /**
+     * Pending replacement of the row of a repeated id.
+     *
+     * @param rowHash content hash of the row in the CSV file
+     * @param record  last record with the id
+     * @param copied  whether the row was copied from the previous CSV file
+     */
+    private record Replacement(long rowHash, TokenBuffer record, boolean copied) {
+    }
+
+    /** State of one export: the index being built, the pending batch and the counters. */
+    private final class Export<T> {
+
+        private final Class<T> type;
+        final ExportIndex.Snapshot snapshot;
+        private final ExportIndex index;
+        private final ExportIndex.Entries previous;
+        private final FileChannel previousRows;
+        private final RowOffsets rows;
+        private final List<TokenBuffer> batch = new ArrayList<>(BATCH_SIZE);
+        private final int[] batchEntries = new int[BATCH_SIZE];
+        private final Map<Integer, Replacement> replaced = new HashMap<>();
+        final TreeMap<Long, Patch> patches = new TreeMap<>();
+        long end;
+        long bytesRead;
+        long added;
+        long changed;
+        long removed;
+        long unchanged;
+
+        Export(Class<T> type, ExportIndex.Snapshot snapshot, ExportIndex index, ExportIndex.Entries previous,
+               FileChannel previousRows, RowOffsets rows) {
+            this.type = type;
+            this.snapshot = snapshot;
+            this.index = index;
+            this.previous = previous;
+            this.previousRows = previousRows;
+            this.rows = rows;
+        }
+
+        /**
+         * Reads the records of a parser, starting with the one it is on if {@code first} is true.
+         *
+         * @param base input offset of the parser's first byte
+         */
+        void read(JsonParser parser, JsonRecords records, boolean first, long base) throws IOException {
+            for (boolean more = first; more; more = records.next()) {
+                TokenBuffer buffer = new TokenBuffer(parser);
+                buffer.copyCurrentStructure(parser);
+                end = base + parser.currentLocation().getByteOffset();
+                accept(buffer, key(buffer, records.record()));
+            }
+            flush();
+            replaceRows();
+        }
+
+        private void accept(TokenBuffer buffer, Keyed key) throws IOException {
+            ExportIndex.Entries entries = index.entries;
+            int entry = entries.find(key.id());
+            if (entry >= 0) {
+                if (entries.hashes[entry] == key.hash()) {
+                    unchanged++;
+                    return;
+                }
+                Replacement pending = replaced.get(entry);
+                replaced.put(entry, pending == null
+                        ? new Replacement(entries.hashes[entry], buffer, false)
+                        : new Replacement(pending.rowHash(), buffer, pending.copied()));
+                entries.hashes[entry] = key.hash();
+                return;
+            }
+
+            int cached = previous == null ? -1 : previous.find(key.id());
+            if (cached >= 0 && previous.hashes[cached] == key.hash()) {
+                flush();
+                copy(key, cached);
+                unchanged++;
+                return;
+            }
+            if (cached >= 0 && previous.firsts[cached] == key.hash()) {
+                // the first record of an id that repeated: keep the exported row until its last record shows
+                flush();
+                replaced.put(copy(key, cached), new Replacement(previous.hashes[cached], buffer, true));
+                return;
+            }
+            if (cached >= 0) {
+                changed++;
+            } else {
+                added++;
+            }
+            batchEntries[batch.size()] = entries.add(key.id(), key.hash(), -1, 0);
+            batch.add(buffer);
+            if (batch.size() == BATCH_SIZE) {
+                flush();
+            }
+        }
+
+        /** Binds and writes the pending records, then points their entries at their rows. */
+        private void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            long offset = rows.position();
+            rows.clear();
+            csvHandler.writeRows(ConversionMeter.meterRecords(jsonHandler.readBuffered(batch, type)), type, rows,
+                    false);
+            if (rows.count() != batch.size()) {
+                throw new CsvHandlerException("Expected " + batch.size() + " CSV rows but " + rows.count()
+                        + " were written");
+            }
+            ExportIndex.Entries entries = index.entries;
+            for (int i = 0; i < batch.size(); i++) {
+                entries.offsets[batchEntries[i]] = offset;
+                entries.lengths[batchEntries[i]] = (int) (rows.end(i) - offset);
+                offset = rows.end(i);
+            }
+            rows.clear();
+            batch.clear();
+        }
+
+        /** Replaces the rows of repeated ids whose last record differs from the row written for them. */
+        private void replaceRows() {
+            ExportIndex.Entries entries = index.entries;
+            for (Map.Entry<Integer, Replacement> pending : replaced.entrySet()) {
+                int entry = pending.getKey();
+                Replacement replacement = pending.getValue();
+                if (entries.hashes[entry] != replacement.rowHash()) {
+                    patches.put(entries.offsets[entry],
+                            new Patch(entries.lengths[entry], serialize(replacement.record())));
+                    changed++;
+                } else if (replacement.copied()) {
+                    unchanged++;
+                }
+            }
+            replaced.clear();
+        }
+
+        /** @return the row of a record on its own */
+        private byte[] serialize(TokenBuffer buffer) {
+            ByteArrayOutputStream row = new ByteArrayOutputStream();
+            csvHandler.writeRows(ConversionMeter.meterRecords(jsonHandler.readBuffered(List.of(buffer), type)), type,
+                    row, false);
+            return row.toByteArray();
+        }
+
+        /**
+         * Copies the row of an unchanged record from the previous CSV file to the end of the new one.
+         *
+         * @return number of the new entry
+         */
+        private int copy(Keyed key, int cached) throws IOException {
+            ByteBuffer row = ByteBuffer.allocate(previous.lengths[cached]);
+            long from = previous.offsets[cached];
+            while (row.hasRemaining()) {
+                if (previousRows.read(row, from + row.position()) < 0) {
+                    throw new EOFException("The previous CSV file ends inside a row at " + from);
+                }
+            }
+            long offset = rows.position();
+            rows.write(row.array());
+            rows.clear();
+            return index.entries.add(key.id(), key.hash(), offset, row.capacity());
+        }
+
+        /** Hashes the tokens of a record and finds its id among its top-level fields. */
+        private Keyed key(TokenBuffer buffer, long record) throws IOException {
+            String id = null;
+            long hash = ExportIndex.seed();
+            int depth = 0;
+            boolean idValue = false;
+            try (JsonParser tokens = buffer.asParser()) {
+                for (JsonToken token = tokens.nextToken(); token != null; token = tokens.nextToken()) {
+                    hash = ExportIndex.mix(hash, token.ordinal());
+                    if (token == JsonToken.FIELD_NAME) {
+                        hash = ExportIndex.mix(hash, tokens.currentName());
+                        idValue = depth == 1 && tokens.currentName().equals(index.idField);
+                        continue;
+                    }
+                    if (token.isStructStart()) {
+                        depth++;
+                    } else if (token.isStructEnd()) {
+                        depth--;
+                    } else if (token != JsonToken.VALUE_NULL) {
+                        String text = tokens.getText();
+                        hash = ExportIndex.mix(hash, text);
+                        if (idValue) {
+                            id = text;
+                        }
+                    }
+                    idValue = false;
+                }
+            }
+            if (id == null) {
+                throw new JsonHandlerException("Record " + record + " has no value for the id field '"
+                        + index.idField + "'");
+            }
+            return new Keyed(id, hash);
+        }
+    }
+
+    /**
+     * Counts the bytes written through it and notes where each CSV row ends: at a line feed
+     * outside quotes. A quote inside a quoted field is doubled, so it toggles the state twice.
+     */
+    private static final class RowOffsets extends FilterOutputStream {
+
+        private long position;
+        private boolean quoted;
+        private long[] ends = new long[BATCH_SIZE];
+        private int count;
+
+        RowOffsets(OutputStream out, long position) {
+            super(out);
+            this.position = position;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            note(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            for (int i = off; i < off + len; i++) {
+                note(b[i]);
+            }
+        }
+
+        private void note(int b) {
+            position++;
+            if (b == '"') {
+                quoted = !quoted;
+            } else if (b == '\n' && !quoted) {
+                if (count == ends.length) {
+                    ends = Arrays.copyOf(ends, count * 2);
+                }
+                ends[count++] = position;
+            }
+        }
+
+        /** @return bytes in the file so far */
+        long position() {
+            return position;
+        }
+
+        /** @return rows ended since the last {@link #clear()} */
+        int count() {
+            return count;
+        }
+
+        /** @return offset right after the {@code i}-th row ended since the last {@link #clear()} */
+        long end(int i) {
+            return ends[i];
+        }
+
+        void clear() {
+            count = 0;
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package org.digitalnao.jared.trujillo.handlers;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import org.digitalnao.jared.trujillo.interfaces.ModelCodec;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-safe, bounded cache of prebuilt Jackson readers, writers and CSV schemas per class,
+ * shared by the JSON and CSV handlers. Building a {@link CsvSchema} or resolving a collection
+ * type is far more expensive than reusing an immutable {@link ObjectReader}/{@link ObjectWriter},
+ * so each class is set up once and then served from memory.
+ *
+ * Classes with a build-time generated codec ({@code Foo_Codec}) are (de)serialized and described
+ * by that codec instead of reflective bean introspection.
+ *
+ * The least recently used class is evicted once {@link #maxSize()} classes are cached.
+ * Hit, miss and eviction counters can be queried to check the cache is effective.
+ */
+public final class JacksonTypeCache {
+
+    /** Maximum number of classes kept by the shared cache. */
+    public static final int DEFAULT_MAX_SIZE = 256;
+
+    private static final JacksonTypeCache SHARED = new JacksonTypeCache(DEFAULT_MAX_SIZE);
+
+    private final ObjectMapper jsonMapper = new ObjectMapper().registerModule(new GeneratedCodecModule());
+    private final CsvMapper csvMapper = (CsvMapper) new CsvMapper().registerModule(new GeneratedCodecModule());
+    private final int maxSize;
+    private final Map<Class<?>, Entry> entries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    JacksonTypeCache(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("The cache size must be positive: " + maxSize);
+        }
+        this.maxSize = maxSize;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Class<?>, Entry> eldest) {
+                boolean evict = size() > JacksonTypeCache.this.maxSize;
+                if (evict) {
+                    evictions.increment();
+                }
+                return evict;
+            }
+        };
+    }
+
+    /**
+     * Returns the cache shared by every handler created through the factories.
+     *
+     * @return shared cache instance
+     */
+    public static JacksonTypeCache shared() {
+        return SHARED;
+    }
+
+    /** @return number of lookups served from the cache */
+    public long hits() {
+        return hits.sum();
+    }
+
+    /** @return number of lookups that had to set up a new class */
+    public long misses() {
+        return misses.sum();
+    }
+
+    /** @return number of classes evicted to stay within {@link #maxSize()} */
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    /** @return number of classes currently cached */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /** @return maximum number of classes kept before evicting */
+    public int maxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Removes every cached class. Counters are kept.
+     */
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    ObjectMapper jsonMapper() {
+        return jsonMapper;
+    }
+
+    CsvMapper csvMapper() {
+        return csvMapper;
+    }
+
+    CsvSchema csvSchema(Class<?> type) {
+        return entry(type).csvSchema();
+    }
+
+    ObjectWriter csvWriter(Class<?> type) {
+        return entry(type).csvWriter();
+    }
+
+    ObjectWriter csvRowWriter(Class<?> type) {
+        return entry(type).csvRowWriter();
+    }
+
+    ObjectReader csvReader(Class<?> type) {
+        return entry(type).csvReader();
+    }
+
+    ObjectReader jsonReader(Class<?> type) {
+        return entry(type).jsonReader();
+    }
+
+    ObjectReader jsonListReader(Class<?> type) {
+        return entry(type).jsonListReader();
+    }
+
+    ObjectWriter jsonWriter(Class<?> type) {
+        return entry(type).jsonWriter();
+    }
+
+    private Entry entry(Class<?> type) {
+        synchronized (entries) {
+            Entry entry = entries.get(type);
+            if (entry != null) {
+                hits.increment();
+                return entry;
+            }
+            misses.increment();
+            entry = new Entry(type);
+            entries.put(type, entry);
+            return entry;
+        }
+    }
+
+    /**
+     * Readers, writers and schema of one class. Each part is built on first use so that
+     * JSON-only types never pay for (or fail on) CSV schema generation, and vice versa.
+     * Writers never flush after each value: records are streamed into a buffered destination
+     * and a flush per record would turn into a system call per record.
+     */
+    private final class Entry {
+
+        private final Class<?> type;
+        private CsvSchema csvSchema;
+        private ObjectWriter csvWriter;
+        private ObjectWriter csvRowWriter;
+        private ObjectReader csvReader;
+        private ObjectReader jsonReader;
+        private ObjectReader jsonListReader;
+        private ObjectWriter jsonWriter;
+
+        Entry(Class<?> type) {
+            this.type = type;
+        }
+
+        synchronized CsvSchema csvSchema() {
+            if (csvSchema == null) {
+                ModelCodec<?> codec = GeneratedCodecModule.find(type);
+                CsvSchema schema = codec != null ? codec.csvSchema() : csvMapper.schemaFor(type);
+                csvSchema = schema.withHeader();
+            }
+            return csvSchema;
+        }
+
+        synchronized ObjectWriter csvWriter() {
+            if (csvWriter == null) {
+                csvWriter = csvMapper.writer(csvSchema()).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+            }
+            return csvWriter;
+        }
+
+        synchronized ObjectWriter csvRowWriter() {
+            if (csvRowWriter == null) {
+                csvRowWriter = csvMapper.writer(csvSchema().withoutHeader())
+                        .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                        .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            }
+            return csvRowWriter;
+        }
+
+        synchronized ObjectReader csvReader() {
+            if (csvReader == null) {
+                // map columns by the names in the header row, so files with reordered columns still bind
+                csvReader = csvMapper.readerFor(type).with(csvSchema().withColumnReordering(true));
+            }
+            return csvReader;
+        }
+
+        synchronized ObjectReader jsonReader() {
+            if (jsonReader == null) {
+                jsonReader = jsonMapper.readerFor(type);
+            }
+            return jsonReader;
+        }
+
+        synchronized ObjectReader jsonListReader() {
+            if (jsonListReader == null) {
+                jsonListReader = jsonMapper.readerFor(
+                        jsonMapper.getTypeFactory().constructCollectionType(List.class, type));
+            }
+            return jsonListReader;
+        }
+
+        synchronized ObjectWriter jsonWriter() {
+            if (jsonWriter == null) {
+                jsonWriter = jsonMapper.writerFor(type).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+            }
+            return jsonWriter;
+        }
+    }
+}
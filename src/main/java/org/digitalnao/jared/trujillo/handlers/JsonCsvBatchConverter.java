@@ -0,0 +1,181 @@
+package org.digitalnao.jared.trujillo.handlers;
+
+import org.digitalnao.jared.trujillo.classes.BatchResult;
+import org.digitalnao.jared.trujillo.classes.Compression;
+import org.digitalnao.jared.trujillo.classes.FileConversionResult;
+import org.digitalnao.jared.trujillo.exceptions.CsvHandlerException;
+import org.digitalnao.jared.trujillo.exceptions.JsonHandlerException;
+import org.digitalnao.jared.trujillo.interfaces.BatchConverter;
+import org.digitalnao.jared.trujillo.interfaces.JsonCsvConverter;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Converts many JSON files concurrently, one task per file, on top of a shared
+ * {@link JsonCsvConverter}. The number of files open at the same time is bounded so that
+ * large batches do not exhaust file descriptors or buffer memory.
+ */
+final class JsonCsvBatchConverter implements BatchConverter {
+
+    static final int DEFAULT_MAX_IN_FLIGHT = Runtime.getRuntime().availableProcessors() * 2;
+
+    private final JsonCsvConverter converter;
+    private final ExecutorService executor;
+    private final int maxInFlight;
+
+    /**
+     * Creates a batch converter.
+     *
+     * @param converter   thread-safe converter used for every file
+     * @param executor    executor running the conversions, or {@code null} to start
+     *                    a virtual thread per file for each batch
+     * @param maxInFlight maximum number of files converted at the same time
+     */
+    JsonCsvBatchConverter(JsonCsvConverter converter, ExecutorService executor, int maxInFlight) {
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("maxInFlight must be positive: " + maxInFlight);
+        }
+        this.converter = converter;
+        this.executor = executor;
+        this.maxInFlight = maxInFlight;
+    }
+
+    @Override
+    public <T> BatchResult convertDirectory(String directory, String outputDirectory, Class<T> type)
+            throws JsonHandlerException {
+        return convertMatching(directory, "*.json", outputDirectory, type);
+    }
+
+    @Override
+    public <T> BatchResult convertMatching(String directory, String glob, String outputDirectory, Class<T> type)
+            throws JsonHandlerException {
+        if (type == null) {
+            throw new JsonHandlerException("The parameter 'type' cannot be null.");
+        }
+        List<Path> inputs = listInputs(directory, glob);
+        Path outDir = createOutputDirectory(outputDirectory);
+
+        long start = System.nanoTime();
+        List<FileConversionResult> results;
+        if (executor != null) {
+            results = runAll(executor, inputs, outDir, type);
+        } else {
+            try (ExecutorService perBatch = Executors.newVirtualThreadPerTaskExecutor()) {
+                results = runAll(perBatch, inputs, outDir, type);
+            }
+        }
+        return new BatchResult(results, System.nanoTime() - start);
+    }
+
+    private <T> List<FileConversionResult> runAll(ExecutorService pool, List<Path> inputs, Path outDir,
+                                                  Class<T> type) {
+        Semaphore permits = new Semaphore(maxInFlight);
+        List<Future<FileConversionResult>> futures = new ArrayList<>(inputs.size());
+        try {
+            for (Path input : inputs) {
+                permits.acquire();
+                futures.add(pool.submit(() -> {
+                    try {
+                        return convertOne(input, outDir, type);
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+
+            List<FileConversionResult> results = new ArrayList<>(futures.size());
+            for (Future<FileConversionResult> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            futures.forEach(f -> f.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Batch conversion interrupted");
+        } catch (ExecutionException e) {
+            // conversion failures are captured per file, so only errors end up here
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException("Unexpected batch failure", e.getCause());
+        }
+    }
+
+    private <T> FileConversionResult convertOne(Path input, Path outDir, Class<T> type) {
+        // users.jsonl.gz is written as users.csv; JSON Lines files are converted line by line
+        String name = Compression.stripExtension(input.getFileName().toString());
+        String lower = name.toLowerCase(Locale.ROOT);
+        boolean lines = lower.endsWith(".jsonl") || lower.endsWith(".ndjson");
+        String base = lines || lower.endsWith(".json") ? name.substring(0, name.lastIndexOf('.')) : name;
+        Path outBase = outDir.resolve(base);
+        Path output = outDir.resolve(base + ".csv");
+
+        long start = System.nanoTime();
+        long bytes = sizeOf(input);
+        try {
+            long rows = lines
+                    ? converter.convertJsonLines(input.toString(), outBase.toString(), type)
+                    : converter.convert(input.toString(), outBase.toString(), type);
+            return new FileConversionResult(input, output, rows, bytes, System.nanoTime() - start, null);
+        } catch (RuntimeException e) {
+            return new FileConversionResult(input, output, 0, bytes, System.nanoTime() - start, e);
+        }
+    }
+
+    private List<Path> listInputs(String directory, String glob) {
+        if (directory == null || directory.isBlank()) {
+            throw new JsonHandlerException("The directory cannot be null neither blank");
+        }
+        if (glob == null || glob.isBlank()) {
+            throw new JsonHandlerException("The glob cannot be null neither blank");
+        }
+        Path dir = Path.of(directory);
+        if (!Files.isDirectory(dir)) {
+            throw new JsonHandlerException("Directory not found: " + directory);
+        }
+
+        List<Path> inputs = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, glob)) {
+            for (Path path : stream) {
+                if (Files.isRegularFile(path)) {
+                    inputs.add(path);
+                }
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            throw new JsonHandlerException("Could not list directory " + directory, e);
+        }
+        inputs.sort(null);
+        return inputs;
+    }
+
+    private Path createOutputDirectory(String outputDirectory) {
+        if (outputDirectory == null || outputDirectory.isBlank()) {
+            throw new CsvHandlerException("The output directory cannot be null nor blank");
+        }
+        try {
+            return Files.createDirectories(Path.of(outputDirectory));
+        } catch (IOException e) {
+            throw new CsvHandlerException("Could not create output directory: " + outputDirectory, e);
+        }
+    }
+
+    private long sizeOf(Path input) {
+        try {
+            return Files.size(input);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package org.digitalnao.jared.trujillo.handlers;
+
+import org.digitalnao.jared.trujillo.interfaces.ConversionListener;
+import org.digitalnao.jared.trujillo.interfaces.JsonCsvConverter;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Factory for creating {@link JsonCsvConverter} instances.
+ */
+public final class JsonCsvConverterFactory {
+
+    private JsonCsvConverterFactory() {
+        // utility class; not meant to be instantiated
+    }
+
+    /**
+     * Creates a default streaming JSON to CSV converter backed by Jackson.
+     * Parallel JSON Lines conversions run on the common fork-join pool.
+     * The converter is thread-safe and may be shared across threads.
+     *
+     * @return a new {@link JsonCsvConverter} instance
+     */
+    public static JsonCsvConverter createJsonCsvConverter() {
+        return new JsonCsvJacksonConverter(new JsonJacksonHandler(), new CsvJacksonHandler(), ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a converter whose parallel JSON Lines conversions run on a fork-join pool with the
+     * given number of workers: the common pool when its parallelism matches, otherwise a dedicated
+     * pool owned by the converter and shut down by {@link JsonCsvConverter#close()}.
+     *
+     * @param parallelism number of worker threads (positive)
+     * @return a new {@link JsonCsvConverter} instance
+     * @throws IllegalArgumentException if {@code parallelism} is not positive
+     */
+    public static JsonCsvConverter createJsonCsvConverter(int parallelism) {
+        return create(new CsvJacksonHandler(), parallelism, null);
+    }
+
+    /**
+     * Creates a converter with {@code parallelism} workers for parallel JSON Lines conversions,
+     * pooled as in {@link #createJsonCsvConverter(int)}, and an explicit CSV output buffer size.
+     *
+     * @param parallelism number of worker threads (positive)
+     * @param bufferSize  size in bytes of the CSV output buffer (positive)
+     * @return a new {@link JsonCsvConverter} instance
+     * @throws IllegalArgumentException if {@code parallelism} or {@code bufferSize} is not positive
+     */
+    public static JsonCsvConverter createJsonCsvConverter(int parallelism, int bufferSize) {
+        return create(new CsvJacksonHandler(JacksonTypeCache.shared(), bufferSize, false), parallelism, null);
+    }
+
+    /**
+     * Creates a converter that measures every conversion and reports its stage timings, byte
+     * counts and throughput to {@code listener}. Pass a {@link ConversionStats} to keep running
+     * totals and expose them over JMX.
+     *
+     * @param parallelism number of worker threads (positive)
+     * @param bufferSize  size in bytes of the CSV output buffer (positive)
+     * @param listener    receiver of the metrics of each conversion (non-null)
+     * @return a new {@link JsonCsvConverter} instance
+     * @throws IllegalArgumentException if {@code parallelism} or {@code bufferSize} is not positive,
+     *                                  or {@code listener} is null
+     */
+    public static JsonCsvConverter createJsonCsvConverter(int parallelism, int bufferSize, ConversionListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("The listener cannot be null");
+        }
+        return create(new CsvJacksonHandler(JacksonTypeCache.shared(), bufferSize, false), parallelism, listener);
+    }
+
+    /** Reuses the common pool when it has the requested parallelism, so such converters own no threads. */
+    private static JsonCsvConverter create(CsvJacksonHandler csvHandler, int parallelism, ConversionListener listener) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("The parallelism must be positive: " + parallelism);
+        }
+        ForkJoinPool common = ForkJoinPool.commonPool();
+        if (parallelism == common.getParallelism()) {
+            return new JsonCsvJacksonConverter(new JsonJacksonHandler(), csvHandler, common, false, listener);
+        }
+        return new JsonCsvJacksonConverter(new JsonJacksonHandler(), csvHandler, new ForkJoinPool(parallelism), true,
+                listener);
+    }
+}
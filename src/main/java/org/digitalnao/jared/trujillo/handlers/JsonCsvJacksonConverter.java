@@ -0,0 +1,726 @@
+package org.digitalnao.jared.trujillo.handlers;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.digitalnao.jared.trujillo.classes.CheckpointOptions;
+import org.digitalnao.jared.trujillo.classes.Compression;
+import org.digitalnao.jared.trujillo.classes.ConversionMetrics;
+import org.digitalnao.jared.trujillo.classes.FlattenOptions;
+import org.digitalnao.jared.trujillo.classes.IncrementalOptions;
+import org.digitalnao.jared.trujillo.classes.IncrementalResult;
+import org.digitalnao.jared.trujillo.classes.JsonContent;
+import org.digitalnao.jared.trujillo.classes.PipelineOptions;
+import org.digitalnao.jared.trujillo.classes.PipelineResult;
+import org.digitalnao.jared.trujillo.classes.RowQuery;
+import org.digitalnao.jared.trujillo.classes.SortOptions;
+import org.digitalnao.jared.trujillo.classes.SortResult;
+import org.digitalnao.jared.trujillo.exceptions.CsvHandlerException;
+import org.digitalnao.jared.trujillo.exceptions.JsonHandlerException;
+import org.digitalnao.jared.trujillo.interfaces.ConversionListener;
+import org.digitalnao.jared.trujillo.interfaces.JsonCsvConverter;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
+
+/**
+ * Streaming JSON to CSV converter backed by Jackson. Only one element is held in memory at a time:
+ * values are pulled from {@link JsonContent} and written row by row to a buffered file.
+ * JSON Lines input is split into chunks converted in parallel by {@link ParallelJsonLinesConverter}.
+ * Instances are thread-safe; concurrent calls convert independent files.
+ *
+ * With a {@link ConversionListener}, every conversion is measured by a {@link ConversionMeter} and
+ * its {@link ConversionMetrics} are reported when it ends. Without one, nothing is measured.
+ */
+final class JsonCsvJacksonConverter implements JsonCsvConverter {
+
+    private final JsonJacksonHandler jsonHandler;
+    private final CsvJacksonHandler csvHandler;
+    private final ParallelJsonLinesConverter jsonLines;
+    private final PipelinedJsonCsvConverter pipeline;
+    private final CheckpointedJsonCsvConverter checkpointed;
+    private final ExternalSortJsonCsvConverter sorter;
+    private final DirectJsonCsvConverter direct;
+    private final IncrementalJsonCsvConverter incremental;
+    private final ConversionListener listener;
+    private final ForkJoinPool pool;
+    private final boolean ownsPool;
+
+    JsonCsvJacksonConverter(JsonJacksonHandler jsonHandler, CsvJacksonHandler csvHandler, ForkJoinPool pool) {
+        this(jsonHandler, csvHandler, pool, false, null);
+    }
+
+    /**
+     * @param pool     fork-join pool for parallel JSON Lines conversions
+     * @param ownsPool whether {@link #close()} shuts {@code pool} down
+     * @param listener receiver of the metrics of each conversion, or {@code null} to measure nothing
+     */
+    JsonCsvJacksonConverter(JsonJacksonHandler jsonHandler, CsvJacksonHandler csvHandler, ForkJoinPool pool,
+                            boolean ownsPool, ConversionListener listener) {
+        this.jsonHandler = jsonHandler;
+        this.csvHandler = csvHandler;
+        this.jsonLines = new ParallelJsonLinesConverter(jsonHandler, csvHandler, pool);
+        this.pipeline = new PipelinedJsonCsvConverter(jsonHandler, csvHandler);
+        this.checkpointed = new CheckpointedJsonCsvConverter(jsonHandler, csvHandler);
+        this.sorter = new ExternalSortJsonCsvConverter(jsonHandler, csvHandler);
+        this.direct = new DirectJsonCsvConverter(jsonHandler, csvHandler);
+        this.incremental = new IncrementalJsonCsvConverter(jsonHandler, csvHandler);
+        this.listener = listener;
+        this.pool = pool;
+        this.ownsPool = ownsPool;
+    }
+
+    /**
+     * Streams a JSON file into a CSV file with a header row.
+     *
+     * @param <T>          element type
+     * @param jsonFilename path to the JSON file (expects {@code .json})
+     * @param csvFilename  base filename (the implementation appends {@code .csv})
+     * @param type         class used to bind elements and derive the CSV schema (non-null)
+     * @return number of rows written, excluding the header
+     * @throws JsonHandlerException if the JSON file is invalid, unreadable, or mapping fails
+     * @throws CsvHandlerException  if the CSV file cannot be written or serialization fails
+     */
+    @Override
+    public <T> long convert(String jsonFilename, String csvFilename, Class<T> type)
+            throws JsonHandlerException, CsvHandlerException {
+        return metered(jsonFilename, csvFilename, () -> {
+            Path csvPath = csvHandler.csvPath(csvFilename);
+
+            try (JsonContent<T> content = jsonHandler.readJson(jsonFilename, type);
+                 OutputStream out = csvHandler.openOutput(csvPath)) {
+                return csvHandler.writeRows(ConversionMeter.meterRecords(content.iterator()), type, out, true);
+            } catch (IOException e) {
+                throw csvHandler.handleException(e);
+            }
+        });
+    }
+
+    /**
+     * Streams the records of a JSON file that pass the query into a CSV file holding the selected
+     * columns. A query that keeps everything takes the plain {@link #convert(String, String, Class)} path.
+     *
+     * @param <T>          element type
+     * @param jsonFilename path to the JSON file ({@code .json}, {@code .jsonl} or {@code .ndjson})
+     * @param csvFilename  base filename (the implementation appends {@code .csv})
+     * @param type         class used to bind elements and derive the CSV schema (non-null)
+     * @param query        selected properties and row predicates (non-null)
+     * @return number of rows written, excluding the header
+     * @throws JsonHandlerException if the JSON file is invalid, unreadable, or mapping fails
+     * @throws CsvHandlerException  if a selected column is unknown or the CSV file cannot be written
+     */
+    @Override
+    public <T> long convert(String jsonFilename, String csvFilename, Class<T> type, RowQuery query)
+            throws JsonHandlerException, CsvHandlerException {
+        return metered(jsonFilename, csvFilename, () -> {
+            validateQuery(query);
+            if (query.isAll()) {
+                return convert(jsonFilename, csvFilename, type);
+            }
+            Path csvPath = csvHandler.csvPath(csvFilename);
+
+            try (JsonContent<T> content = jsonHandler.readRecords(jsonFilename, type, query);
+                 OutputStream out = csvHandler.openOutput(csvPath)) {
+                return writeQueried(content, type, query, out);
+            } catch (IOException e) {
+                throw csvHandler.handleException(e);
+            }
+        });
+    }
+
+    /**
+     * Converts a JSON Lines file to CSV using all workers of the fork-join pool. Compressed input
+     * is converted sequentially, since its lines cannot be located without decompressing.
+     *
+     * @param <T>               element type
+     * @param jsonLinesFilename path to the JSON Lines file (expects {@code .jsonl}, {@code .ndjson} or {@code .json})
+     * @param csvFilename       base filename (the implementation appends {@code .csv})
+     * @param type              class used to bind elements and derive the CSV schema (non-null)
+     * @return number of rows written, excluding the header
+     * @throws JsonHandlerException if the input is invalid, unreadable, or mapping fails
+     * @throws CsvHandlerException  if the CSV file cannot be written or serialization fails
+     */
+    @Override
+    public <T> long convertJsonLines(String jsonLinesFilename, String csvFilename, Class<T> type)
+            throws JsonHandlerException, CsvHandlerException {
+        return metered(jsonLinesFilename, csvFilename, () -> {
+            Path csvPath = csvHandler.csvPath(csvFilename);
+            Path input = jsonHandler.validateJsonLinesInput(jsonLinesFilename).toPath();
+
+            try (OutputStream out = csvHandler.openOutput(csvPath)) {
+                if (CompressedStreams.detect(input) != Compression.NONE) {
+                    // a compressed file cannot be split at line offsets; parse it in one pass instead
+                    try (JsonContent<T> content = jsonHandler.readJsonLines(jsonLinesFilename, type)) {
+                        return csvHandler.writeRows(ConversionMeter.meterRecords(content.iterator()), type, out, true);
+                    }
+                }
+                long rows = jsonLines.convert(input, out, type);
+                if (ConversionMeter.isActive()) {
+                    // the chunks are read through a file channel, past the metered streams
+                    ConversionMeter.countInput(Files.size(input));
+                }
+                return rows;
+            } catch (IOException e) {
+                throw csvHandler.handleException(e);
+            }
+        });
+    }
+
+    /**
+     * Converts a JSON file to CSV through a reader, worker and writer pipeline. See
+     * {@link PipelinedJsonCsvConverter} for the stages and their queues.
+     *
+     * @param <T>          element type
+     * @param jsonFilename path to the JSON file ({@code .json}, {@code .jsonl} or {@code .ndjson})
+     * @param csvFilename  base filename (the implementation appends {@code .csv})
+     * @param type         class used to bind elements and derive the CSV schema (non-null)
+     * @param options      workers, batch size and queue capacity (non-null)
+     * @return rows written and stage statistics
+     * @throws JsonHandlerException if the JSON file is invalid, unreadable, or mapping fails
+     * @throws CsvHandlerException  if the CSV file cannot be written or serialization fails
+     */
+    @Override
+    public <T> PipelineResult convertPipelined(String jsonFilename, String csvFilename, Class<T> type,
+                                               PipelineOptions options)
+            throws JsonHandlerException, CsvHandlerException {
+        return metered(jsonFilename, csvFilename, () -> {
+            validateType(type);
+            validatePipeline(options);
+            File input = jsonHandler.validateJsonLinesInput(jsonFilename);
+            Path csvPath = csvHandler.csvPath(csvFilename);
+
+            try (JsonParser parser = jsonHandler.openParser(input);
+                 OutputStream out = csvHandler.openOutput(csvPath)) {
+                return pipeline.convert(parser, out, type, options);
+            } catch (IOException e) {
+                throw flattenException(e);
+            }
+        }, PipelineResult::records);
+    }
+
+    /**
+     * Streams JSON from {@code in} into CSV on {@code out} through a reader, worker and writer
+     * pipeline, buffering the output like the other stream conversions.
+     *
+     * @param <T>     element type
+     * @param in      UTF-8 encoded JSON source (non-null)
+     * @param out     destination of the CSV rows (non-null)
+     * @param type    class used to bind elements and derive the CSV schema (non-null)
+     * @param options workers, batch size and queue capacity (non-null)
+     * @return rows written and stage statistics
+     * @throws JsonHandlerException if the input is invalid, unreadable, or mapping fails
+     * @throws CsvHandlerException  if the output cannot be written or serialization fails
+     */
+    @Override
+    public <T> PipelineResult convertPipelined(InputStream in, OutputStream out, Class<T> type,
+                                               PipelineOptions options)
+            throws JsonHandlerException, CsvHandlerException {
+        return metered("-", "-", () -> {
+            validateType(type);
+            validatePipeline(options);
+            if (out == null) {
+                throw new CsvHandlerException("The destination cannot be null.");
+            }
+            try (JsonParser parser = jsonHandler.openParser(ConversionMeter.meterInput(in))) {
+                OutputStream buffered = new BufferedOutputStream(
+                        ConversionMeter.meterOutput(out), CsvJacksonHandler.DEFAULT_BUFFER_SIZE);
+                PipelineResult result = pipeline.convert(parser, buffered, type, options);
+                buffered.flush();
+                return result;
+            } catch (IOException e) {
+                throw flattenException(e);
+            }
+        }, PipelineResult::records);
+    }
+
+    /**
+     * Converts a JSON file to CSV in checkpointed segments, resuming from an earlier run's
+     * checkpoint if there is one. See {@link CheckpointedJsonCsvConverter} for how offsets are kept.
+     *
+     * @param <T>          element type
+     * @param jsonFilename path to the JSON file ({@code .json}, {@code .jsonl} or {@code .ndjson})
+     * @param csvFilename  base filename (the implementation appends {@code .csv})
+     * @param type         class used to bind elements and derive the CSV schema (non-null)
+     * @param options      checkpoint interval and sync policy (non-null)
+     * @return rows in the CSV file, including rows written by earlier runs
+     * @throws JsonHandlerException if the JSON file is invalid, unreadable, or mapping fails
+     * @throws CsvHandlerException  if the CSV file or the checkpoint cannot be written, or the
+     *                              checkpoint does not match this conversion
+     */
+    @Override
+    public <T> long convertResumable(String jsonFilename, String csvFilename, Class<T> type,
+                                     CheckpointOptions options)
+            throws JsonHandlerException, CsvHandlerException {
+        return metered(jsonFilename, csvFilename, () -> {
+            validateType(type);
+            if (options == null) {
+                throw new JsonHandlerException("The parameter 'options' cannot be null.");
+            }
+            File input = jsonHandler.validateJsonLinesInput(jsonFilename);
+            Path csvPath = csvHandler.csvPath(csvFilename);
+            return checkpointed.convert(input.toPath(), csvPath, type, options);
+        });
+    }
+
+    /**
+     * Converts a JSON file to CSV sorted by some of its columns, spilling sorted runs to disk when
+     * the rows exceed the memory budget. See {@link ExternalSortJsonCsvConverter} for the runs and
+     * the merge.
+     *
+     * @param <T>          element type
+     * @param jsonFilename path to the JSON file ({@code .json}, {@code .jsonl} or {@code .ndjson})
+     * @param csvFilename  base filename (the implementation appends {@code .csv})
+     * @param type         class used to bind elements and derive the CSV schema (non-null)
+     * @param options      sort keys, memory budget, dedup mode and spill directory (non-null)
+     * @return rows written with spill and merge statistics
+     * @throws JsonHandlerException if the JSON file is invalid, unreadable, or mapping fails
+     * @throws CsvHandlerException  if a sort key is unknown, or the CSV file or a run file cannot be written
+     */
+    @Override
+    public <T> SortResult convertSorted(String jsonFilename, String csvFilename, Class<T> type,
+                                        SortOptions options)
+            throws JsonHandlerException, CsvHandlerException {
+        return metered(jsonFilename, csvFilename, () -> {
+            validateType(type);
+            validateSort(options);
+            File input = jsonHandler.validateJsonLinesInput(jsonFilename);
+            Path csvPath = csvHandler.csvPath(csvFilename);
+
+            try (JsonParser parser = jsonHandler.openParser(input);
+                 OutputStream out = csvHandler.openOutput(csvPath)) {
+                return sorter.convert(parser, out, type, options);
+            } catch (IOException e) {
+                throw flattenException(e);
+            }
+        }, SortResult::records);
+    }
+
+    /**
+     * Streams JSON from {@code in} into CSV on {@code out} sorted by some of its columns, buffering
+     * the output like the other stream conversions.
+     *
+     * @param <T>     element type
+     * @param in      UTF-8 encoded JSON source (non-null)
+     * @param out     destination of the CSV rows (non-null)
+     * @param type    class used to bind elements and derive the CSV schema (non-null)
+     * @param options sort keys, memory budget, dedup mode and spill directory (non-null)
+     * @return rows written with spill and merge statistics
+     * @throws JsonHandlerException if the input is invalid, unreadable, or mapping fails
+     * @throws CsvHandlerException  if a sort key is unknown, or the output or a run file cannot be written
+     */
+    @Override
+    public <T> SortResult convertSorted(InputStream in, OutputStream out, Class<T> type, SortOptions options)
+            throws JsonHandlerException, CsvHandlerException {
+        return metered("-", "-", () -> {
+            validateType(type);
+            validateSort(options);
+            if (out == null) {
+                throw new CsvHandlerException("The destination cannot be null.");
+            }
+            try (JsonParser parser = jsonHandler.openParser(ConversionMeter.meterInput(in))) {
+                OutputStream buffered = new BufferedOutputStream(
+                        ConversionMeter.meterOutput(out), CsvJacksonHandler.DEFAULT_BUFFER_SIZE);
+                SortResult result = sorter.convert(parser, buffered, type, options);
+                buffered.flush();
+                return result;
+            } catch (IOException e) {
+                throw flattenException(e);
+            }
+        }, SortResult::records);
+    }
+
+    /**
+     * Converts a JSON file to CSV, reading flat records without data binding. See
+     * {@link DirectJsonCsvConverter} for when records are left to Jackson.
+     *
+     * @param <T>          element type
+     * @param jsonFilename path to the JSON file ({@code .json}, {@code .jsonl} or {@code .ndjson})
+     * @param csvFilename  base filename (the implementation appends {@code .csv})
+     * @param type         class used to derive the CSV schema and bind records that are not flat (non-null)
+     * @return number of rows written, excluding the header
+     * @throws JsonHandlerException if the JSON file is invalid, unreadable, or mapping fails
+     * @throws CsvHandlerException  if the CSV file cannot be written or serialization fails
+     */
+    @Override
+    public <T> long convertDirect(String jsonFilename, String csvFilename, Class<T> type)
+            throws JsonHandlerException, CsvHandlerException {
+        return metered(jsonFilename, csvFilename, () -> {
+            validateType(type);
+            File input = jsonHandler.validateJsonLinesInput(jsonFilename);
+            Path csvPath = csvHandler.csvPath(csvFilename);
+
+            try (InputStream in = jsonHandler.openInput(input);
+                 OutputStream out = csvHandler.openOutput(csvPath)) {
+                return direct.convert(in, out, type).records();
+            } catch (IOException e) {
+                throw flattenException(e);
+            }
+        });
+    }
+
+    /**
+     * Streams JSON from {@code in} into CSV on {@code out}, reading flat records without data
+     * binding and buffering the output like the other stream conversions.
+     *
+     * @param <T>  element type
+     * @param in   JSON source, possibly compressed (non-null)
+     * @param out  destination of the CSV rows (non-null)
+     * @param type class used to derive the CSV schema and bind records that are not flat (non-null)
+     * @return number of rows written, excluding the header
+     * @throws JsonHandlerException if the input is invalid, unreadable, or mapping fails
+     * @throws CsvHandlerException  if the output cannot be written or serialization fails
+     */
+    @Override
+    public <T> long convertDirect(InputStream in, OutputStream out, Class<T> type)
+            throws JsonHandlerException, CsvHandlerException {
+        return metered("-", "-", () -> {
+            validateType(type);
+            if (in == null) {
+                throw new JsonHandlerException("The source cannot be null.");
+            }
+            if (out == null) {
+                throw new CsvHandlerException("The destination cannot be null.");
+            }
+            try {
+                OutputStream buffered = new BufferedOutputStream(
+                        ConversionMeter.meterOutput(out), CsvJacksonHandler.DEFAULT_BUFFER_SIZE);
+                long rows = direct.convert(CompressedStreams.decompress(ConversionMeter.meterInput(in)), buffered,
+                        type).records();
+                buffered.flush();
+                return rows;
+            } catch (IOException e) {
+                throw flattenException(e);
+            }
+        });
+    }
+
+    /**
+     * Brings a CSV file up to date with a JSON file through the index next to it. See
+     * {@link IncrementalJsonCsvConverter} for how changes are found and applied.
+     *
+     * @param <T>          element type
+     * @param jsonFilename path to the JSON file ({@code .json}, {@code .jsonl} or {@code .ndjson})
+     * @param csvFilename  base filename (the implementation appends {@code .csv})
+     * @param type         class used to bind elements and derive the CSV schema (non-null)
+     * @param options      id field and rescan policy (non-null)
+     * @return how the export was done and what it changed
+     * @throws JsonHandlerException if the JSON file is invalid, unreadable, a record has no id, or mapping fails
+     * @throws CsvHandlerException  if the id field is unknown, the CSV file is compressed, or the CSV
+     *                              file or the index cannot be written
+     */
+    @Override
+    public <T> IncrementalResult convertIncremental(String jsonFilename, String csvFilename, Class<T> type,
+                                                    IncrementalOptions options)
+            throws JsonHandlerException, CsvHandlerException {
+        return metered(jsonFilename, csvFilename, () -> {
+            validateType(type);
+            if (options == null) {
+                throw new JsonHandlerException("The parameter 'options' cannot be null.");
+            }
+            File input = jsonHandler.validateJsonLinesInput(jsonFilename);
+            Path csvPath = csvHandler.csvPath(csvFilename);
+            return incremental.convert(input.toPath(), csvPath, type, options);
+        }, IncrementalResult::records);
+    }
+
+    /**
+     * Streams a CSV file with a header row into a JSON array or JSON Lines file.
+     *
+     * @param <T>          row type
+     * @param csvFilename  path to the CSV file (expects {@code .csv})
+     * @param jsonFilename path to the JSON file to write ({@code .json}, {@code .jsonl} or {@code .ndjson})
+     * @param type         class whose properties match the header names (non-null)
+     * @return number of records written
+     * @throws CsvHandlerException  if the CSV file is invalid, unreadable, or a row cannot be bound
+     * @throws JsonHandlerException if the JSON file cannot be written or serialization fails
+     */
+    @Override
+    public <T> long convertToJson(String csvFilename, String jsonFilename, Class<T> type)
+            throws CsvHandlerException, JsonHandlerException {
+        return metered(csvFilename, jsonFilename, () -> {
+            try (Stream<T> rows = csvHandler.readCsv(csvFilename, type)) {
+                String lower = jsonFilename == null ? "" : Compression.stripExtension(jsonFilename).toLowerCase(Locale.ROOT);
+                if (lower.endsWith(".jsonl") || lower.endsWith(".ndjson")) {
+                    return jsonHandler.writeJsonLines(ConversionMeter.meterRecords(rows.iterator()), type, jsonFilename);
+                }
+                return jsonHandler.writeJsonArray(ConversionMeter.meterRecords(rows.iterator()), type, jsonFilename);
+            }
+        });
+    }
+
+    /**
+     * Streams JSON from {@code in} into CSV on {@code out} through the handler's output buffer.
+     *
+     * @param <T>  element type
+     * @param in   UTF-8 encoded JSON source (non-null)
+     * @param out  destination of the CSV rows (non-null)
+     * @param type class used to bind elements and derive the CSV schema (non-null)
+     * @return number of rows written, excluding the header
+     * @throws JsonHandlerException if the input is invalid, unreadable, or mapping fails
+     * @throws CsvHandlerException  if the output cannot be written or serialization fails
+     */
+    @Override
+    public <T> long convert(InputStream in, OutputStream out, Class<T> type)
+            throws JsonHandlerException, CsvHandlerException {
+        return metered("-", "-", () -> {
+            if (out == null) {
+                throw new CsvHandlerException("The destination cannot be null.");
+            }
+            try (JsonContent<T> content = jsonHandler.readJson(ConversionMeter.meterInput(in), type)) {
+                return csvHandler.writeToCsv(ConversionMeter.meterRecords(content.iterator()), type,
+                        ConversionMeter.meterOutput(out));
+            }
+        });
+    }
+
+    /**
+     * Streams the records of {@code in} that pass the query into CSV on {@code out} through the
+     * handler's output buffer.
+     *
+     * @param <T>   element type
+     * @param in    UTF-8 encoded JSON source (non-null)
+     * @param out   destination of the CSV rows (non-null)
+     * @param type  class used to bind elements and derive the CSV schema (non-null)
+     * @param query selected properties and row predicates (non-null)
+     * @return number of rows written, excluding the header
+     * @throws JsonHandlerException if the input is invalid, unreadable, or mapping fails
+     * @throws CsvHandlerException  if a selected column is unknown or the output cannot be written
+     */
+    @Override
+    public <T> long convert(InputStream in, OutputStream out, Class<T> type, RowQuery query)
+            throws JsonHandlerException, CsvHandlerException {
+        return metered("-", "-", () -> {
+            validateQuery(query);
+            if (query.isAll()) {
+                return convert(in, out, type);
+            }
+            if (out == null) {
+                throw new CsvHandlerException("The destination cannot be null.");
+            }
+            try (JsonContent<T> content = jsonHandler.readRecords(ConversionMeter.meterInput(in), type, query)) {
+                OutputStream buffered = new BufferedOutputStream(
+                        ConversionMeter.meterOutput(out), CsvJacksonHandler.DEFAULT_BUFFER_SIZE);
+                long rows = writeQueried(content, type, query, buffered);
+                buffered.flush();
+                return rows;
+            } catch (IOException e) {
+                throw csvHandler.handleException(e);
+            }
+        });
+    }
+
+    /**
+     * Streams CSV from {@code in} into a JSON array or JSON Lines on {@code out}.
+     *
+     * @param <T>       row type
+     * @param in        UTF-8 encoded CSV source (non-null)
+     * @param out       destination of the JSON documents (non-null)
+     * @param type      class whose properties match the header names (non-null)
+     * @param jsonLines {@code true} for JSON Lines, {@code false} for a root array
+     * @return number of records written
+     * @throws CsvHandlerException  if the input is invalid, unreadable, or a row cannot be bound
+     * @throws JsonHandlerException if the output cannot be written or serialization fails
+     */
+    @Override
+    public <T> long convertToJson(InputStream in, OutputStream out, Class<T> type, boolean jsonLines)
+            throws CsvHandlerException, JsonHandlerException {
+        return metered("-", "-", () -> {
+            if (out == null) {
+                throw new JsonHandlerException("The destination cannot be null.");
+            }
+            try (Stream<T> rows = csvHandler.readCsv(ConversionMeter.meterInput(in), type)) {
+                OutputStream buffered = new BufferedOutputStream(
+                        ConversionMeter.meterOutput(out), CsvJacksonHandler.DEFAULT_BUFFER_SIZE);
+                long records = jsonLines
+                        ? jsonHandler.writeJsonLines(ConversionMeter.meterRecords(rows.iterator()), type, buffered)
+                        : jsonHandler.writeJsonArray(ConversionMeter.meterRecords(rows.iterator()), type, buffered);
+                buffered.flush();
+                return records;
+            } catch (IOException e) {
+                throw jsonHandler.handleException(e);
+            }
+        });
+    }
+
+    /**
+     * Converts arbitrary JSON into CSV with columns discovered by {@link JsonFlattener}. A full scan
+     * parses the file twice: once to find the columns, once to write the rows.
+     *
+     * @param jsonFilename path to the JSON file ({@code .json}, {@code .jsonl} or {@code .ndjson})
+     * @param csvFilename  base filename (the implementation appends {@code .csv})
+     * @param options      sampling and flattening settings (non-null)
+     * @return number of rows written, excluding the header
+     * @throws JsonHandlerException if the input is invalid or unreadable, a record is not an object,
+     *                              or a column appears after the sample and late columns are not ignored
+     * @throws CsvHandlerException  if the CSV file cannot be written
+     */
+    @Override
+    public long convertFlattened(String jsonFilename, String csvFilename, FlattenOptions options)
+            throws JsonHandlerException, CsvHandlerException {
+        return convertFlattened(jsonFilename, csvFilename, options, RowQuery.all());
+    }
+
+    /**
+     * Converts arbitrary JSON into CSV through a query. Selected columns are fixed up front, so
+     * the file is parsed once even for a full scan.
+     *
+     * @param jsonFilename path to the JSON file ({@code .json}, {@code .jsonl} or {@code .ndjson})
+     * @param csvFilename  base filename (the implementation appends {@code .csv})
+     * @param options      sampling and flattening settings (non-null)
+     * @param query        selected columns and row predicates (non-null)
+     * @return number of rows written, excluding the header
+     * @throws JsonHandlerException if the input is invalid or unreadable, a record is not an object,
+     *                              or a column appears after the sample and late columns are not ignored
+     * @throws CsvHandlerException  if the CSV file cannot be written
+     */
+    @Override
+    public long convertFlattened(String jsonFilename, String csvFilename, FlattenOptions options, RowQuery query)
+            throws JsonHandlerException, CsvHandlerException {
+        return metered(jsonFilename, csvFilename, () -> {
+            validateOptions(options);
+            validateQuery(query);
+            File input = jsonHandler.validateJsonLinesInput(jsonFilename);
+            Path csvPath = csvHandler.csvPath(csvFilename);
+            JsonFlattener flattener = new JsonFlattener(options, query, jsonHandler.jsonFactory());
+
+            try {
+                if (options.isFullScan() && !query.isProjected()) {
+                    try (JsonParser parser = jsonHandler.openParser(input)) {
+                        flattener.discover(parser);
+                    }
+                }
+                try (JsonParser parser = jsonHandler.openParser(input);
+                     OutputStream out = csvHandler.openOutput(csvPath)) {
+                    return flattener.convert(parser, out);
+                }
+            } catch (IOException e) {
+                throw flattenException(e);
+            }
+        });
+    }
+
+    /**
+     * Streams arbitrary JSON from {@code in} into CSV on {@code out}, sampling the first records
+     * for the header.
+     *
+     * @param in      UTF-8 encoded JSON source (non-null)
+     * @param out     destination of the CSV rows (non-null)
+     * @param options sampling and flattening settings (non-null, not a full scan)
+     * @return number of rows written, excluding the header
+     * @throws JsonHandlerException if the input is invalid or unreadable, a record is not an object,
+     *                              a column appears after the sample, or a full scan is requested
+     * @throws CsvHandlerException  if the output cannot be written
+     */
+    @Override
+    public long convertFlattened(InputStream in, OutputStream out, FlattenOptions options)
+            throws JsonHandlerException, CsvHandlerException {
+        return convertFlattened(in, out, options, RowQuery.all());
+    }
+
+    /**
+     * Streams arbitrary JSON from {@code in} into CSV on {@code out} through a query.
+     *
+     * @param in      UTF-8 encoded JSON source (non-null)
+     * @param out     destination of the CSV rows (non-null)
+     * @param options sampling and flattening settings (non-null)
+     * @param query   selected columns and row predicates (non-null)
+     * @return number of rows written, excluding the header
+     * @throws JsonHandlerException if the input is invalid or unreadable, a record is not an object,
+     *                              a column appears after the sample, or a full scan is requested
+     *                              without selected columns
+     * @throws CsvHandlerException  if the output cannot be written
+     */
+    @Override
+    public long convertFlattened(InputStream in, OutputStream out, FlattenOptions options, RowQuery query)
+            throws JsonHandlerException, CsvHandlerException {
+        return metered("-", "-", () -> {
+            validateOptions(options);
+            validateQuery(query);
+            if (options.isFullScan() && !query.isProjected()) {
+                throw new JsonHandlerException("A full scan needs a file input; use a sample size for streams");
+            }
+            if (out == null) {
+                throw new CsvHandlerException("The destination cannot be null.");
+            }
+            try (JsonParser parser = jsonHandler.openParser(ConversionMeter.meterInput(in))) {
+                return new JsonFlattener(options, query, jsonHandler.jsonFactory())
+                        .convert(parser, ConversionMeter.meterOutput(out));
+            } catch (IOException e) {
+                throw flattenException(e);
+            }
+        });
+    }
+
+    /**
+     * Shuts down the fork-join pool if this converter created it; the common pool is left alone.
+     */
+    @Override
+    public void close() {
+        if (ownsPool) {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Runs a conversion under a fresh meter and reports it to the listener. Without a listener, or
+     * inside a conversion that is already metered, the conversion just runs.
+     */
+    private long metered(String source, String target, LongSupplier conversion) {
+        return metered(source, target, conversion::getAsLong, Long::longValue);
+    }
+
+    private <R> R metered(String source, String target, Supplier<R> conversion, ToLongFunction<R> records) {
+        return ConversionMeter.run(listener, source, target, conversion, records);
+    }
+
+    private <T> long writeQueried(JsonContent<T> content, Class<T> type, RowQuery query, OutputStream out) {
+        return query.isProjected()
+                ? csvHandler.writeRows(ConversionMeter.meterRecords(content.iterator()), type, query.columns(), out)
+                : csvHandler.writeRows(ConversionMeter.meterRecords(content.iterator()), type, out, true);
+    }
+
+    private RuntimeException flattenException(IOException e) {
+        // parse errors belong to the JSON side; anything else failed while writing the CSV
+        return e instanceof JsonProcessingException ? jsonHandler.handleException(e) : csvHandler.handleException(e);
+    }
+
+    private void validateQuery(RowQuery query) {
+        if (query == null) {
+            throw new JsonHandlerException("The parameter 'query' cannot be null.");
+        }
+    }
+
+    private <T> void validateType(Class<T> type) {
+        if (type == null) {
+            throw new JsonHandlerException("The parameter 'type' cannot be null.");
+        }
+    }
+
+    private void validatePipeline(PipelineOptions options) {
+        if (options == null) {
+            throw new JsonHandlerException("The parameter 'options' cannot be null.");
+        }
+    }
+
+    private void validateSort(SortOptions options) {
+        if (options == null) {
+            throw new JsonHandlerException("The parameter 'options' cannot be null.");
+        }
+    }
+
+    private void validateOptions(FlattenOptions options) {
+        if (options == null) {
+            throw new JsonHandlerException("The parameter 'options' cannot be null.");
+        }
+    }
+}
@@ -0,0 +1,393 @@
+package org.digitalnao.jared.trujillo.handlers;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import org.digitalnao.jared.trujillo.classes.FieldPredicate;
+import org.digitalnao.jared.trujillo.classes.FlattenOptions;
+import org.digitalnao.jared.trujillo.classes.RowQuery;
+import org.digitalnao.jared.trujillo.exceptions.JsonHandlerException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Schema-less JSON to CSV conversion: columns are discovered from the records themselves and
+ * values are read token by token, with no target class and no {@code JsonNode} tree per record.
+ *
+ * Column paths are kept in a tree keyed by field name, so a known field costs one map lookup on
+ * the parser's canonical name rather than building its dotted path again. The header is fixed
+ * after the sample (or after a {@link #discover} pass over the whole input); later records are
+ * streamed straight to the {@link CsvRowEncoder}.
+ *
+ * With a projected {@link RowQuery} the tree holds only the selected and tested paths, fixed up
+ * front: every other field is passed over with {@link JsonParser#skipChildren()}. Records failing
+ * a predicate are dropped before they are buffered or written.
+ *
+ * Instances keep the discovered columns and are meant for one conversion.
+ */
+final class JsonFlattener {
+
+    private final FlattenOptions options;
+    private final RowQuery query;
+    private final JsonFactory factory;
+    private final boolean skipUnknown;
+    private final Node root = new Node(null);
+    private final List<String> columns = new ArrayList<>();
+    private final Map<String, Integer> columnIndex = new HashMap<>();
+    private final int[] predicateColumns;
+    private String[] values = new String[16];
+    private boolean frozen;
+    private JsonRecords records;
+
+    /**
+     * @param options sampling and array settings
+     * @param query   projection and row filter; {@link RowQuery#all()} keeps everything
+     * @param factory factory used to render nested values of joined arrays as JSON
+     */
+    JsonFlattener(FlattenOptions options, RowQuery query, JsonFactory factory) {
+        this.options = options;
+        this.query = query;
+        this.factory = factory;
+        this.skipUnknown = query.isProjected() || options.ignoreLateColumns();
+        this.predicateColumns = new int[query.predicates().size()];
+        Arrays.fill(predicateColumns, -1);
+        if (query.isProjected()) {
+            query.fields().forEach(this::register);
+            frozen = true;
+        }
+    }
+
+    /**
+     * Reads every record once to discover all columns, then fixes the header. Values are not kept.
+     * Does nothing for a projected query, whose columns are known up front.
+     *
+     * @param parser parser at the start of the input
+     * @throws IOException if the input is malformed or unreadable
+     */
+    void discover(JsonParser parser) throws IOException {
+        if (frozen) {
+            return;
+        }
+        records = new JsonRecords(parser);
+        while (records.next()) {
+            readObject(parser, root, false);
+        }
+        frozen = true;
+    }
+
+    /**
+     * Writes the header and one row per accepted record. Unless the columns are already fixed, the
+     * first {@code sampleSize} accepted records are buffered to discover the columns first.
+     *
+     * @param parser parser at the start of the input
+     * @param out    destination, flushed but not closed
+     * @return number of rows written, excluding the header
+     * @throws IOException if the input is malformed or the output cannot be written
+     */
+    long convert(JsonParser parser, OutputStream out) throws IOException {
+        try (CsvRowEncoder encoder = CsvRowEncoder.open(out)) {
+            if (frozen) {
+                writeHeader(encoder);
+            }
+            List<String[]> sample = new ArrayList<>();
+            records = new JsonRecords(parser);
+            long rows = 0;
+            while (records.next()) {
+                Arrays.fill(values, 0, columns.size(), null);
+                readObject(parser, root, true);
+                if (!accepted()) {
+                    continue;
+                }
+                rows++;
+                if (frozen) {
+                    writeRow(encoder, values);
+                    continue;
+                }
+                sample.add(Arrays.copyOf(values, columns.size()));
+                if (sample.size() == options.sampleSize()) {
+                    writeSample(encoder, sample);
+                }
+            }
+            if (!frozen) {
+                writeSample(encoder, sample);
+            }
+            return rows;
+        }
+    }
+
+    private void register(String path) {
+        Node node = root;
+        for (String segment : path.split("\\.", -1)) {
+            Node next = node.field(segment);
+            if (next == null) {
+                next = node.addField(segment);
+                if (isIndex(segment)) {
+                    // "tags.0" may be an indexed array element or a field named "0"
+                    node.setElement(Integer.parseInt(segment), next);
+                }
+            }
+            node = next;
+        }
+        if (node.column < 0) {
+            addColumn(node);
+        }
+    }
+
+    private boolean accepted() {
+        List<FieldPredicate> predicates = query.predicates();
+        for (int i = 0; i < predicateColumns.length; i++) {
+            int column = predicateColumns[i];
+            if (column < 0) {
+                column = predicateColumns[i] = columnIndex.getOrDefault(predicates.get(i).field(), -1);
+            }
+            if (!predicates.get(i).test(column < 0 ? null : values[column])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void writeSample(CsvRowEncoder encoder, List<String[]> sample) throws IOException {
+        frozen = true;
+        writeHeader(encoder);
+        for (String[] row : sample) {
+            writeRow(encoder, row);
+        }
+        sample.clear();
+    }
+
+    private void writeHeader(CsvRowEncoder encoder) throws IOException {
+        int output = outputColumns();
+        if (output > 0) {
+            encoder.writeHeader(columns.subList(0, output));
+        }
+    }
+
+    private void writeRow(CsvRowEncoder encoder, String[] row) throws IOException {
+        // predicate-only fields sit after the selected columns and are not written
+        int count = outputColumns();
+        for (int i = 0; i < count; i++) {
+            encoder.writeString(i < row.length ? row[i] : null);
+        }
+        encoder.endRow();
+    }
+
+    private int outputColumns() {
+        return query.isProjected() ? query.columns().size() : columns.size();
+    }
+
+    private void readObject(JsonParser parser, Node node, boolean keep) throws IOException {
+        for (JsonToken token = parser.nextToken(); token == JsonToken.FIELD_NAME; token = parser.nextToken()) {
+            String name = parser.currentName();
+            JsonToken value = parser.nextToken();
+            Node child = node.field(name);
+            if (child == null) {
+                if (!frozen) {
+                    child = node.addField(name);
+                } else if (skipUnknown) {
+                    parser.skipChildren();
+                    continue;
+                } else {
+                    child = node.detached(name);
+                }
+            }
+            readValue(parser, child, value, keep);
+        }
+    }
+
+    private void readArray(JsonParser parser, Node node, boolean keep) throws IOException {
+        int index = 0;
+        for (JsonToken token = parser.nextToken(); token != JsonToken.END_ARRAY; token = parser.nextToken(), index++) {
+            Node child = node.element(index);
+            if (child == null) {
+                if (!frozen) {
+                    child = node.addElement(index);
+                } else if (skipUnknown) {
+                    parser.skipChildren();
+                    continue;
+                } else {
+                    child = node.detached(Integer.toString(index));
+                }
+            }
+            readValue(parser, child, token, keep);
+        }
+    }
+
+    private void readValue(JsonParser parser, Node node, JsonToken token, boolean keep) throws IOException {
+        switch (token) {
+            case START_OBJECT:
+            case START_ARRAY:
+                if (query.isProjected() && node.column >= 0) {
+                    // a selected path holding an object or array keeps it as compact JSON
+                    if (node.isLeaf()) {
+                        set(node, keep ? json(parser) : skip(parser));
+                    } else {
+                        this.readSelectedContainer(parser, node, token, keep);
+                    }
+                } else if (token == JsonToken.START_OBJECT) {
+                    readObject(parser, node, keep);
+                } else if (options.arrays() == FlattenOptions.ArrayMode.JOINED) {
+                    set(node, keep ? joined(parser) : skip(parser));
+                } else {
+                    readArray(parser, node, keep);
+                }
+                break;
+            case VALUE_NULL:
+                set(node, null);
+                break;
+            default:
+                set(node, keep ? parser.getText() : null);
+                break;
+        }
+    }
+
+    /** A selected container whose children are selected or tested too: buffered, written, then walked. */
+    private void readSelectedContainer(JsonParser parser, Node node, JsonToken token, boolean keep) throws IOException {
+        TokenBuffer buffer = new TokenBuffer(parser);
+        buffer.copyCurrentStructure(parser);
+        try (JsonParser copy = buffer.asParser()) {
+            copy.nextToken();
+            set(node, keep ? json(copy) : null);
+        }
+        try (JsonParser copy = buffer.asParser()) {
+            copy.nextToken();
+            if (token == JsonToken.START_OBJECT) {
+                readObject(copy, node, keep);
+            } else {
+                readArray(copy, node, keep);
+            }
+        }
+    }
+
+    private String joined(JsonParser parser) throws IOException {
+        StringBuilder text = new StringBuilder();
+        boolean first = true;
+        for (JsonToken token = parser.nextToken(); token != JsonToken.END_ARRAY; token = parser.nextToken()) {
+            if (!first) {
+                text.append(options.arraySeparator());
+            }
+            first = false;
+            if (token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY) {
+                text.append(json(parser));
+            } else if (token != JsonToken.VALUE_NULL) {
+                text.append(parser.getText());
+            }
+        }
+        return text.toString();
+    }
+
+    private String json(JsonParser parser) throws IOException {
+        StringWriter json = new StringWriter();
+        try (JsonGenerator generator = factory.createGenerator(json)) {
+            generator.copyCurrentStructure(parser);
+        }
+        return json.toString();
+    }
+
+    private String skip(JsonParser parser) throws IOException {
+        parser.skipChildren();
+        return null;
+    }
+
+    private void set(Node node, String value) {
+        if (node.column < 0) {
+            if (!frozen) {
+                addColumn(node);
+            } else if (skipUnknown) {
+                return;
+            } else {
+                throw new JsonHandlerException("Column '" + node.path + "' first appears in record " + records.record()
+                        + ", after the sampled records; raise the sample size or use a full scan");
+            }
+        }
+        values[node.column] = value;
+    }
+
+    private void addColumn(Node node) {
+        node.column = columns.size();
+        columns.add(node.path);
+        columnIndex.putIfAbsent(node.path, node.column);
+        if (node.column == values.length) {
+            values = Arrays.copyOf(values, values.length * 2);
+        }
+    }
+
+    private static boolean isIndex(String segment) {
+        if (segment.isEmpty() || segment.length() > 9) {
+            return false;
+        }
+        for (int i = 0; i < segment.length(); i++) {
+            if (segment.charAt(i) < '0' || segment.charAt(i) > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * One step of a column path. Leaves own a column; inner nodes only route to their children.
+     * Once the header is fixed, unknown children are either skipped or created detached, so
+     * unexpected keys do not grow the tree.
+     */
+    private static final class Node {
+
+        final String path;
+        int column = -1;
+        private Map<String, Node> fields;
+        private List<Node> elements;
+
+        Node(String path) {
+            this.path = path;
+        }
+
+        Node field(String name) {
+            return fields == null ? null : fields.get(name);
+        }
+
+        Node element(int index) {
+            return elements == null || index >= elements.size() ? null : elements.get(index);
+        }
+
+        boolean isLeaf() {
+            return fields == null && elements == null;
+        }
+
+        Node detached(String segment) {
+            return new Node(path == null ? segment : path + "." + segment);
+        }
+
+        Node addField(String name) {
+            Node child = detached(name);
+            if (fields == null) {
+                fields = new HashMap<>();
+            }
+            fields.put(name, child);
+            return child;
+        }
+
+        Node addElement(int index) {
+            Node child = detached(Integer.toString(index));
+            setElement(index, child);
+            return child;
+        }
+
+        void setElement(int index, Node child) {
+            if (elements == null) {
+                elements = new ArrayList<>();
+            }
+            while (elements.size() <= index) {
+                elements.add(null);
+            }
+            elements.set(index, child);
+        }
+    }
+}
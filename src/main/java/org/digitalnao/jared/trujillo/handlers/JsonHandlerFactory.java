@@ -1,5 +1,7 @@
 package org.digitalnao.jared.trujillo.handlers;
 
+import org.digitalnao.jared.trujillo.classes.InputMode;
+import org.digitalnao.jared.trujillo.interfaces.ConversionListener;
 import org.digitalnao.jared.trujillo.interfaces.JsonHandler;
 
 /**
@@ -13,10 +15,41 @@ public final class JsonHandlerFactory {
 
     /**
      * Creates a default JSON handler backed by Jackson.
+     * The handler is thread-safe and may be shared across threads.
      *
      * @return a new {@link JsonHandler} instance
      */
     public static JsonHandler createJsonHandler() {
         return new JsonJacksonHandler();
     }
+
+    /**
+     * Creates a JSON handler that reads files with the given default input mode.
+     * With {@link InputMode#AUTO}, files of at least {@code mappedThreshold} bytes are memory-mapped
+     * and smaller files are read through streams. Methods taking an {@link InputMode} override the default.
+     *
+     * @param inputMode       default input mode (non-null)
+     * @param mappedThreshold minimum file size in bytes mapped in {@link InputMode#AUTO} (non-negative)
+     * @return a new {@link JsonHandler} instance
+     * @throws IllegalArgumentException if {@code inputMode} is null or {@code mappedThreshold} is negative
+     */
+    public static JsonHandler createJsonHandler(InputMode inputMode, long mappedThreshold) {
+        return new JsonJacksonHandler(JacksonTypeCache.shared(), inputMode, mappedThreshold);
+    }
+
+    /**
+     * Creates a JSON handler that measures every eager read and write, such as {@code fromJson},
+     * {@code fromJsonList} and {@code writeJsonLines}, and reports its metrics to {@code listener}.
+     * Lazy reads returning a {@code JsonContent} are not measured.
+     *
+     * @param listener receiver of the metrics of each call (non-null)
+     * @return a new {@link JsonHandler} instance
+     * @throws IllegalArgumentException if {@code listener} is null
+     */
+    public static JsonHandler createJsonHandler(ConversionListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("The listener cannot be null");
+        }
+        return new MeteredJsonHandler(new JsonJacksonHandler(), listener);
+    }
 }
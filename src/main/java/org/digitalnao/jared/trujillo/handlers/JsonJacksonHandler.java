@@ -1,24 +1,90 @@
 package org.digitalnao.jared.trujillo.handlers;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.type.CollectionType;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import org.digitalnao.jared.trujillo.classes.Compression;
+import org.digitalnao.jared.trujillo.classes.FieldPredicate;
+import org.digitalnao.jared.trujillo.classes.InputMode;
+import org.digitalnao.jared.trujillo.classes.JsonContent;
+import org.digitalnao.jared.trujillo.classes.RowQuery;
 import org.digitalnao.jared.trujillo.exceptions.JsonHandlerException;
 import org.digitalnao.jared.trujillo.interfaces.JsonHandler;
 
+import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.stream.Stream;
 
 /**
- * JSON reader backed by Jackson with input validation and consistent exception mapping.
+ * JSON reader and writer backed by Jackson with input validation and consistent exception mapping.
+ * Instances hold no per-call state and are safe to share across threads.
  */
 final class JsonJacksonHandler implements JsonHandler {
 
-    private final ObjectMapper mapper = new ObjectMapper();
+    static final long DEFAULT_MAPPED_THRESHOLD = 64L * 1024 * 1024;
+
+    private final JacksonTypeCache cache;
+    private final ObjectMapper mapper;
+    private final InputMode inputMode;
+    private final long mappedThreshold;
+
+    /**
+     * Creates a handler backed by the shared {@link JacksonTypeCache} that reads files through streams.
+     */
+    JsonJacksonHandler() {
+        this(JacksonTypeCache.shared());
+    }
+
+    JsonJacksonHandler(JacksonTypeCache cache) {
+        this(cache, InputMode.STANDARD, DEFAULT_MAPPED_THRESHOLD);
+    }
+
+    /**
+     * Creates a handler with an explicit default input mode.
+     *
+     * @param cache           cache of prebuilt readers and writers
+     * @param inputMode       mode used by methods without an explicit {@link InputMode}
+     * @param mappedThreshold minimum file size in bytes that {@link InputMode#AUTO} memory-maps
+     */
+    JsonJacksonHandler(JacksonTypeCache cache, InputMode inputMode, long mappedThreshold) {
+        if (inputMode == null) {
+            throw new IllegalArgumentException("The input mode cannot be null");
+        }
+        if (mappedThreshold < 0) {
+            throw new IllegalArgumentException("The mapped threshold cannot be negative: " + mappedThreshold);
+        }
+        this.cache = cache;
+        this.mapper = cache.jsonMapper();
+        this.inputMode = inputMode;
+        this.mappedThreshold = mappedThreshold;
+    }
 
     /**
      * Reads a JSON object from a file into the given type.
@@ -35,8 +101,8 @@ final class JsonJacksonHandler implements JsonHandler {
         this.validateFilename(filename);
         this.validateType(type);
         File file = this.validateFileInput(filename);
-        try {
-            return mapper.readValue(file, type);
+        try (JsonParser parser = this.openParser(file, inputMode)) {
+            return cache.jsonReader(type).readValue(parser);
         } catch (Exception e) {
             throw this.handleException(e);
         }
@@ -57,8 +123,8 @@ final class JsonJacksonHandler implements JsonHandler {
     public <T> T fromJson(String filename, TypeReference<T> typeRef) throws JsonHandlerException {
         this.validateTypeReference(typeRef);
         File file = this.validateFileInput(filename);
-        try {
-            return mapper.readValue(file, typeRef);
+        try (JsonParser parser = this.openParser(file, inputMode)) {
+            return mapper.readValue(parser, typeRef);
         } catch (Exception e) {
             throw this.handleException(e);
         }
@@ -76,29 +142,577 @@ final class JsonJacksonHandler implements JsonHandler {
      */
     @Override
     public <T> List<T> fromJsonList(String filename, Class<T> type) throws JsonHandlerException {
+        return this.fromJsonList(filename, type, inputMode);
+    }
+
+    /**
+     * Reads a JSON array from a file into a {@code List<T>} using the given input mode.
+     *
+     * @param <T>      element type
+     * @param filename path to the JSON file (expects {@code .json})
+     * @param type     element class (non-null)
+     * @param mode     how the file is read (non-null)
+     * @return list of deserialized elements
+     * @throws JsonHandlerException if the filename is invalid, the file is missing/unreadable/empty,
+     *                              or content is not an array / mapping fails
+     */
+    @Override
+    public <T> List<T> fromJsonList(String filename, Class<T> type, InputMode mode) throws JsonHandlerException {
         this.validateType(type);
+        this.validateInputMode(mode);
         File file = this.validateFileInput(filename);
+        try (JsonParser parser = this.openParser(file, mode)) {
+            return cache.jsonListReader(type).readValue(parser);
+        } catch (Exception e) {
+            throw this.handleException(e);
+        }
+    }
+
+    /**
+     * Reads a JSON file whose root may be an object or an array in a single pass.
+     * Only the first token is inspected to detect the root kind; values are then
+     * deserialized lazily from the same parser.
+     *
+     * @param <T>      value type
+     * @param filename path to the JSON file (expects {@code .json})
+     * @param type     value class (non-null)
+     * @return open content over the root object or the array elements; must be closed
+     * @throws JsonHandlerException if the filename is invalid, the file is missing/unreadable/empty,
+     *                              or the root is neither an object nor an array
+     */
+    @Override
+    public <T> JsonContent<T> readJson(String filename, Class<T> type) throws JsonHandlerException {
+        return this.readJson(filename, type, inputMode);
+    }
+
+    /**
+     * Reads a JSON file whose root may be an object or an array, using the given input mode.
+     *
+     * @param <T>      value type
+     * @param filename path to the JSON file (expects {@code .json})
+     * @param type     value class (non-null)
+     * @param mode     how the file is read (non-null)
+     * @return open content over the root object or the array elements; must be closed
+     * @throws JsonHandlerException if the filename is invalid, the file is missing/unreadable/empty,
+     *                              or the root is neither an object nor an array
+     */
+    @Override
+    public <T> JsonContent<T> readJson(String filename, Class<T> type, InputMode mode) throws JsonHandlerException {
+        this.validateFilename(filename);
+        this.validateType(type);
+        this.validateInputMode(mode);
+        File file = this.validateFileInput(filename);
+
+        JsonParser parser = null;
+        try {
+            parser = this.openParser(file, mode);
+            boolean array = this.isArrayRoot(parser.nextToken(), filename);
+            if (array) {
+                // the iterator must start from the first element, not from the array itself
+                parser.clearCurrentToken();
+            }
+            MappingIterator<T> values = cache.jsonReader(type).readValues(parser);
+            return new JsonContent<>(array, new HandlerIterator<>(values), parser);
+        } catch (Exception e) {
+            this.closeQuietly(parser);
+            throw this.handleException(e);
+        }
+    }
+
+    /**
+     * Reads the records of a JSON file through a query: unselected top-level fields are skipped
+     * with {@link JsonParser#skipChildren()} and filtered records are never bound.
+     *
+     * @param <T>      value type
+     * @param filename path to the file (expects {@code .json}, {@code .jsonl} or {@code .ndjson})
+     * @param type     value class (non-null)
+     * @param query    projection and row filter (non-null)
+     * @return open content over the matching records; must be closed
+     * @throws JsonHandlerException if the filename is invalid, the file is missing/unreadable/empty,
+     *                              a predicate field is not a top-level property of {@code type},
+     *                              a record is not an object, or parsing/mapping fails while iterating
+     */
+    @Override
+    public <T> JsonContent<T> readRecords(String filename, Class<T> type, RowQuery query) throws JsonHandlerException {
+        this.validateJsonLinesFilename(filename);
+        this.validateType(type);
+        this.validateQuery(type, query);
+        File file = this.validateFileInput(filename);
+
+        JsonParser parser = null;
         try {
-            CollectionType listType = mapper.getTypeFactory().constructCollectionType(List.class, type);
-            return mapper.readValue(file, listType);
+            parser = this.openParser(file);
+            return this.readQuery(parser, type, query);
         } catch (Exception e) {
+            this.closeQuietly(parser);
             throw this.handleException(e);
         }
     }
 
+    /**
+     * Checks whether the root of a JSON file is an array by reading only its first token.
+     *
+     * @param filename path to the JSON file (expects {@code .json})
+     * @return {@code true} if the root is an array, {@code false} if it is an object
+     * @throws JsonHandlerException if the file is invalid or the root is neither an object nor an array
+     */
     @Override
     public boolean isJsonArray(String filename) {
         this.validateFilename(filename);
+        File file = this.validateFileInput(filename);
 
-        try {
-            JsonNode jsonNode = this.mapper.readTree(new File(filename));
-            return jsonNode.isArray();
+        try (JsonParser parser = this.openParser(file, inputMode)) {
+            return this.isArrayRoot(parser.nextToken(), filename);
         } catch(Exception e) {
             throw this.handleException(e);
         }
     }
 
-    private JsonHandlerException handleException(Exception e) {
+    /**
+     * Reads a JSON Lines (newline-delimited JSON) file lazily, one value per line.
+     * Blank lines are skipped.
+     *
+     * @param <T>      value type
+     * @param filename path to the file (expects {@code .jsonl}, {@code .ndjson} or {@code .json})
+     * @param type     value class (non-null)
+     * @return open content over the values of the file; must be closed
+     * @throws JsonHandlerException if the filename is invalid, the file is missing/unreadable/empty,
+     *                              or the reader cannot be created
+     */
+    @Override
+    public <T> JsonContent<T> readJsonLines(String filename, Class<T> type) throws JsonHandlerException {
+        this.validateType(type);
+        File file = this.validateJsonLinesInput(filename);
+
+        JsonParser parser = null;
+        try {
+            parser = this.openParser(file, inputMode);
+            MappingIterator<T> values = cache.jsonReader(type).readValues(parser);
+            return new JsonContent<>(false, new HandlerIterator<>(values), parser);
+        } catch (Exception e) {
+            this.closeQuietly(parser);
+            throw this.handleException(e);
+        }
+    }
+
+    /**
+     * Writes values to a JSON Lines file, one compact JSON document per line.
+     * Values are pulled lazily, so only one value is held in memory at a time.
+     *
+     * @param <T>      value type
+     * @param values   values to write (non-null)
+     * @param type     class used to serialize the values (non-null)
+     * @param filename path to the file (expects {@code .jsonl}, {@code .ndjson} or {@code .json})
+     * @return number of lines written
+     * @throws JsonHandlerException if arguments are invalid, serialization fails, or an I/O error occurs
+     */
+    @Override
+    public <T> long writeJsonLines(Iterator<T> values, Class<T> type, String filename) throws JsonHandlerException {
+        this.validateJsonLinesFilename(filename);
+        this.validateType(type);
+        this.validateValues(values);
+
+        try (OutputStream out = this.openOutput(filename)) {
+            return this.writeJsonLines(values, type, out);
+        } catch (IOException e) {
+            throw new JsonHandlerException("Could not write JSON file: " + filename, e);
+        }
+    }
+
+    /**
+     * Writes a stream of values to a JSON Lines file, one compact JSON document per line.
+     * The stream is consumed lazily and closed afterwards.
+     *
+     * @param <T>      value type
+     * @param values   values to write (non-null)
+     * @param type     class used to serialize the values (non-null)
+     * @param filename path to the file (expects {@code .jsonl}, {@code .ndjson} or {@code .json})
+     * @return number of lines written
+     * @throws JsonHandlerException if arguments are invalid, serialization fails, or an I/O error occurs
+     */
+    @Override
+    public <T> long writeJsonLines(Stream<T> values, Class<T> type, String filename) throws JsonHandlerException {
+        this.validateValues(values);
+        try (values) {
+            return this.writeJsonLines(values.iterator(), type, filename);
+        }
+    }
+
+    /**
+     * Writes values to a JSON file as a single root array. Values are pulled lazily,
+     * so only one value is held in memory at a time.
+     *
+     * @param <T>      value type
+     * @param values   values to write (non-null)
+     * @param type     class used to serialize the values (non-null)
+     * @param filename path to the file (expects {@code .json})
+     * @return number of array elements written
+     * @throws JsonHandlerException if arguments are invalid, serialization fails, or an I/O error occurs
+     */
+    @Override
+    public <T> long writeJsonArray(Iterator<T> values, Class<T> type, String filename) throws JsonHandlerException {
+        this.validateFilename(filename);
+        this.validateType(type);
+        this.validateValues(values);
+
+        try (OutputStream out = this.openOutput(filename)) {
+            return this.writeJsonArray(values, type, out);
+        } catch (IOException e) {
+            throw new JsonHandlerException("Could not write JSON file: " + filename, e);
+        }
+    }
+
+    /**
+     * Writes a stream of values to a JSON file as a single root array.
+     * The stream is consumed lazily and closed afterwards.
+     *
+     * @param <T>      value type
+     * @param values   values to write (non-null)
+     * @param type     class used to serialize the values (non-null)
+     * @param filename path to the file (expects {@code .json})
+     * @return number of array elements written
+     * @throws JsonHandlerException if arguments are invalid, serialization fails, or an I/O error occurs
+     */
+    @Override
+    public <T> long writeJsonArray(Stream<T> values, Class<T> type, String filename) throws JsonHandlerException {
+        this.validateValues(values);
+        try (values) {
+            return this.writeJsonArray(values.iterator(), type, filename);
+        }
+    }
+
+    /**
+     * Writes values to a stream, one compact JSON document per line. The stream is flushed but not closed.
+     *
+     * @param <T>    value type
+     * @param values values to write, pulled lazily
+     * @param type   class used to serialize the values (non-null)
+     * @param out    destination stream
+     * @return number of lines written
+     * @throws JsonHandlerException if serialization fails or an I/O error occurs
+     */
+    <T> long writeJsonLines(Iterator<T> values, Class<T> type, OutputStream out) throws JsonHandlerException {
+        ObjectWriter writer = cache.jsonWriter(type);
+        long lines = 0;
+        try (JsonGenerator generator = mapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            while (values.hasNext()) {
+                writer.writeValue(generator, values.next());
+                generator.writeRaw('\n');
+                lines++;
+            }
+        } catch (JsonProcessingException e) {
+            throw new JsonHandlerException("Could not serialize value to JSON ", e);
+        } catch (IOException e) {
+            throw new JsonHandlerException("Could not write JSON output", e);
+        }
+        return lines;
+    }
+
+    /**
+     * Writes values to a stream as a single root array. The stream is flushed but not closed.
+     *
+     * @param <T>    value type
+     * @param values values to write, pulled lazily
+     * @param type   class used to serialize the values (non-null)
+     * @param out    destination stream
+     * @return number of array elements written
+     * @throws JsonHandlerException if serialization fails or an I/O error occurs
+     */
+    <T> long writeJsonArray(Iterator<T> values, Class<T> type, OutputStream out) throws JsonHandlerException {
+        long elements = 0;
+        try (SequenceWriter array = cache.jsonWriter(type)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .writeValuesAsArray(out)) {
+            while (values.hasNext()) {
+                array.write(values.next());
+                elements++;
+            }
+        } catch (JsonProcessingException e) {
+            throw new JsonHandlerException("Could not serialize value to JSON ", e);
+        } catch (IOException e) {
+            throw new JsonHandlerException("Could not write JSON output", e);
+        }
+        return elements;
+    }
+
+    /**
+     * Opens a lazy reader over a JSON stream. A root array is unwrapped into its elements;
+     * otherwise every root value is read in turn, so a single object and JSON Lines are both accepted.
+     * Closing the content does not close {@code in}.
+     *
+     * @param <T>  value type
+     * @param in   UTF-8 encoded JSON source
+     * @param type value class (non-null)
+     * @return open content over the values of the stream; must be closed
+     * @throws JsonHandlerException if the stream cannot be read or does not start with a JSON value
+     */
+    <T> JsonContent<T> readJson(InputStream in, Class<T> type) throws JsonHandlerException {
+        this.validateType(type);
+        this.validateValues(in);
+
+        JsonParser parser = null;
+        try {
+            parser = this.openParser(in);
+            JsonToken first = parser.nextToken();
+            if (first == null) {
+                throw new JsonHandlerException("The JSON input is empty");
+            }
+            boolean array = first == JsonToken.START_ARRAY;
+            if (array) {
+                parser.clearCurrentToken();
+            }
+            MappingIterator<T> values = cache.jsonReader(type).readValues(parser);
+            return new JsonContent<>(array, new HandlerIterator<>(values), parser);
+        } catch (Exception e) {
+            this.closeQuietly(parser);
+            throw this.handleException(e);
+        }
+    }
+
+    /**
+     * Reads the records of a stream through a query, like {@link #readRecords(String, Class, RowQuery)}.
+     * The stream is not closed.
+     *
+     * @param <T>   value type
+     * @param in    UTF-8 encoded JSON source
+     * @param type  value class (non-null)
+     * @param query projection and row filter (non-null)
+     * @return open content over the matching records; must be closed
+     * @throws JsonHandlerException if a predicate field is not a top-level property of {@code type},
+     *                              or the stream cannot be read or is empty
+     */
+    <T> JsonContent<T> readRecords(InputStream in, Class<T> type, RowQuery query) throws JsonHandlerException {
+        this.validateType(type);
+        this.validateQuery(type, query);
+        this.validateValues(in);
+
+        JsonParser parser = null;
+        try {
+            parser = this.openParser(in);
+            return this.readQuery(parser, type, query);
+        } catch (Exception e) {
+            this.closeQuietly(parser);
+            throw this.handleException(e);
+        }
+    }
+
+    /**
+     * Opens a lazy iterator over newline-delimited JSON values held in a byte range.
+     * Blank lines are skipped.
+     *
+     * @param <T>    value type
+     * @param data   UTF-8 encoded JSON Lines content
+     * @param offset first byte of the range
+     * @param length number of bytes in the range
+     * @param type   value class (non-null)
+     * @return iterator over the values of the range
+     * @throws JsonHandlerException if the type is null or the reader cannot be created
+     */
+    <T> Iterator<T> readJsonLines(byte[] data, int offset, int length, Class<T> type) throws JsonHandlerException {
+        this.validateType(type);
+        try {
+            return new HandlerIterator<>(cache.jsonReader(type).readValues(data, offset, length));
+        } catch (Exception e) {
+            throw this.handleException(e);
+        }
+    }
+
+    /**
+     * Opens a lazy iterator over the records of a parser that is on its first token: the elements
+     * of a root array, or a sequence of root values. The caller keeps the parser, e.g. to read the
+     * byte offset reached after a record.
+     *
+     * @param <T>    value type
+     * @param parser parser on the first token of the input
+     * @param type   value class (non-null)
+     * @return iterator over the values; the parser is not closed when it ends
+     * @throws JsonHandlerException if the type is null or the reader cannot be created
+     */
+    <T> Iterator<T> readValues(JsonParser parser, Class<T> type) throws JsonHandlerException {
+        this.validateType(type);
+        try {
+            if (parser.currentToken() == JsonToken.START_ARRAY) {
+                // the iterator must start from the first element, not from the array itself
+                parser.clearCurrentToken();
+            }
+            return new HandlerIterator<>(cache.jsonReader(type).readValues(parser));
+        } catch (Exception e) {
+            throw this.handleException(e);
+        }
+    }
+
+    /**
+     * Opens a lazy iterator binding records that were copied out of a parser, one at a time.
+     *
+     * @param <T>     value type
+     * @param records token copies of the records, each starting on its {@code START_OBJECT}
+     * @param type    value class (non-null)
+     * @return iterator over the bound values
+     * @throws JsonHandlerException if the type is null, or (while iterating) a record cannot be bound
+     */
+    <T> Iterator<T> readBuffered(List<TokenBuffer> records, Class<T> type) throws JsonHandlerException {
+        this.validateType(type);
+        ObjectReader reader = cache.jsonReader(type);
+        Iterator<TokenBuffer> buffers = records.iterator();
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return buffers.hasNext();
+            }
+
+            @Override
+            public T next() {
+                try (JsonParser parser = buffers.next().asParser()) {
+                    return reader.readValue(parser);
+                } catch (Exception e) {
+                    throw handleException(e);
+                }
+            }
+        };
+    }
+
+    /**
+     * Validates a JSON Lines input file name and the file itself.
+     *
+     * @param filename path to the file (expects {@code .jsonl}, {@code .ndjson} or {@code .json})
+     * @return the validated file
+     * @throws JsonHandlerException if the filename is invalid or the file is missing/unreadable/empty
+     */
+    File validateJsonLinesInput(String filename) throws JsonHandlerException {
+        this.validateJsonLinesFilename(filename);
+        return this.validateFileInput(filename);
+    }
+
+    /**
+     * Opens a parser over a validated file, memory-mapping it when the mode asks for it.
+     * Gzip, zstd and LZ4 files are recognized by their magic bytes and decompressed while parsing.
+     * During a metered conversion the file is read through a stream, so its reads can be counted.
+     *
+     * @param file validated input file
+     * @param mode requested input mode; {@link InputMode#AUTO} maps files at or above the threshold
+     * @return parser that closes the underlying file when closed
+     * @throws IOException if the file cannot be opened or mapped
+     */
+    JsonParser openParser(File file, InputMode mode) throws IOException {
+        boolean mapped = mode == InputMode.MEMORY_MAPPED
+                || (mode == InputMode.AUTO && file.length() >= mappedThreshold);
+        Compression compression = CompressedStreams.detect(file.toPath());
+        if (compression != Compression.NONE || ConversionMeter.isActive()) {
+            InputStream raw = mapped
+                    ? new MappedFileInputStream(file.toPath())
+                    : new BufferedInputStream(Files.newInputStream(file.toPath()), 64 * 1024);
+            return mapper.createParser(CompressedStreams.decompress(ConversionMeter.meterInput(raw), compression));
+        }
+        if (mapped) {
+            return mapper.createParser(new MappedFileInputStream(file.toPath()));
+        }
+        return mapper.createParser(file);
+    }
+
+    /**
+     * Opens a validated file as a stream of its uncompressed bytes, for readers that scan the JSON
+     * themselves. The file is mapped or decompressed as {@link #openParser(File, InputMode)} would,
+     * with the handler's default input mode, and its reads are metered during a metered conversion.
+     *
+     * @param file validated input file
+     * @return stream of the JSON bytes; must be closed
+     * @throws IOException if the file cannot be opened or mapped
+     */
+    InputStream openInput(File file) throws IOException {
+        boolean mapped = inputMode == InputMode.MEMORY_MAPPED
+                || (inputMode == InputMode.AUTO && file.length() >= mappedThreshold);
+        Compression compression = CompressedStreams.detect(file.toPath());
+        InputStream raw = mapped ? new MappedFileInputStream(file.toPath()) : Files.newInputStream(file.toPath());
+        if (compression == Compression.NONE) {
+            return ConversionMeter.meterInput(raw);
+        }
+        return CompressedStreams.decompress(ConversionMeter.meterInput(new BufferedInputStream(raw, 64 * 1024)),
+                compression);
+    }
+
+    /**
+     * Opens a parser over a validated file with the handler's default input mode.
+     *
+     * @param file validated input file
+     * @return parser that closes the underlying file when closed
+     * @throws IOException if the file cannot be opened or mapped
+     */
+    JsonParser openParser(File file) throws IOException {
+        return this.openParser(file, inputMode);
+    }
+
+    /**
+     * Opens a parser over a stream that is left open when the parser is closed.
+     * Compressed data is recognized by its magic bytes and decompressed while parsing.
+     *
+     * @param in UTF-8 encoded JSON source
+     * @return parser over {@code in}
+     * @throws IOException if the parser cannot be created
+     */
+    JsonParser openParser(InputStream in) throws IOException {
+        this.validateValues(in);
+        JsonParser parser = mapper.createParser(CompressedStreams.decompress(in));
+        parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+        return parser;
+    }
+
+    /**
+     * Opens a file for writing, compressing it in parallel blocks when its name ends with
+     * {@code .gz}, {@code .zst} or {@code .lz4}.
+     *
+     * @param filename path to the file
+     * @return stream to the file; must be closed
+     * @throws IOException if the file cannot be created
+     */
+    private OutputStream openOutput(String filename) throws IOException {
+        OutputStream out = ConversionMeter.meterOutput(Files.newOutputStream(Path.of(filename)));
+        return CompressedStreams.compress(out, Compression.fromFilename(filename));
+    }
+
+    /** @return the factory of the handler's mapper, for token-level readers and writers */
+    JsonFactory jsonFactory() {
+        return mapper.getFactory();
+    }
+
+    private <T> JsonContent<T> readQuery(JsonParser parser, Class<T> type, RowQuery query) throws IOException {
+        JsonToken first = parser.nextToken();
+        if (first == null) {
+            throw new JsonHandlerException("The JSON input is empty");
+        }
+        QueryIterator<T> values = new QueryIterator<>(parser, cache.jsonReader(type), query);
+        return new JsonContent<>(first == JsonToken.START_ARRAY, values, parser);
+    }
+
+    private boolean isArrayRoot(JsonToken first, String filename) {
+        if (first == JsonToken.START_ARRAY) {
+            return true;
+        }
+        if (first == JsonToken.START_OBJECT) {
+            return false;
+        }
+        throw new JsonHandlerException("The root of the JSON file must be an object or an array: " + filename);
+    }
+
+    private void closeQuietly(JsonParser parser) {
+        if (parser == null) {
+            return;
+        }
+        try {
+            parser.close();
+        } catch (IOException ignored) {
+            // already failing; the original exception is more relevant
+        }
+    }
+
+    JsonHandlerException handleException(Exception e) {
+        if (e instanceof JsonHandlerException) {
+            return (JsonHandlerException) e;
+        }
+        if (e instanceof RuntimeJsonMappingException && e.getCause() instanceof Exception) {
+            return this.handleException((Exception) e.getCause());
+        }
         if (e instanceof JsonParseException) {
             return new JsonHandlerException("Malformed JSON ", e);
         }
@@ -115,17 +729,63 @@ final class JsonJacksonHandler implements JsonHandler {
         if (filename == null || filename.isBlank()) {
             throw new JsonHandlerException("The filename cannot be null neither blank");
         }
-        if (!filename.toLowerCase().endsWith(".json")) {
+        if (!Compression.stripExtension(filename).toLowerCase(Locale.ROOT).endsWith(".json")) {
             throw new JsonHandlerException("The filename needs to have the extension .json: " + filename);
         }
     }
 
+    private void validateJsonLinesFilename(String filename) {
+        if (filename == null || filename.isBlank()) {
+            throw new JsonHandlerException("The filename cannot be null neither blank");
+        }
+        String lower = Compression.stripExtension(filename).toLowerCase(Locale.ROOT);
+        if (!lower.endsWith(".jsonl") && !lower.endsWith(".ndjson") && !lower.endsWith(".json")) {
+            throw new JsonHandlerException("The filename needs to have the extension .jsonl, .ndjson or .json: " + filename);
+        }
+    }
+
+    private void validateValues(Object values) {
+        if (values == null) {
+            throw new JsonHandlerException("The values to write cannot be null.");
+        }
+    }
+
     private <T> void validateType(Class<T> type) {
         if (type == null) {
             throw new JsonHandlerException("The parameter 'type' cannot be null.");
         }
     }
 
+    private void validateInputMode(InputMode mode) {
+        if (mode == null) {
+            throw new JsonHandlerException("The parameter 'mode' cannot be null.");
+        }
+    }
+
+    /**
+     * Predicates are matched against top-level field names while records stream by, so a field the
+     * type does not have, such as a dotted path, would never be captured and would drop every row.
+     */
+    private void validateQuery(Class<?> type, RowQuery query) {
+        if (query == null) {
+            throw new JsonHandlerException("The parameter 'query' cannot be null.");
+        }
+        JavaType javaType = mapper.constructType(type);
+        if (!query.isFiltered() || javaType.isContainerType() || JsonNode.class.isAssignableFrom(type)) {
+            return;
+        }
+        List<String> properties = mapper.getDeserializationConfig().introspect(javaType).findProperties().stream()
+                .map(BeanPropertyDefinition::getName)
+                .toList();
+        for (FieldPredicate predicate : query.predicates()) {
+            if (!properties.contains(predicate.field())) {
+                throw new JsonHandlerException("Predicate field '" + predicate.field()
+                        + "' is not a top-level property of " + type.getSimpleName() + "; expected one of " + properties
+                        + (predicate.field().contains(".") ? " (nested fields need a flattened conversion)" : ""));
+            }
+        }
+    }
+
     private <T> void validateTypeReference(TypeReference<T> typeRef) {
         if (typeRef == null) {
             throw new JsonHandlerException("The parameter 'typeRef' cannot be null.");
@@ -148,4 +808,125 @@ final class JsonJacksonHandler implements JsonHandler {
         }
         return file;
     }
+
+    /**
+     * Iterator adapter that maps Jackson's unchecked read failures to {@link JsonHandlerException}.
+     */
+    private final class HandlerIterator<T> implements Iterator<T> {
+
+        private final MappingIterator<T> values;
+
+        HandlerIterator(MappingIterator<T> values) {
+            this.values = values;
+        }
+
+        @Override
+        public boolean hasNext() {
+            try {
+                return values.hasNextValue();
+            } catch (Exception e) {
+                throw handleException(e);
+            }
+        }
+
+        @Override
+        public T next() {
+            try {
+                return values.nextValue();
+            } catch (Exception e) {
+                throw handleException(e);
+            }
+        }
+    }
+
+    /**
+     * Iterator over the records that pass a {@link RowQuery}. Each record is copied into a
+     * {@link TokenBuffer} holding only its selected fields, while the text of tested fields is
+     * captured on the way; the buffer is bound to the target type only if every predicate holds.
+     */
+    private final class QueryIterator<T> implements Iterator<T> {
+
+        private final JsonParser parser;
+        private final JsonRecords records;
+        private final ObjectReader reader;
+        private final Set<String> selected;
+        private final List<FieldPredicate> predicates;
+        private final String[] tested;
+        private T next;
+        private boolean ready;
+
+        QueryIterator(JsonParser parser, ObjectReader reader, RowQuery query) {
+            this.parser = parser;
+            this.records = new JsonRecords(parser);
+            this.reader = reader;
+            this.selected = query.isProjected() ? new HashSet<>(query.columns()) : null;
+            this.predicates = query.predicates();
+            this.tested = new String[predicates.size()];
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (!ready) {
+                try {
+                    next = this.advance();
+                } catch (Exception e) {
+                    throw handleException(e);
+                }
+                ready = true;
+            }
+            return next != null;
+        }
+
+        @Override
+        public T next() {
+            if (!this.hasNext()) {
+                throw new NoSuchElementException();
+            }
+            ready = false;
+            return next;
+        }
+
+        private T advance() throws IOException {
+            while (records.next()) {
+                Arrays.fill(tested, null);
+                TokenBuffer buffer = new TokenBuffer(parser);
+                buffer.writeStartObject();
+                for (JsonToken token = parser.nextToken(); token == JsonToken.FIELD_NAME; token = parser.nextToken()) {
+                    String name = parser.currentName();
+                    JsonToken value = parser.nextToken();
+                    if (value.isScalarValue() && value != JsonToken.VALUE_NULL) {
+                        this.capture(name);
+                    }
+                    if (selected == null || selected.contains(name)) {
+                        buffer.writeFieldName(name);
+                        buffer.copyCurrentStructure(parser);
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+                buffer.writeEndObject();
+                if (this.accepted()) {
+                    return reader.readValue(buffer.asParser());
+                }
+            }
+            return null;
+        }
+
+        private void capture(String name) throws IOException {
+            for (int i = 0; i < tested.length; i++) {
+                if (predicates.get(i).field().equals(name)) {
+                    tested[i] = parser.getText();
+                }
+            }
+        }
+
+        private boolean accepted() {
+            for (int i = 0; i < tested.length; i++) {
+                if (!predicates.get(i).test(tested[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
 }
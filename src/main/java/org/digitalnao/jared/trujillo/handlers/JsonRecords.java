@@ -0,0 +1,64 @@
+package org.digitalnao.jared.trujillo.handlers;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.digitalnao.jared.trujillo.exceptions.JsonHandlerException;
+
+import java.io.IOException;
+
+/**
+ * Walks the records of a JSON input at the token level: the elements of a root array, or a
+ * sequence of root objects (a single object or JSON Lines). Every record must be an object.
+ * The parser may be fresh or already on the first root token.
+ */
+final class JsonRecords {
+
+    private final JsonParser parser;
+    private boolean started;
+    private boolean array;
+    private long record;
+
+    JsonRecords(JsonParser parser) {
+        this.parser = parser;
+    }
+
+    /**
+     * Moves to the next record.
+     *
+     * @return {@code true} with the parser on the record's {@code START_OBJECT}, or {@code false}
+     *         at the end of the input
+     * @throws IOException if the input is malformed or unreadable
+     * @throws JsonHandlerException if the input is empty or a record is not an object
+     */
+    boolean next() throws IOException {
+        JsonToken token = !started && parser.hasCurrentToken() ? parser.currentToken() : parser.nextToken();
+        if (!started) {
+            started = true;
+            if (token == null) {
+                throw new JsonHandlerException("The JSON input is empty");
+            }
+            if (token == JsonToken.START_ARRAY) {
+                array = true;
+                token = parser.nextToken();
+            }
+        }
+        if (token == null || (array && token == JsonToken.END_ARRAY)) {
+            return false;
+        }
+        record++;
+        if (token != JsonToken.START_OBJECT) {
+            throw new JsonHandlerException("Record " + record + " is not a JSON object: " + token);
+        }
+        return true;
+    }
+
+    /** @return whether the records are the elements of a root array; known once {@link #next()} was called */
+    boolean array() {
+        return array;
+    }
+
+    /** @return 1-based number of the current record */
+    long record() {
+        return record;
+    }
+}
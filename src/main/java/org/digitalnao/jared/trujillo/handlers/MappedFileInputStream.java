@@ -0,0 +1,104 @@
+package org.digitalnao.jared.trujillo.handlers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Sequential input stream over a memory-mapped file. A single mapping is limited to 2 GiB, so the
+ * file is mapped lazily as consecutive regions; only the current region is referenced, and earlier
+ * ones are unmapped once collected. Reads copy straight from the page cache into the caller's
+ * buffer without going through a {@code read} system call.
+ *
+ * Not thread-safe; one parser reads one stream.
+ */
+final class MappedFileInputStream extends InputStream {
+
+    static final long DEFAULT_REGION_SIZE = Integer.MAX_VALUE;
+
+    private final FileChannel channel;
+    private final long size;
+    private final long regionSize;
+    private long regionEnd;
+    private MappedByteBuffer region;
+
+    MappedFileInputStream(Path file) throws IOException {
+        this(file, DEFAULT_REGION_SIZE);
+    }
+
+    /**
+     * Opens a file for mapped reading.
+     *
+     * @param file       file to read
+     * @param regionSize maximum bytes mapped at a time (positive, at most {@link #DEFAULT_REGION_SIZE})
+     * @throws IOException if the file cannot be opened
+     */
+    MappedFileInputStream(Path file, long regionSize) throws IOException {
+        if (regionSize <= 0 || regionSize > DEFAULT_REGION_SIZE) {
+            throw new IllegalArgumentException("The region size must be between 1 and 2^31-1: " + regionSize);
+        }
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.size = channel.size();
+        this.regionSize = regionSize;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!ensureRemaining()) {
+            return -1;
+        }
+        return region.get() & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!ensureRemaining()) {
+            return -1;
+        }
+        int n = Math.min(len, region.remaining());
+        region.get(b, off, n);
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = 0;
+        while (skipped < n && ensureRemaining()) {
+            int step = (int) Math.min(n - skipped, region.remaining());
+            region.position(region.position() + step);
+            skipped += step;
+        }
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        long left = size - regionEnd + (region == null ? 0 : region.remaining());
+        return (int) Math.min(left, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public void close() throws IOException {
+        region = null;
+        channel.close();
+    }
+
+    private boolean ensureRemaining() throws IOException {
+        if (region != null && region.hasRemaining()) {
+            return true;
+        }
+        if (regionEnd >= size) {
+            return false;
+        }
+        long length = Math.min(regionSize, size - regionEnd);
+        region = channel.map(FileChannel.MapMode.READ_ONLY, regionEnd, length);
+        regionEnd += length;
+        return true;
+    }
+}
@@ -0,0 +1,107 @@
+package org.digitalnao.jared.trujillo.handlers;
+
+import org.digitalnao.jared.trujillo.exceptions.CsvHandlerException;
+import org.digitalnao.jared.trujillo.interfaces.ConversionListener;
+import org.digitalnao.jared.trujillo.interfaces.CsvHandler;
+
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.stream.Stream;
+
+/**
+ * {@link CsvHandler} that measures every write of a {@link CsvJacksonHandler} with a
+ * {@link ConversionMeter} and reports it to a {@link ConversionListener}, like a converter created
+ * with a listener does. Output to a {@link Writer} is timed as a whole, but its characters are not
+ * counted as bytes. Lazy reads end after the call returns, so they are passed through unmeasured.
+ */
+final class MeteredCsvHandler implements CsvHandler {
+
+    private static final String STREAM = "-";
+
+    private final CsvJacksonHandler handler;
+    private final ConversionListener listener;
+
+    MeteredCsvHandler(CsvJacksonHandler handler, ConversionListener listener) {
+        this.handler = handler;
+        this.listener = listener;
+    }
+
+    @Override
+    public <T> void writeToCsv(T object, Class<T> type, String filename) throws CsvHandlerException {
+        run(filename, () -> handler.writeToCsv(object, type, filename), 1);
+    }
+
+    @Override
+    public <T> void writeToCsv(List<T> object, Class<T> type, String filename) throws CsvHandlerException {
+        run(filename, () -> handler.writeToCsv(object, type, filename), object == null ? 0 : object.size());
+    }
+
+    @Override
+    public <T> void writeToCsv(List<T> list, Class<T> type, OutputStream out) throws CsvHandlerException {
+        run(STREAM, () -> handler.writeToCsv(list, type, ConversionMeter.meterOutput(out)),
+                list == null ? 0 : list.size());
+    }
+
+    @Override
+    public <T> void writeToCsv(List<T> list, Class<T> type, Writer writer) throws CsvHandlerException {
+        run(STREAM, () -> handler.writeToCsv(list, type, writer), list == null ? 0 : list.size());
+    }
+
+    @Override
+    public <T> void writeToCsv(List<T> list, Class<T> type, Path file) throws CsvHandlerException {
+        run(String.valueOf(file), () -> handler.writeToCsv(list, type, file), list == null ? 0 : list.size());
+    }
+
+    @Override
+    public <T> void writeToCsv(List<T> list, Class<T> type, WritableByteChannel channel) throws CsvHandlerException {
+        run(STREAM, () -> handler.writeToCsv(list, type, channel), list == null ? 0 : list.size());
+    }
+
+    @Override
+    public <T> long writeToCsv(Iterator<T> values, Class<T> type, String filename) throws CsvHandlerException {
+        return ConversionMeter.run(listener, STREAM, filename,
+                () -> handler.writeToCsv(ConversionMeter.meterRecords(values), type, filename), Long::longValue);
+    }
+
+    @Override
+    public <T> long writeToCsv(Stream<T> values, Class<T> type, String filename) throws CsvHandlerException {
+        return ConversionMeter.run(listener, STREAM, filename,
+                () -> handler.writeToCsv(values, type, filename), Long::longValue);
+    }
+
+    @Override
+    public <T> long writeToCsv(Spliterator<T> values, Class<T> type, String filename) throws CsvHandlerException {
+        return ConversionMeter.run(listener, STREAM, filename,
+                () -> handler.writeToCsv(values, type, filename), Long::longValue);
+    }
+
+    @Override
+    public <T> long writeToCsv(Iterator<T> values, Class<T> type, OutputStream out) throws CsvHandlerException {
+        return ConversionMeter.run(listener, STREAM, STREAM,
+                () -> handler.writeToCsv(ConversionMeter.meterRecords(values), type, ConversionMeter.meterOutput(out)),
+                Long::longValue);
+    }
+
+    @Override
+    public <T> Stream<T> readCsv(String filename, Class<T> type) throws CsvHandlerException {
+        return handler.readCsv(filename, type);
+    }
+
+    @Override
+    public Stream<Map<String, String>> readCsv(String filename) throws CsvHandlerException {
+        return handler.readCsv(filename);
+    }
+
+    private void run(String target, Runnable write, long records) {
+        ConversionMeter.run(listener, STREAM, target, () -> {
+            write.run();
+            return records;
+        }, Long::longValue);
+    }
+}
@@ -0,0 +1,102 @@
+package org.digitalnao.jared.trujillo.handlers;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import org.digitalnao.jared.trujillo.classes.InputMode;
+import org.digitalnao.jared.trujillo.classes.JsonContent;
+import org.digitalnao.jared.trujillo.classes.RowQuery;
+import org.digitalnao.jared.trujillo.exceptions.JsonHandlerException;
+import org.digitalnao.jared.trujillo.interfaces.ConversionListener;
+import org.digitalnao.jared.trujillo.interfaces.JsonHandler;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * {@link JsonHandler} that measures every eager read and write of a {@link JsonJacksonHandler} with a
+ * {@link ConversionMeter} and reports it to a {@link ConversionListener}, like a converter created
+ * with a listener does. Lazy reads ({@link JsonContent}) end after the call returns, so they are
+ * passed through unmeasured; they are measured only as part of a conversion.
+ */
+final class MeteredJsonHandler implements JsonHandler {
+
+    private static final String STREAM = "-";
+
+    private final JsonJacksonHandler handler;
+    private final ConversionListener listener;
+
+    MeteredJsonHandler(JsonJacksonHandler handler, ConversionListener listener) {
+        this.handler = handler;
+        this.listener = listener;
+    }
+
+    @Override
+    public <T> T fromJson(String filename, Class<T> type) throws JsonHandlerException {
+        return ConversionMeter.run(listener, filename, STREAM, () -> handler.fromJson(filename, type), value -> 1);
+    }
+
+    @Override
+    public <T> List<T> fromJsonList(String filename, Class<T> type) throws JsonHandlerException {
+        return ConversionMeter.run(listener, filename, STREAM, () -> handler.fromJsonList(filename, type), List::size);
+    }
+
+    @Override
+    public <T> List<T> fromJsonList(String filename, Class<T> type, InputMode mode) throws JsonHandlerException {
+        return ConversionMeter.run(listener, filename, STREAM, () -> handler.fromJsonList(filename, type, mode),
+                List::size);
+    }
+
+    @Override
+    public <T> T fromJson(String filename, TypeReference<T> typeRef) throws JsonHandlerException {
+        return ConversionMeter.run(listener, filename, STREAM, () -> handler.fromJson(filename, typeRef), value -> 1);
+    }
+
+    @Override
+    public <T> JsonContent<T> readJson(String filename, Class<T> type) throws JsonHandlerException {
+        return handler.readJson(filename, type);
+    }
+
+    @Override
+    public <T> JsonContent<T> readJson(String filename, Class<T> type, InputMode mode) throws JsonHandlerException {
+        return handler.readJson(filename, type, mode);
+    }
+
+    @Override
+    public <T> JsonContent<T> readRecords(String filename, Class<T> type, RowQuery query) throws JsonHandlerException {
+        return handler.readRecords(filename, type, query);
+    }
+
+    @Override
+    public boolean isJsonArray(String filename) throws JsonHandlerException {
+        return handler.isJsonArray(filename);
+    }
+
+    @Override
+    public <T> JsonContent<T> readJsonLines(String filename, Class<T> type) throws JsonHandlerException {
+        return handler.readJsonLines(filename, type);
+    }
+
+    @Override
+    public <T> long writeJsonLines(Iterator<T> values, Class<T> type, String filename) throws JsonHandlerException {
+        return ConversionMeter.run(listener, STREAM, filename,
+                () -> handler.writeJsonLines(ConversionMeter.meterRecords(values), type, filename), Long::longValue);
+    }
+
+    @Override
+    public <T> long writeJsonLines(Stream<T> values, Class<T> type, String filename) throws JsonHandlerException {
+        return ConversionMeter.run(listener, STREAM, filename,
+                () -> handler.writeJsonLines(values, type, filename), Long::longValue);
+    }
+
+    @Override
+    public <T> long writeJsonArray(Iterator<T> values, Class<T> type, String filename) throws JsonHandlerException {
+        return ConversionMeter.run(listener, STREAM, filename,
+                () -> handler.writeJsonArray(ConversionMeter.meterRecords(values), type, filename), Long::longValue);
+    }
+
+    @Override
+    public <T> long writeJsonArray(Stream<T> values, Class<T> type, String filename) throws JsonHandlerException {
+        return ConversionMeter.run(listener, STREAM, filename,
+                () -> handler.writeJsonArray(values, type, filename), Long::longValue);
+    }
+}
@@ -0,0 +1,659 @@
+package org.digitalnao.jared.trujillo.handlers;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import org.digitalnao.jared.trujillo.exceptions.JsonHandlerException;
+import org.digitalnao.jared.trujillo.interfaces.CsvFieldWriter;
+import org.digitalnao.jared.trujillo.interfaces.RecordStore;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * {@link RecordStore} keeping each of the {@link RecordColumns} of a class in native memory
+ * allocated through the {@code java.lang.foreign} API. Numbers and booleans are stored as primitives
+ * of their column width; text is dictionary-encoded, so each row holds a 4-byte code and every
+ * distinct value is stored once, which suits the repeated values of wide exports (countries,
+ * statuses, domains). Nullable columns carry a bitmap with one bit per row.
+ *
+ * Columns grow in chunks of {@value #CHUNK_ROWS} rows, so appending never copies what is already
+ * stored. Records are captured through the same {@link CsvFieldWriter} calls a generated codec makes
+ * for a CSV row and rebuilt through the JSON mapper of the class, so they round-trip as they would
+ * through a JSON or CSV file.
+ *
+ * The memory is reserved from a shared arena, so a filled store can be read from any thread;
+ * appending is not synchronized.
+ *
+ * @param <T> record type
+ */
+final class OffHeapRecordStore<T> implements RecordStore<T> {
+
+    static final int CHUNK_ROWS = 64 * 1024;
+
+    private static final int CHUNK_SHIFT = 16;
+    private static final int DICTIONARY_DATA_CHUNK = 1024 * 1024;
+    private static final int DICTIONARY_ENTRY_BYTES = 16;
+    private static final int DICTIONARY_INITIAL_SLOTS = 1024;
+
+    private final JacksonTypeCache cache;
+    private final Class<T> type;
+    private final ObjectReader reader;
+    private final RecordColumns<T> columns;
+    private final Arena arena = Arena.ofShared();
+    private final List<Vector> vectors;
+    private final Appender appender = new Appender();
+    private long size;
+    private long capacity;
+    private long allocated;
+    private boolean closed;
+
+    /**
+     * @param cache cache of CSV schemas and mappers
+     * @param type  record class
+     * @throws IllegalArgumentException if a CSV column of {@code type} has no readable property
+     */
+    OffHeapRecordStore(JacksonTypeCache cache, Class<T> type) {
+        this.cache = cache;
+        this.type = type;
+        this.reader = cache.jsonReader(type);
+        this.columns = RecordColumns.of(cache, type);
+        this.vectors = new ArrayList<>(columns.schema().size());
+        for (RecordColumns.Column column : columns.schema()) {
+            vectors.add(switch (column.type()) {
+                case INT32 -> new IntVector(column);
+                case INT64 -> new LongVector(column);
+                case FLOAT32 -> new FloatVector(column);
+                case FLOAT64 -> new DoubleVector(column);
+                case BOOL -> new BooleanVector(column);
+                case UTF8 -> new TextVector(column);
+            });
+        }
+    }
+
+    @Override
+    public void add(T value) {
+        checkOpen();
+        if (value == null) {
+            throw new IllegalArgumentException("The record cannot be null.");
+        }
+        if (size == capacity) {
+            for (Vector vector : vectors) {
+                vector.grow();
+            }
+            capacity += CHUNK_ROWS;
+        }
+        try {
+            columns.write(value, appender);
+        } catch (IOException | RuntimeException e) {
+            // a getter may throw too; the next record reuses the row, so undo the nulls this one marked
+            appender.column = 0;
+            for (Vector vector : vectors) {
+                vector.clearNull(size);
+            }
+            throw new IllegalArgumentException("Record " + size + " cannot be stored: " + e.getMessage(), e);
+        }
+        size++;
+    }
+
+    @Override
+    public long addAll(Iterator<? extends T> values) {
+        if (values == null) {
+            throw new IllegalArgumentException("The source of records cannot be null.");
+        }
+        long count = 0;
+        while (values.hasNext()) {
+            T value = values.next();
+            if (value != null) {
+                add(value);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    @Override
+    public T get(long index) {
+        checkOpen();
+        Objects.checkIndex(index, size);
+        TokenBuffer buffer = new TokenBuffer(cache.jsonMapper(), false);
+        try {
+            buffer.writeStartObject();
+            for (Vector vector : vectors) {
+                buffer.writeFieldName(vector.column.name());
+                if (vector.isNull(index)) {
+                    buffer.writeNull();
+                } else {
+                    vector.read(index, buffer);
+                }
+            }
+            buffer.writeEndObject();
+            try (JsonParser parser = buffer.asParser()) {
+                return reader.readValue(parser);
+            }
+        } catch (IOException e) {
+            throw new JsonHandlerException("Error rebuilding record " + index + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Replays the stored fields of a row as the {@link CsvFieldWriter} calls that captured them, so a
+     * column-oriented output such as an {@link ArrowBatch} is filled without rebuilding the record.
+     *
+     * @param index position in insertion order, from 0 to {@code size() - 1}
+     * @param row   receiver of the fields, followed by {@link CsvFieldWriter#endRow()}
+     * @throws IOException if {@code row} rejects a value
+     */
+    void writeRow(long index, CsvFieldWriter row) throws IOException {
+        checkOpen();
+        Objects.checkIndex(index, size);
+        for (Vector vector : vectors) {
+            if (vector.isNull(index)) {
+                row.writeNull();
+            } else {
+                vector.copy(index, row);
+            }
+        }
+        row.endRow();
+    }
+
+    /** @return record class the columns were derived from */
+    Class<T> type() {
+        return type;
+    }
+
+    /** @return columns of the stored records, in CSV order */
+    List<RecordColumns.Column> schema() {
+        return columns.schema();
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        checkOpen();
+        long end = size;
+        return new Iterator<>() {
+            private long next;
+
+            @Override
+            public boolean hasNext() {
+                return next < end;
+            }
+
+            @Override
+            public T next() {
+                if (next >= end) {
+                    throw new NoSuchElementException();
+                }
+                return get(next++);
+            }
+        };
+    }
+
+    @Override
+    public long offHeapBytes() {
+        long bytes = allocated;
+        for (Vector vector : vectors) {
+            if (vector instanceof TextVector text) {
+                bytes += text.tableBytes();
+            }
+        }
+        return closed ? 0 : bytes;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (Vector vector : vectors) {
+            if (vector instanceof TextVector text) {
+                text.closeTable();
+            }
+        }
+        arena.close();
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("The record store is closed.");
+        }
+    }
+
+    private MemorySegment allocate(long bytes) {
+        MemorySegment segment = arena.allocate(bytes, 8);
+        allocated += bytes;
+        return segment;
+    }
+
+    /** Receives the fields of the row being added, at row {@link #size}. */
+    private final class Appender implements CsvFieldWriter {
+
+        private int column;
+
+        @Override
+        public void writeString(String value) throws IOException {
+            if (value == null) {
+                writeNull();
+            } else {
+                next().putString(size, value);
+            }
+        }
+
+        @Override
+        public void writeInt(int value) throws IOException {
+            next().putLong(size, value);
+        }
+
+        @Override
+        public void writeLong(long value) throws IOException {
+            next().putLong(size, value);
+        }
+
+        @Override
+        public void writeDouble(double value) throws IOException {
+            next().putDouble(size, value);
+        }
+
+        @Override
+        public void writeFloat(float value) throws IOException {
+            next().putDouble(size, value);
+        }
+
+        @Override
+        public void writeBoolean(boolean value) throws IOException {
+            next().putBoolean(size, value);
+        }
+
+        @Override
+        public void writeNull() throws IOException {
+            next().putNull(size);
+        }
+
+        @Override
+        public void endRow() throws IOException {
+            if (column != vectors.size()) {
+                throw new IOException("The row has " + column + " values; expected " + vectors.size());
+            }
+            column = 0;
+        }
+
+        private Vector next() throws IOException {
+            if (column == vectors.size()) {
+                throw new IOException("The row has more than " + vectors.size() + " values");
+            }
+            return vectors.get(column++);
+        }
+    }
+
+    /** Values and null bitmap of one column, one native segment per chunk of rows. */
+    private abstract class Vector {
+
+        final RecordColumns.Column column;
+        private final int width;
+        private final List<MemorySegment> values = new ArrayList<>();
+        private final List<MemorySegment> nulls = new ArrayList<>();
+
+        Vector(RecordColumns.Column column, int width) {
+            this.column = column;
+            this.width = width;
+        }
+
+        void grow() {
+            values.add(allocate((long) CHUNK_ROWS * width));
+            if (column.nullable()) {
+                MemorySegment bitmap = allocate(CHUNK_ROWS / 8);
+                bitmap.fill((byte) 0);
+                nulls.add(bitmap);
+            }
+        }
+
+        /** @return the chunk holding {@code row} */
+        MemorySegment chunk(long row) {
+            return values.get((int) (row >>> CHUNK_SHIFT));
+        }
+
+        /** @return offset of {@code row} within its chunk */
+        long offset(long row) {
+            return (row & (CHUNK_ROWS - 1)) * width;
+        }
+
+        void putNull(long row) throws IOException {
+            if (!column.nullable()) {
+                throw new IOException("Column '" + column.name() + "' cannot be null");
+            }
+            MemorySegment bitmap = nulls.get((int) (row >>> CHUNK_SHIFT));
+            long index = (row & (CHUNK_ROWS - 1)) >>> 3;
+            byte bits = bitmap.get(ValueLayout.JAVA_BYTE, index);
+            bitmap.set(ValueLayout.JAVA_BYTE, index, (byte) (bits | 1 << (row & 7)));
+        }
+
+        void clearNull(long row) {
+            if (column.nullable()) {
+                MemorySegment bitmap = nulls.get((int) (row >>> CHUNK_SHIFT));
+                long index = (row & (CHUNK_ROWS - 1)) >>> 3;
+                byte bits = bitmap.get(ValueLayout.JAVA_BYTE, index);
+                bitmap.set(ValueLayout.JAVA_BYTE, index, (byte) (bits & ~(1 << (row & 7))));
+            }
+        }
+
+        boolean isNull(long row) {
+            if (!column.nullable()) {
+                return false;
+            }
+            MemorySegment bitmap = nulls.get((int) (row >>> CHUNK_SHIFT));
+            byte bits = bitmap.get(ValueLayout.JAVA_BYTE, (row & (CHUNK_ROWS - 1)) >>> 3);
+            return (bits & 1 << (row & 7)) != 0;
+        }
+
+        void putString(long row, String value) throws IOException {
+            throw new IOException("Cannot store text '" + value + "' in " + describe());
+        }
+
+        void putLong(long row, long value) throws IOException {
+            throw new IOException("Cannot store number " + value + " in " + describe());
+        }
+
+        void putDouble(long row, double value) throws IOException {
+            throw new IOException("Cannot store number " + value + " in " + describe());
+        }
+
+        void putBoolean(long row, boolean value) throws IOException {
+            throw new IOException("Cannot store boolean " + value + " in " + describe());
+        }
+
+        /** Writes the non-null value of {@code row} as a JSON token. */
+        abstract void read(long row, JsonGenerator generator) throws IOException;
+
+        /** Writes the non-null value of {@code row} as the field call a codec would make. */
+        abstract void copy(long row, CsvFieldWriter out) throws IOException;
+
+        private String describe() {
+            return column.type() + " column '" + column.name() + "'";
+        }
+    }
+
+    private final class IntVector extends Vector {
+
+        IntVector(RecordColumns.Column column) {
+            super(column, 4);
+        }
+
+        @Override
+        void putLong(long row, long value) throws IOException {
+            if ((int) value != value) {
+                throw new IOException("Number " + value + " does not fit the 32-bit column '" + column.name() + "'");
+            }
+            chunk(row).set(ValueLayout.JAVA_INT, offset(row), (int) value);
+        }
+
+        @Override
+        void read(long row, JsonGenerator generator) throws IOException {
+            generator.writeNumber(chunk(row).get(ValueLayout.JAVA_INT, offset(row)));
+        }
+
+        @Override
+        void copy(long row, CsvFieldWriter out) throws IOException {
+            out.writeInt(chunk(row).get(ValueLayout.JAVA_INT, offset(row)));
+        }
+    }
+
+    private final class LongVector extends Vector {
+
+        LongVector(RecordColumns.Column column) {
+            super(column, 8);
+        }
+
+        @Override
+        void putLong(long row, long value) {
+            chunk(row).set(ValueLayout.JAVA_LONG, offset(row), value);
+        }
+
+        @Override
+        void read(long row, JsonGenerator generator) throws IOException {
+            generator.writeNumber(chunk(row).get(ValueLayout.JAVA_LONG, offset(row)));
+        }
+
+        @Override
+        void copy(long row, CsvFieldWriter out) throws IOException {
+            out.writeLong(chunk(row).get(ValueLayout.JAVA_LONG, offset(row)));
+        }
+    }
+
+    private final class FloatVector extends Vector {
+
+        FloatVector(RecordColumns.Column column) {
+            super(column, 4);
+        }
+
+        @Override
+        void putLong(long row, long value) {
+            chunk(row).set(ValueLayout.JAVA_FLOAT, offset(row), value);
+        }
+
+        @Override
+        void putDouble(long row, double value) {
+            chunk(row).set(ValueLayout.JAVA_FLOAT, offset(row), (float) value);
+        }
+
+        @Override
+        void read(long row, JsonGenerator generator) throws IOException {
+            generator.writeNumber(chunk(row).get(ValueLayout.JAVA_FLOAT, offset(row)));
+        }
+
+        @Override
+        void copy(long row, CsvFieldWriter out) throws IOException {
+            out.writeFloat(chunk(row).get(ValueLayout.JAVA_FLOAT, offset(row)));
+        }
+    }
+
+    private final class DoubleVector extends Vector {
+
+        DoubleVector(RecordColumns.Column column) {
+            super(column, 8);
+        }
+
+        @Override
+        void putLong(long row, long value) {
+            chunk(row).set(ValueLayout.JAVA_DOUBLE, offset(row), value);
+        }
+
+        @Override
+        void putDouble(long row, double value) {
+            chunk(row).set(ValueLayout.JAVA_DOUBLE, offset(row), value);
+        }
+
+        @Override
+        void read(long row, JsonGenerator generator) throws IOException {
+            generator.writeNumber(chunk(row).get(ValueLayout.JAVA_DOUBLE, offset(row)));
+        }
+
+        @Override
+        void copy(long row, CsvFieldWriter out) throws IOException {
+            out.writeDouble(chunk(row).get(ValueLayout.JAVA_DOUBLE, offset(row)));
+        }
+    }
+
+    private final class BooleanVector extends Vector {
+
+        BooleanVector(RecordColumns.Column column) {
+            super(column, 1);
+        }
+
+        @Override
+        void putBoolean(long row, boolean value) {
+            chunk(row).set(ValueLayout.JAVA_BYTE, offset(row), (byte) (value ? 1 : 0));
+        }
+
+        @Override
+        void read(long row, JsonGenerator generator) throws IOException {
+            generator.writeBoolean(chunk(row).get(ValueLayout.JAVA_BYTE, offset(row)) != 0);
+        }
+
+        @Override
+        void copy(long row, CsvFieldWriter out) throws IOException {
+            out.writeBoolean(chunk(row).get(ValueLayout.JAVA_BYTE, offset(row)) != 0);
+        }
+    }
+
+    /**
+     * Text column: each row holds the code of its value in a dictionary kept in native memory. The
+     * UTF-8 bytes of the distinct values are packed into 1 MiB data segments, an entry per code
+     * records where they are (data segment, offset, length) and their hash, and an open-addressing
+     * table of codes finds a value without decoding the stored ones, comparing bytes in place.
+     */
+    private final class TextVector extends Vector {
+
+        private final List<MemorySegment> data = new ArrayList<>();
+        private final List<MemorySegment> entries = new ArrayList<>();
+        private MemorySegment current;
+        private long position;
+        private int count;
+        private Arena tableArena;
+        private MemorySegment table;
+        private int mask;
+
+        TextVector(RecordColumns.Column column) {
+            super(column, 4);
+        }
+
+        @Override
+        void putString(long row, String value) {
+            chunk(row).set(ValueLayout.JAVA_INT, offset(row), encode(value));
+        }
+
+        @Override
+        void read(long row, JsonGenerator generator) throws IOException {
+            generator.writeString(decode(chunk(row).get(ValueLayout.JAVA_INT, offset(row))));
+        }
+
+        @Override
+        void copy(long row, CsvFieldWriter out) throws IOException {
+            out.writeString(decode(chunk(row).get(ValueLayout.JAVA_INT, offset(row))));
+        }
+
+        long tableBytes() {
+            return table == null ? 0 : table.byteSize();
+        }
+
+        void closeTable() {
+            if (tableArena != null) {
+                tableArena.close();
+            }
+        }
+
+        private int encode(String value) {
+            if (table == null) {
+                resize(DICTIONARY_INITIAL_SLOTS);
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            MemorySegment probe = MemorySegment.ofArray(bytes);
+            int hash = hash(value);
+            int slot = hash & mask;
+            int stored;
+            while ((stored = table.get(ValueLayout.JAVA_INT, 4L * slot)) != 0) {
+                int code = stored - 1;
+                if (matches(code, hash, probe)) {
+                    return code;
+                }
+                slot = (slot + 1) & mask;
+            }
+            int code = append(bytes, hash);
+            table.set(ValueLayout.JAVA_INT, 4L * slot, code + 1);
+            if (2L * count > mask + 1L) {
+                resize(2 * (mask + 1));
+            }
+            return code;
+        }
+
+        private String decode(int code) {
+            MemorySegment entry = entry(code);
+            long base = entryOffset(code);
+            MemorySegment segment = data.get(entry.get(ValueLayout.JAVA_INT, base));
+            byte[] bytes = new byte[entry.get(ValueLayout.JAVA_INT, base + 8)];
+            MemorySegment.copy(segment, ValueLayout.JAVA_BYTE, entry.get(ValueLayout.JAVA_INT, base + 4),
+                    bytes, 0, bytes.length);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private boolean matches(int code, int hash, MemorySegment probe) {
+            MemorySegment entry = entry(code);
+            long base = entryOffset(code);
+            int length = entry.get(ValueLayout.JAVA_INT, base + 8);
+            if (entry.get(ValueLayout.JAVA_INT, base + 12) != hash || length != probe.byteSize()) {
+                return false;
+            }
+            MemorySegment segment = data.get(entry.get(ValueLayout.JAVA_INT, base));
+            long start = entry.get(ValueLayout.JAVA_INT, base + 4);
+            return MemorySegment.mismatch(segment, start, start + length, probe, 0, length) == -1;
+        }
+
+        private int append(byte[] bytes, int hash) {
+            if (current == null || position + bytes.length > current.byteSize()) {
+                current = allocate(Math.max(DICTIONARY_DATA_CHUNK, bytes.length));
+                data.add(current);
+                position = 0;
+            }
+            MemorySegment.copy(bytes, 0, current, ValueLayout.JAVA_BYTE, position, bytes.length);
+            int code = count++;
+            if ((code & (CHUNK_ROWS - 1)) == 0) {
+                entries.add(allocate((long) CHUNK_ROWS * DICTIONARY_ENTRY_BYTES));
+            }
+            MemorySegment entry = entry(code);
+            long base = entryOffset(code);
+            entry.set(ValueLayout.JAVA_INT, base, data.size() - 1);
+            entry.set(ValueLayout.JAVA_INT, base + 4, (int) position);
+            entry.set(ValueLayout.JAVA_INT, base + 8, bytes.length);
+            entry.set(ValueLayout.JAVA_INT, base + 12, hash);
+            position += bytes.length;
+            return code;
+        }
+
+        /** Replaces the table with one of {@code slots} slots, rehashing the codes from their entries. */
+        private void resize(int slots) {
+            Arena grown = Arena.ofShared();
+            MemorySegment resized = grown.allocate(4L * slots, 8);
+            resized.fill((byte) 0);
+            int resizedMask = slots - 1;
+            for (int code = 0; code < count; code++) {
+                int slot = entry(code).get(ValueLayout.JAVA_INT, entryOffset(code) + 12) & resizedMask;
+                while (resized.get(ValueLayout.JAVA_INT, 4L * slot) != 0) {
+                    slot = (slot + 1) & resizedMask;
+                }
+                resized.set(ValueLayout.JAVA_INT, 4L * slot, code + 1);
+            }
+            closeTable();
+            tableArena = grown;
+            table = resized;
+            mask = resizedMask;
+        }
+
+        private MemorySegment entry(int code) {
+            return entries.get(code >>> CHUNK_SHIFT);
+        }
+
+        private long entryOffset(int code) {
+            return (long) (code & (CHUNK_ROWS - 1)) * DICTIONARY_ENTRY_BYTES;
+        }
+
+        private int hash(String value) {
+            // spread String.hashCode, whose low bits are weak for short keys
+            int h = value.hashCode() * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package org.digitalnao.jared.trujillo.handlers;
+
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdException;
+import org.apache.commons.compress.compressors.lz4.FramedLZ4CompressorOutputStream;
+import org.digitalnao.jared.trujillo.classes.Compression;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compresses a stream on several threads, pigz-style: the data is cut into fixed-size blocks and
+ * every block becomes an independent gzip member, zstd frame or LZ4 frame. Concatenated members and
+ * frames are valid streams for the standard tools, so no reader needs to know about the blocks.
+ *
+ * Blocks are compressed on the executor and written in order. At most {@code window} blocks are in
+ * flight; the writing thread waits for the oldest one when the window is full, which bounds memory
+ * to roughly {@code 2 * window * blockSize}. {@link #flush()} waits for all pending blocks.
+ *
+ * Not thread-safe; one writer owns the stream.
+ */
+final class ParallelCompressorOutputStream extends OutputStream {
+
+    static final int DEFAULT_BLOCK_SIZE = 1024 * 1024;
+    static final int ZSTD_LEVEL = 3;
+
+    private final OutputStream out;
+    private final Compression compression;
+    private final Executor executor;
+    private final int blockSize;
+    private final int window;
+    private final ArrayDeque<CompletableFuture<byte[]>> pending = new ArrayDeque<>();
+    private byte[] block;
+    private int count;
+    private boolean started;
+    private boolean closed;
+
+    /**
+     * @param out         destination of the compressed blocks; closed by {@link #close()}
+     * @param compression codec of every block (not {@link Compression#NONE})
+     * @param executor    threads compressing the blocks
+     * @param blockSize   uncompressed bytes per block (positive)
+     * @param window      maximum blocks in flight (positive)
+     */
+    ParallelCompressorOutputStream(OutputStream out, Compression compression, Executor executor,
+                                   int blockSize, int window) {
+        if (compression == Compression.NONE) {
+            throw new IllegalArgumentException("A compressed stream needs a codec");
+        }
+        if (blockSize <= 0 || window <= 0) {
+            throw new IllegalArgumentException("The block size and window must be positive");
+        }
+        this.out = out;
+        this.compression = compression;
+        this.executor = executor;
+        this.blockSize = blockSize;
+        this.window = window;
+        this.block = new byte[blockSize];
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureOpen();
+        block[count++] = (byte) b;
+        if (count == blockSize) {
+            submit();
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        ensureOpen();
+        while (len > 0) {
+            int n = Math.min(len, blockSize - count);
+            System.arraycopy(b, off, block, count, n);
+            count += n;
+            off += n;
+            len -= n;
+            if (count == blockSize) {
+                submit();
+            }
+        }
+    }
+
+    /**
+     * Compresses the partial block and writes every pending block. Each flush of a partial block
+     * ends a member, so frequent flushes cost compression ratio.
+     */
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        if (count > 0) {
+            submit();
+        }
+        drain(0);
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            // an empty input still gets one (empty) member, so the output is a valid stream
+            if (count > 0 || !started) {
+                submit();
+            }
+            drain(0);
+        } finally {
+            closed = true;
+            out.close();
+        }
+    }
+
+    private void submit() throws IOException {
+        byte[] data = block;
+        int length = count;
+        block = new byte[blockSize];
+        count = 0;
+        started = true;
+        pending.add(CompletableFuture.supplyAsync(() -> compress(data, length), executor));
+        drain(window);
+    }
+
+    private void drain(int keep) throws IOException {
+        while (pending.size() > keep) {
+            try {
+                out.write(pending.poll().join());
+            } catch (CompletionException e) {
+                pending.forEach(future -> future.cancel(false));
+                pending.clear();
+                if (e.getCause() instanceof UncheckedIOException cause) {
+                    throw cause.getCause();
+                }
+                throw new IOException("Block compression failed", e.getCause());
+            }
+        }
+    }
+
+    private byte[] compress(byte[] data, int length) {
+        try {
+            switch (compression) {
+                case ZSTD:
+                    byte[] frame = new byte[(int) Zstd.compressBound(length)];
+                    long size = zstdSize(Zstd.compressByteArray(frame, 0, frame.length, data, 0, length, ZSTD_LEVEL));
+                    return Arrays.copyOf(frame, (int) size);
+                case LZ4:
+                    ByteArrayOutputStream lz4 = new ByteArrayOutputStream(length / 2 + 64);
+                    try (OutputStream member = new FramedLZ4CompressorOutputStream(lz4)) {
+                        member.write(data, 0, length);
+                    }
+                    return lz4.toByteArray();
+                default:
+                    ByteArrayOutputStream gzip = new ByteArrayOutputStream(length / 3 + 64);
+                    try (OutputStream member = new GZIPOutputStream(gzip, 64 * 1024)) {
+                        member.write(data, 0, length);
+                    }
+                    return gzip.toByteArray();
+            }
+        } catch (ZstdException e) {
+            throw new UncheckedIOException(new IOException("Zstd compression failed: " + e.getMessage(), e));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Older zstd-jni releases return error codes instead of throwing {@link ZstdException}.
+     *
+     * @param code result of a zstd call
+     * @return {@code code}, which is a size
+     * @throws IOException if {@code code} is a zstd error code
+     */
+    static long zstdSize(long code) throws IOException {
+        if (Zstd.isError(code)) {
+            throw new IOException("Zstd compression failed: " + Zstd.getErrorName(code));
+        }
+        return code;
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+    }
+}
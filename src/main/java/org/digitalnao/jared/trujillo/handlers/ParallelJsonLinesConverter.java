@@ -0,0 +1,152 @@
+package org.digitalnao.jared.trujillo.handlers;
+
+import org.digitalnao.jared.trujillo.exceptions.JsonHandlerException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Converts a JSON Lines file to CSV on a fork-join pool. The file is cut into byte ranges that end
+ * on a line break, each range is parsed by {@link JsonJacksonHandler} and rendered by
+ * {@link CsvJacksonHandler} on a worker, and the rendered chunks are written back in file order.
+ *
+ * At most twice the pool parallelism chunks are in flight, so memory stays bounded by
+ * {@code 2 * parallelism * chunkSize} regardless of the file size.
+ */
+final class ParallelJsonLinesConverter {
+
+    static final int DEFAULT_CHUNK_SIZE = 8 * 1024 * 1024;
+    private static final int BOUNDARY_SCAN_SIZE = 8 * 1024;
+
+    private final JsonJacksonHandler jsonHandler;
+    private final CsvJacksonHandler csvHandler;
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+
+    ParallelJsonLinesConverter(JsonJacksonHandler jsonHandler, CsvJacksonHandler csvHandler, ForkJoinPool pool) {
+        this(jsonHandler, csvHandler, pool, DEFAULT_CHUNK_SIZE);
+    }
+
+    ParallelJsonLinesConverter(JsonJacksonHandler jsonHandler, CsvJacksonHandler csvHandler, ForkJoinPool pool,
+                               int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("The chunk size must be positive: " + chunkSize);
+        }
+        this.jsonHandler = jsonHandler;
+        this.csvHandler = csvHandler;
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Converts a validated JSON Lines file, writing the header and every row to {@code out}.
+     *
+     * @param <T>   element type
+     * @param input JSON Lines file
+     * @param out   destination stream; flushed by the caller
+     * @param type  class used to bind elements and derive the CSV schema
+     * @return number of rows written, excluding the header
+     */
+    <T> long convert(Path input, OutputStream out, Class<T> type) {
+        csvHandler.writeRows(Collections.emptyIterator(), type, out, true);
+
+        Deque<ForkJoinTask<Chunk>> pending = new ArrayDeque<>();
+        try (FileChannel channel = FileChannel.open(input, StandardOpenOption.READ)) {
+            long size = channel.size();
+            int window = pool.getParallelism() * 2;
+            long next = 0;
+            long rows = 0;
+
+            while (next < size || !pending.isEmpty()) {
+                while (next < size && pending.size() < window) {
+                    long start = next;
+                    long end = nextBoundary(channel, start, size);
+                    pending.addLast(pool.submit(() -> convertChunk(channel, start, end, type)));
+                    next = end;
+                }
+                Chunk chunk = pending.removeFirst().join();
+                write(chunk, out);
+                rows += chunk.rows();
+            }
+            return rows;
+        } catch (IOException e) {
+            throw jsonHandler.handleException(e);
+        } finally {
+            pending.forEach(task -> task.cancel(true));
+        }
+    }
+
+    private <T> Chunk convertChunk(FileChannel channel, long start, long end, Class<T> type) throws IOException {
+        byte[] data = new byte[(int) (end - start)];
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, start + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of file at byte " + (start + buffer.position()));
+            }
+        }
+
+        try {
+            Iterator<T> values = jsonHandler.readJsonLines(data, 0, data.length, type);
+            ByteArrayOutputStream csv = new ByteArrayOutputStream(data.length);
+            long rows = csvHandler.writeRows(values, type, csv, false);
+            return new Chunk(csv, rows);
+        } catch (JsonHandlerException e) {
+            throw new JsonHandlerException(e.getMessage() + " (in chunk starting at byte " + start + ")", e);
+        }
+    }
+
+    /**
+     * Finds the end of the chunk starting at {@code start}: the byte after the first line break
+     * at or past {@code start + chunkSize}, or the end of the file.
+     */
+    private long nextBoundary(FileChannel channel, long start, long size) throws IOException {
+        long position = start + chunkSize;
+        ByteBuffer buffer = ByteBuffer.allocate(BOUNDARY_SCAN_SIZE);
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return checkChunkLength(start, position + i + 1);
+                }
+            }
+            position += read;
+        }
+        return checkChunkLength(start, size);
+    }
+
+    private long checkChunkLength(long start, long end) {
+        if (end - start > Integer.MAX_VALUE - 8) {
+            throw new JsonHandlerException("A JSON line starting near byte " + start + " is longer than 2 GB");
+        }
+        return end;
+    }
+
+    private void write(Chunk chunk, OutputStream out) {
+        try {
+            chunk.csv().writeTo(out);
+        } catch (IOException e) {
+            throw csvHandler.handleException(e);
+        }
+    }
+
+    /**
+     * Rendered CSV rows of one chunk.
+     */
+    private record Chunk(ByteArrayOutputStream csv, long rows) {
+    }
+}
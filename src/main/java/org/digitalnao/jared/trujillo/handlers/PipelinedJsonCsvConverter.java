@@ -0,0 +1,237 @@
+package org.digitalnao.jared.trujillo.handlers;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import org.digitalnao.jared.trujillo.classes.PipelineOptions;
+import org.digitalnao.jared.trujillo.classes.PipelineResult;
+import org.digitalnao.jared.trujillo.exceptions.CsvHandlerException;
+import org.digitalnao.jared.trujillo.exceptions.JsonHandlerException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Converts JSON to CSV in three overlapping stages, so parsing, binding and serializing, and
+ * writing run at the same time instead of one after another:
+ * <ol>
+ *   <li>a reader thread tokenizes the input and copies each record into a {@link TokenBuffer},
+ *       handing them on in batches;</li>
+ *   <li>worker threads bind the records of a batch through {@link JsonJacksonHandler} and render
+ *       them through {@link CsvJacksonHandler};</li>
+ *   <li>the calling thread writes the rendered batches in input order.</li>
+ * </ol>
+ * Batches travel through two bounded queues: one feeding the workers and one keeping the input
+ * order for the writer. The reader blocks when either is full, which bounds memory to roughly
+ * {@code queueCapacity + workers} batches however fast the input can be read.
+ *
+ * Threads are started per conversion and stopped before it returns, also on failure.
+ */
+final class PipelinedJsonCsvConverter {
+
+    private static final AtomicInteger PIPELINES = new AtomicInteger();
+
+    private final JsonJacksonHandler jsonHandler;
+    private final CsvJacksonHandler csvHandler;
+
+    PipelinedJsonCsvConverter(JsonJacksonHandler jsonHandler, CsvJacksonHandler csvHandler) {
+        this.jsonHandler = jsonHandler;
+        this.csvHandler = csvHandler;
+    }
+
+    /**
+     * Converts the records of a parser, writing the header and every row to {@code out}.
+     *
+     * @param <T>     element type
+     * @param parser  parser at the start of the input; read on the reader thread, closed by the caller
+     * @param out     destination stream; flushed by the caller
+     * @param type    class used to bind elements and derive the CSV schema
+     * @param options workers, batch size and queue capacity
+     * @return rows written and stage statistics
+     * @throws JsonHandlerException if the input is invalid or a record cannot be bound
+     * @throws CsvHandlerException  if the output cannot be written or serialization fails
+     */
+    <T> PipelineResult convert(JsonParser parser, OutputStream out, Class<T> type, PipelineOptions options) {
+        long start = System.nanoTime();
+        csvHandler.writeRows(Collections.emptyIterator(), type, out, true);
+
+        Pipeline<T> pipeline = new Pipeline<>(type, options);
+        int id = PIPELINES.incrementAndGet();
+        ExecutorService threads = Executors.newFixedThreadPool(options.workers() + 1, named("json-csv-pipeline-" + id));
+        try {
+            threads.execute(() -> pipeline.read(parser));
+            for (int i = 0; i < options.workers(); i++) {
+                threads.execute(pipeline::work);
+            }
+            long rows = pipeline.write(out);
+            return new PipelineResult(rows, pipeline.batches, pipeline.peakQueueDepth, pipeline.readerBlockedNanos,
+                    pipeline.writerWaitNanos, System.nanoTime() - start);
+        } finally {
+            // idle workers and a reader blocked on a full queue stop on interrupt; the parser is
+            // closed by the caller only after the reader has let go of it
+            threads.shutdownNow();
+            threads.close();
+        }
+    }
+
+    private static ThreadFactory named(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return task -> {
+            Thread thread = new Thread(task, prefix + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * State of one conversion, shared by its stages.
+     */
+    private final class Pipeline<T> {
+
+        private final Class<T> type;
+        private final int batchSize;
+        private final BlockingQueue<Batch> work;
+        private final BlockingQueue<Batch> ordered;
+
+        // written by the reader, read by the writer once the end marker was taken
+        private long batches;
+        private int peakQueueDepth;
+        private long readerBlockedNanos;
+        private long writerWaitNanos;
+
+        Pipeline(Class<T> type, PipelineOptions options) {
+            this.type = type;
+            this.batchSize = options.batchSize();
+            this.work = new ArrayBlockingQueue<>(options.queueCapacity());
+            this.ordered = new ArrayBlockingQueue<>(options.queueCapacity() + options.workers());
+        }
+
+        /** Reader stage: cuts the input into batches of token copies. */
+        void read(JsonParser parser) {
+            JsonRecords records = new JsonRecords(parser);
+            try {
+                List<TokenBuffer> batch = new ArrayList<>(batchSize);
+                long first = 1;
+                while (records.next()) {
+                    TokenBuffer buffer = new TokenBuffer(parser);
+                    buffer.copyCurrentStructure(parser);
+                    batch.add(buffer);
+                    if (batch.size() == batchSize) {
+                        submit(new Batch(batch, first));
+                        batch = new ArrayList<>(batchSize);
+                        first = records.record() + 1;
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    submit(new Batch(batch, first));
+                }
+                ordered.put(Batch.END);
+            } catch (InterruptedException e) {
+                // the writer gave up; nobody is waiting for the rest
+                Thread.currentThread().interrupt();
+            } catch (IOException | RuntimeException e) {
+                Batch failed = new Batch(List.of(), records.record());
+                failed.result.completeExceptionally(jsonHandler.handleException(e));
+                try {
+                    ordered.put(failed);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        private void submit(Batch batch) throws InterruptedException {
+            long begin = System.nanoTime();
+            ordered.put(batch);
+            work.put(batch);
+            readerBlockedNanos += System.nanoTime() - begin;
+            batches++;
+            peakQueueDepth = Math.max(peakQueueDepth, work.size());
+        }
+
+        /** Worker stage: binds and renders batches until interrupted. */
+        void work() {
+            try {
+                while (true) {
+                    Batch batch = work.take();
+                    try {
+                        ByteArrayOutputStream csv = new ByteArrayOutputStream(batch.records.size() * 64);
+                        long rows = csvHandler.writeRows(jsonHandler.readBuffered(batch.records, type), type, csv, false);
+                        batch.result.complete(new Chunk(csv, rows));
+                    } catch (JsonHandlerException e) {
+                        batch.result.completeExceptionally(new JsonHandlerException(
+                                e.getMessage() + " (in the batch starting at record " + batch.first + ")", e));
+                    } catch (RuntimeException e) {
+                        batch.result.completeExceptionally(e);
+                    }
+                }
+            } catch (InterruptedException e) {
+                // the conversion is over
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        /** Writer stage: writes the rendered batches in input order. */
+        long write(OutputStream out) {
+            long rows = 0;
+            try {
+                while (true) {
+                    long begin = System.nanoTime();
+                    Batch batch = ordered.take();
+                    if (batch == Batch.END) {
+                        writerWaitNanos += System.nanoTime() - begin;
+                        return rows;
+                    }
+                    Chunk chunk = batch.result.join();
+                    writerWaitNanos += System.nanoTime() - begin;
+                    chunk.csv().writeTo(out);
+                    rows += chunk.rows();
+                }
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw new CsvHandlerException("Pipeline stage failed", e.getCause());
+            } catch (IOException e) {
+                throw csvHandler.handleException(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CsvHandlerException("The conversion was interrupted", e);
+            }
+        }
+    }
+
+    /**
+     * Records handed from the reader to a worker, and the CSV the worker renders from them.
+     */
+    private static final class Batch {
+
+        static final Batch END = new Batch(List.of(), 0);
+
+        final List<TokenBuffer> records;
+        final long first;
+        final CompletableFuture<Chunk> result = new CompletableFuture<>();
+
+        Batch(List<TokenBuffer> records, long first) {
+            this.records = records;
+            this.first = first;
+        }
+    }
+
+    /**
+     * Rendered CSV rows of one batch.
+     */
+    private record Chunk(ByteArrayOutputStream csv, long rows) {
+    }
+}
@@ -0,0 +1,157 @@
+package org.digitalnao.jared.trujillo.handlers;
+
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.introspect.AnnotatedMember;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import org.digitalnao.jared.trujillo.interfaces.CsvFieldWriter;
+import org.digitalnao.jared.trujillo.interfaces.ModelCodec;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Typed columns of a model class and a way to hand a record's values to them one by one, shared by
+ * the column-oriented outputs ({@link ArrowBatch}, {@link OffHeapRecordStore}). The columns are the
+ * CSV columns of the class, in the same order, typed after the Java type of each property.
+ *
+ * Records are read with the generated {@link ModelCodec} when there is one, which passes every
+ * {@code int} as an {@code int}; other classes are read through Jackson's bean introspection, where
+ * values arrive boxed.
+ *
+ * @param <T> model type
+ */
+final class RecordColumns<T> {
+
+    /** Types the columns are stored as. */
+    enum ColumnType {
+        INT32, INT64, FLOAT32, FLOAT64, BOOL, UTF8;
+
+        /**
+         * @param type Java type of a property
+         * @return the type its values are stored as; anything that is not a number or a boolean is
+         *         stored as text
+         */
+        static ColumnType of(Class<?> type) {
+            if (type == int.class || type == Integer.class || type == short.class || type == Short.class
+                    || type == byte.class || type == Byte.class) {
+                return INT32;
+            }
+            if (type == long.class || type == Long.class) {
+                return INT64;
+            }
+            if (type == float.class || type == Float.class) {
+                return FLOAT32;
+            }
+            if (type == double.class || type == Double.class) {
+                return FLOAT64;
+            }
+            if (type == boolean.class || type == Boolean.class) {
+                return BOOL;
+            }
+            return UTF8;
+        }
+    }
+
+    /**
+     * A column of the schema.
+     *
+     * @param name     column name
+     * @param type     storage type
+     * @param nullable whether values may be null ({@code false} for primitive properties)
+     */
+    record Column(String name, ColumnType type, boolean nullable) {
+    }
+
+    /** Writes one record as a row, ending the row. */
+    @FunctionalInterface
+    interface RowWriter<T> {
+        void write(T value, CsvFieldWriter row) throws IOException;
+    }
+
+    private final List<Column> schema;
+    private final RowWriter<T> writer;
+
+    private RecordColumns(List<Column> schema, RowWriter<T> writer) {
+        this.schema = schema;
+        this.writer = writer;
+    }
+
+    /**
+     * Derives the columns of a class.
+     *
+     * @param <T>   model type
+     * @param cache cache of CSV schemas and mappers
+     * @param type  model class
+     * @return columns and row writer of the class
+     * @throws IllegalArgumentException if a CSV column has no readable property
+     */
+    static <T> RecordColumns<T> of(JacksonTypeCache cache, Class<T> type) {
+        List<String> names = cache.csvSchema(type).getColumnNames();
+        ObjectMapper mapper = cache.jsonMapper();
+        BeanDescription description = mapper.getSerializationConfig().introspect(mapper.constructType(type));
+        Map<String, AnnotatedMember> accessors = new HashMap<>();
+        for (BeanPropertyDefinition property : description.findProperties()) {
+            if (property.getAccessor() != null) {
+                accessors.put(property.getName(), property.getAccessor());
+            }
+        }
+        List<Column> schema = new ArrayList<>(names.size());
+        List<AnnotatedMember> members = new ArrayList<>(names.size());
+        for (String name : names) {
+            AnnotatedMember member = accessors.get(name);
+            if (member == null) {
+                throw new IllegalArgumentException("Column '" + name + "' of " + type.getSimpleName()
+                        + " has no readable property");
+            }
+            Class<?> raw = member.getRawType();
+            schema.add(new Column(name, ColumnType.of(raw), !raw.isPrimitive()));
+            members.add(member);
+        }
+        ModelCodec<T> codec = GeneratedCodecModule.find(type);
+        return new RecordColumns<>(List.copyOf(schema), codec != null ? codec::writeCsv : reflective(members, schema));
+    }
+
+    /** @return columns in write order */
+    List<Column> schema() {
+        return schema;
+    }
+
+    /**
+     * Writes the values of {@code value} to {@code row}, column by column, and ends the row.
+     *
+     * @param value non-null record
+     * @param row   destination row
+     * @throws IOException if the destination rejects a value
+     */
+    void write(T value, CsvFieldWriter row) throws IOException {
+        writer.write(value, row);
+    }
+
+    private static <T> RowWriter<T> reflective(List<AnnotatedMember> members, List<Column> schema) {
+        for (AnnotatedMember member : members) {
+            member.fixAccess(true);
+        }
+        return (value, row) -> {
+            for (int i = 0; i < members.size(); i++) {
+                Object property = members.get(i).getValue(value);
+                if (property == null) {
+                    row.writeNull();
+                    continue;
+                }
+                switch (schema.get(i).type()) {
+                    case INT32 -> row.writeInt(((Number) property).intValue());
+                    case INT64 -> row.writeLong(((Number) property).longValue());
+                    case FLOAT32 -> row.writeFloat(((Number) property).floatValue());
+                    case FLOAT64 -> row.writeDouble(((Number) property).doubleValue());
+                    case BOOL -> row.writeBoolean((Boolean) property);
+                    case UTF8 -> row.writeString(property.toString());
+                }
+            }
+            row.endRow();
+        };
+    }
+}
@@ -0,0 +1,32 @@
+package org.digitalnao.jared.trujillo.handlers;
+
+import org.digitalnao.jared.trujillo.interfaces.RecordStore;
+
+/**
+ * Factory for creating {@link RecordStore} instances.
+ */
+public final class RecordStoreFactory {
+
+    private RecordStoreFactory() {
+        // utility class; not meant to be instantiated
+    }
+
+    /**
+     * Creates an empty store keeping records of {@code type} in native memory, column by column:
+     * numbers and booleans as primitives, text dictionary-encoded. The columns are the CSV columns
+     * of the class. Close the store to release its memory, which counts against
+     * {@code -XX:MaxDirectMemorySize} while it is held.
+     *
+     * @param <T>  record type
+     * @param type record class (non-null)
+     * @return a new, empty {@link RecordStore}
+     * @throws IllegalArgumentException if {@code type} is null or a CSV column of it has no
+     *                                  readable property
+     */
+    public static <T> RecordStore<T> createOffHeapStore(Class<T> type) {
+        if (type == null) {
+            throw new IllegalArgumentException("The type parameter cannot be null.");
+        }
+        return new OffHeapRecordStore<>(JacksonTypeCache.shared(), type);
+    }
+}
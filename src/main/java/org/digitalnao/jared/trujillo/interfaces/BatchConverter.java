@@ -0,0 +1,40 @@
+package org.digitalnao.jared.trujillo.interfaces;
+
+import org.digitalnao.jared.trujillo.classes.BatchResult;
+import org.digitalnao.jared.trujillo.exceptions.JsonHandlerException;
+
+/**
+ * Contract for converting many JSON files to CSV concurrently.
+ * A failing file never aborts the batch; its error is reported in the result.
+ */
+public interface BatchConverter {
+
+    /**
+     * Converts every {@code .json} file of a directory (not recursive).
+     *
+     * @param <T>             element type
+     * @param directory       directory holding the JSON files
+     * @param outputDirectory directory for the CSV files; created if missing
+     * @param type            class used to bind elements and derive the CSV schema (non-null)
+     * @return per-file results and aggregate throughput
+     * @throws JsonHandlerException if the directory cannot be listed or the type is null
+     */
+    <T> BatchResult convertDirectory(String directory, String outputDirectory, Class<T> type)
+            throws JsonHandlerException;
+
+    /**
+     * Converts the files of a directory whose names match a glob (e.g. {@code users-*.json}).
+     * Each {@code name.json}, {@code name.jsonl} or {@code name.ndjson}, compressed or not, is
+     * written as {@code name.csv} in the output directory.
+     *
+     * @param <T>             element type
+     * @param directory       directory holding the JSON files
+     * @param glob            file name pattern, as accepted by {@link java.nio.file.FileSystem#getPathMatcher}
+     * @param outputDirectory directory for the CSV files; created if missing
+     * @param type            class used to bind elements and derive the CSV schema (non-null)
+     * @return per-file results and aggregate throughput
+     * @throws JsonHandlerException if the directory cannot be listed or the type is null
+     */
+    <T> BatchResult convertMatching(String directory, String glob, String outputDirectory, Class<T> type)
+            throws JsonHandlerException;
+}
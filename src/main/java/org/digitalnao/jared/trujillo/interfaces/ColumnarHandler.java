@@ -0,0 +1,89 @@
+package org.digitalnao.jared.trujillo.interfaces;
+
+import org.digitalnao.jared.trujillo.exceptions.ColumnarHandlerException;
+
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Contract for writing records as Apache Arrow IPC data, column by column, so analytics engines
+ * can load them without parsing text. Records are gathered into record batches of a fixed number of
+ * rows and each batch is written as soon as it is full, so memory is bounded by one batch.
+ */
+public interface ColumnarHandler {
+
+    /**
+     * Writes typed records to an Arrow IPC file, the random-access format readers can memory-map.
+     * Columns follow the CSV columns of {@code type}; {@code int}, {@code long}, {@code float},
+     * {@code double} and {@code boolean} properties (boxed or not) become Arrow numbers and
+     * booleans, anything else becomes UTF-8 text. {@code null} elements are skipped.
+     *
+     * @param <T>      element type
+     * @param values   records to write (non-null)
+     * @param type     class used to derive the columns (non-null)
+     * @param filename base filename (the implementation appends {@code .arrow})
+     * @return number of rows written
+     * @throws ColumnarHandlerException if arguments are invalid, a value does not fit its column,
+     *                                  or an I/O error occurs
+     */
+    <T> long writeArrow(Iterator<T> values, Class<T> type, String filename) throws ColumnarHandlerException;
+
+    /**
+     * Writes typed records to a stream in the Arrow IPC streaming format, with the same columns as
+     * {@link #writeArrow(Iterator, Class, String)}. The stream is flushed but not closed.
+     *
+     * @param <T>    element type
+     * @param values records to write (non-null)
+     * @param type   class used to derive the columns (non-null)
+     * @param out    destination stream (non-null)
+     * @return number of rows written
+     * @throws ColumnarHandlerException if arguments are invalid, a value does not fit its column,
+     *                                  or an I/O error occurs
+     */
+    <T> long writeArrow(Iterator<T> values, Class<T> type, OutputStream out) throws ColumnarHandlerException;
+
+    /**
+     * Writes the records of a {@link RecordStore} to an Arrow IPC file, with the same columns as
+     * {@link #writeArrow(Iterator, Class, String)}. A store of {@code type} created by
+     * {@code RecordStoreFactory} hands its columns to the batches directly, without rebuilding each
+     * record; any other store is read through its iterator.
+     *
+     * @param <T>      element type
+     * @param store    records to write (non-null, open)
+     * @param type     class used to derive the columns (non-null)
+     * @param filename base filename (the implementation appends {@code .arrow})
+     * @return number of rows written
+     * @throws ColumnarHandlerException if arguments are invalid, a value does not fit its column,
+     *                                  or an I/O error occurs
+     * @throws IllegalStateException    if the store is closed
+     */
+    <T> long writeArrow(RecordStore<T> store, Class<T> type, String filename) throws ColumnarHandlerException;
+
+    /**
+     * Writes schema-less rows, such as those of {@link CsvHandler#readCsv(String)}, to an Arrow IPC
+     * file. Every column is nullable UTF-8 text; a column missing from a row is {@code null}.
+     *
+     * @param rows     rows keyed by column name (non-null)
+     * @param columns  columns to write, in order (non-null, non-empty)
+     * @param filename base filename (the implementation appends {@code .arrow})
+     * @return number of rows written
+     * @throws ColumnarHandlerException if arguments are invalid or an I/O error occurs
+     */
+    long writeArrow(Iterator<Map<String, String>> rows, List<String> columns, String filename)
+            throws ColumnarHandlerException;
+
+    /**
+     * Writes schema-less rows to a stream in the Arrow IPC streaming format, with the same columns
+     * as {@link #writeArrow(Iterator, List, String)}. The stream is flushed but not closed.
+     *
+     * @param rows    rows keyed by column name (non-null)
+     * @param columns columns to write, in order (non-null, non-empty)
+     * @param out     destination stream (non-null)
+     * @return number of rows written
+     * @throws ColumnarHandlerException if arguments are invalid or an I/O error occurs
+     */
+    long writeArrow(Iterator<Map<String, String>> rows, List<String> columns, OutputStream out)
+            throws ColumnarHandlerException;
+}
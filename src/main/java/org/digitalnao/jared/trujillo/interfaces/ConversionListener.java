@@ -0,0 +1,36 @@
+package org.digitalnao.jared.trujillo.interfaces;
+
+import org.digitalnao.jared.trujillo.classes.ConversionMetrics;
+
+/**
+ * Receives the metrics of every conversion run by a {@link JsonCsvConverter}, or of every read and
+ * write of a {@link JsonHandler} or {@link CsvHandler} created with a listener. Callbacks run on the
+ * converting thread once the conversion has ended, so they should return quickly; a converter may
+ * run several conversions at once, so implementations must be thread-safe.
+ *
+ * A converter or handler created without a listener does no metering at all.
+ *
+ * Example usage:
+ * JsonCsvConverter converter = JsonCsvConverterFactory.createJsonCsvConverter(4, 64 * 1024,
+ *         metrics -> log.info("{} rows/s", metrics.recordsPerSecond()));
+ */
+@FunctionalInterface
+public interface ConversionListener {
+
+    /**
+     * Called after a conversion finished successfully.
+     *
+     * @param metrics cost of the conversion
+     */
+    void converted(ConversionMetrics metrics);
+
+    /**
+     * Called after a conversion failed, before the exception reaches the caller.
+     *
+     * @param metrics cost of the conversion up to the failure, with {@code records} set to {@code 0}
+     * @param error   the exception about to be thrown
+     */
+    default void failed(ConversionMetrics metrics, RuntimeException error) {
+        // failures are ignored unless the listener asks for them
+    }
+}
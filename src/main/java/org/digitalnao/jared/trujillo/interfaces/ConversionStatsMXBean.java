@@ -0,0 +1,53 @@
+package org.digitalnao.jared.trujillo.interfaces;
+
+/**
+ * JMX view of the conversions run by one converter, cumulative since creation or the last
+ * {@link #reset()}. Visible in JConsole or VisualVM under {@code org.digitalnao.jared.trujillo}.
+ */
+public interface ConversionStatsMXBean {
+
+    /** @return conversions that finished successfully */
+    long getConversions();
+
+    /** @return conversions that failed */
+    long getFailures();
+
+    /** @return records written */
+    long getRecords();
+
+    /** @return bytes read from inputs */
+    long getBytesIn();
+
+    /** @return bytes written to outputs */
+    long getBytesOut();
+
+    /** @return milliseconds spent opening inputs and outputs */
+    long getOpenMillis();
+
+    /** @return milliseconds spent inside input read calls */
+    long getReadMillis();
+
+    /** @return estimated milliseconds spent parsing and binding records */
+    long getBindMillis();
+
+    /** @return estimated milliseconds spent serializing records */
+    long getSerializeMillis();
+
+    /** @return milliseconds spent inside output write calls */
+    long getWriteMillis();
+
+    /** @return wall-clock milliseconds of all conversions */
+    long getTotalMillis();
+
+    /** @return records written per second of conversion time, across all conversions */
+    double getRecordsPerSecond();
+
+    /** @return records written per second by the most recent successful conversion */
+    double getLastRecordsPerSecond();
+
+    /** @return largest single write that reached an output, across all conversions */
+    long getLargestWriteBytes();
+
+    /** Sets every counter back to zero. */
+    void reset();
+}
@@ -0,0 +1,73 @@
+package org.digitalnao.jared.trujillo.interfaces;
+
+import java.io.IOException;
+
+/**
+ * Low-level sink for one CSV row at a time, used by generated {@link ModelCodec}s to write rows
+ * without going through a generic generator. Fields are separated automatically; quoting and
+ * escaping follow the same rules as the Jackson CSV output of the handlers.
+ */
+public interface CsvFieldWriter {
+
+    /**
+     * Writes a text field, quoting it when needed; {@code null} writes an empty field.
+     *
+     * @param value field value
+     * @throws IOException if the destination fails or the value is not valid UTF-16
+     */
+    void writeString(String value) throws IOException;
+
+    /**
+     * Writes the value in decimal.
+     *
+     * @param value field value
+     * @throws IOException if the destination fails
+     */
+    void writeInt(int value) throws IOException;
+
+    /**
+     * Writes the value in decimal.
+     *
+     * @param value field value
+     * @throws IOException if the destination fails
+     */
+    void writeLong(long value) throws IOException;
+
+    /**
+     * Writes the value as {@link Double#toString(double)}.
+     *
+     * @param value field value
+     * @throws IOException if the destination fails
+     */
+    void writeDouble(double value) throws IOException;
+
+    /**
+     * Writes the value as {@link Float#toString(float)}.
+     *
+     * @param value field value
+     * @throws IOException if the destination fails
+     */
+    void writeFloat(float value) throws IOException;
+
+    /**
+     * Writes the value as {@code true} or {@code false}.
+     *
+     * @param value field value
+     * @throws IOException if the destination fails
+     */
+    void writeBoolean(boolean value) throws IOException;
+
+    /**
+     * Writes an empty field, as Jackson does for {@code null}.
+     *
+     * @throws IOException if the destination fails
+     */
+    void writeNull() throws IOException;
+
+    /**
+     * Ends the current row.
+     *
+     * @throws IOException if the destination fails
+     */
+    void endRow() throws IOException;
+}
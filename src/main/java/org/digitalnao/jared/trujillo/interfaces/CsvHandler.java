@@ -2,10 +2,18 @@ package org.digitalnao.jared.trujillo.interfaces;
 
 import org.digitalnao.jared.trujillo.exceptions.CsvHandlerException;
 
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.stream.Stream;
 
 /**
- * Contract for writing objects and lists to CSV files.
+ * Contract for writing objects and lists to CSV files, streams and channels, and for reading them back.
  */
 public interface CsvHandler {
 
@@ -30,4 +38,129 @@ public interface CsvHandler {
      * @throws CsvHandlerException if arguments are invalid, serialization fails, or an I/O error occurs
      */
     <T> void writeToCsv(List<T> object, Class<T> type, String filename) throws CsvHandlerException;
+
+    /**
+     * Writes a list of objects to a stream with a header row, serializing rows straight
+     * into a buffer instead of building a {@code String}. The stream is flushed but not closed.
+     *
+     * @param <T>  element type
+     * @param list non-null, non-empty list of elements to serialize
+     * @param type class used to derive the CSV schema (non-null)
+     * @param out  destination stream (non-null)
+     * @throws CsvHandlerException if arguments are invalid, serialization fails, or an I/O error occurs
+     */
+    <T> void writeToCsv(List<T> list, Class<T> type, OutputStream out) throws CsvHandlerException;
+
+    /**
+     * Writes a list of objects to a character stream with a header row.
+     * The writer is flushed but not closed.
+     *
+     * @param <T>    element type
+     * @param list   non-null, non-empty list of elements to serialize
+     * @param type   class used to derive the CSV schema (non-null)
+     * @param writer destination writer (non-null)
+     * @throws CsvHandlerException if arguments are invalid, serialization fails, or an I/O error occurs
+     */
+    <T> void writeToCsv(List<T> list, Class<T> type, Writer writer) throws CsvHandlerException;
+
+    /**
+     * Writes a list of objects to a file with a header row. The file is created or truncated;
+     * unlike the {@code String} overloads, no extension is appended.
+     *
+     * @param <T>  element type
+     * @param list non-null, non-empty list of elements to serialize
+     * @param type class used to derive the CSV schema (non-null)
+     * @param file destination file (non-null)
+     * @throws CsvHandlerException if arguments are invalid, serialization fails, or an I/O error occurs
+     */
+    <T> void writeToCsv(List<T> list, Class<T> type, Path file) throws CsvHandlerException;
+
+    /**
+     * Writes a list of objects to a byte channel with a header row. The channel is not closed.
+     *
+     * @param <T>     element type
+     * @param list    non-null, non-empty list of elements to serialize
+     * @param type    class used to derive the CSV schema (non-null)
+     * @param channel destination channel (non-null)
+     * @throws CsvHandlerException if arguments are invalid, serialization fails, or an I/O error occurs
+     */
+    <T> void writeToCsv(List<T> list, Class<T> type, WritableByteChannel channel) throws CsvHandlerException;
+
+    /**
+     * Writes values to a CSV file with a header row, pulling them from the iterator one at a time
+     * so the producer and the writer run in constant memory. An empty iterator produces a
+     * header-only file.
+     *
+     * @param <T>      element type
+     * @param values   source of the rows (non-null)
+     * @param type     class used to derive the CSV schema (non-null)
+     * @param filename base filename (the implementation appends {@code .csv})
+     * @return number of rows written, excluding the header
+     * @throws CsvHandlerException if arguments are invalid, serialization fails, or an I/O error occurs
+     */
+    <T> long writeToCsv(Iterator<T> values, Class<T> type, String filename) throws CsvHandlerException;
+
+    /**
+     * Writes the elements of a stream to a CSV file with a header row, consuming the stream lazily
+     * and closing it afterwards. An empty stream produces a header-only file.
+     *
+     * @param <T>      element type
+     * @param values   source of the rows (non-null)
+     * @param type     class used to derive the CSV schema (non-null)
+     * @param filename base filename (the implementation appends {@code .csv})
+     * @return number of rows written, excluding the header
+     * @throws CsvHandlerException if arguments are invalid, serialization fails, or an I/O error occurs
+     */
+    <T> long writeToCsv(Stream<T> values, Class<T> type, String filename) throws CsvHandlerException;
+
+    /**
+     * Writes the elements of a spliterator to a CSV file with a header row, in encounter order.
+     * An empty spliterator produces a header-only file.
+     *
+     * @param <T>      element type
+     * @param values   source of the rows (non-null)
+     * @param type     class used to derive the CSV schema (non-null)
+     * @param filename base filename (the implementation appends {@code .csv})
+     * @return number of rows written, excluding the header
+     * @throws CsvHandlerException if arguments are invalid, serialization fails, or an I/O error occurs
+     */
+    <T> long writeToCsv(Spliterator<T> values, Class<T> type, String filename) throws CsvHandlerException;
+
+    /**
+     * Writes values to a stream with a header row, pulling them from the iterator one at a time.
+     * An empty iterator produces only the header. The stream is flushed but not closed.
+     *
+     * @param <T>    element type
+     * @param values source of the rows (non-null)
+     * @param type   class used to derive the CSV schema (non-null)
+     * @param out    destination stream (non-null)
+     * @return number of rows written, excluding the header
+     * @throws CsvHandlerException if arguments are invalid, serialization fails, or an I/O error occurs
+     */
+    <T> long writeToCsv(Iterator<T> values, Class<T> type, OutputStream out) throws CsvHandlerException;
+
+    /**
+     * Reads a CSV file with a header row lazily, binding each row to {@code type}.
+     * Columns are matched by header name, so their order in the file does not matter.
+     * The file stays open until the returned stream is closed.
+     *
+     * @param <T>      row type
+     * @param filename path to the CSV file (expects {@code .csv})
+     * @param type     class whose properties match the header names (non-null)
+     * @return lazy stream of rows; must be closed
+     * @throws CsvHandlerException if the filename is invalid, the file is missing/unreadable/empty,
+     *                             or a row cannot be bound while iterating
+     */
+    <T> Stream<T> readCsv(String filename, Class<T> type) throws CsvHandlerException;
+
+    /**
+     * Reads a CSV file lazily using only its header row as schema. Each row becomes a map from
+     * header name to cell value, in column order. The file stays open until the stream is closed.
+     *
+     * @param filename path to the CSV file (expects {@code .csv})
+     * @return lazy stream of rows; must be closed
+     * @throws CsvHandlerException if the filename is invalid, the file is missing/unreadable/empty,
+     *                             or a row cannot be parsed while iterating
+     */
+    Stream<Map<String, String>> readCsv(String filename) throws CsvHandlerException;
 }
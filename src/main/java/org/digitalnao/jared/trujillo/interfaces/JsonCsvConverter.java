@@ -0,0 +1,374 @@
+package org.digitalnao.jared.trujillo.interfaces;
+
+import org.digitalnao.jared.trujillo.classes.CheckpointOptions;
+import org.digitalnao.jared.trujillo.classes.FlattenOptions;
+import org.digitalnao.jared.trujillo.classes.IncrementalOptions;
+import org.digitalnao.jared.trujillo.classes.IncrementalResult;
+import org.digitalnao.jared.trujillo.classes.PipelineOptions;
+import org.digitalnao.jared.trujillo.classes.PipelineResult;
+import org.digitalnao.jared.trujillo.classes.RowQuery;
+import org.digitalnao.jared.trujillo.classes.SortOptions;
+import org.digitalnao.jared.trujillo.classes.SortResult;
+import org.digitalnao.jared.trujillo.exceptions.CsvHandlerException;
+import org.digitalnao.jared.trujillo.exceptions.JsonHandlerException;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Contract for converting JSON files to CSV files, and back, without loading the whole input in memory.
+ * A converter created with its own worker pool releases it on {@link #close()}.
+ */
+public interface JsonCsvConverter extends AutoCloseable {
+
+    /**
+     * Streams a JSON file into a CSV file with a header row. A root array is converted
+     * one element at a time; a root object becomes a single row.
+     *
+     * @param <T>          element type
+     * @param jsonFilename path to the JSON file (expects {@code .json})
+     * @param csvFilename  base filename (the implementation appends {@code .csv})
+     * @param type         class used to bind elements and derive the CSV schema (non-null)
+     * @return number of rows written, excluding the header
+     * @throws JsonHandlerException if the JSON file is invalid, unreadable, or mapping fails
+     * @throws CsvHandlerException  if the CSV file cannot be written or serialization fails
+     */
+    <T> long convert(String jsonFilename, String csvFilename, Class<T> type)
+            throws JsonHandlerException, CsvHandlerException;
+
+    /**
+     * Streams a JSON file into a CSV file keeping only the selected columns and the records that
+     * pass every predicate. Unselected fields are skipped while parsing and rejected records are
+     * never bound or written. The input may be a root array, a single object, or JSON Lines.
+     *
+     * @param <T>          element type
+     * @param jsonFilename path to the JSON file ({@code .json}, {@code .jsonl} or {@code .ndjson})
+     * @param csvFilename  base filename (the implementation appends {@code .csv})
+     * @param type         class used to bind elements and derive the CSV schema (non-null)
+     * @param query        selected properties, in output order, and row predicates (non-null)
+     * @return number of rows written, excluding the header
+     * @throws JsonHandlerException if the JSON file is invalid, unreadable, or mapping fails
+     * @throws CsvHandlerException  if a selected column is not a property of {@code type}, or the
+     *                              CSV file cannot be written
+     */
+    <T> long convert(String jsonFilename, String csvFilename, Class<T> type, RowQuery query)
+            throws JsonHandlerException, CsvHandlerException;
+
+    /**
+     * Converts a JSON Lines (newline-delimited JSON) file into a CSV file with a header row.
+     * The file is split at line boundaries into chunks that are parsed and serialized in parallel;
+     * rows are written in the same order as the input lines. Blank lines are skipped.
+     *
+     * @param <T>               element type
+     * @param jsonLinesFilename path to the JSON Lines file (expects {@code .jsonl}, {@code .ndjson} or {@code .json})
+     * @param csvFilename       base filename (the implementation appends {@code .csv})
+     * @param type              class used to bind elements and derive the CSV schema (non-null)
+     * @return number of rows written, excluding the header
+     * @throws JsonHandlerException if the input is invalid, unreadable, or mapping fails
+     * @throws CsvHandlerException  if the CSV file cannot be written or serialization fails
+     */
+    <T> long convertJsonLines(String jsonLinesFilename, String csvFilename, Class<T> type)
+            throws JsonHandlerException, CsvHandlerException;
+
+    /**
+     * Converts a JSON file into a CSV file with a header row through a staged pipeline: one thread
+     * reads and tokenizes, worker threads bind and serialize batches of records, and the calling
+     * thread writes the batches in input order. Parsing, binding and writing overlap, which helps
+     * when no single stage dominates; rows are identical to {@link #convert(String, String, Class)}.
+     * The input may be a root array, a single object, or JSON Lines, and may be compressed.
+     *
+     * @param <T>          element type
+     * @param jsonFilename path to the JSON file ({@code .json}, {@code .jsonl} or {@code .ndjson})
+     * @param csvFilename  base filename (the implementation appends {@code .csv})
+     * @param type         class used to bind elements and derive the CSV schema (non-null)
+     * @param options      workers, batch size and queue capacity (non-null)
+     * @return rows written, with the batch count, peak queue depth and stage waiting times
+     * @throws JsonHandlerException if the JSON file is invalid, unreadable, or mapping fails
+     * @throws CsvHandlerException  if the CSV file cannot be written or serialization fails
+     */
+    <T> PipelineResult convertPipelined(String jsonFilename, String csvFilename, Class<T> type, PipelineOptions options)
+            throws JsonHandlerException, CsvHandlerException;
+
+    /**
+     * Streams JSON from {@code in} into CSV on {@code out} through a staged pipeline, like
+     * {@link #convertPipelined(String, String, Class, PipelineOptions)}. Neither stream is closed;
+     * {@code out} is flushed.
+     *
+     * @param <T>     element type
+     * @param in      UTF-8 encoded JSON source (non-null)
+     * @param out     destination of the CSV rows (non-null)
+     * @param type    class used to bind elements and derive the CSV schema (non-null)
+     * @param options workers, batch size and queue capacity (non-null)
+     * @return rows written, with the batch count, peak queue depth and stage waiting times
+     * @throws JsonHandlerException if the input is invalid, unreadable, or mapping fails
+     * @throws CsvHandlerException  if the output cannot be written or serialization fails
+     */
+    <T> PipelineResult convertPipelined(InputStream in, OutputStream out, Class<T> type, PipelineOptions options)
+            throws JsonHandlerException, CsvHandlerException;
+
+    /**
+     * Converts a JSON file into a CSV file with a header row, saving a checkpoint every
+     * {@link CheckpointOptions#interval()} records in a sidecar next to the output (the CSV path
+     * plus {@link CheckpointOptions#SUFFIX}). If the sidecar exists when the conversion starts, the
+     * output is truncated to the checkpointed length and the input is read from the checkpointed
+     * offset, so a conversion that failed part way carries on instead of starting over. The sidecar
+     * is deleted when the conversion completes; rows are identical to {@link #convert(String, String, Class)}.
+     * The input may be a root array, a single object, or JSON Lines, and may be compressed.
+     *
+     * @param <T>          element type
+     * @param jsonFilename path to the JSON file ({@code .json}, {@code .jsonl} or {@code .ndjson})
+     * @param csvFilename  base filename (the implementation appends {@code .csv})
+     * @param type         class used to bind elements and derive the CSV schema (non-null)
+     * @param options      checkpoint interval and sync policy (non-null)
+     * @return rows in the CSV file, excluding the header and including rows written by earlier runs
+     * @throws JsonHandlerException if the JSON file is invalid, unreadable, or mapping fails
+     * @throws CsvHandlerException  if the CSV file or the checkpoint cannot be written, or the
+     *                              checkpoint belongs to another input or to a longer CSV file
+     */
+    <T> long convertResumable(String jsonFilename, String csvFilename, Class<T> type, CheckpointOptions options)
+            throws JsonHandlerException, CsvHandlerException;
+
+    /**
+     * Converts a JSON file into a CSV file with a header row, its rows sorted by the
+     * {@link SortOptions#keys()} columns and optionally de-duplicated on them. Rows are buffered up
+     * to the memory budget; larger inputs are sorted in runs spilled to the system temporary
+     * directory (or {@link SortOptions#spillDirectory()}) and merged, so the input may be far larger
+     * than the heap. Rows with equal keys keep their input order. The input may be a root array, a
+     * single object, or JSON Lines, and may be compressed.
+     *
+     * @param <T>          element type
+     * @param jsonFilename path to the JSON file ({@code .json}, {@code .jsonl} or {@code .ndjson})
+     * @param csvFilename  base filename (the implementation appends {@code .csv})
+     * @param type         class used to bind elements and derive the CSV schema (non-null)
+     * @param options      sort keys, memory budget, dedup mode and spill directory (non-null)
+     * @return rows written, with the duplicates dropped, runs spilled and merge passes
+     * @throws JsonHandlerException if the JSON file is invalid, unreadable, or mapping fails
+     * @throws CsvHandlerException  if a sort key is not a column of {@code type}, or the CSV file or
+     *                              a run file cannot be written
+     */
+    <T> SortResult convertSorted(String jsonFilename, String csvFilename, Class<T> type, SortOptions options)
+            throws JsonHandlerException, CsvHandlerException;
+
+    /**
+     * Streams JSON from {@code in} into CSV on {@code out} sorted and optionally de-duplicated, like
+     * {@link #convertSorted(String, String, Class, SortOptions)}. No row is written before the whole
+     * input has been read. Neither stream is closed; {@code out} is flushed.
+     *
+     * @param <T>     element type
+     * @param in      UTF-8 encoded JSON source (non-null)
+     * @param out     destination of the CSV rows (non-null)
+     * @param type    class used to bind elements and derive the CSV schema (non-null)
+     * @param options sort keys, memory budget, dedup mode and spill directory (non-null)
+     * @return rows written, with the duplicates dropped, runs spilled and merge passes
+     * @throws JsonHandlerException if the input is invalid, unreadable, or mapping fails
+     * @throws CsvHandlerException  if a sort key is not a column of {@code type}, or the output or a
+     *                              run file cannot be written
+     */
+    <T> SortResult convertSorted(InputStream in, OutputStream out, Class<T> type, SortOptions options)
+            throws JsonHandlerException, CsvHandlerException;
+
+    /**
+     * Converts a JSON file into a CSV file with a header row, like
+     * {@link #convert(String, String, Class)}, reading flat records straight from the JSON bytes
+     * instead of binding them. A class is flat when every CSV column is an {@code int},
+     * {@code long}, {@code double}, {@code boolean} (or wrapper) or {@code String} property with
+     * plain getters and setters. Records of a flat class that hold anything else (a missing or
+     * unknown field, a value Jackson would coerce, a nested value) are bound by Jackson one by one,
+     * and other classes are converted entirely by Jackson, so the CSV is always the one
+     * {@code convert} writes. The input may be a root array, a single object, or JSON Lines, and
+     * may be compressed.
+     *
+     * @param <T>          element type
+     * @param jsonFilename path to the JSON file ({@code .json}, {@code .jsonl} or {@code .ndjson})
+     * @param csvFilename  base filename (the implementation appends {@code .csv})
+     * @param type         class used to derive the CSV schema and bind records that are not flat (non-null)
+     * @return number of rows written, excluding the header
+     * @throws JsonHandlerException if the JSON file is invalid, unreadable, or mapping fails
+     * @throws CsvHandlerException  if the CSV file cannot be written or serialization fails
+     */
+    <T> long convertDirect(String jsonFilename, String csvFilename, Class<T> type)
+            throws JsonHandlerException, CsvHandlerException;
+
+    /**
+     * Streams JSON from {@code in} into CSV on {@code out} like {@link #convert(InputStream, OutputStream, Class)},
+     * reading flat records straight from the JSON bytes; see
+     * {@link #convertDirect(String, String, Class)}. Neither stream is closed; {@code out} is flushed.
+     *
+     * @param <T>  element type
+     * @param in   JSON source (non-null)
+     * @param out  destination of the CSV rows (non-null)
+     * @param type class used to derive the CSV schema and bind records that are not flat (non-null)
+     * @return number of rows written, excluding the header
+     * @throws JsonHandlerException if the input is invalid, unreadable, or mapping fails
+     * @throws CsvHandlerException  if the output cannot be written or serialization fails
+     */
+    <T> long convertDirect(InputStream in, OutputStream out, Class<T> type)
+            throws JsonHandlerException, CsvHandlerException;
+
+    /**
+     * Exports a JSON file into a CSV file with a header row and one row per value of
+     * {@link IncrementalOptions#idField()}, converting only what changed since the last export of
+     * the same input. An index next to the CSV file (the CSV path plus {@link IncrementalOptions#SUFFIX})
+     * records how far the input was read and a content hash per id. The next export reads nothing
+     * if the input was not modified, only the records after the exported part if the input just
+     * grew, and otherwise tokenizes the whole input but binds only new and changed records, copying
+     * the other rows from the previous CSV file. A changed record replaces the row of its id where
+     * it is. The input may be a root array, a single object, or JSON Lines, and may be compressed;
+     * the CSV file may not.
+     *
+     * @param <T>          element type
+     * @param jsonFilename path to the JSON file ({@code .json}, {@code .jsonl} or {@code .ndjson})
+     * @param csvFilename  base filename (the implementation appends {@code .csv})
+     * @param type         class used to bind elements and derive the CSV schema (non-null)
+     * @param options      id field and rescan policy (non-null)
+     * @return how the export was done, with the records added, changed, removed and left unchanged
+     * @throws JsonHandlerException if the JSON file is invalid, unreadable, a record has no id, or mapping fails
+     * @throws CsvHandlerException  if the id field is not a column of {@code type}, the CSV file is
+     *                              compressed, or the CSV file or the index cannot be written
+     */
+    <T> IncrementalResult convertIncremental(String jsonFilename, String csvFilename, Class<T> type,
+                                             IncrementalOptions options)
+            throws JsonHandlerException, CsvHandlerException;
+
+    /**
+     * Streams a CSV file with a header row into JSON, the reverse of {@link #convert}.
+     * Rows are bound to {@code type} by header name and written one at a time: as a root array
+     * when the target ends with {@code .json}, or one document per line for {@code .jsonl}/{@code .ndjson}.
+     *
+     * @param <T>          row type
+     * @param csvFilename  path to the CSV file (expects {@code .csv})
+     * @param jsonFilename path to the JSON file to write ({@code .json}, {@code .jsonl} or {@code .ndjson})
+     * @param type         class whose properties match the header names (non-null)
+     * @return number of records written
+     * @throws CsvHandlerException  if the CSV file is invalid, unreadable, or a row cannot be bound
+     * @throws JsonHandlerException if the JSON file cannot be written or serialization fails
+     */
+    <T> long convertToJson(String csvFilename, String jsonFilename, Class<T> type)
+            throws CsvHandlerException, JsonHandlerException;
+
+    /**
+     * Streams JSON from {@code in} into CSV with a header row on {@code out}. The input may be a root
+     * array, a single root object, or JSON Lines; values are converted one at a time.
+     * Neither stream is closed; {@code out} is flushed.
+     *
+     * @param <T>  element type
+     * @param in   UTF-8 encoded JSON source (non-null)
+     * @param out  destination of the CSV rows (non-null)
+     * @param type class used to bind elements and derive the CSV schema (non-null)
+     * @return number of rows written, excluding the header
+     * @throws JsonHandlerException if the input is invalid, unreadable, or mapping fails
+     * @throws CsvHandlerException  if the output cannot be written or serialization fails
+     */
+    <T> long convert(InputStream in, OutputStream out, Class<T> type)
+            throws JsonHandlerException, CsvHandlerException;
+
+    /**
+     * Streams JSON from {@code in} into CSV on {@code out} through a query, like
+     * {@link #convert(String, String, Class, RowQuery)}. Neither stream is closed; {@code out} is flushed.
+     *
+     * @param <T>   element type
+     * @param in    UTF-8 encoded JSON source (non-null)
+     * @param out   destination of the CSV rows (non-null)
+     * @param type  class used to bind elements and derive the CSV schema (non-null)
+     * @param query selected properties, in output order, and row predicates (non-null)
+     * @return number of rows written, excluding the header
+     * @throws JsonHandlerException if the input is invalid, unreadable, or mapping fails
+     * @throws CsvHandlerException  if a selected column is not a property of {@code type}, or the
+     *                              output cannot be written
+     */
+    <T> long convert(InputStream in, OutputStream out, Class<T> type, RowQuery query)
+            throws JsonHandlerException, CsvHandlerException;
+
+    /**
+     * Streams CSV with a header row from {@code in} into JSON on {@code out}, as a root array
+     * or as one document per line. Neither stream is closed; {@code out} is flushed.
+     *
+     * @param <T>       row type
+     * @param in        UTF-8 encoded CSV source (non-null)
+     * @param out       destination of the JSON documents (non-null)
+     * @param type      class whose properties match the header names (non-null)
+     * @param jsonLines {@code true} for JSON Lines, {@code false} for a root array
+     * @return number of records written
+     * @throws CsvHandlerException  if the input is invalid, unreadable, or a row cannot be bound
+     * @throws JsonHandlerException if the output cannot be written or serialization fails
+     */
+    <T> long convertToJson(InputStream in, OutputStream out, Class<T> type, boolean jsonLines)
+            throws CsvHandlerException, JsonHandlerException;
+
+    /**
+     * Converts arbitrary JSON into CSV without a target class. Columns are discovered from the
+     * records: nested objects become dotted names ({@code address.city}) and arrays become indexed
+     * or joined columns, as set in {@code options}. Records (root array elements, a root object, or
+     * JSON Lines) must be objects; a missing value is written as an empty field.
+     *
+     * @param jsonFilename path to the JSON file ({@code .json}, {@code .jsonl} or {@code .ndjson})
+     * @param csvFilename  base filename (the implementation appends {@code .csv})
+     * @param options      sampling and flattening settings (non-null)
+     * @return number of rows written, excluding the header
+     * @throws JsonHandlerException if the input is invalid or unreadable, a record is not an object,
+     *                              or a column appears after the sample and late columns are not ignored
+     * @throws CsvHandlerException  if the CSV file cannot be written
+     */
+    long convertFlattened(String jsonFilename, String csvFilename, FlattenOptions options)
+            throws JsonHandlerException, CsvHandlerException;
+
+    /**
+     * Converts arbitrary JSON into CSV through a query. Selected columns are dotted paths
+     * ({@code customer.address.city}, {@code tags.0}) written in the given order; when columns are
+     * selected no sampling is needed and every other field is skipped while parsing. A selected path
+     * holding an object or array is written as compact JSON. Predicates test flattened paths too.
+     *
+     * @param jsonFilename path to the JSON file ({@code .json}, {@code .jsonl} or {@code .ndjson})
+     * @param csvFilename  base filename (the implementation appends {@code .csv})
+     * @param options      sampling and flattening settings (non-null)
+     * @param query        selected columns and row predicates (non-null)
+     * @return number of rows written, excluding the header
+     * @throws JsonHandlerException if the input is invalid or unreadable, a record is not an object,
+     *                              or a column appears after the sample and late columns are not ignored
+     * @throws CsvHandlerException  if the CSV file cannot be written
+     */
+    long convertFlattened(String jsonFilename, String csvFilename, FlattenOptions options, RowQuery query)
+            throws JsonHandlerException, CsvHandlerException;
+
+    /**
+     * Streams arbitrary JSON from {@code in} into CSV on {@code out}, like
+     * {@link #convertFlattened(String, String, FlattenOptions)}. A stream can only be sampled, not
+     * pre-scanned. Neither stream is closed; {@code out} is flushed.
+     *
+     * @param in      UTF-8 encoded JSON source (non-null)
+     * @param out     destination of the CSV rows (non-null)
+     * @param options sampling and flattening settings (non-null, not a full scan)
+     * @return number of rows written, excluding the header
+     * @throws JsonHandlerException if the input is invalid or unreadable, a record is not an object,
+     *                              a column appears after the sample, or a full scan is requested
+     * @throws CsvHandlerException  if the output cannot be written
+     */
+    long convertFlattened(InputStream in, OutputStream out, FlattenOptions options)
+            throws JsonHandlerException, CsvHandlerException;
+
+    /**
+     * Streams arbitrary JSON from {@code in} into CSV on {@code out} through a query, like
+     * {@link #convertFlattened(String, String, FlattenOptions, RowQuery)}. A full scan is accepted
+     * only when columns are selected, since they need no discovery. Neither stream is closed;
+     * {@code out} is flushed.
+     *
+     * @param in      UTF-8 encoded JSON source (non-null)
+     * @param out     destination of the CSV rows (non-null)
+     * @param options sampling and flattening settings (non-null)
+     * @param query   selected columns and row predicates (non-null)
+     * @return number of rows written, excluding the header
+     * @throws JsonHandlerException if the input is invalid or unreadable, a record is not an object,
+     *                              a column appears after the sample, or a full scan is requested
+     *                              without selected columns
+     * @throws CsvHandlerException  if the output cannot be written
+     */
+    long convertFlattened(InputStream in, OutputStream out, FlattenOptions options, RowQuery query)
+            throws JsonHandlerException, CsvHandlerException;
+
+    /**
+     * Shuts down the worker pool the converter owns, if any; conversions already running finish.
+     * The converter must not be used afterwards. Closing twice has no effect.
+     */
+    @Override
+    void close();
+}
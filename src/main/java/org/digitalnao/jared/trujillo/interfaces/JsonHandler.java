@@ -1,12 +1,17 @@
 package org.digitalnao.jared.trujillo.interfaces;
 
 import com.fasterxml.jackson.core.type.TypeReference;
+import org.digitalnao.jared.trujillo.classes.InputMode;
+import org.digitalnao.jared.trujillo.classes.JsonContent;
+import org.digitalnao.jared.trujillo.classes.RowQuery;
 import org.digitalnao.jared.trujillo.exceptions.JsonHandlerException;
 
+import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
- * Contract for reading JSON from files into typed objects.
+ * Contract for reading JSON from files into typed objects, and for writing JSON arrays and JSON Lines files.
  */
 public interface JsonHandler {
 
@@ -34,6 +39,19 @@ public interface JsonHandler {
      */
     <T> List<T> fromJsonList(String filename, Class<T> type) throws JsonHandlerException;
 
+    /**
+     * Reads a JSON array from a file into a {@code List<T>}, choosing how the file is read.
+     *
+     * @param <T>      element type
+     * @param filename path to the JSON file (expects {@code .json})
+     * @param type     element class (non-null)
+     * @param mode     how the file is read; {@link InputMode#MEMORY_MAPPED} avoids copying through read buffers
+     * @return list of deserialized elements
+     * @throws JsonHandlerException if the filename is invalid, the file is missing/unreadable/empty,
+     *                              or content is not an array / mapping fails
+     */
+    <T> List<T> fromJsonList(String filename, Class<T> type, InputMode mode) throws JsonHandlerException;
+
     /**
      * Reads JSON from a file using a {@link TypeReference} for complex/weird or generic types
      *
@@ -47,11 +65,119 @@ public interface JsonHandler {
     <T> T fromJson(String filename, TypeReference<T> typeRef) throws JsonHandlerException;
 
     /**
-     * Checks if a file is a JSON file of objects or an array
+     * Reads a JSON file whose root may be an object or an array, detecting the root kind
+     * and deserializing in the same pass. Array elements are produced lazily.
+     *
+     * @param <T>      value type
+     * @param filename path to the JSON file (expects {@code .json})
+     * @param type     value class (non-null)
+     * @return open content over the root object or the array elements; must be closed
+     * @throws JsonHandlerException if the filename is invalid, the file is missing/unreadable/empty,
+     *                              or the root is neither an object nor an array
+     */
+    <T> JsonContent<T> readJson(String filename, Class<T> type) throws JsonHandlerException;
+
+    /**
+     * Reads a JSON file whose root may be an object or an array, choosing how the file is read.
+     * {@link InputMode#MEMORY_MAPPED} parses straight from the page cache, which suits multi-GB files.
+     *
+     * @param <T>      value type
+     * @param filename path to the JSON file (expects {@code .json})
+     * @param type     value class (non-null)
+     * @param mode     how the file is read (non-null)
+     * @return open content over the root object or the array elements; must be closed
+     * @throws JsonHandlerException if the filename is invalid, the file is missing/unreadable/empty,
+     *                              or the root is neither an object nor an array
+     */
+    <T> JsonContent<T> readJson(String filename, Class<T> type, InputMode mode) throws JsonHandlerException;
+
+    /**
+     * Reads the records of a JSON file (a root array, a single object, or JSON Lines) applying a
+     * query while parsing. Top-level fields that are not selected are skipped at the token level,
+     * and records failing a predicate are dropped before they are bound to {@code type}.
+     * Predicates test top-level properties; a selected property missing from a record is left unset.
+     *
+     * @param <T>      value type
+     * @param filename path to the file (expects {@code .json}, {@code .jsonl} or {@code .ndjson})
+     * @param type     value class (non-null)
+     * @param query    projection and row filter (non-null)
+     * @return open content over the matching records; must be closed
+     * @throws JsonHandlerException if the filename is invalid, the file is missing/unreadable/empty,
+     *                              a predicate field is not a top-level property of {@code type},
+     *                              a record is not an object, or parsing/mapping fails while iterating
+     */
+    <T> JsonContent<T> readRecords(String filename, Class<T> type, RowQuery query) throws JsonHandlerException;
+
+    /**
+     * Checks if a file is a JSON file of objects or an array.
+     * Only the first token of the file is read.
      *
      * @param filename the filename
      * @return the boolean
      * @throws JsonHandlerException the json handler exception
      */
     boolean isJsonArray(String filename) throws JsonHandlerException;
+
+    /**
+     * Reads a JSON Lines (newline-delimited JSON) file lazily, one value per line.
+     * Blank lines are skipped.
+     *
+     * @param <T>      value type
+     * @param filename path to the file (expects {@code .jsonl}, {@code .ndjson} or {@code .json})
+     * @param type     value class (non-null)
+     * @return open content over the values of the file; must be closed
+     * @throws JsonHandlerException if the filename is invalid, the file is missing/unreadable/empty,
+     *                              or parsing/mapping fails while iterating
+     */
+    <T> JsonContent<T> readJsonLines(String filename, Class<T> type) throws JsonHandlerException;
+
+    /**
+     * Writes values to a JSON Lines file, one compact JSON document per line.
+     *
+     * @param <T>      value type
+     * @param values   values to write, pulled lazily (non-null)
+     * @param type     class used to serialize the values (non-null)
+     * @param filename path to the file (expects {@code .jsonl}, {@code .ndjson} or {@code .json})
+     * @return number of lines written
+     * @throws JsonHandlerException if arguments are invalid, serialization fails, or an I/O error occurs
+     */
+    <T> long writeJsonLines(Iterator<T> values, Class<T> type, String filename) throws JsonHandlerException;
+
+    /**
+     * Writes a stream of values to a JSON Lines file, one compact JSON document per line.
+     * The stream is consumed lazily and closed afterwards.
+     *
+     * @param <T>      value type
+     * @param values   values to write (non-null)
+     * @param type     class used to serialize the values (non-null)
+     * @param filename path to the file (expects {@code .jsonl}, {@code .ndjson} or {@code .json})
+     * @return number of lines written
+     * @throws JsonHandlerException if arguments are invalid, serialization fails, or an I/O error occurs
+     */
+    <T> long writeJsonLines(Stream<T> values, Class<T> type, String filename) throws JsonHandlerException;
+
+    /**
+     * Writes values to a JSON file as a single root array, pulling them lazily.
+     *
+     * @param <T>      value type
+     * @param values   values to write (non-null)
+     * @param type     class used to serialize the values (non-null)
+     * @param filename path to the file (expects {@code .json})
+     * @return number of array elements written
+     * @throws JsonHandlerException if arguments are invalid, serialization fails, or an I/O error occurs
+     */
+    <T> long writeJsonArray(Iterator<T> values, Class<T> type, String filename) throws JsonHandlerException;
+
+    /**
+     * Writes a stream of values to a JSON file as a single root array.
+     * The stream is consumed lazily and closed afterwards.
+     *
+     * @param <T>      value type
+     * @param values   values to write (non-null)
+     * @param type     class used to serialize the values (non-null)
+     * @param filename path to the file (expects {@code .json})
+     * @return number of array elements written
+     * @throws JsonHandlerException if arguments are invalid, serialization fails, or an I/O error occurs
+     */
+    <T> long writeJsonArray(Stream<T> values, Class<T> type, String filename) throws JsonHandlerException;
 }
@@ -0,0 +1,61 @@
+package org.digitalnao.jared.trujillo.interfaces;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+
+import java.io.IOException;
+
+/**
+ * Reflection-free serializer and deserializer for one model class, generated at build time by
+ * {@code org.digitalnao.jared.trujillo.codegen.CodecProcessor} for classes annotated with
+ * {@code @JsonPropertyOrder}. The handlers pick it up automatically for {@code Foo} when a class
+ * named {@code Foo_Codec} exists, and fall back to Jackson's bean introspection otherwise.
+ *
+ * Implementations must produce exactly the output Jackson would produce for the same class.
+ *
+ * @param <T> model type
+ */
+public interface ModelCodec<T> {
+
+    /** @return the model class handled by this codec */
+    Class<T> type();
+
+    /** @return CSV columns in property order, without header */
+    CsvSchema csvSchema();
+
+    /** @return a new, empty instance to bind properties into */
+    T newInstance();
+
+    /**
+     * Writes {@code value} as one object, properties in {@code @JsonPropertyOrder} order.
+     *
+     * @param value     non-null instance
+     * @param generator JSON or CSV generator
+     * @throws IOException if the generator fails
+     */
+    void write(T value, JsonGenerator generator) throws IOException;
+
+    /**
+     * Writes {@code value} as one CSV row, properties in {@code @JsonPropertyOrder} order, without
+     * going through a {@link JsonGenerator}.
+     *
+     * @param value non-null instance
+     * @param row   destination row; the codec ends the row
+     * @throws IOException if the destination fails
+     */
+    void writeCsv(T value, CsvFieldWriter row) throws IOException;
+
+    /**
+     * Binds the value the parser is positioned on to the property called {@code name}.
+     *
+     * @param value   instance being populated
+     * @param name    property name
+     * @param parser  parser positioned on the property value
+     * @param context context used for coercions the generated fast path does not cover
+     * @return {@code false} if the class has no such property
+     * @throws IOException if the value cannot be read or coerced
+     */
+    boolean readProperty(T value, String name, JsonParser parser, DeserializationContext context) throws IOException;
+}
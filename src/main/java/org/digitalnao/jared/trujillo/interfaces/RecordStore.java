@@ -0,0 +1,68 @@
+package org.digitalnao.jared.trujillo.interfaces;
+
+import java.util.Iterator;
+
+/**
+ * Append-only store of records kept column by column outside the Java heap, for staging large
+ * conversions between a {@link JsonHandler} read and a {@link CsvHandler} or {@link ColumnarHandler}
+ * write without holding millions of objects. Records are split into their fields when added and
+ * rebuilt when read, so {@link #get(long)} returns a new, equal-valued instance each time.
+ *
+ * A store holds native memory until it is closed; use it in a try-with-resources block.
+ * Appending is not thread-safe; once filled, a store may be read from several threads.
+ *
+ * @param <T> record type
+ */
+public interface RecordStore<T> extends Iterable<T>, AutoCloseable {
+
+    /**
+     * Appends a record.
+     *
+     * @param value record to store (non-null)
+     * @throws IllegalArgumentException if {@code value} is null or a field does not fit its column
+     * @throws IllegalStateException    if the store is closed
+     */
+    void add(T value);
+
+    /**
+     * Appends every record of {@code values}, skipping {@code null} elements.
+     *
+     * @param values records to store (non-null)
+     * @return number of records appended
+     * @throws IllegalArgumentException if {@code values} is null or a field does not fit its column
+     * @throws IllegalStateException    if the store is closed
+     */
+    long addAll(Iterator<? extends T> values);
+
+    /** @return number of records stored */
+    long size();
+
+    /**
+     * Rebuilds the record at {@code index}.
+     *
+     * @param index position in insertion order, from 0 to {@code size() - 1}
+     * @return a new instance with the stored values
+     * @throws IndexOutOfBoundsException if {@code index} is out of range
+     * @throws IllegalStateException     if the store is closed
+     */
+    T get(long index);
+
+    /**
+     * Iterates the records in insertion order, rebuilding one at a time; records appended while
+     * iterating are not seen.
+     *
+     * @return iterator over the stored records
+     * @throws IllegalStateException if the store is closed
+     */
+    @Override
+    Iterator<T> iterator();
+
+    /** @return native memory currently reserved by the store, in bytes */
+    long offHeapBytes();
+
+    /**
+     * Releases the native memory; the store cannot be used afterwards. Closing twice has no effect.
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,236 @@
+package org.digitalnao.jared.trujillo.classes;
+
+import org.digitalnao.jared.trujillo.handlers.CompressedStreams;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConvertCommandTest {
+
+    private static final String USERS_JSON =
+            "[{\"id\":1,\"name\":\"Pérez\",\"email\":\"juan@example.com\"},"
+            + "{\"id\":2,\"name\":\"Maria\",\"email\":\"maria@example.com\"}]";
+
+    @TempDir
+    Path tempDir;
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+    private int run(String stdin, String... args) {
+        ConvertCommand command = new ConvertCommand(
+                new ByteArrayInputStream(stdin.getBytes(StandardCharsets.UTF_8)),
+                new PrintStream(out, true, StandardCharsets.UTF_8),
+                new PrintStream(err, true, StandardCharsets.UTF_8));
+        return command.run(args);
+    }
+
+    @Test
+    void run_fileToFile_writesExactOutputPath() throws IOException {
+        Path json = Files.writeString(tempDir.resolve("users.json"), USERS_JSON);
+        Path csv = tempDir.resolve("out dir with spaces.csv");
+
+        int status = run("", "convert", "--in", json.toString(), "--out", csv.toString(), "--stats");
+
+        assertEquals(ConvertCommand.EXIT_OK, status);
+        assertEquals(List.of("id,name,email", "1,Pérez,juan@example.com", "2,Maria,maria@example.com"),
+                Files.readAllLines(csv));
+        assertTrue(err.toString(StandardCharsets.UTF_8).startsWith("rows=2 bytes="));
+        assertTrue(err.toString(StandardCharsets.UTF_8).contains("open="));
+        assertEquals(0, out.size());
+    }
+
+    @Test
+    void run_jsonLinesWithThreads_convertsInParallel() throws IOException {
+        Path jsonl = Files.writeString(tempDir.resolve("users.jsonl"),
+                "{\"id\":1,\"name\":\"Juan\",\"email\":\"j@x.com\"}\n{\"id\":2,\"name\":\"Ana\",\"email\":\"a@x.com\"}\n");
+        Path csv = tempDir.resolve("users.csv");
+
+        int status = run("", "convert", "--in=" + jsonl, "--out=" + csv, "--threads=2", "--buffer-size=16");
+
+        assertEquals(ConvertCommand.EXIT_OK, status);
+        assertEquals(3, Files.readAllLines(csv).size());
+    }
+
+    @Test
+    void run_pipeline_convertsStdinAndReportsQueues() {
+        int status = run(USERS_JSON, "convert", "--in", "-", "--out", "-", "--pipeline", "--threads", "2",
+                "--batch-size", "1", "--stats");
+
+        assertEquals(ConvertCommand.EXIT_OK, status);
+        assertEquals(List.of("id,name,email", "1,Pérez,juan@example.com", "2,Maria,maria@example.com"),
+                out.toString(StandardCharsets.UTF_8).lines().toList());
+        assertTrue(err.toString(StandardCharsets.UTF_8).contains("pipeline: 2 rows in 2 batches"));
+        assertEquals(ConvertCommand.EXIT_USAGE, run("", "convert", "--in", "-", "--out", "-", "--pipeline", "--flatten"));
+    }
+
+    @Test
+    void run_checkpoint_convertsFileAndRemovesCheckpoint() throws IOException {
+        Path json = Files.writeString(tempDir.resolve("users.json"), USERS_JSON);
+        Path csv = tempDir.resolve("users.csv");
+
+        int status = run("", "convert", "--in", json.toString(), "--out", csv.toString(), "--checkpoint", "1");
+
+        assertEquals(ConvertCommand.EXIT_OK, status);
+        assertEquals(List.of("id,name,email", "1,Pérez,juan@example.com", "2,Maria,maria@example.com"),
+                Files.readAllLines(csv));
+        assertFalse(Files.exists(tempDir.resolve("users.csv" + CheckpointOptions.SUFFIX)));
+        assertEquals(ConvertCommand.EXIT_USAGE, run(USERS_JSON, "convert", "--in", "-", "--out", csv.toString(),
+                "--checkpoint", "1"));
+    }
+
+    @Test
+    void run_sortWithDedup_writesOrderedUniqueRowsAndStats() {
+        String json = USERS_JSON.substring(0, USERS_JSON.length() - 1)
+                + ",{\"id\":1,\"name\":\"Again\",\"email\":\"again@example.com\"}]";
+
+        int status = run(json, "convert", "--in", "-", "--out", "-", "--sort", "-id", "--dedup", "hash", "--stats");
+
+        assertEquals(ConvertCommand.EXIT_OK, status);
+        assertEquals("id,name,email\n2,Maria,maria@example.com\n1,Pérez,juan@example.com\n",
+                out.toString(StandardCharsets.UTF_8));
+        assertTrue(err.toString(StandardCharsets.UTF_8).contains("sort: 2 rows, 1 duplicates dropped"));
+        assertEquals(ConvertCommand.EXIT_USAGE, run("", "convert", "--in", "-", "--out", "-", "--dedup", "sorted"));
+        assertEquals(ConvertCommand.EXIT_USAGE, run("", "convert", "--in", "-", "--out", "-", "--sort", "id", "--pipeline"));
+    }
+
+    @Test
+    void run_direct_writesSameCsvAsDataBinding() throws IOException {
+        Path json = Files.writeString(tempDir.resolve("users.json"), USERS_JSON);
+        Path csv = tempDir.resolve("users.csv");
+
+        int status = run("", "convert", "--in", json.toString(), "--out", csv.toString(), "--direct");
+
+        assertEquals(ConvertCommand.EXIT_OK, status);
+        assertEquals(List.of("id,name,email", "1,Pérez,juan@example.com", "2,Maria,maria@example.com"),
+                Files.readAllLines(csv));
+        assertEquals(ConvertCommand.EXIT_USAGE, run("", "convert", "--in", "-", "--out", "-", "--direct", "--pipeline"));
+    }
+
+    @Test
+    void run_incremental_convertsOnlyNewRecordsOnTheNextRun() throws IOException {
+        Path json = Files.writeString(tempDir.resolve("users.jsonl"),
+                "{\"id\":1,\"name\":\"Maria\",\"email\":\"maria@example.com\"}\n");
+        Path csv = tempDir.resolve("users.csv");
+
+        assertEquals(ConvertCommand.EXIT_OK, run("", "convert", "--in", json.toString(), "--out", csv.toString(),
+                "--incremental", "id"));
+        Files.writeString(json, "{\"id\":2,\"name\":\"Ana\",\"email\":\"ana@example.com\"}\n",
+                StandardOpenOption.APPEND);
+        Files.setLastModifiedTime(json, FileTime.fromMillis(Files.getLastModifiedTime(json).toMillis() + 1_000));
+        int status = run("", "convert", "--in", json.toString(), "--out", csv.toString(), "--incremental", "id",
+                "--stats");
+
+        assertEquals(ConvertCommand.EXIT_OK, status);
+        assertEquals(List.of("id,name,email", "1,Maria,maria@example.com", "2,Ana,ana@example.com"),
+                Files.readAllLines(csv));
+        assertTrue(err.toString(StandardCharsets.UTF_8).contains("incremental: appended: 2 rows, 1 added"));
+        assertEquals(ConvertCommand.EXIT_USAGE, run("", "convert", "--in", json.toString(), "--out", "-",
+                "--incremental", "id"));
+        assertEquals(ConvertCommand.EXIT_USAGE, run("", "convert", "--in", json.toString(), "--out", csv.toString(),
+                "--rescan"));
+    }
+
+    @Test
+    void run_stdinToStdout_pipesCsvAndBack() {
+        assertEquals(ConvertCommand.EXIT_OK, run(USERS_JSON, "convert", "--in", "-", "--out", "-"));
+        String csv = out.toString(StandardCharsets.UTF_8);
+        assertEquals("id,name,email\n1,Pérez,juan@example.com\n2,Maria,maria@example.com\n", csv);
+
+        out.reset();
+        assertEquals(ConvertCommand.EXIT_OK, run(csv, "convert", "--in", "-", "--out", "-", "--format", "jsonl"));
+        assertEquals(2, out.toString(StandardCharsets.UTF_8).lines().count());
+    }
+
+    @Test
+    void run_flatten_convertsJsonWithoutUserFields() {
+        String json = "{\"sku\":\"X1\",\"dims\":{\"w\":2},\"tags\":[\"a\",\"b\"]}";
+
+        int status = run(json, "convert", "--in", "-", "--out", "-", "--flatten", "--arrays", "joined");
+
+        assertEquals(ConvertCommand.EXIT_OK, status);
+        assertEquals("sku,dims.w,tags\nX1,2,a|b\n", out.toString(StandardCharsets.UTF_8));
+        assertEquals(ConvertCommand.EXIT_USAGE, run("", "convert", "--in", "-", "--out", "-", "--flatten", "--sample", "0"));
+    }
+
+    @Test
+    void run_selectAndWhere_writesMatchingRowsAndColumns() throws IOException {
+        Path jsonl = Files.writeString(tempDir.resolve("users.jsonl"),
+                "{\"id\":1,\"name\":\"Juan\",\"email\":\"j@x.com\"}\n{\"id\":2,\"name\":\"Ana\",\"email\":\"a@y.com\"}\n");
+        Path csv = tempDir.resolve("users.csv");
+
+        int status = run("", "convert", "--in", jsonl.toString(), "--out", csv.toString(),
+                "--select", "name, id", "--where", "email~.*@y\\.com", "--where=id>=2");
+
+        assertEquals(ConvertCommand.EXIT_OK, status);
+        assertEquals(List.of("name,id", "Ana,2"), Files.readAllLines(csv));
+        assertEquals(ConvertCommand.EXIT_USAGE, run("", "convert", "--in", "-", "--out", "-", "--where", "id"));
+        assertEquals(ConvertCommand.EXIT_USAGE, run("", "convert", "--in", "-", "--out", "-", "--select", "id,id"));
+        assertEquals(ConvertCommand.EXIT_USAGE,
+                run("", "convert", "--in", "-", "--out", "-", "--format", "json", "--where", "id=1"));
+    }
+
+    @Test
+    void run_compressedStdinAndStdout_areHandledTransparently() throws IOException {
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+        try (OutputStream gzip = new GZIPOutputStream(gzipped)) {
+            gzip.write(USERS_JSON.getBytes(StandardCharsets.UTF_8));
+        }
+        ConvertCommand command = new ConvertCommand(new ByteArrayInputStream(gzipped.toByteArray()),
+                new PrintStream(out, true, StandardCharsets.UTF_8), new PrintStream(err, true, StandardCharsets.UTF_8));
+
+        assertEquals(ConvertCommand.EXIT_OK, command.run(new String[] { "convert", "--in", "-", "--out", "-", "--compress", "lz4" }));
+        try (InputStream csv = CompressedStreams.decompress(new ByteArrayInputStream(out.toByteArray()))) {
+            assertEquals("id,name,email\n1,Pérez,juan@example.com\n2,Maria,maria@example.com\n",
+                    new String(csv.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        assertEquals(ConvertCommand.EXIT_USAGE,
+                run("", "convert", "--in", "-", "--out", "x.csv", "--compress", "gzip"));
+    }
+
+    @Test
+    void run_help_printsUsageAndSucceeds() {
+        assertEquals(ConvertCommand.EXIT_OK, run("", "--help"));
+        assertTrue(out.toString(StandardCharsets.UTF_8).contains("--buffer-size"));
+    }
+
+    @Test
+    void run_invalidArguments_returnsUsageError() {
+        assertEquals(ConvertCommand.EXIT_USAGE, run("", "convert", "--in", "a.json"));
+        assertEquals(ConvertCommand.EXIT_USAGE, run("", "convert", "--in", "a.json", "--out", "b.txt"));
+        assertEquals(ConvertCommand.EXIT_USAGE, run("", "convert", "--in", "a.json", "--out", "b.csv", "--format", "json"));
+        assertEquals(ConvertCommand.EXIT_USAGE, run("", "convert", "--in", "a.json", "--out", "b.csv", "--threads", "0"));
+        assertEquals(ConvertCommand.EXIT_USAGE, run("", "export", "--in", "a.json", "--out", "b.csv"));
+    }
+
+    @Test
+    void run_missingInput_returnsNoInput() {
+        int status = run("", "convert", "--in", tempDir.resolve("missing.json").toString(),
+                "--out", tempDir.resolve("out.csv").toString());
+
+        assertEquals(ConvertCommand.EXIT_NO_INPUT, status);
+    }
+
+    @Test
+    void run_malformedJson_returnsDataError() {
+        int status = run("[{\"id\": 1,", "convert", "--in", "-", "--out", "-");
+
+        assertEquals(ConvertCommand.EXIT_DATA_ERROR, status);
+        assertTrue(err.toString(StandardCharsets.UTF_8).startsWith("convert: "));
+    }
+}
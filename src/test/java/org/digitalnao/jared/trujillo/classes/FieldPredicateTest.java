@@ -0,0 +1,37 @@
+package org.digitalnao.jared.trujillo.classes;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FieldPredicateTest {
+
+    @Test
+    void parse_supportedForms_testScalarText() {
+        assertTrue(FieldPredicate.parse("country=MX").test("MX"));
+        assertFalse(FieldPredicate.parse("country=MX").test("mx"));
+        assertTrue(FieldPredicate.parse("email~.*@example\\.com").test("a@example.com"));
+        assertFalse(FieldPredicate.parse("email~example").test("a@example.com"));
+        assertTrue(FieldPredicate.parse("age>=18").test("18"));
+        assertFalse(FieldPredicate.parse("age<=65").test("65.5"));
+        assertTrue(FieldPredicate.parse("score=1.5..2").test("2"));
+        assertEquals("range", FieldPredicate.parse("range=a..b").field());
+        assertTrue(FieldPredicate.parse("range=a..b").test("a..b"));
+    }
+
+    @Test
+    void test_missingOrNonNumericValue_neverMatches() {
+        assertFalse(FieldPredicate.equalTo("name", "").test(null));
+        assertFalse(FieldPredicate.atLeast("age", 0).test("ten"));
+        assertFalse(FieldPredicate.atLeast("age", 0).test(""));
+    }
+
+    @Test
+    void parse_invalidExpression_throwsIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> FieldPredicate.parse("age"));
+        assertThrows(IllegalArgumentException.class, () -> FieldPredicate.parse("=1"));
+        assertThrows(IllegalArgumentException.class, () -> FieldPredicate.parse("age>=old"));
+        assertThrows(IllegalArgumentException.class, () -> FieldPredicate.parse("name~[a"));
+        assertThrows(IllegalArgumentException.class, () -> FieldPredicate.between("age", 5, 1));
+    }
+}
@@ -0,0 +1,149 @@
+package org.digitalnao.jared.trujillo.handlers;
+
+import org.digitalnao.jared.trujillo.classes.User;
+import org.digitalnao.jared.trujillo.exceptions.ColumnarHandlerException;
+import org.digitalnao.jared.trujillo.interfaces.ColumnarHandler;
+import org.digitalnao.jared.trujillo.interfaces.RecordStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArrowIpcHandlerTest {
+
+    private final ColumnarHandler handler = ColumnarHandlerFactory.createColumnarHandler(4);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void writeArrow_typedRecords_writesFileWithFooterAndIntColumn() throws IOException {
+        List<User> users = IntStream.range(0, 10).mapToObj(i -> new User(i, "n" + i, "u" + i + "@x.com")).toList();
+
+        long rows = handler.writeArrow(users.iterator(), User.class, tempDir.resolve("users").toString());
+
+        assertEquals(10, rows);
+        ByteBuffer file = ByteBuffer.wrap(Files.readAllBytes(tempDir.resolve("users.arrow")))
+                .order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals("ARROW1", ascii(file, 0, 6));
+        assertEquals("ARROW1", ascii(file, file.limit() - 6, 6));
+
+        // footer: record batch blocks of 4, 4 and 2 rows, each pointing at a record batch message
+        int footerLength = file.getInt(file.limit() - 10);
+        ByteBuffer footer = file.slice(file.limit() - 10 - footerLength, footerLength).order(ByteOrder.LITTLE_ENDIAN);
+        int blocks = vector(footer, table(footer, 0), 3);
+        assertEquals(3, footer.getInt(blocks));
+
+        List<Integer> ids = new ArrayList<>();
+        for (int b = 0; b < 3; b++) {
+            int offset = (int) footer.getLong(blocks + 4 + 24 * b);
+            int metadataLength = footer.getInt(blocks + 4 + 24 * b + 8);
+            assertEquals(-1, file.getInt(offset));
+            ByteBuffer metadata = file.slice(offset + 8, metadataLength - 8).order(ByteOrder.LITTLE_ENDIAN);
+            int message = table(metadata, 0);
+            assertEquals(3, metadata.get(field(metadata, message, 1)));
+            int batch = table(metadata, field(metadata, message, 2));
+            long length = metadata.getLong(field(metadata, batch, 0));
+            // buffers: id validity, id values, then the text columns
+            int buffers = vector(metadata, batch, 2);
+            int valuesOffset = (int) metadata.getLong(buffers + 4 + 16);
+            for (int i = 0; i < length; i++) {
+                ids.add(file.getInt(offset + metadataLength + valuesOffset + 4 * i));
+            }
+        }
+        assertEquals(IntStream.range(0, 10).boxed().toList(), ids);
+    }
+
+    @Test
+    void writeArrow_schemaLessRows_writesStreamWithSchemaAndEndMarker() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long rows = handler.writeArrow(List.of(Map.of("x", "1", "y", "é"), Map.of("x", "2")).iterator(),
+                List.of("x", "y"), out);
+
+        assertEquals(2, rows);
+        byte[] bytes = out.toByteArray();
+        assertEquals(0, bytes.length % 8);
+        ByteBuffer stream = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals(-1, stream.getInt(0));
+        assertEquals(-1, stream.getInt(bytes.length - 8));
+        assertEquals(0, stream.getInt(bytes.length - 4));
+
+        ByteBuffer metadata = stream.slice(8, stream.getInt(4)).order(ByteOrder.LITTLE_ENDIAN);
+        int message = table(metadata, 0);
+        assertEquals(1, metadata.get(field(metadata, message, 1)));
+        int schema = table(metadata, field(metadata, message, 2));
+        int fields = vector(metadata, schema, 1);
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < metadata.getInt(fields); i++) {
+            int fieldTable = table(metadata, fields + 4 + 4 * i);
+            int name = table(metadata, field(metadata, fieldTable, 0));
+            names.add(ascii(metadata, name + 4, metadata.getInt(name)));
+        }
+        assertEquals(List.of("x", "y"), names);
+    }
+
+    @Test
+    void writeArrow_offHeapStore_writesTheSameFileAsTheRecords() throws IOException {
+        List<User> users = IntStream.range(0, 10)
+                .mapToObj(i -> new User(i, "n" + i % 3, i % 4 == 0 ? null : "u" + i + "@x.com")).toList();
+        handler.writeArrow(users.iterator(), User.class, tempDir.resolve("records").toString());
+
+        RecordStore<User> store = RecordStoreFactory.createOffHeapStore(User.class);
+        try (store) {
+            store.addAll(users.iterator());
+            assertEquals(10, handler.writeArrow(store, User.class, tempDir.resolve("store").toString()));
+        }
+
+        assertArrayEquals(Files.readAllBytes(tempDir.resolve("records.arrow")),
+                Files.readAllBytes(tempDir.resolve("store.arrow")));
+        assertThrows(IllegalStateException.class,
+                () -> handler.writeArrow(store, User.class, tempDir.resolve("closed").toString()));
+    }
+
+    @Test
+    void writeArrow_invalidArguments_throwColumnarHandlerException() {
+        assertThrows(ColumnarHandlerException.class,
+                () -> handler.writeArrow(Collections.emptyIterator(), User.class, " "));
+        assertThrows(ColumnarHandlerException.class,
+                () -> handler.writeArrow(null, User.class, new ByteArrayOutputStream()));
+        assertThrows(ColumnarHandlerException.class,
+                () -> handler.writeArrow(Collections.emptyIterator(), List.of(), new ByteArrayOutputStream()));
+        assertThrows(IllegalArgumentException.class, () -> ColumnarHandlerFactory.createColumnarHandler(0));
+    }
+
+    /** Follows the offset stored at {@code position} to a table, string or vector. */
+    private static int table(ByteBuffer buffer, int position) {
+        return position + buffer.getInt(position);
+    }
+
+    /** @return position of field {@code id} of the table at {@code table} */
+    private static int field(ByteBuffer buffer, int table, int id) {
+        int vtable = table - buffer.getInt(table);
+        assertTrue(4 + 2 * id < buffer.getShort(vtable), "field " + id + " is missing");
+        return table + buffer.getShort(vtable + 4 + 2 * id);
+    }
+
+    private static int vector(ByteBuffer buffer, int table, int id) {
+        return table(buffer, field(buffer, table, id));
+    }
+
+    private static String ascii(ByteBuffer buffer, int position, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(position, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
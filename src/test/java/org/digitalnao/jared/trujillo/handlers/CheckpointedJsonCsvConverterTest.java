@@ -0,0 +1,137 @@
+package org.digitalnao.jared.trujillo.handlers;
+
+import org.digitalnao.jared.trujillo.classes.CheckpointOptions;
+import org.digitalnao.jared.trujillo.classes.User;
+import org.digitalnao.jared.trujillo.exceptions.CsvHandlerException;
+import org.digitalnao.jared.trujillo.exceptions.JsonHandlerException;
+import org.digitalnao.jared.trujillo.interfaces.JsonCsvConverter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CheckpointedJsonCsvConverterTest {
+
+    private final JsonCsvConverter converter = JsonCsvConverterFactory.createJsonCsvConverter();
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void convertResumable_arrayFailingPartWay_resumesFromCheckpoint_andMatchesPlainOutput() throws IOException {
+        Path json = tempDir.resolve("users.json");
+        Path checkpoint = tempDir.resolve("resumed.csv" + CheckpointOptions.SUFFIX);
+        String users = TestUsers.array(0, 1_000, ",\n  ");
+        // same length as the record it replaces, so only the content differs
+        Files.writeString(json, users.replace("{\"id\":250,", "{\"id\":\"x\","));
+        FileTime modified = Files.getLastModifiedTime(json);
+        CheckpointOptions options = CheckpointOptions.defaults().withInterval(100).withSync(false);
+
+        assertThrows(JsonHandlerException.class,
+                () -> converter.convertResumable(json.toString(), tempDir.resolve("resumed").toString(), User.class,
+                        options));
+        assertTrue(Files.exists(checkpoint));
+        // rows after the checkpoint may have reached the file; the resume cuts them off
+        assertTrue(Files.readAllLines(tempDir.resolve("resumed.csv")).size() >= 201);
+
+        Files.writeString(json, users);
+        Files.setLastModifiedTime(json, modified);
+        long rows = converter.convertResumable(json.toString(), tempDir.resolve("resumed").toString(), User.class,
+                options);
+        converter.convert(json.toString(), tempDir.resolve("plain").toString(), User.class);
+
+        assertEquals(1_000, rows);
+        assertFalse(Files.exists(checkpoint));
+        assertEquals(Files.readAllLines(tempDir.resolve("plain.csv")), Files.readAllLines(tempDir.resolve("resumed.csv")));
+    }
+
+    @Test
+    void convertResumable_jsonLinesFailingPartWay_resumesFromCheckpoint() throws IOException {
+        Path json = tempDir.resolve("users.jsonl");
+        String users = TestUsers.lines(0, 200);
+        Files.writeString(json, users.replace("{\"id\":142,", "{\"id\":\"x\","));
+        FileTime modified = Files.getLastModifiedTime(json);
+        CheckpointOptions options = CheckpointOptions.defaults().withInterval(25);
+
+        assertThrows(JsonHandlerException.class,
+                () -> converter.convertResumable(json.toString(), tempDir.resolve("resumed").toString(), User.class,
+                        options));
+        Files.writeString(json, users);
+        Files.setLastModifiedTime(json, modified);
+
+        assertEquals(200, converter.convertResumable(json.toString(), tempDir.resolve("resumed").toString(),
+                User.class, options));
+        converter.convertJsonLines(json.toString(), tempDir.resolve("plain").toString(), User.class);
+        assertEquals(Files.readAllLines(tempDir.resolve("plain.csv")), Files.readAllLines(tempDir.resolve("resumed.csv")));
+    }
+
+    @Test
+    void convertResumable_gzipInputAndOutput_resumesAtAMemberBoundary() throws IOException {
+        Path json = tempDir.resolve("users.json.gz");
+        Path resumed = tempDir.resolve("resumed.csv.gz");
+        String users = TestUsers.array(0, 1_000);
+        // stored gzip: the broken input has the size of the good one, so the checkpoint still applies
+        writeStoredGzip(json, users.replace("{\"id\":250,", "{\"id\":\"x\","));
+        FileTime modified = Files.getLastModifiedTime(json);
+        CheckpointOptions options = CheckpointOptions.defaults().withInterval(100).withSync(false);
+
+        assertThrows(JsonHandlerException.class,
+                () -> converter.convertResumable(json.toString(), resumed.toString(), User.class, options));
+        assertTrue(Files.exists(tempDir.resolve("resumed.csv.gz" + CheckpointOptions.SUFFIX)));
+
+        long size = Files.size(json);
+        writeStoredGzip(json, users);
+        assertEquals(size, Files.size(json));
+        Files.setLastModifiedTime(json, modified);
+        assertEquals(1_000, converter.convertResumable(json.toString(), resumed.toString(), User.class, options));
+        Path plain = tempDir.resolve("plain.json");
+        Files.writeString(plain, users);
+        converter.convert(plain.toString(), tempDir.resolve("plain").toString(), User.class);
+
+        // a gzip reader reads every member, so the resumed file decompresses to one CSV document
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(resumed))) {
+            assertEquals(Files.readString(tempDir.resolve("plain.csv")), new String(in.readAllBytes(),
+                    StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void convertResumable_checkpointOfChangedInput_isRejected() throws IOException {
+        Path json = tempDir.resolve("users.json");
+        Files.writeString(json, TestUsers.array(0, 30).replace("{\"id\":25,", "{\"id\":\"xx\","));
+        CheckpointOptions options = CheckpointOptions.defaults().withInterval(10);
+        assertThrows(JsonHandlerException.class,
+                () -> converter.convertResumable(json.toString(), tempDir.resolve("out").toString(), User.class,
+                        options));
+
+        Files.writeString(json, TestUsers.array(0, 30));
+
+        CsvHandlerException e = assertThrows(CsvHandlerException.class,
+                () -> converter.convertResumable(json.toString(), tempDir.resolve("out").toString(), User.class,
+                        options));
+        assertTrue(e.getMessage().contains("another input"), e.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> new CheckpointOptions(0, true));
+    }
+
+    /** Writes {@code content} gzip-compressed without deflating, so its size depends only on its length. */
+    private static void writeStoredGzip(Path file, String content) throws IOException {
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(file)) {
+            {
+                def.setLevel(Deflater.NO_COMPRESSION);
+            }
+        }) {
+            out.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
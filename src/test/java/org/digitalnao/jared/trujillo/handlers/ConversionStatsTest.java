@@ -0,0 +1,98 @@
+package org.digitalnao.jared.trujillo.handlers;
+
+import org.digitalnao.jared.trujillo.classes.ConversionMetrics;
+import org.digitalnao.jared.trujillo.classes.User;
+import org.digitalnao.jared.trujillo.exceptions.JsonHandlerException;
+import org.digitalnao.jared.trujillo.interfaces.CsvHandler;
+import org.digitalnao.jared.trujillo.interfaces.JsonCsvConverter;
+import org.digitalnao.jared.trujillo.interfaces.JsonHandler;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConversionStatsTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void convert_withListener_reportsRecordsBytesAndStages() throws IOException {
+        Path json = tempDir.resolve("users.json");
+        Files.writeString(json, TestUsers.array(0, 1_000));
+        List<ConversionMetrics> reported = new ArrayList<>();
+        JsonCsvConverter converter = JsonCsvConverterFactory.createJsonCsvConverter(1, 4096, reported::add);
+
+        long rows = converter.convert(json.toString(), tempDir.resolve("users").toString(), User.class);
+
+        assertEquals(1, reported.size());
+        ConversionMetrics metrics = reported.get(0);
+        assertEquals(rows, metrics.records());
+        assertEquals(Files.size(json), metrics.bytesIn());
+        assertEquals(Files.size(tempDir.resolve("users.csv")), metrics.bytesOut());
+        assertTrue(metrics.largestWriteBytes() > 0 && metrics.largestWriteBytes() <= metrics.bytesOut());
+        assertTrue(metrics.readNanos() > 0 && metrics.writeNanos() > 0);
+        assertTrue(metrics.openNanos() + metrics.readNanos() + metrics.writeNanos() <= metrics.totalNanos());
+        assertTrue(metrics.recordsPerSecond() > 0);
+    }
+
+    @Test
+    void stats_accumulateConversionsAndFailures_andAreReadableOverJmx() throws Exception {
+        Path json = tempDir.resolve("user.json");
+        Files.writeString(json, "{ \"id\": 1, \"name\": \"Juan\", \"email\": \"juan@example.com\" }");
+        Path broken = tempDir.resolve("broken.json");
+        Files.writeString(broken, "[{ \"id\": ");
+        ConversionStats stats = new ConversionStats();
+        JsonCsvConverter converter = JsonCsvConverterFactory.createJsonCsvConverter(1, 4096, stats);
+
+        ObjectName name = stats.register("stats-test");
+        try {
+            converter.convert(json.toString(), tempDir.resolve("user").toString(), User.class);
+            assertThrows(JsonHandlerException.class,
+                    () -> converter.convert(broken.toString(), tempDir.resolve("broken").toString(), User.class));
+
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            assertEquals(1L, server.getAttribute(name, "Conversions"));
+            assertEquals(1L, server.getAttribute(name, "Failures"));
+            assertEquals(1L, server.getAttribute(name, "Records"));
+            assertEquals(Files.size(json) + Files.size(broken), server.getAttribute(name, "BytesIn"));
+            assertThrows(IllegalArgumentException.class, () -> stats.register("stats-test"));
+
+            server.invoke(name, "reset", null, null);
+            assertEquals(0, stats.getConversions());
+        } finally {
+            ConversionStats.unregister("stats-test");
+        }
+        assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+    }
+
+    @Test
+    void handlers_withListener_reportEveryEagerReadAndWrite() throws IOException {
+        Path json = tempDir.resolve("users.json");
+        Files.writeString(json, "[{\"id\":1,\"name\":\"Juan\",\"email\":\"j@x.com\"},"
+                + "{\"id\":2,\"name\":\"Ana\",\"email\":\"a@x.com\"}]");
+        List<ConversionMetrics> reported = new ArrayList<>();
+        JsonHandler jsonHandler = JsonHandlerFactory.createJsonHandler(reported::add);
+        CsvHandler csvHandler = CsvHandlerFactory.createCsvHandler(4096, false, reported::add);
+
+        List<User> users = jsonHandler.fromJsonList(json.toString(), User.class);
+        csvHandler.writeToCsv(users, User.class, tempDir.resolve("users").toString());
+
+        assertEquals(2, reported.size());
+        assertEquals(json.toString(), reported.get(0).source());
+        assertEquals(2, reported.get(0).records());
+        assertEquals(Files.size(json), reported.get(0).bytesIn());
+        assertEquals(2, reported.get(1).records());
+        assertEquals(Files.size(tempDir.resolve("users.csv")), reported.get(1).bytesOut());
+        assertThrows(IllegalArgumentException.class, () -> JsonHandlerFactory.createJsonHandler(null));
+    }
+}
@@ -5,15 +5,33 @@ import org.digitalnao.jared.trujillo.exceptions.CsvHandlerException;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 class CsvJacksonHandlerTest {
 
+    private static final List<User> USERS = List.of(
+            new User(1, "Juan", "juan@example.com"),
+            new User(2, "Maria", "maria@example.com")
+    );
+    private static final String EXPECTED = "id,name,email\n1,Juan,juan@example.com\n2,Maria,maria@example.com\n";
+
     private final CsvJacksonHandler handler = new CsvJacksonHandler();
 
     @TempDir
@@ -96,4 +114,178 @@ class CsvJacksonHandlerTest {
         );
         assertTrue(ex.getMessage().toLowerCase().contains("list"));
     }
+
+    // writeToCsv(List<T>, Class<T>, OutputStream | Writer | Path | WritableByteChannel)
+
+    @Test
+    void writeToCsv_outputStream_writesRowsAndLeavesStreamOpen() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream() {
+            @Override
+            public void close() {
+                fail("the stream belongs to the caller");
+            }
+        };
+
+        handler.writeToCsv(USERS, User.class, out);
+
+        assertEquals(EXPECTED, out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void writeToCsv_writer_writesRows() {
+        StringWriter writer = new StringWriter();
+
+        handler.writeToCsv(USERS, User.class, writer);
+
+        assertEquals(EXPECTED, writer.toString());
+    }
+
+    @Test
+    void writeToCsv_path_usesExactFileName() throws IOException {
+        Path file = tempDir.resolve("exact.txt");
+
+        CsvHandlerFactory.createCsvHandler(16, true).writeToCsv(USERS, User.class, file);
+
+        assertEquals(EXPECTED, Files.readString(file));
+    }
+
+    @Test
+    void writeToCsv_channel_appendsAfterExistingContent() throws IOException {
+        Path file = tempDir.resolve("channel.csv");
+        Files.writeString(file, "# export\n");
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            handler.writeToCsv(USERS, User.class, channel);
+            assertTrue(channel.isOpen());
+        }
+
+        assertEquals("# export\n" + EXPECTED, Files.readString(file));
+    }
+
+    @Test
+    void writeToCsv_nullDestination_throws() {
+        CsvHandlerException ex = assertThrows(
+                CsvHandlerException.class,
+                () -> handler.writeToCsv(USERS, User.class, (Path) null)
+        );
+        assertTrue(ex.getMessage().toLowerCase().contains("destination"));
+    }
+
+    // writeToCsv(Iterator<T> | Stream<T> | Spliterator<T>, Class<T>, ...)
+
+    @Test
+    void writeToCsv_iterator_writesRowsAndCounts() throws IOException {
+        long rows = handler.writeToCsv(USERS.iterator(), User.class, tempDir.resolve("iter").toString());
+
+        assertEquals(2, rows);
+        assertEquals(EXPECTED, Files.readString(tempDir.resolve("iter.csv")));
+    }
+
+    @Test
+    void writeToCsv_lazyStream_isPulledAsItIsWrittenAndClosed() throws IOException {
+        AtomicInteger produced = new AtomicInteger();
+        AtomicInteger closed = new AtomicInteger();
+        Stream<User> users = IntStream.range(0, 50_000)
+                .mapToObj(i -> new User(produced.incrementAndGet(), "n" + i, "u" + i + "@example.com"))
+                .onClose(closed::incrementAndGet);
+
+        long rows = handler.writeToCsv(users, User.class, tempDir.resolve("lazy").toString());
+
+        assertEquals(50_000, rows);
+        assertEquals(50_000, produced.get());
+        assertEquals(1, closed.get());
+        assertEquals(50_001, Files.readAllLines(tempDir.resolve("lazy.csv")).size());
+    }
+
+    @Test
+    void writeToCsv_spliterator_writesInEncounterOrder() throws IOException {
+        long rows = handler.writeToCsv(USERS.spliterator(), User.class, tempDir.resolve("split").toString());
+
+        assertEquals(2, rows);
+        assertEquals(EXPECTED, Files.readString(tempDir.resolve("split.csv")));
+    }
+
+    @Test
+    void writeToCsv_emptyIterator_writesHeaderOnly() throws IOException {
+        long rows = handler.writeToCsv(Collections.<User>emptyIterator(), User.class, tempDir.resolve("none").toString());
+
+        assertEquals(0, rows);
+        assertEquals("id,name,email\n", Files.readString(tempDir.resolve("none.csv")));
+    }
+
+    @Test
+    void writeToCsv_emptyStreamToOutputStream_writesHeaderOnly() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long rows = handler.writeToCsv(Stream.<User>empty().iterator(), User.class, out);
+
+        assertEquals(0, rows);
+        assertEquals("id,name,email\n", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void writeToCsv_nullIterator_throws() {
+        CsvHandlerException ex = assertThrows(
+                CsvHandlerException.class,
+                () -> handler.writeToCsv((Iterator<User>) null, User.class, tempDir.resolve("x").toString())
+        );
+        assertTrue(ex.getMessage().toLowerCase().contains("source"));
+    }
+
+    // readCsv(String, Class<T>) / readCsv(String)
+
+    @Test
+    void readCsv_typed_roundTripsWrittenFile() throws IOException {
+        handler.writeToCsv(USERS, User.class, tempDir.resolve("users").toString());
+
+        try (Stream<User> rows = handler.readCsv(tempDir.resolve("users.csv").toString(), User.class)) {
+            List<User> users = rows.collect(Collectors.toList());
+            assertEquals(2, users.size());
+            assertEquals(2, users.get(1).getId());
+            assertEquals("maria@example.com", users.get(1).getEmail());
+        }
+    }
+
+    @Test
+    void readCsv_typed_bindsReorderedColumnsByHeaderName() throws IOException {
+        Path file = tempDir.resolve("reordered.csv");
+        Files.writeString(file, "email,id,name\njuan@example.com,1,\"Juan, Jr.\"\n");
+
+        try (Stream<User> rows = handler.readCsv(file.toString(), User.class)) {
+            User u = rows.findFirst().orElseThrow();
+            assertEquals(1, u.getId());
+            assertEquals("Juan, Jr.", u.getName());
+            assertEquals("juan@example.com", u.getEmail());
+        }
+    }
+
+    @Test
+    void readCsv_schemaLess_usesHeaderRow() throws IOException {
+        Path file = tempDir.resolve("any.csv");
+        Files.writeString(file, "sku,qty\nA-1,3\nB-2,5\n");
+
+        try (Stream<Map<String, String>> rows = handler.readCsv(file.toString())) {
+            List<Map<String, String>> list = rows.collect(Collectors.toList());
+            assertEquals(List.of(Map.of("sku", "A-1", "qty", "3"), Map.of("sku", "B-2", "qty", "5")), list);
+        }
+    }
+
+    @Test
+    void readCsv_badValue_throwsWhileIterating() throws IOException {
+        Path file = tempDir.resolve("bad.csv");
+        Files.writeString(file, "id,name,email\nabc,Juan,juan@example.com\n");
+
+        try (Stream<User> rows = handler.readCsv(file.toString(), User.class)) {
+            assertThrows(CsvHandlerException.class, () -> rows.forEach(u -> { }));
+        }
+    }
+
+    @Test
+    void readCsv_wrongExtension_throws() {
+        CsvHandlerException ex = assertThrows(
+                CsvHandlerException.class,
+                () -> handler.readCsv(tempDir.resolve("users.txt").toString(), User.class)
+        );
+        assertTrue(ex.getMessage().contains(".csv"));
+    }
 }
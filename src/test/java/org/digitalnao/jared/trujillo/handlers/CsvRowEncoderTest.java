@@ -0,0 +1,162 @@
+package org.digitalnao.jared.trujillo.handlers;
+
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import org.digitalnao.jared.trujillo.classes.User;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvRowEncoderTest {
+
+    private static final String ALPHABET = "aZ09-_.@ ,\"\n\r\t\\#;'|~\u0000\u001f\u007féñ€ ";
+    private static final String EMOJI = "😀";
+
+    private final CsvMapper mapper = new CsvMapper();
+    private final CsvSchema schema = CsvSchema.builder()
+            .addColumn("text", CsvSchema.ColumnType.STRING)
+            .addColumn("int", CsvSchema.ColumnType.NUMBER)
+            .addColumn("long", CsvSchema.ColumnType.NUMBER)
+            .addColumn("double", CsvSchema.ColumnType.NUMBER)
+            .addColumn("float", CsvSchema.ColumnType.NUMBER)
+            .addColumn("flag", CsvSchema.ColumnType.BOOLEAN)
+            .addColumn("empty", CsvSchema.ColumnType.STRING)
+            .build();
+
+    @Test
+    void encoder_randomRows_matchJacksonByteForByte() throws IOException {
+        Random random = new Random(42);
+        List<Object[]> rows = new ArrayList<>();
+        long[] longs = { 0, -1, Integer.MIN_VALUE, Integer.MAX_VALUE + 1L, Long.MIN_VALUE, Long.MAX_VALUE };
+        double[] doubles = { 0.0, -0.0, 1e-7, 1e21, Double.NaN, Double.NEGATIVE_INFINITY, Double.MIN_VALUE };
+        for (int i = 0; i < 5_000; i++) {
+            rows.add(new Object[] {
+                    randomText(random),
+                    i % 97 == 0 ? Integer.MIN_VALUE : random.nextInt(),
+                    i % 5 == 0 ? longs[random.nextInt(longs.length)] : random.nextLong(),
+                    i % 5 == 0 ? doubles[random.nextInt(doubles.length)] : random.nextDouble() * 1e6,
+                    random.nextFloat(),
+                    random.nextBoolean(),
+                    null
+            });
+        }
+
+        assertArrayEquals(jackson(rows), encoder(rows));
+    }
+
+    @Test
+    void encoder_quotingBoundaries_matchJackson() throws IOException {
+        List<Object[]> rows = new ArrayList<>();
+        for (String text : List.of("", "-", "x".repeat(24), "x".repeat(25), "a\"b", "\"", "back\\slash",
+                "café", "€" + EMOJI, EMOJI.repeat(13), "ends with space ", "x".repeat(40_000))) {
+            rows.add(new Object[] { text, 1, 2L, 3.5, 4.5f, true, null });
+        }
+
+        assertArrayEquals(jackson(rows), encoder(rows));
+    }
+
+    @Test
+    void encoder_loneSurrogate_failsLikeJackson() {
+        for (String text : List.of("a\uD83D", "\uDE00b", "\uD83Dx")) {
+            List<Object[]> rows = List.<Object[]>of(new Object[] { text, 1, 2L, 3.0, 4f, false, null });
+            assertThrows(IOException.class, () -> jackson(rows), text);
+            assertThrows(IOException.class, () -> encoder(rows), text);
+        }
+    }
+
+    @Test
+    void writeRows_generatedCodec_matchesReflectiveWriter() throws IOException {
+        List<User> users = new ArrayList<>();
+        users.add(new User(Integer.MIN_VALUE, "María \"M\", Jr.\nline", null));
+        users.add(null);
+        users.add(new User(7, "", "x".repeat(30) + EMOJI));
+        CsvJacksonHandler handler = new CsvJacksonHandler();
+
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        long rows = handler.writeRows(users.iterator(), User.class, encoded, true);
+        ByteArrayOutputStream reflective = new ByteArrayOutputStream();
+        try (SequenceWriter writer = mapper.writer(mapper.schemaFor(User.class).withHeader()).writeValues(reflective)) {
+            writer.writeAll(users);
+        }
+
+        assertNotNull(GeneratedCodecModule.find(User.class));
+        assertEquals(3, rows);
+        assertEquals(reflective.toString("UTF-8"), encoded.toString("UTF-8"));
+    }
+
+    @Test
+    void open_nestedOnSameThread_doesNotShareBuffer() throws IOException {
+        ByteArrayOutputStream outer = new ByteArrayOutputStream();
+        ByteArrayOutputStream inner = new ByteArrayOutputStream();
+        try (CsvRowEncoder first = CsvRowEncoder.open(outer)) {
+            first.writeString("outer");
+            try (CsvRowEncoder second = CsvRowEncoder.open(inner)) {
+                second.writeString("inner");
+                second.endRow();
+            }
+            first.endRow();
+        }
+
+        assertEquals("outer\n", outer.toString("UTF-8"));
+        assertEquals("inner\n", inner.toString("UTF-8"));
+    }
+
+    private String randomText(Random random) {
+        if (random.nextInt(10) == 0) {
+            return null;
+        }
+        StringBuilder text = new StringBuilder();
+        int length = random.nextInt(random.nextInt(8) == 0 ? 200 : 30);
+        for (int i = 0; i < length; i++) {
+            if (random.nextInt(20) == 0) {
+                text.append(EMOJI);
+            } else {
+                text.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+            }
+        }
+        return text.toString();
+    }
+
+    private byte[] jackson(List<Object[]> rows) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (SequenceWriter writer = mapper.writer(schema.withHeader()).writeValues(out)) {
+            // rows go in as maps: Jackson's array mode drops leading nulls, unlike bean and map rows
+            List<String> names = schema.getColumnNames();
+            for (Object[] row : rows) {
+                Map<String, Object> values = new LinkedHashMap<>();
+                for (int i = 0; i < row.length; i++) {
+                    values.put(names.get(i), row[i]);
+                }
+                writer.write(values);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private byte[] encoder(List<Object[]> rows) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (CsvRowEncoder encoder = CsvRowEncoder.open(out)) {
+            encoder.writeHeader(schema.getColumnNames());
+            for (Object[] row : rows) {
+                encoder.writeString((String) row[0]);
+                encoder.writeInt((Integer) row[1]);
+                encoder.writeLong((Long) row[2]);
+                encoder.writeDouble((Double) row[3]);
+                encoder.writeFloat((Float) row[4]);
+                encoder.writeBoolean((Boolean) row[5]);
+                encoder.writeNull();
+                encoder.endRow();
+            }
+        }
+        return out.toByteArray();
+    }
+}
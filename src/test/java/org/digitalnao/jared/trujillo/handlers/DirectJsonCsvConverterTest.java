@@ -0,0 +1,279 @@
+package org.digitalnao.jared.trujillo.handlers;
+
+import org.digitalnao.jared.trujillo.classes.User;
+import org.digitalnao.jared.trujillo.exceptions.JsonHandlerException;
+import org.digitalnao.jared.trujillo.interfaces.JsonCsvConverter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Differential tests: every input is converted by data binding and by the direct reader, and the
+ * two must write the same bytes or fail with the same exception type.
+ */
+class DirectJsonCsvConverterTest {
+
+    private static final String ALPHABET = "aZ09-_.@ ,\"\\/\n\t\u0001\u001féñ€日😀";
+
+    private final JsonCsvConverter converter = JsonCsvConverterFactory.createJsonCsvConverter();
+    private final DirectJsonCsvConverter direct = new DirectJsonCsvConverter(new JsonJacksonHandler(),
+            new CsvJacksonHandler());
+
+    @TempDir
+    Path tempDir;
+
+    /** Flat class without a generated codec, written through Jackson's CSV generator. */
+    public static class Reading {
+        private long sensor;
+        private double value;
+        private boolean valid;
+        private Integer batch;
+        private String unit;
+
+        public long getSensor() { return sensor; }
+        public void setSensor(long sensor) { this.sensor = sensor; }
+        public double getValue() { return value; }
+        public void setValue(double value) { this.value = value; }
+        public boolean isValid() { return valid; }
+        public void setValid(boolean valid) { this.valid = valid; }
+        public Integer getBatch() { return batch; }
+        public void setBatch(Integer batch) { this.batch = batch; }
+        public String getUnit() { return unit; }
+        public void setUnit(String unit) { this.unit = unit; }
+    }
+
+    /** Not flat: a list column makes the whole conversion go through Jackson. */
+    public static class Tagged {
+        private int id;
+        private List<String> tags;
+
+        public int getId() { return id; }
+        public void setId(int id) { this.id = id; }
+        public List<String> getTags() { return tags; }
+        public void setTags(List<String> tags) { this.tags = tags; }
+    }
+
+    @Test
+    void convertDirect_randomUsers_matchesDataBindingInArraysAndJsonLines() throws IOException {
+        long records = 0;
+        long fallbacks = 0;
+        for (int seed = 0; seed < 40; seed++) {
+            Random random = new Random(seed);
+            List<String> users = new ArrayList<>();
+            for (int i = 0, count = 1 + random.nextInt(seed < 35 ? 60 : 3_000); i < count; i++) {
+                users.add(randomUser(random));
+            }
+            byte[] json = join(users, seed % 2 == 0, random);
+
+            String expected = expected(json, User.class);
+            DirectJsonCsvConverter.Counts counts = assertDirect(expected, json, User.class, seed % 3 == 0);
+            records += counts.records();
+            fallbacks += counts.fallbacks();
+        }
+        assertTrue(fallbacks > 0, "no record exercised the fallback");
+        assertTrue(fallbacks < records / 4, fallbacks + " of " + records + " records fell back");
+    }
+
+    @Test
+    void convertDirect_flatClassWithoutCodec_matchesDataBinding() throws IOException {
+        String[] values = { "0", "-0", "-0.0", "5", "0.1", "1e300", "-2.5E-3", "123456789012345678",
+                "1234567890123456789012", "1E400", "\"7\"", "null" };
+        Random random = new Random(7);
+        List<String> readings = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            readings.add("{\"sensor\":" + (random.nextBoolean() ? random.nextLong() : random.nextInt(1000))
+                    + ",\"value\":" + values[random.nextInt(values.length)]
+                    + ",\"valid\":" + (random.nextInt(10) == 0 ? "null" : random.nextBoolean())
+                    + ",\"batch\":" + (random.nextInt(5) == 0 ? "null" : String.valueOf(random.nextInt()))
+                    + ",\"unit\":" + (random.nextInt(5) == 0 ? "null" : quote(randomText(random), random)) + "}");
+        }
+        byte[] json = join(readings, true, random);
+
+        DirectJsonCsvConverter.Counts counts = assertDirect(expected(json, Reading.class), json, Reading.class, true);
+
+        assertTrue(counts.fallbacks() < counts.records() / 2, counts.toString());
+    }
+
+    @Test
+    void convertDirect_malformedInput_failsLikeDataBinding() {
+        List<String> inputs = List.of("", "  \n", "[", "[{\"id\":1,\"name\":\"a\",\"email\":\"b\"}",
+                "[{\"id\":1,\"name\":\"a\",\"email\":\"b\"},]", "[{\"id\":1,\"name\":\"a\",\"email\":\"b\"} x]",
+                "{\"id\":01,\"name\":\"a\",\"email\":\"b\"}", "{\"id\":2147483648,\"name\":\"a\",\"email\":\"b\"}",
+                "{\"id\":1,\"name\":\"a\",\"email\":\"b\",\"age\":3}", "{\"id\":1,\"name\":\"a\nb\",\"email\":\"b\"}",
+                "{\"id\":1,\"name\":\"\\x\",\"email\":\"b\"}", "{\"id\":1,\"name\":\"a\",\"email\":\"b\"",
+                "{\"id\":1,\"name\":{\"first\":\"a\"},\"email\":\"b\"}", "{\"id\":1 \"name\":\"a\",\"email\":\"b\"}",
+                "[1, 2]", "{\"id\":tru,\"name\":\"a\",\"email\":\"b\"}", "null", "[null]",
+                "[{\"id\":1,\"name\":\"a\",\"email\":\"b\"},null,{\"id\":2,\"name\":\"c\",\"email\":\"d\"}]",
+                "{\"id\":1,\"name\":\"a\",\"email\":\"b\"}\nnull\n{\"id\":2,\"name\":\"c\",\"email\":\"d\"}");
+        for (String input : inputs) {
+            byte[] json = input.getBytes(StandardCharsets.UTF_8);
+            RuntimeException expected = assertThrows(RuntimeException.class,
+                    () -> converter.convert(new ByteArrayInputStream(json), new ByteArrayOutputStream(), User.class),
+                    input);
+            RuntimeException actual = assertThrows(RuntimeException.class,
+                    () -> converter.convertDirect(new ByteArrayInputStream(json), new ByteArrayOutputStream(), User.class),
+                    input);
+            assertEquals(expected.getClass(), actual.getClass(), input);
+            assertEquals(expected.getMessage(), actual.getMessage(), input);
+        }
+        byte[] invalidUtf8 = { '{', '"', 'i', 'd', '"', ':', '1', ',', '"', 'n', 'a', 'm', 'e', '"', ':', '"',
+                (byte) 0xC3, '"', ',', '"', 'e', 'm', 'a', 'i', 'l', '"', ':', '"', 'b', '"', '}' };
+        assertThrows(JsonHandlerException.class,
+                () -> converter.convertDirect(new ByteArrayInputStream(invalidUtf8), new ByteArrayOutputStream(), User.class));
+    }
+
+    @Test
+    void convertDirect_nonFlatClassLongRecordOrUtf16_fallsBackToJackson() throws IOException {
+        byte[] tagged = "[{\"id\":1,\"tags\":[\"a\",\"b\"]},{\"id\":2,\"tags\":[]}]".getBytes(StandardCharsets.UTF_8);
+        DirectJsonCsvConverter.Counts counts = assertDirect(expected(tagged, Tagged.class), tagged, Tagged.class, false);
+        assertEquals(new DirectJsonCsvConverter.Counts(2, 2), counts);
+
+        String longName = "n".repeat(DirectJsonCsvConverter.BUFFER_SIZE * 2);
+        byte[] json = ("{\"id\":1,\"name\":\"a\",\"email\":\"b\"}\n{\"id\":2,\"name\":\"" + longName
+                + "\",\"email\":\"c\"}\n{\"id\":3,\"name\":\"d\",\"email\":\"e\"}").getBytes(StandardCharsets.UTF_8);
+        counts = assertDirect(expected(json, User.class), json, User.class, false);
+        assertEquals(new DirectJsonCsvConverter.Counts(3, 1), counts);
+
+        byte[] utf16 = "[{\"id\":1,\"name\":\"é\",\"email\":\"b\"}]".getBytes(StandardCharsets.UTF_16LE);
+        counts = assertDirect(expected(utf16, User.class), utf16, User.class, false);
+        assertEquals(new DirectJsonCsvConverter.Counts(1, 1), counts);
+
+        Path file = Files.write(tempDir.resolve("users.json"), json);
+        assertEquals(3, converter.convertDirect(file.toString(), tempDir.resolve("direct").toString(), User.class));
+        converter.convert(file.toString(), tempDir.resolve("bound").toString(), User.class);
+        assertEquals(Files.readString(tempDir.resolve("bound.csv")), Files.readString(tempDir.resolve("direct.csv")));
+    }
+
+    private String expected(byte[] json, Class<?> type) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        converter.convert(new ByteArrayInputStream(json), out, type);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private DirectJsonCsvConverter.Counts assertDirect(String expected, byte[] json, Class<?> type, boolean trickle)
+            throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        InputStream in = trickle ? new TrickleInputStream(json, new Random(json.length)) : new ByteArrayInputStream(json);
+        DirectJsonCsvConverter.Counts counts = direct.convert(in, out, type);
+        assertEquals(expected, out.toString(StandardCharsets.UTF_8));
+
+        ByteArrayOutputStream publicOut = new ByteArrayOutputStream();
+        converter.convertDirect(new ByteArrayInputStream(json), publicOut, type);
+        assertEquals(expected, publicOut.toString(StandardCharsets.UTF_8));
+        return counts;
+    }
+
+    /** A user as some JSON writer might produce it, now and then with what only Jackson converts. */
+    private static String randomUser(Random random) {
+        List<String> fields = new ArrayList<>();
+        int roll = random.nextInt(40);
+        String id = switch (roll) {
+            case 0 -> "\"42\"";
+            case 1 -> "7.0";
+            case 2 -> "null";
+            case 3 -> String.valueOf(Integer.MIN_VALUE);
+            case 4 -> "-0";
+            default -> String.valueOf(random.nextInt());
+        };
+        if (roll != 5) {
+            fields.add("\"id\"" + space(random) + ":" + space(random) + id);
+        }
+        fields.add("\"name\":" + space(random) + (roll == 6 ? "null" : roll == 7 ? "12" : quote(randomText(random), random)));
+        fields.add("\"email\":" + quote(randomText(random), random));
+        if (roll == 8) {
+            fields.add("\"name\":\"again\"");
+        }
+        if (random.nextInt(4) == 0) {
+            Collections.shuffle(fields, random);
+        }
+        return "{" + space(random) + String.join("," + space(random), fields) + space(random) + "}";
+    }
+
+    private static String randomText(Random random) {
+        StringBuilder text = new StringBuilder();
+        int length = random.nextInt(6) == 0 ? random.nextInt(60) : random.nextInt(12);
+        boolean plain = random.nextBoolean();
+        int[] codePoints = ALPHABET.codePoints().toArray();
+        for (int i = 0; i < length; i++) {
+            text.appendCodePoint(plain ? 'a' + random.nextInt(26) : codePoints[random.nextInt(codePoints.length)]);
+        }
+        return text.toString();
+    }
+
+    /** Quotes text as JSON, escaping what must be and, now and then, what need not be. */
+    private static String quote(String text, Random random) {
+        StringBuilder json = new StringBuilder("\"");
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c == '\n') {
+                json.append("\\n");
+            } else if (c < ' ' || !Character.isSurrogate(c) && random.nextInt(30) == 0) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else if (c == '/' && random.nextBoolean()) {
+                json.append("\\/");
+            } else {
+                json.append(c);
+            }
+        }
+        return json.append('"').toString();
+    }
+
+    private static String space(Random random) {
+        return switch (random.nextInt(8)) {
+            case 0 -> " ";
+            case 1 -> "\n\t ";
+            default -> "";
+        };
+    }
+
+    private static byte[] join(List<String> records, boolean array, Random random) {
+        String json = array
+                ? "[" + space(random) + String.join("," + space(random), records) + space(random) + "]"
+                : String.join("\n", records) + (random.nextBoolean() ? "\n" : "");
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /** Hands out a few bytes per read, so records keep straddling the reader's buffer refills. */
+    private static final class TrickleInputStream extends InputStream {
+
+        private final byte[] data;
+        private final Random random;
+        private int position;
+
+        TrickleInputStream(byte[] data, Random random) {
+            this.data = data;
+            this.random = random;
+        }
+
+        @Override
+        public int read() {
+            return position < data.length ? data[position++] & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (position >= data.length) {
+                return -1;
+            }
+            int n = Math.min(Math.min(len, data.length - position), 1 + random.nextInt(64));
+            System.arraycopy(data, position, b, off, n);
+            position += n;
+            return n;
+        }
+    }
+}
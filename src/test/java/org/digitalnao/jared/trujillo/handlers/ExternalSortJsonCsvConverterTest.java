@@ -0,0 +1,100 @@
+package org.digitalnao.jared.trujillo.handlers;
+
+import org.digitalnao.jared.trujillo.classes.SortOptions;
+import org.digitalnao.jared.trujillo.classes.SortResult;
+import org.digitalnao.jared.trujillo.classes.User;
+import org.digitalnao.jared.trujillo.exceptions.CsvHandlerException;
+import org.digitalnao.jared.trujillo.interfaces.JsonCsvConverter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExternalSortJsonCsvConverterTest {
+
+    private final JsonCsvConverter converter = JsonCsvConverterFactory.createJsonCsvConverter();
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void convertSorted_inputOverBudget_spillsRunsAndMatchesSortedInput() throws IOException {
+        List<Integer> ids = new ArrayList<>(IntStream.range(0, 2_000).boxed().toList());
+        Collections.shuffle(ids, new Random(7));
+        Path shuffled = tempDir.resolve("shuffled.json");
+        Files.writeString(shuffled, TestUsers.array(ids));
+        Path ordered = tempDir.resolve("ordered.json");
+        Files.writeString(ordered, TestUsers.array(0, 2_000));
+        Path spill = Files.createDirectory(tempDir.resolve("spill"));
+
+        SortResult result = converter.convertSorted(shuffled.toString(), tempDir.resolve("sorted").toString(),
+                User.class, SortOptions.by("id").withMemoryBytes(16 * 1024).withSpillDirectory(spill));
+        converter.convert(ordered.toString(), tempDir.resolve("expected").toString(), User.class);
+
+        assertEquals(2_000, result.records());
+        assertTrue(result.runs() > 2, result.summary());
+        assertTrue(result.mergePasses() > 1, result.summary());
+        assertTrue(result.spilledBytes() > 0);
+        assertEquals(Files.readString(tempDir.resolve("expected.csv")), Files.readString(tempDir.resolve("sorted.csv")));
+        try (var left = Files.list(spill)) {
+            assertEquals(0, left.count());
+        }
+    }
+
+    @Test
+    void convertSorted_dedup_keepsFirstRecordOfEachKey_withSortedOrHashDedup() {
+        String json = "{\"id\":3,\"name\":\"b\",\"email\":\"first3\"}\n"
+                + "{\"id\":1,\"name\":\"b\",\"email\":\"first1\"}\n"
+                + "{\"id\":3,\"name\":\"b\",\"email\":\"second3\"}\n"
+                + "{\"id\":2,\"name\":\"a\",\"email\":\"first2\"}\n"
+                + "{\"id\":1,\"name\":\"b\",\"email\":\"second1\"}\n";
+        List<String> expected = List.of("id,name,email", "2,a,first2", "3,b,first3", "1,b,first1");
+
+        for (SortOptions.Dedup dedup : List.of(SortOptions.Dedup.SORTED, SortOptions.Dedup.HASH)) {
+            for (long memory : List.of(SortOptions.DEFAULT_MEMORY_BYTES, 1L)) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                SortResult result = converter.convertSorted(
+                        new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), out, User.class,
+                        SortOptions.by("name", "-id").withDedup(dedup).withMemoryBytes(memory));
+
+                String mode = dedup + " with " + memory + " bytes";
+                assertEquals(3, result.records(), mode);
+                assertEquals(2, result.duplicates(), mode);
+                assertEquals(expected, out.toString(StandardCharsets.UTF_8).lines().toList(), mode);
+            }
+        }
+    }
+
+    @Test
+    void convertSorted_smallInputOrBadKey_sortsInMemoryOrThrows() throws IOException {
+        Path json = tempDir.resolve("users.json");
+        Files.writeString(json, TestUsers.array(List.of(2, 0, 1)));
+
+        SortResult result = converter.convertSorted(json.toString(), tempDir.resolve("out").toString(), User.class,
+                SortOptions.by("-id"));
+
+        assertEquals(0, result.runs());
+        assertEquals(0, result.mergePasses());
+        assertEquals(List.of("id,name,email", "2,n2,u2@example.com", "1,n1,u1@example.com", "0,n0,u0@example.com"),
+                Files.readAllLines(tempDir.resolve("out.csv")));
+        CsvHandlerException e = assertThrows(CsvHandlerException.class,
+                () -> converter.convertSorted(json.toString(), tempDir.resolve("bad").toString(), User.class,
+                        SortOptions.by("age")));
+        assertTrue(e.getMessage().contains("'age'"), e.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> SortOptions.by());
+        assertThrows(IllegalArgumentException.class, () -> SortOptions.by("id", "-id"));
+        assertThrows(IllegalArgumentException.class, () -> SortOptions.by("id").withMemoryBytes(0));
+    }
+}
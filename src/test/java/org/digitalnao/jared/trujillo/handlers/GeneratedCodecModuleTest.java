@@ -0,0 +1,164 @@
+package org.digitalnao.jared.trujillo.handlers;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.UnrecognizedPropertyException;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import org.digitalnao.jared.trujillo.classes.User;
+import org.digitalnao.jared.trujillo.codegen.CodecProcessor;
+import org.digitalnao.jared.trujillo.interfaces.ModelCodec;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GeneratedCodecModuleTest {
+
+    private final ObjectMapper reflectiveJson = new ObjectMapper();
+    private final CsvMapper reflectiveCsv = new CsvMapper();
+    private final ObjectMapper generatedJson = new ObjectMapper().registerModule(new GeneratedCodecModule());
+    private final CsvMapper generatedCsv = (CsvMapper) new CsvMapper().registerModule(new GeneratedCodecModule());
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void find_user_returnsGeneratedCodecWithReflectiveSchema() {
+        ModelCodec<User> codec = GeneratedCodecModule.find(User.class);
+
+        assertNotNull(codec);
+        assertEquals(reflectiveCsv.schemaFor(User.class).getColumnDesc(), codec.csvSchema().getColumnDesc());
+        assertNull(GeneratedCodecModule.find(String.class));
+        assertNull(GeneratedCodecModule.find(GeneratedCodecModuleTest.class));
+    }
+
+    @Test
+    void user_jsonAndCsv_matchReflectiveOutput() throws Exception {
+        List<User> users = List.of(new User(1, "Juan", "juan@example.com"),
+                new User(-2, "María \"M\", Jr.\nline", null), new User(0, null, ""));
+        CsvSchema schema = reflectiveCsv.schemaFor(User.class).withHeader();
+
+        assertEquals(reflectiveJson.writeValueAsString(users), generatedJson.writeValueAsString(users));
+        assertEquals(reflectiveCsv.writer(schema).writeValueAsString(users),
+                generatedCsv.writer(schema).writeValueAsString(users));
+    }
+
+    @Test
+    void user_readingEdgeCases_matchesReflectiveBinding() throws Exception {
+        String[] inputs = {
+                "{\"id\":1,\"name\":\"Juan\",\"email\":\"j@x.com\"}",
+                "{\"email\":null,\"id\":\"42\",\"name\":7}",
+                "{\"id\":null,\"name\":\"\"}",
+                "{\"id\":3.0}",
+                "{}"
+        };
+        for (String input : inputs) {
+            User expected = reflectiveJson.readValue(input, User.class);
+            User actual = generatedJson.readValue(input, User.class);
+            assertEquals(expected.toString(), actual.toString(), input);
+        }
+
+        String csv = "email,id,name\nj@x.com,1,Juan\n,,\n";
+        CsvSchema header = CsvSchema.emptySchema().withHeader();
+        assertEquals(
+                reflectiveCsv.readerFor(User.class).with(header).readValues(csv).readAll().toString(),
+                generatedCsv.readerFor(User.class).with(header).readValues(csv).readAll().toString());
+    }
+
+    @Test
+    void user_unknownProperty_honoursFailOnUnknownProperties() throws Exception {
+        String input = "{\"id\":1,\"extra\":{\"nested\":[1,2]},\"name\":\"Juan\"}";
+
+        assertThrows(UnrecognizedPropertyException.class, () -> generatedJson.readValue(input, User.class));
+        User lenient = generatedJson.readerFor(User.class)
+                .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES).readValue(input);
+        assertEquals("Juan", lenient.getName());
+    }
+
+    @Test
+    void processor_allSupportedTypes_generatesEquivalentCodec() throws Exception {
+        Class<?> model = compile("Reading", """
+                package gen;
+                @com.fasterxml.jackson.annotation.JsonPropertyOrder({ "sensor", "value", "count", "total", "ratio", "active", "valid", "level" })
+                public class Reading {
+                    private String sensor; private double value; private Integer count; private long total;
+                    private Float ratio; private boolean active; private Boolean valid; private Long level;
+                    public Reading() { }
+                    public String getSensor() { return sensor; } public void setSensor(String v) { sensor = v; }
+                    public double getValue() { return value; } public void setValue(double v) { value = v; }
+                    public Integer getCount() { return count; } public void setCount(Integer v) { count = v; }
+                    public long getTotal() { return total; } public void setTotal(long v) { total = v; }
+                    public Float getRatio() { return ratio; } public void setRatio(Float v) { ratio = v; }
+                    public boolean isActive() { return active; } public void setActive(boolean v) { active = v; }
+                    public Boolean getValid() { return valid; } public void setValid(Boolean v) { valid = v; }
+                    public Long getLevel() { return level; } public void setLevel(Long v) { level = v; }
+                }
+                """);
+        assertNotNull(GeneratedCodecModule.find(model));
+
+        String[] inputs = {
+                "{\"sensor\":\"s1\",\"value\":1.5,\"count\":3,\"total\":9007199254740993,\"ratio\":0.25,\"active\":true,\"valid\":false,\"level\":7}",
+                "{\"sensor\":null,\"value\":2,\"count\":null,\"total\":\"12\",\"ratio\":null,\"active\":\"true\",\"valid\":null,\"level\":null}",
+                "{\"value\":null,\"count\":\"5\",\"active\":false}"
+        };
+        for (String input : inputs) {
+            Object expected = reflectiveJson.readValue(input, model);
+            Object actual = generatedJson.readValue(input, model);
+            assertEquals(reflectiveJson.writeValueAsString(expected), generatedJson.writeValueAsString(actual), input);
+
+            CsvSchema schema = reflectiveCsv.schemaFor(model).withHeader();
+            assertEquals(schema.getColumnDesc(), GeneratedCodecModule.find(model).csvSchema().getColumnDesc());
+            assertEquals(reflectiveCsv.writer(schema).writeValueAsString(expected),
+                    generatedCsv.writer(schema).writeValueAsString(actual));
+        }
+    }
+
+    @Test
+    void processor_unsupportedModel_fallsBackToReflection() throws Exception {
+        Class<?> model = compile("Tagged", """
+                package gen;
+                @com.fasterxml.jackson.annotation.JsonPropertyOrder({ "tags" })
+                public class Tagged {
+                    private java.util.List<String> tags;
+                    public java.util.List<String> getTags() { return tags; }
+                    public void setTags(java.util.List<String> tags) { this.tags = tags; }
+                }
+                """);
+
+        assertNull(GeneratedCodecModule.find(model));
+        Object value = generatedJson.readValue("{\"tags\":[\"a\",\"b\"]}", model);
+        assertEquals("{\"tags\":[\"a\",\"b\"]}", generatedJson.writeValueAsString(value));
+    }
+
+    private Class<?> compile(String name, String source) throws Exception {
+        Path src = tempDir.resolve("src/gen/" + name + ".java");
+        Path out = tempDir.resolve("classes");
+        Files.createDirectories(src.getParent());
+        Files.createDirectories(out);
+        Files.writeString(src, source);
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        List<String> args = new ArrayList<>(List.of(
+                "-classpath", System.getProperty("java.class.path"),
+                "-processor", CodecProcessor.class.getName(),
+                "-s", out.toString(), "-d", out.toString(), src.toString()));
+        ByteArrayOutputStream diagnostics = new ByteArrayOutputStream();
+        int status = compiler.run(null, diagnostics, diagnostics, args.toArray(new String[0]));
+        assertEquals(0, status, diagnostics.toString(StandardCharsets.UTF_8));
+
+        URLClassLoader loader = new URLClassLoader(new URL[] { out.toUri().toURL() }, getClass().getClassLoader());
+        return loader.loadClass("gen." + name);
+    }
+}
@@ -0,0 +1,229 @@
+package org.digitalnao.jared.trujillo.handlers;
+
+import org.digitalnao.jared.trujillo.classes.IncrementalOptions;
+import org.digitalnao.jared.trujillo.classes.IncrementalResult;
+import org.digitalnao.jared.trujillo.classes.User;
+import org.digitalnao.jared.trujillo.exceptions.CsvHandlerException;
+import org.digitalnao.jared.trujillo.exceptions.JsonHandlerException;
+import org.digitalnao.jared.trujillo.interfaces.JsonCsvConverter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IncrementalJsonCsvConverterTest {
+
+    private static final IncrementalOptions BY_ID = IncrementalOptions.byId("id");
+
+    private final JsonCsvConverter converter = JsonCsvConverterFactory.createJsonCsvConverter();
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void convertIncremental_unchangedThenGrownArray_readsOnlyTheAppendedRecords() throws IOException {
+        Path json = tempDir.resolve("users.json");
+        write(json, TestUsers.array(0, 1_000), 1);
+        String base = tempDir.resolve("users").toString();
+
+        IncrementalResult full = converter.convertIncremental(json.toString(), base, User.class, BY_ID);
+        IncrementalResult same = converter.convertIncremental(json.toString(), base, User.class, BY_ID);
+        write(json, TestUsers.array(0, 1_100), 2);
+        IncrementalResult grown = converter.convertIncremental(json.toString(), base, User.class, BY_ID);
+
+        assertEquals(IncrementalResult.Mode.FULL, full.mode());
+        assertEquals(1_000, full.added());
+        assertEquals(IncrementalResult.Mode.UNCHANGED, same.mode());
+        assertEquals(0, same.bytesRead());
+        assertEquals(IncrementalResult.Mode.APPENDED, grown.mode(), grown.summary());
+        assertEquals(1_100, grown.records());
+        assertEquals(100, grown.added());
+        assertEquals(0, grown.changed());
+        assertTrue(grown.bytesRead() < Files.size(json) / 5, grown.summary());
+        assertEquals(expected(json), Files.readString(tempDir.resolve("users.csv")));
+        assertTrue(Files.exists(tempDir.resolve("users.csv" + IncrementalOptions.SUFFIX)));
+    }
+
+    @Test
+    void convertIncremental_jsonLinesRepeatingIds_replacesRowsInPlace() throws IOException {
+        Path json = tempDir.resolve("users.jsonl");
+        String lines = line(1, "a") + line(2, "b") + line(3, "c");
+        write(json, lines, 1);
+        String base = tempDir.resolve("users").toString();
+        converter.convertIncremental(json.toString(), base, User.class, BY_ID);
+
+        // id 1 grows, shifting every row behind it; id 3 comes again unchanged
+        lines += line(1, "a much longer name, with a comma") + line(4, "d") + line(3, "c");
+        write(json, lines, 2);
+        IncrementalResult first = converter.convertIncremental(json.toString(), base, User.class, BY_ID);
+        // id 3 must be found where the previous patch moved it; id 5 has a line feed inside quotes
+        lines += line(3, "\"quoted\"\nname") + line(2, "b") + line(5, "multi\nline") + line(6, "f");
+        write(json, lines, 3);
+        IncrementalResult second = converter.convertIncremental(json.toString(), base, User.class, BY_ID);
+        // id 6 is found behind the quoted line feed
+        lines += line(6, "changed");
+        write(json, lines, 4);
+        IncrementalResult third = converter.convertIncremental(json.toString(), base, User.class, BY_ID);
+
+        assertEquals(IncrementalResult.Mode.APPENDED, first.mode());
+        assertEquals(1, first.added());
+        assertEquals(1, first.changed());
+        assertEquals(1, first.unchanged());
+        assertEquals(IncrementalResult.Mode.APPENDED, second.mode());
+        assertEquals(1, second.changed());
+        assertEquals(2, second.added());
+        assertEquals(1, third.changed());
+        assertEquals(6, third.records());
+        assertEquals(csv(line(1, "a much longer name, with a comma") + line(2, "b") + line(3, "\"quoted\"\nname")
+                        + line(4, "d") + line(5, "multi\nline") + line(6, "changed")),
+                Files.readString(tempDir.resolve("users.csv")));
+    }
+
+    @Test
+    void convertIncremental_editedOrDeletedRecords_rescansAndCopiesUnchangedRows() throws IOException {
+        Path json = tempDir.resolve("users.json");
+        write(json, TestUsers.array(0, 50), 1);
+        String base = tempDir.resolve("users").toString();
+        converter.convertIncremental(json.toString(), base, User.class, BY_ID);
+
+        // reformatted, record 10 edited, record 20 deleted, record 50 added
+        String edited = IntStream.range(0, 51)
+                .filter(i -> i != 20)
+                .mapToObj(i -> i == 10 ? "{ \"id\": 10, \"name\": \"edited\", \"email\": \"u10@example.com\" }" : TestUsers.user(i))
+                .collect(Collectors.joining(",\n  ", "[\n  ", "\n]"));
+        write(json, edited, 2);
+        IncrementalResult rescanned = converter.convertIncremental(json.toString(), base, User.class, BY_ID);
+
+        assertEquals(IncrementalResult.Mode.RESCANNED, rescanned.mode());
+        assertEquals(50, rescanned.records());
+        assertEquals(1, rescanned.added());
+        assertEquals(1, rescanned.changed());
+        assertEquals(1, rescanned.removed());
+        assertEquals(48, rescanned.unchanged());
+        assertEquals(expected(json), Files.readString(tempDir.resolve("users.csv")));
+
+        // a CSV file modified behind the index's back is exported again from scratch
+        Files.writeString(tempDir.resolve("users.csv"), "id,name,email\n", StandardOpenOption.APPEND);
+        IncrementalResult full = converter.convertIncremental(json.toString(), base, User.class,
+                BY_ID.withRescan(true));
+        assertEquals(IncrementalResult.Mode.FULL, full.mode());
+        assertEquals(expected(json), Files.readString(tempDir.resolve("users.csv")));
+    }
+
+    @Test
+    void convertIncremental_rescanOfRepeatedIds_keepsTheLastRecordWithoutSerializingAgain() throws IOException {
+        Path json = tempDir.resolve("users.jsonl");
+        write(json, line(1, "a") + line(2, "b") + line(1, "c") + line(3, "d") + line(1, "e"), 1);
+        String base = tempDir.resolve("users").toString();
+
+        IncrementalResult full = converter.convertIncremental(json.toString(), base, User.class, BY_ID);
+        IncrementalResult same = converter.convertIncremental(json.toString(), base, User.class,
+                BY_ID.withRescan(true));
+        // the first record of id 1 is the one exported last time, so its row is replaced after all
+        write(json, line(1, "a") + line(2, "b") + line(3, "d"), 2);
+        IncrementalResult last = converter.convertIncremental(json.toString(), base, User.class, BY_ID);
+
+        assertEquals(3, full.added());
+        assertEquals(1, full.changed());
+        assertEquals(IncrementalResult.Mode.RESCANNED, same.mode());
+        assertEquals(0, same.added());
+        assertEquals(0, same.changed());
+        assertEquals(3, same.unchanged(), same.summary());
+        assertEquals(IncrementalResult.Mode.RESCANNED, last.mode());
+        assertEquals(1, last.changed());
+        assertEquals(csv(line(1, "a") + line(2, "b") + line(3, "d")), Files.readString(tempDir.resolve("users.csv")));
+    }
+
+    @Test
+    void convertIncremental_inputGrownWhileExported_exportsTheAppendedRecordsNextTime() throws IOException {
+        Path json = tempDir.resolve("users.jsonl");
+        write(json, TestUsers.lines(0, 50), 1);
+        String base = tempDir.resolve("users").toString();
+        converter.convertIncremental(json.toString(), base, User.class, BY_ID);
+
+        // the index saved by an export that read the attributes before records were appended to the input
+        Path sidecar = tempDir.resolve("users.csv" + IncrementalOptions.SUFFIX);
+        ExportIndex index = ExportIndex.load(sidecar);
+        ExportIndex.Snapshot before = ExportIndex.Snapshot.of(json);
+        write(json, TestUsers.lines(0, 60), 2);
+        index.advance(json, before, index.inputOffset);
+        index.save(sidecar);
+        IncrementalResult next = converter.convertIncremental(json.toString(), base, User.class, BY_ID);
+
+        assertFalse(index.unmodified(ExportIndex.Snapshot.of(json)));
+        assertNotEquals(IncrementalResult.Mode.UNCHANGED, next.mode(), next.summary());
+        assertEquals(60, next.records());
+        assertEquals(10, next.added());
+        assertEquals(csv(TestUsers.lines(0, 60)), Files.readString(tempDir.resolve("users.csv")));
+    }
+
+    @Test
+    void convertIncremental_indexOfOtherColumns_exportsAgainFromScratch() throws IOException {
+        Path json = tempDir.resolve("users.json");
+        write(json, TestUsers.array(0, 20), 1);
+        String base = tempDir.resolve("users").toString();
+        converter.convertIncremental(json.toString(), base, User.class, BY_ID);
+
+        // an index left by an earlier version of the class, before it had an email column
+        Path csv = tempDir.resolve("users.csv");
+        ExportIndex stale = ExportIndex.start(json, User.class, List.of("id", "name"), "id", true);
+        stale.advance(json, ExportIndex.Snapshot.of(json), Files.size(json));
+        stale.outputLength = Files.size(csv);
+        stale.save(tempDir.resolve("users.csv" + IncrementalOptions.SUFFIX));
+        IncrementalResult result = converter.convertIncremental(json.toString(), base, User.class, BY_ID);
+
+        assertEquals(IncrementalResult.Mode.FULL, result.mode());
+        assertEquals(20, result.added());
+        assertEquals(expected(json), Files.readString(csv));
+    }
+
+    @Test
+    void convertIncremental_badIdFieldOrOutput_throws() throws IOException {
+        Path json = tempDir.resolve("users.json");
+        write(json, "[{\"id\":1,\"name\":\"a\"},{\"name\":\"b\"}]", 1);
+        String base = tempDir.resolve("users").toString();
+
+        CsvHandlerException unknown = assertThrows(CsvHandlerException.class,
+                () -> converter.convertIncremental(json.toString(), base, User.class, IncrementalOptions.byId("age")));
+        assertTrue(unknown.getMessage().contains("'age'"), unknown.getMessage());
+        JsonHandlerException missing = assertThrows(JsonHandlerException.class,
+                () -> converter.convertIncremental(json.toString(), base, User.class, BY_ID));
+        assertTrue(missing.getMessage().contains("Record 2"), missing.getMessage());
+        assertThrows(CsvHandlerException.class,
+                () -> converter.convertIncremental(json.toString(), base + ".csv.gz", User.class, BY_ID));
+        assertThrows(IllegalArgumentException.class, () -> IncrementalOptions.byId(" "));
+    }
+
+    private String expected(Path json) throws IOException {
+        Path plain = tempDir.resolve("expected.json");
+        Files.writeString(plain, Files.readString(json));
+        converter.convert(plain.toString(), tempDir.resolve("expected").toString(), User.class);
+        return Files.readString(tempDir.resolve("expected.csv"));
+    }
+
+    private String csv(String lines) throws IOException {
+        Path jsonl = tempDir.resolve("expected.jsonl");
+        Files.writeString(jsonl, lines);
+        converter.convertJsonLines(jsonl.toString(), tempDir.resolve("expected").toString(), User.class);
+        return Files.readString(tempDir.resolve("expected.csv"));
+    }
+
+    /** Writes the file with a distinct modification time, as a later export would see it. */
+    private static void write(Path file, String content, int version) throws IOException {
+        Files.writeString(file, content);
+        Files.setLastModifiedTime(file, FileTime.fromMillis(1_000_000L * version));
+    }
+
+    private static String line(int id, String name) {
+        return TestUsers.user(id, name) + "\n";
+    }
+}
@@ -0,0 +1,88 @@
+package org.digitalnao.jared.trujillo.handlers;
+
+import org.digitalnao.jared.trujillo.classes.User;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JacksonTypeCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void lookups_reusePrebuiltInstances_andCountHitsAndMisses() {
+        JacksonTypeCache cache = new JacksonTypeCache(4);
+
+        assertSame(cache.csvWriter(User.class), cache.csvWriter(User.class));
+        assertSame(cache.jsonReader(User.class), cache.jsonReader(User.class));
+
+        assertEquals(1, cache.misses());
+        assertEquals(3, cache.hits());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void lookups_beyondMaxSize_evictLeastRecentlyUsed() {
+        JacksonTypeCache cache = new JacksonTypeCache(2);
+
+        cache.jsonReader(User.class);
+        cache.jsonReader(String.class);
+        cache.jsonReader(User.class);   // User becomes most recently used
+        cache.jsonReader(Integer.class); // evicts String
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.evictions());
+        cache.jsonReader(User.class);
+        assertEquals(2, cache.hits());
+        cache.jsonReader(String.class);
+        assertEquals(4, cache.misses());
+    }
+
+    @Test
+    void handlers_sharingCache_onlyBuildOncePerType() throws IOException {
+        JacksonTypeCache cache = new JacksonTypeCache(8);
+        CsvJacksonHandler csv = new CsvJacksonHandler(cache);
+        JsonJacksonHandler json = new JsonJacksonHandler(cache);
+        Path file = tempDir.resolve("user.json");
+        Files.writeString(file, "{ \"id\": 1, \"name\": \"Juan\", \"email\": \"juan@example.com\" }");
+
+        for (int i = 0; i < 5; i++) {
+            User u = json.fromJson(file.toString(), User.class);
+            csv.writeToCsv(u, User.class, tempDir.resolve("user" + i).toString());
+        }
+
+        assertEquals(1, cache.misses());
+        assertEquals(9, cache.hits());
+    }
+
+    @Test
+    void concurrentLookups_returnSameWriter() throws Exception {
+        JacksonTypeCache cache = new JacksonTypeCache(8);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Object>> futures = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                futures.add(pool.submit(() -> cache.csvWriter(User.class)));
+            }
+            Object first = futures.get(0).get();
+            for (Future<Object> f : futures) {
+                assertSame(first, f.get());
+            }
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(1, cache.misses());
+        assertEquals(63, cache.hits());
+    }
+}
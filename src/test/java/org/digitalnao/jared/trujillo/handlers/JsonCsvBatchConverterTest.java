@@ -0,0 +1,146 @@
+package org.digitalnao.jared.trujillo.handlers;
+
+import org.digitalnao.jared.trujillo.classes.BatchResult;
+import org.digitalnao.jared.trujillo.classes.FileConversionResult;
+import org.digitalnao.jared.trujillo.classes.User;
+import org.digitalnao.jared.trujillo.exceptions.JsonHandlerException;
+import org.digitalnao.jared.trujillo.interfaces.BatchConverter;
+import org.digitalnao.jared.trujillo.interfaces.CsvHandler;
+import org.digitalnao.jared.trujillo.interfaces.JsonHandler;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonCsvBatchConverterTest {
+
+    @TempDir
+    Path tempDir;
+
+    // convertDirectory(String, String, Class<T>)
+
+    @Test
+    void convertDirectory_convertsEveryJsonFile() throws IOException {
+        Path in = Files.createDirectory(tempDir.resolve("in"));
+        for (int i = 0; i < 20; i++) {
+            writeUsers(in.resolve("users-" + i + ".json"), i * 10, 10);
+        }
+        Files.writeString(in.resolve("notes.txt"), "ignored");
+
+        BatchResult result = BatchConverterFactory.createBatchConverter()
+                .convertDirectory(in.toString(), tempDir.resolve("out").toString(), User.class);
+
+        assertEquals(20, result.files().size());
+        assertEquals(20, result.succeeded());
+        assertEquals(200, result.rows());
+        assertTrue(result.bytesRead() > 0);
+        List<String> lines = Files.readAllLines(tempDir.resolve("out").resolve("users-3.csv"));
+        assertEquals(11, lines.size());
+        assertEquals("30,n30,u30@example.com", lines.get(1));
+    }
+
+    @Test
+    void convertMatching_failingFile_isReportedWithoutAbortingBatch() throws IOException {
+        Path in = Files.createDirectory(tempDir.resolve("in"));
+        writeUsers(in.resolve("a.json"), 0, 3);
+        Files.writeString(in.resolve("b.json"), "[ { \"id\": \"not a number\" } ]");
+        writeUsers(in.resolve("c.json"), 3, 3);
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            BatchConverter batch = BatchConverterFactory.createBatchConverter(pool, 2);
+            BatchResult result = batch.convertMatching(in.toString(), "*.json", tempDir.resolve("out").toString(), User.class);
+
+            assertEquals(2, result.succeeded());
+            assertEquals(1, result.failed());
+            FileConversionResult failure = result.failures().get(0);
+            assertEquals("b.json", failure.input().getFileName().toString());
+            assertInstanceOf(JsonHandlerException.class, failure.error());
+            assertEquals(6, result.rows());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void convertMatching_jsonLinesAndCompressedFiles_dropEveryInputExtension() throws IOException {
+        Path in = Files.createDirectory(tempDir.resolve("in"));
+        Files.writeString(in.resolve("a.jsonl"), TestUsers.lines(0, 2));
+        Files.writeString(in.resolve("b.NDJSON"), TestUsers.lines(2, 4));
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(in.resolve("c.json.gz")))) {
+            out.write(TestUsers.array(4, 6).getBytes(StandardCharsets.UTF_8));
+        }
+
+        BatchResult result = BatchConverterFactory.createBatchConverter()
+                .convertMatching(in.toString(), "*.{jsonl,NDJSON,gz}", tempDir.resolve("out").toString(), User.class);
+
+        assertEquals(3, result.succeeded(), String.valueOf(result.failures()));
+        for (String name : List.of("a", "b", "c")) {
+            assertEquals(3, Files.readAllLines(tempDir.resolve("out").resolve(name + ".csv")).size());
+        }
+    }
+
+    @Test
+    void convertDirectory_missingDirectory_throws() {
+        JsonHandlerException ex = assertThrows(
+                JsonHandlerException.class,
+                () -> BatchConverterFactory.createBatchConverter()
+                        .convertDirectory(tempDir.resolve("missing").toString(), tempDir.toString(), User.class)
+        );
+        assertTrue(ex.getMessage().toLowerCase().contains("not found"));
+    }
+
+    // thread safety of the shared handlers
+
+    @Test
+    void sharedHandlers_concurrentUse_matchesSequentialOutput() throws Exception {
+        JsonHandler json = JsonHandlerFactory.createJsonHandler();
+        CsvHandler csv = CsvHandlerFactory.createCsvHandler();
+        int files = 32;
+        for (int i = 0; i < files; i++) {
+            writeUsers(tempDir.resolve("u" + i + ".json"), i * 100, 100 + i);
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < files; i++) {
+                int n = i;
+                futures.add(pool.submit(() -> {
+                    List<User> users = json.fromJsonList(tempDir.resolve("u" + n + ".json").toString(), User.class);
+                    csv.writeToCsv(users, User.class, tempDir.resolve("parallel" + n).toString());
+                }));
+            }
+            for (Future<?> f : futures) {
+                f.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        for (int i = 0; i < files; i++) {
+            List<User> users = json.fromJsonList(tempDir.resolve("u" + i + ".json").toString(), User.class);
+            csv.writeToCsv(users, User.class, tempDir.resolve("sequential" + i).toString());
+            assertEquals(
+                    Files.readString(tempDir.resolve("sequential" + i + ".csv")),
+                    Files.readString(tempDir.resolve("parallel" + i + ".csv"))
+            );
+        }
+    }
+
+    private static void writeUsers(Path file, int firstId, int count) throws IOException {
+        Files.writeString(file, TestUsers.array(firstId, firstId + count));
+    }
+}
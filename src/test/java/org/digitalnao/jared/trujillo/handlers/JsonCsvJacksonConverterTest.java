@@ -0,0 +1,335 @@
+package org.digitalnao.jared.trujillo.handlers;
+
+import org.digitalnao.jared.trujillo.classes.FieldPredicate;
+import org.digitalnao.jared.trujillo.classes.RowQuery;
+import org.digitalnao.jared.trujillo.classes.User;
+import org.digitalnao.jared.trujillo.exceptions.CsvHandlerException;
+import org.digitalnao.jared.trujillo.exceptions.JsonHandlerException;
+import org.digitalnao.jared.trujillo.interfaces.JsonCsvConverter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonCsvJacksonConverterTest {
+
+    private final JsonCsvConverter converter = JsonCsvConverterFactory.createJsonCsvConverter();
+
+    @TempDir
+    Path tempDir;
+
+    // convert(String, String, Class<T>)
+
+    @Test
+    void convert_array_writesHeaderAndAllRows() throws IOException {
+        Path json = tempDir.resolve("users.json");
+        Files.writeString(json, """
+            [
+              { "id": 1, "name": "Juan", "email": "juan@example.com" },
+              { "id": 2, "name": "Maria", "email": "maria@example.com" }
+            ]
+        """);
+
+        long rows = converter.convert(json.toString(), tempDir.resolve("users").toString(), User.class);
+
+        assertEquals(2, rows);
+        List<String> lines = Files.readAllLines(tempDir.resolve("users.csv"));
+        assertEquals(List.of("id,name,email", "1,Juan,juan@example.com", "2,Maria,maria@example.com"), lines);
+    }
+
+    @Test
+    void convert_singleObject_writesOneRow() throws IOException {
+        Path json = tempDir.resolve("user.json");
+        Files.writeString(json, "{ \"id\": 1, \"name\": \"Juan\", \"email\": \"juan@example.com\" }");
+
+        long rows = converter.convert(json.toString(), tempDir.resolve("user").toString(), User.class);
+
+        assertEquals(1, rows);
+        List<String> lines = Files.readAllLines(tempDir.resolve("user.csv"));
+        assertEquals(List.of("id,name,email", "1,Juan,juan@example.com"), lines);
+    }
+
+    @Test
+    void convert_largeArray_matchesListBasedOutput() throws IOException {
+        Path json = tempDir.resolve("big.json");
+        Files.writeString(json, TestUsers.array(0, 10_000));
+
+        long rows = converter.convert(json.toString(), tempDir.resolve("streamed").toString(), User.class);
+
+        List<User> users = new JsonJacksonHandler().fromJsonList(json.toString(), User.class);
+        new CsvJacksonHandler().writeToCsv(users, User.class, tempDir.resolve("listed").toString());
+        assertEquals(10_000, rows);
+        assertEquals(Files.readString(tempDir.resolve("listed.csv")), Files.readString(tempDir.resolve("streamed.csv")));
+    }
+
+    @Test
+    void convert_malformedJson_throwsJsonHandlerException() throws IOException {
+        Path json = tempDir.resolve("bad.json");
+        Files.writeString(json, "[ { \"id\": 1, ");
+
+        assertThrows(
+                JsonHandlerException.class,
+                () -> converter.convert(json.toString(), tempDir.resolve("bad").toString(), User.class)
+        );
+    }
+
+    @Test
+    void convert_blankCsvFilename_throws() throws IOException {
+        Path json = tempDir.resolve("user.json");
+        Files.writeString(json, "{ \"id\": 1 }");
+
+        CsvHandlerException ex = assertThrows(
+                CsvHandlerException.class,
+                () -> converter.convert(json.toString(), " ", User.class)
+        );
+        assertTrue(ex.getMessage().toLowerCase().contains("filename"));
+    }
+
+    // convertJsonLines(String, String, Class<T>)
+
+    @Test
+    void convertJsonLines_writesRowsInInputOrder() throws IOException {
+        Path jsonl = tempDir.resolve("users.jsonl");
+        Files.writeString(jsonl, """
+            {"id":1,"name":"Juan","email":"juan@example.com"}
+
+            {"id":2,"name":"Maria","email":"maria@example.com"}
+            """);
+
+        long rows = converter.convertJsonLines(jsonl.toString(), tempDir.resolve("users").toString(), User.class);
+
+        assertEquals(2, rows);
+        List<String> lines = Files.readAllLines(tempDir.resolve("users.csv"));
+        assertEquals(List.of("id,name,email", "1,Juan,juan@example.com", "2,Maria,maria@example.com"), lines);
+    }
+
+    @Test
+    void convertJsonLines_manySmallChunks_matchesSequentialConversion() throws IOException {
+        StringBuilder lines = new StringBuilder();
+        StringBuilder array = new StringBuilder("[");
+        for (int i = 0; i < 20_000; i++) {
+            String line = TestUsers.user(i);
+            lines.append(line).append('\n');
+            array.append(i == 0 ? "" : ",").append(line);
+        }
+        Path jsonl = tempDir.resolve("big.ndjson");
+        Files.writeString(jsonl, lines);
+        Path json = tempDir.resolve("big.json");
+        Files.writeString(json, array.append(']'));
+
+        ParallelJsonLinesConverter parallel = new ParallelJsonLinesConverter(
+                new JsonJacksonHandler(), new CsvJacksonHandler(), new ForkJoinPool(4), 4096);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long rows = parallel.convert(jsonl, out, User.class);
+
+        converter.convert(json.toString(), tempDir.resolve("sequential").toString(), User.class);
+        assertEquals(20_000, rows);
+        assertEquals(Files.readString(tempDir.resolve("sequential.csv")), out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void convertJsonLines_malformedLine_reportsChunkOffset() throws IOException {
+        Path jsonl = tempDir.resolve("bad.jsonl");
+        Files.writeString(jsonl, "{\"id\":1}\n{\"id\":\n");
+
+        JsonHandlerException ex = assertThrows(
+                JsonHandlerException.class,
+                () -> converter.convertJsonLines(jsonl.toString(), tempDir.resolve("bad").toString(), User.class)
+        );
+        assertTrue(ex.getMessage().contains(" (in chunk starting at byte 0)"), ex.getMessage());
+    }
+
+    @Test
+    void close_shutsDownOnlyThePoolTheConverterOwns() throws IOException {
+        Path jsonl = tempDir.resolve("users.jsonl");
+        Files.writeString(jsonl, TestUsers.lines(0, 1));
+        ForkJoinPool owned = new ForkJoinPool(2);
+        ForkJoinPool borrowed = new ForkJoinPool(2);
+        try {
+            try (JsonCsvConverter dedicated = new JsonCsvJacksonConverter(new JsonJacksonHandler(),
+                    new CsvJacksonHandler(), owned, true, null)) {
+                assertEquals(1, dedicated.convertJsonLines(jsonl.toString(), tempDir.resolve("users").toString(),
+                        User.class));
+            }
+            new JsonCsvJacksonConverter(new JsonJacksonHandler(), new CsvJacksonHandler(), borrowed, false, null)
+                    .close();
+            assertTrue(owned.isShutdown());
+            assertFalse(borrowed.isShutdown());
+        } finally {
+            owned.shutdown();
+            borrowed.shutdown();
+        }
+
+        try (JsonCsvConverter common = JsonCsvConverterFactory.createJsonCsvConverter(
+                ForkJoinPool.getCommonPoolParallelism())) {
+            assertEquals(1, common.convertJsonLines(jsonl.toString(), tempDir.resolve("common").toString(),
+                    User.class));
+        }
+        assertFalse(ForkJoinPool.commonPool().isShutdown());
+        assertThrows(IllegalArgumentException.class, () -> JsonCsvConverterFactory.createJsonCsvConverter(0));
+    }
+
+    @Test
+    void convertJsonLines_wrongExtension_throws() {
+        JsonHandlerException ex = assertThrows(
+                JsonHandlerException.class,
+                () -> converter.convertJsonLines(tempDir.resolve("users.txt").toString(), "out", User.class)
+        );
+        assertTrue(ex.getMessage().contains(".jsonl"));
+    }
+
+    // convertToJson(String, String, Class<T>)
+
+    @Test
+    void convertToJson_roundTripsToArrayAndJsonLines() throws IOException {
+        Path json = tempDir.resolve("users.json");
+        Files.writeString(json, """
+            [
+              { "id": 1, "name": "Juan", "email": "juan@example.com" },
+              { "id": 2, "name": "Maria \\"M\\", Jr.", "email": "maria@example.com" }
+            ]
+        """);
+        converter.convert(json.toString(), tempDir.resolve("users").toString(), User.class);
+
+        Path array = tempDir.resolve("back.json");
+        Path lines = tempDir.resolve("back.jsonl");
+        assertEquals(2, converter.convertToJson(tempDir.resolve("users.csv").toString(), array.toString(), User.class));
+        assertEquals(2, converter.convertToJson(tempDir.resolve("users.csv").toString(), lines.toString(), User.class));
+
+        List<User> users = new JsonJacksonHandler().fromJsonList(array.toString(), User.class);
+        assertEquals("Maria \"M\", Jr.", users.get(1).getName());
+        assertEquals(2, Files.readAllLines(lines).size());
+    }
+
+    @Test
+    void convertToJson_missingCsv_throwsCsvHandlerException() {
+        assertThrows(
+                CsvHandlerException.class,
+                () -> converter.convertToJson(tempDir.resolve("missing.csv").toString(), tempDir.resolve("x.json").toString(), User.class)
+        );
+    }
+
+    // convert(InputStream, OutputStream, Class<T>) / convertToJson(InputStream, OutputStream, Class<T>, boolean)
+
+    @Test
+    void convert_streams_acceptsArrayObjectAndJsonLines() {
+        String[] inputs = {
+                "[{\"id\":1,\"name\":\"Juan\",\"email\":\"j@x.com\"},{\"id\":2,\"name\":\"Ana\",\"email\":\"a@x.com\"}]",
+                "{\"id\":1,\"name\":\"Juan\",\"email\":\"j@x.com\"}\n\n{\"id\":2,\"name\":\"Ana\",\"email\":\"a@x.com\"}\n"
+        };
+        for (String input : inputs) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            long rows = converter.convert(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), out, User.class);
+
+            assertEquals(2, rows);
+            assertEquals("id,name,email\n1,Juan,j@x.com\n2,Ana,a@x.com\n", out.toString(StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void convert_emptyStream_throwsJsonHandlerException() {
+        assertThrows(
+                JsonHandlerException.class,
+                () -> converter.convert(new ByteArrayInputStream(new byte[0]), new ByteArrayOutputStream(), User.class)
+        );
+    }
+
+    @Test
+    void convertToJson_streams_writesArrayOrJsonLines() {
+        byte[] csv = "email,id,name\nj@x.com,1,Juan\na@x.com,2,Ana\n".getBytes(StandardCharsets.UTF_8);
+
+        ByteArrayOutputStream array = new ByteArrayOutputStream();
+        ByteArrayOutputStream lines = new ByteArrayOutputStream();
+        assertEquals(2, converter.convertToJson(new ByteArrayInputStream(csv), array, User.class, false));
+        assertEquals(2, converter.convertToJson(new ByteArrayInputStream(csv), lines, User.class, true));
+
+        assertTrue(array.toString(StandardCharsets.UTF_8).startsWith("[{\"id\":1,"));
+        assertEquals(2, lines.toString(StandardCharsets.UTF_8).lines().count());
+    }
+
+    @Test
+    void convert_query_skipsUnselectedFieldsAndFiltersRows() throws IOException {
+        Path jsonl = Files.writeString(tempDir.resolve("users.jsonl"), """
+                {"id":1,"name":"Juan","email":"juan@example.com","audit":{"by":"x","at":[1,2]}}
+                {"id":2,"name":"Maria","email":"maria@test.org","audit":{"by":"y"}}
+                {"id":3,"name":"Ana","email":"ana@example.com","audit":null}
+                """);
+        RowQuery query = RowQuery.all().select("email", "id")
+                .where(FieldPredicate.matches("email", ".*@example\\.com"))
+                .where(FieldPredicate.atLeast("id", 2));
+
+        long rows = converter.convert(jsonl.toString(), tempDir.resolve("users").toString(), User.class, query);
+
+        assertEquals(1, rows);
+        assertEquals(List.of("email,id", "ana@example.com,3"), Files.readAllLines(tempDir.resolve("users.csv")));
+    }
+
+    @Test
+    void convert_queryOnStreams_filtersWithoutProjecting() {
+        String input = "[{\"id\":1,\"name\":\"Juan\",\"email\":\"j@x.com\"},{\"id\":2,\"name\":\"Ana\",\"email\":\"a@x.com\"}]";
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long rows = converter.convert(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), out, User.class,
+                RowQuery.all().where(FieldPredicate.parse("name=Ana")));
+
+        assertEquals(1, rows);
+        assertEquals("id,name,email\n2,Ana,a@x.com\n", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void convert_queryOnNestedField_throwsBeforeWritingAnyRow() throws IOException {
+        Path jsonl = Files.writeString(tempDir.resolve("users.jsonl"),
+                "{\"id\":1,\"name\":\"Juan\",\"email\":\"j@x.com\",\"address\":{\"city\":\"X\"}}\n");
+        RowQuery query = RowQuery.all().where(FieldPredicate.parse("address.city=X"));
+
+        JsonHandlerException ex = assertThrows(JsonHandlerException.class,
+                () -> converter.convert(jsonl.toString(), tempDir.resolve("users").toString(), User.class, query));
+
+        assertTrue(ex.getMessage().contains("'address.city'"), ex.getMessage());
+        assertFalse(Files.exists(tempDir.resolve("users.csv")));
+        assertThrows(JsonHandlerException.class, () -> converter.convert(new ByteArrayInputStream(Files.readAllBytes(jsonl)),
+                new ByteArrayOutputStream(), User.class, RowQuery.all().where(FieldPredicate.parse("phone=1"))));
+    }
+
+    @Test
+    void convert_queryWithUnknownColumn_throwsCsvHandlerException() {
+        byte[] input = "{\"id\":1}".getBytes(StandardCharsets.UTF_8);
+
+        assertThrows(CsvHandlerException.class, () -> converter.convert(new ByteArrayInputStream(input),
+                new ByteArrayOutputStream(), User.class, RowQuery.all().select("id", "phone")));
+        assertThrows(JsonHandlerException.class, () -> converter.convert(new ByteArrayInputStream(input),
+                new ByteArrayOutputStream(), User.class, null));
+    }
+
+    @Test
+    void convert_compressedFiles_detectInputAndCompressOutputByExtension() throws IOException {
+        Path json = tempDir.resolve("users.json.gz");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(json))) {
+            out.write("[{\"id\":1,\"name\":\"Juan\",\"email\":\"j@x.com\"}]".getBytes(StandardCharsets.UTF_8));
+        }
+        Path csv = tempDir.resolve("users.csv.zst");
+
+        long rows = converter.convert(json.toString(), csv.toString(), User.class);
+
+        assertEquals(1, rows);
+        try (InputStream in = CompressedStreams.decompress(Files.newInputStream(csv))) {
+            assertEquals("id,name,email\n1,Juan,j@x.com\n", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        Path back = tempDir.resolve("back.jsonl.lz4");
+        assertEquals(1, converter.convertToJson(csv.toString(), back.toString(), User.class));
+        assertEquals(1, converter.convertJsonLines(back.toString(), tempDir.resolve("again").toString(), User.class));
+        assertEquals(List.of("id,name,email", "1,Juan,j@x.com"), Files.readAllLines(tempDir.resolve("again.csv")));
+    }
+}
@@ -0,0 +1,117 @@
+package org.digitalnao.jared.trujillo.handlers;
+
+import org.digitalnao.jared.trujillo.classes.FieldPredicate;
+import org.digitalnao.jared.trujillo.classes.FlattenOptions;
+import org.digitalnao.jared.trujillo.classes.RowQuery;
+import org.digitalnao.jared.trujillo.exceptions.JsonHandlerException;
+import org.digitalnao.jared.trujillo.interfaces.JsonCsvConverter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonFlattenerTest {
+
+    private static final String ORDERS = """
+            [
+              { "id": 1, "customer": { "name": "Juan", "address": { "city": "CDMX" } }, "tags": ["a", "b"], "paid": true },
+              { "id": 2, "customer": { "name": "Ana, Jr." }, "tags": [], "total": 10.50, "note": null },
+              { "id": 3, "items": [ { "sku": "X1", "qty": 2 }, { "sku": "Y2" } ] }
+            ]
+            """;
+
+    private final JsonCsvConverter converter = JsonCsvConverterFactory.createJsonCsvConverter();
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void convertFlattened_nestedObjectsAndArrays_useDottedAndIndexedColumns() throws IOException {
+        Path json = Files.writeString(tempDir.resolve("orders.json"), ORDERS);
+
+        long rows = converter.convertFlattened(json.toString(), tempDir.resolve("orders").toString(),
+                FlattenOptions.defaults());
+
+        assertEquals(3, rows);
+        assertEquals(List.of(
+                "id,customer.name,customer.address.city,tags.0,tags.1,paid,total,note,items.0.sku,items.0.qty,items.1.sku",
+                "1,Juan,CDMX,a,b,true,,,,,",
+                "2,\"Ana, Jr.\",,,,,10.50,,,,",
+                "3,,,,,,,,X1,2,Y2"), Files.readAllLines(tempDir.resolve("orders.csv")));
+    }
+
+    @Test
+    void convertFlattened_joinedArrays_writeOneColumnPerArray() {
+        String input = "{\"id\":1,\"tags\":[\"a\",null,3],\"items\":[{\"sku\":\"X1\"}]}\n{\"id\":2,\"tags\":[]}\n";
+
+        String csv = convert(input, FlattenOptions.defaults().withJoinedArrays(";"));
+
+        assertEquals("id,tags,items\n1,a;;3,\"{\"\"sku\"\":\"\"X1\"\"}\"\n2,,\n", csv);
+    }
+
+    @Test
+    void convertFlattened_columnAfterSample_failsUnlessIgnoredOrFullyScanned() throws IOException {
+        String input = "{\"id\":1}\n{\"id\":2}\n{\"id\":3,\"extra\":{\"late\":\"x\"}}\n";
+        FlattenOptions sampleOfTwo = FlattenOptions.defaults().withSampleSize(2);
+
+        JsonHandlerException ex = assertThrows(JsonHandlerException.class, () -> convert(input, sampleOfTwo));
+        assertTrue(ex.getMessage().contains("'extra.late'"), ex.getMessage());
+        assertEquals("id\n1\n2\n3\n", convert(input, sampleOfTwo.withIgnoreLateColumns(true)));
+
+        Path jsonl = Files.writeString(tempDir.resolve("late.jsonl"), input);
+        converter.convertFlattened(jsonl.toString(), tempDir.resolve("late").toString(),
+                sampleOfTwo.withSampleSize(FlattenOptions.FULL_SCAN));
+        assertEquals(List.of("id,extra.late", "1,", "2,", "3,x"), Files.readAllLines(tempDir.resolve("late.csv")));
+    }
+
+    @Test
+    void convertFlattened_query_writesSelectedPathsOfMatchingRows() {
+        RowQuery query = RowQuery.all().select("customer.name", "tags.1", "items", "id")
+                .where(FieldPredicate.atMost("id", 2));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long rows = converter.convertFlattened(new ByteArrayInputStream(ORDERS.getBytes(StandardCharsets.UTF_8)), out,
+                FlattenOptions.defaults().withSampleSize(FlattenOptions.FULL_SCAN), query);
+
+        assertEquals(2, rows);
+        assertEquals("customer.name,tags.1,items,id\nJuan,b,,1\n\"Ana, Jr.\",,,2\n", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void convertFlattened_queryOnUnselectedField_filtersWithoutWritingIt() throws IOException {
+        Path json = Files.writeString(tempDir.resolve("orders.json"), ORDERS);
+        RowQuery query = RowQuery.all().select("id", "items").where(FieldPredicate.equalTo("items.0.sku", "X1"));
+
+        long rows = converter.convertFlattened(json.toString(), tempDir.resolve("orders").toString(),
+                FlattenOptions.defaults(), query);
+
+        assertEquals(1, rows);
+        assertEquals(List.of("id,items", "3,\"[{\"\"sku\"\":\"\"X1\"\",\"\"qty\"\":2},{\"\"sku\"\":\"\"Y2\"\"}]\""),
+                Files.readAllLines(tempDir.resolve("orders.csv")));
+    }
+
+    @Test
+    void convertFlattened_invalidInput_throws() {
+        assertThrows(JsonHandlerException.class, () -> convert("[1, 2]", FlattenOptions.defaults()));
+        assertThrows(JsonHandlerException.class, () -> convert("", FlattenOptions.defaults()));
+        assertThrows(JsonHandlerException.class, () -> convert("[{\"id\": 1,", FlattenOptions.defaults()));
+        assertThrows(JsonHandlerException.class,
+                () -> convert("{}", FlattenOptions.defaults().withSampleSize(FlattenOptions.FULL_SCAN)));
+        assertThrows(JsonHandlerException.class, () -> convert("{}", null));
+        assertEquals("", convert("[]", FlattenOptions.defaults()));
+    }
+
+    private String convert(String json, FlattenOptions options) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        converter.convertFlattened(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), out, options);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -1,6 +1,8 @@
 package org.digitalnao.jared.trujillo.handlers;
 
 import com.fasterxml.jackson.core.type.TypeReference;
+import org.digitalnao.jared.trujillo.classes.InputMode;
+import org.digitalnao.jared.trujillo.classes.JsonContent;
 import org.digitalnao.jared.trujillo.classes.User;
 import org.digitalnao.jared.trujillo.exceptions.JsonHandlerException;
 import org.digitalnao.jared.trujillo.interfaces.JsonHandler;
@@ -8,10 +10,13 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -139,4 +144,228 @@ class JsonJacksonHandlerTest {
         );
         assertTrue(ex.getMessage().toLowerCase().contains("typeref"));
     }
+
+    // readJson(String, Class<T>)
+
+    @Test
+    void readJson_array_streamsElements() throws IOException {
+        Path file = tempDir.resolve("users.json");
+        Files.writeString(file, """
+            [
+              { "id": 1, "name": "Juan", "email": "juan@example.com" },
+              { "id": 2, "name": "Maria", "email": "maria@example.com" }
+            ]
+        """);
+
+        try (JsonContent<User> content = handler.readJson(file.toString(), User.class)) {
+            assertTrue(content.isArray());
+            List<String> names = content.stream().map(User::getName).collect(Collectors.toList());
+            assertEquals(List.of("Juan", "Maria"), names);
+        }
+    }
+
+    @Test
+    void readJson_object_returnsSingleValue() throws IOException {
+        Path file = tempDir.resolve("user.json");
+        Files.writeString(file, "{ \"id\": 7, \"name\": \"Juan\" }");
+
+        try (JsonContent<User> content = handler.readJson(file.toString(), User.class)) {
+            assertFalse(content.isArray());
+            List<User> users = content.stream().collect(Collectors.toList());
+            assertEquals(1, users.size());
+            assertEquals(7, users.get(0).getId());
+        }
+    }
+
+    @Test
+    void readJson_emptyArray_returnsNoValues() throws IOException {
+        Path file = tempDir.resolve("empty-array.json");
+        Files.writeString(file, " [ ] ");
+
+        try (JsonContent<User> content = handler.readJson(file.toString(), User.class)) {
+            assertTrue(content.isArray());
+            assertFalse(content.iterator().hasNext());
+        }
+    }
+
+    @Test
+    void readJson_scalarRoot_throws() throws IOException {
+        Path file = tempDir.resolve("scalar.json");
+        Files.writeString(file, "42");
+
+        JsonHandlerException ex = assertThrows(
+                JsonHandlerException.class,
+                () -> handler.readJson(file.toString(), User.class)
+        );
+        assertTrue(ex.getMessage().toLowerCase().contains("root"));
+    }
+
+    @Test
+    void readJson_badElement_throwsWhileIterating() throws IOException {
+        Path file = tempDir.resolve("bad-element.json");
+        Files.writeString(file, "[ { \"id\": 1 }, { \"id\": \"abc\" } ]");
+
+        try (JsonContent<User> content = handler.readJson(file.toString(), User.class)) {
+            JsonHandlerException ex = assertThrows(
+                    JsonHandlerException.class,
+                    () -> content.iterator().forEachRemaining(user -> { })
+            );
+            assertTrue(ex.getMessage().toLowerCase().contains("structure"));
+        }
+    }
+
+    // isJsonArray(String)
+
+    @Test
+    void isJsonArray_detectsRootKindFromFirstToken() throws IOException {
+        Path array = tempDir.resolve("array.json");
+        Files.writeString(array, "\n  [ { \"id\": 1 }, { broken");
+        Path object = tempDir.resolve("object.json");
+        Files.writeString(object, "{ \"id\": 1 }");
+
+        assertTrue(handler.isJsonArray(array.toString()));
+        assertFalse(handler.isJsonArray(object.toString()));
+    }
+
+    // readJsonLines(String, Class<T>) / writeJsonLines(..., String)
+
+    @Test
+    void readJsonLines_readsOneValuePerLine() throws IOException {
+        Path file = tempDir.resolve("users.jsonl");
+        Files.writeString(file, """
+            {"id":1,"name":"Juan","email":"juan@example.com"}
+
+            {"id":2,"name":"Maria","email":"maria@example.com"}
+            """);
+
+        try (JsonContent<User> content = handler.readJsonLines(file.toString(), User.class)) {
+            assertFalse(content.isArray());
+            List<Integer> ids = content.stream().map(User::getId).collect(Collectors.toList());
+            assertEquals(List.of(1, 2), ids);
+        }
+    }
+
+    @Test
+    void readJsonLines_malformedLine_throwsWhileIterating() throws IOException {
+        Path file = tempDir.resolve("bad.ndjson");
+        Files.writeString(file, "{\"id\":1}\n{\"id\":}\n");
+
+        try (JsonContent<User> content = handler.readJsonLines(file.toString(), User.class)) {
+            assertEquals(1, content.iterator().next().getId());
+            JsonHandlerException ex = assertThrows(JsonHandlerException.class, () -> content.iterator().next());
+            assertTrue(ex.getMessage().toLowerCase().contains("malformed"));
+        }
+    }
+
+    @Test
+    void writeJsonLines_roundTripsThroughReader() throws IOException {
+        Path file = tempDir.resolve("out.jsonl");
+        List<User> users = List.of(
+                new User(1, "Juan", "juan@example.com"),
+                new User(2, "Maria", "maria@example.com")
+        );
+
+        long lines = handler.writeJsonLines(users.stream(), User.class, file.toString());
+
+        assertEquals(2, lines);
+        assertEquals(List.of(
+                "{\"id\":1,\"name\":\"Juan\",\"email\":\"juan@example.com\"}",
+                "{\"id\":2,\"name\":\"Maria\",\"email\":\"maria@example.com\"}"
+        ), Files.readAllLines(file));
+        try (JsonContent<User> content = handler.readJsonLines(file.toString(), User.class)) {
+            assertEquals("Maria", content.stream().skip(1).findFirst().orElseThrow().getName());
+        }
+    }
+
+    @Test
+    void writeJsonLines_wrongExtension_throws() {
+        JsonHandlerException ex = assertThrows(
+                JsonHandlerException.class,
+                () -> handler.writeJsonLines(List.<User>of().iterator(), User.class, tempDir.resolve("out.txt").toString())
+        );
+        assertTrue(ex.getMessage().contains(".jsonl"));
+    }
+
+    // writeJsonArray(..., String)
+
+    @Test
+    void writeJsonArray_roundTripsThroughFromJsonList() throws IOException {
+        Path file = tempDir.resolve("out.json");
+        List<User> users = List.of(
+                new User(1, "Juan", "juan@example.com"),
+                new User(2, "Maria", "maria@example.com")
+        );
+
+        long elements = handler.writeJsonArray(users.iterator(), User.class, file.toString());
+
+        assertEquals(2, elements);
+        List<User> read = handler.fromJsonList(file.toString(), User.class);
+        assertEquals("Maria", read.get(1).getName());
+    }
+
+    @Test
+    void writeJsonArray_emptySource_writesEmptyArray() throws IOException {
+        Path file = tempDir.resolve("empty-out.json");
+
+        long elements = handler.writeJsonArray(Stream.<User>empty(), User.class, file.toString());
+
+        assertEquals(0, elements);
+        assertEquals("[]", Files.readString(file));
+    }
+
+    // InputMode.MEMORY_MAPPED / InputMode.AUTO
+
+    @Test
+    void readJson_memoryMapped_matchesStandardRead() throws IOException {
+        Path file = tempDir.resolve("users.json");
+        handler.writeJsonArray(Stream.iterate(0, i -> i < 5_000, i -> i + 1)
+                .map(i -> new User(i, "Usuario " + i, "u" + i + "@example.com")), User.class, file.toString());
+
+        List<User> standard = handler.fromJsonList(file.toString(), User.class, InputMode.STANDARD);
+        List<User> mapped = handler.fromJsonList(file.toString(), User.class, InputMode.MEMORY_MAPPED);
+        try (JsonContent<User> content = handler.readJson(file.toString(), User.class, InputMode.MEMORY_MAPPED)) {
+            assertTrue(content.isArray());
+            assertEquals(5_000, content.stream().count());
+        }
+
+        assertEquals(5_000, mapped.size());
+        assertEquals(standard.get(4_999).getEmail(), mapped.get(4_999).getEmail());
+    }
+
+    @Test
+    void autoMode_belowAndAboveThreshold_readsSameContent() throws IOException {
+        Path file = tempDir.resolve("user.json");
+        Files.writeString(file, "{ \"id\": 7, \"name\": \"José\", \"email\": \"jose@example.com\" }");
+
+        JsonHandler alwaysMapped = JsonHandlerFactory.createJsonHandler(InputMode.AUTO, 0);
+        JsonHandler neverMapped = JsonHandlerFactory.createJsonHandler(InputMode.AUTO, Long.MAX_VALUE);
+
+        assertEquals("José", alwaysMapped.fromJson(file.toString(), User.class).getName());
+        assertEquals("José", neverMapped.fromJson(file.toString(), User.class).getName());
+        assertFalse(alwaysMapped.isJsonArray(file.toString()));
+    }
+
+    @Test
+    void mappedStream_acrossRegions_readsEveryByte() throws IOException {
+        byte[] data = new byte[10_000];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+        Path file = Files.write(tempDir.resolve("regions.bin"), data);
+
+        try (InputStream in = new MappedFileInputStream(file, 777)) {
+            assertEquals(data[0] & 0xFF, in.read());
+            assertEquals(10, in.skip(10));
+            byte[] rest = in.readAllBytes();
+            assertEquals(data.length - 11, rest.length);
+            assertEquals(data[11], rest[0]);
+            assertEquals(data[data.length - 1], rest[rest.length - 1]);
+            assertEquals(-1, in.read());
+        }
+    }
+
+    @Test
+    void readJson_nullMode_throws() {
+        assertThrows(JsonHandlerException.class, () -> handler.readJson("users.json", User.class, null));
+    }
 }
@@ -0,0 +1,171 @@
+package org.digitalnao.jared.trujillo.handlers;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import org.digitalnao.jared.trujillo.classes.User;
+import org.digitalnao.jared.trujillo.interfaces.RecordStore;
+import org.junit.jupiter.api.Test;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapRecordStoreTest {
+
+    @Test
+    void add_recordsAcrossChunks_areRebuiltInInsertionOrder() {
+        int count = OffHeapRecordStore.CHUNK_ROWS + 100;
+        try (RecordStore<User> store = RecordStoreFactory.createOffHeapStore(User.class)) {
+            long added = store.addAll(IntStream.range(0, count)
+                    .mapToObj(i -> new User(i, "name" + i % 50, "u" + i + "@x.com")).iterator());
+
+            assertEquals(count, added);
+            assertEquals(count, store.size());
+            User last = store.get(count - 1);
+            assertEquals(count - 1, last.getId());
+            assertEquals("name" + (count - 1) % 50, last.getName());
+            assertEquals("u" + (count - 1) + "@x.com", last.getEmail());
+
+            int i = 0;
+            for (User user : store) {
+                assertEquals(i, user.getId());
+                assertEquals("name" + i % 50, user.getName());
+                i++;
+            }
+            assertEquals(count, i);
+            assertTrue(store.offHeapBytes() > 0);
+        }
+    }
+
+    @Test
+    void add_nullableAndPrimitiveColumns_keepsNullsAndValues() {
+        try (RecordStore<Reading> store = RecordStoreFactory.createOffHeapStore(Reading.class)) {
+            store.add(new Reading(Long.MAX_VALUE, 0.25, true, "é ok", 1.5f));
+            store.add(new Reading(null, -3, null, null, 0));
+            store.add(new Reading(7L, 1e100, false, "é ok", -2.5f));
+
+            Reading first = store.get(0);
+            assertEquals(Long.MAX_VALUE, first.getCount());
+            assertEquals(0.25, first.getScore());
+            assertEquals(Boolean.TRUE, first.getFlag());
+            assertEquals("é ok", first.getNote());
+            assertEquals(1.5f, first.getRatio());
+
+            Reading second = store.get(1);
+            assertNull(second.getCount());
+            assertEquals(-3, second.getScore());
+            assertNull(second.getFlag());
+            assertNull(second.getNote());
+
+            Reading third = store.get(2);
+            assertEquals(7L, third.getCount());
+            assertEquals(1e100, third.getScore());
+            assertEquals(Boolean.FALSE, third.getFlag());
+            assertEquals("é ok", third.getNote());
+        }
+    }
+
+    @Test
+    void add_throwingGetter_leavesTheRowToTheNextRecord() {
+        try (RecordStore<Reading> store = RecordStoreFactory.createOffHeapStore(Reading.class)) {
+            Reading broken = new Reading(null, 1, null, "x", 0) {
+                @Override
+                public String getNote() {
+                    throw new IllegalStateException("note unavailable");
+                }
+            };
+
+            IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () -> store.add(broken));
+            assertTrue(ex.getMessage().startsWith("Record 0 "), ex.getMessage());
+            store.add(new Reading(5L, 2, true, "ok", 1.5f));
+
+            assertEquals(1, store.size());
+            Reading stored = store.get(0);
+            assertEquals(5L, stored.getCount());
+            assertEquals(2, stored.getScore());
+            assertEquals(Boolean.TRUE, stored.getFlag());
+            assertEquals("ok", stored.getNote());
+            assertEquals(1.5f, stored.getRatio());
+        }
+    }
+
+    @Test
+    void store_invalidUse_throws() {
+        RecordStore<User> store = RecordStoreFactory.createOffHeapStore(User.class);
+        store.add(new User(1, "a", "a@x.com"));
+
+        assertThrows(IllegalArgumentException.class, () -> store.add(null));
+        assertThrows(IllegalArgumentException.class, () -> store.addAll(null));
+        assertThrows(IndexOutOfBoundsException.class, () -> store.get(1));
+        assertThrows(IllegalArgumentException.class, () -> RecordStoreFactory.createOffHeapStore(null));
+
+        Iterator<User> users = store.iterator();
+        store.close();
+        store.close();
+        assertEquals(0, store.offHeapBytes());
+        assertThrows(IllegalStateException.class, users::next);
+        assertThrows(IllegalStateException.class, () -> store.addAll(List.of(new User()).iterator()));
+        assertThrows(IllegalStateException.class, () -> store.get(0));
+    }
+
+    @JsonPropertyOrder({"count", "score", "flag", "note", "ratio"})
+    public static class Reading {
+        private Long count;
+        private double score;
+        private Boolean flag;
+        private String note;
+        private float ratio;
+
+        public Reading() {
+        }
+
+        Reading(Long count, double score, Boolean flag, String note, float ratio) {
+            this.count = count;
+            this.score = score;
+            this.flag = flag;
+            this.note = note;
+            this.ratio = ratio;
+        }
+
+        public Long getCount() {
+            return count;
+        }
+
+        public void setCount(Long count) {
+            this.count = count;
+        }
+
+        public double getScore() {
+            return score;
+        }
+
+        public void setScore(double score) {
+            this.score = score;
+        }
+
+        public Boolean getFlag() {
+            return flag;
+        }
+
+        public void setFlag(Boolean flag) {
+            this.flag = flag;
+        }
+
+        public String getNote() {
+            return note;
+        }
+
+        public void setNote(String note) {
+            this.note = note;
+        }
+
+        public float getRatio() {
+            return ratio;
+        }
+
+        public void setRatio(float ratio) {
+            this.ratio = ratio;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package org.digitalnao.jared.trujillo.handlers;
+
+import com.github.luben.zstd.Zstd;
+import org.digitalnao.jared.trujillo.classes.Compression;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelCompressorOutputStreamTest {
+
+    private static final int BLOCK_SIZE = 4096;
+
+    @Test
+    void write_manyBlocks_roundTripsThroughEveryCodec() throws IOException {
+        byte[] data = sample(10 * BLOCK_SIZE + 123);
+        for (Compression compression : new Compression[] { Compression.GZIP, Compression.ZSTD, Compression.LZ4 }) {
+            byte[] compressed = compress(data, compression);
+
+            assertEquals(compression, Compression.detect(compressed, compressed.length));
+            try (InputStream in = CompressedStreams.decompress(new ByteArrayInputStream(compressed))) {
+                assertArrayEquals(data, in.readAllBytes(), compression.name());
+            }
+        }
+    }
+
+    @Test
+    void write_gzipMembers_readableByStandardGzipReader() throws IOException {
+        byte[] data = sample(3 * BLOCK_SIZE);
+
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compress(data, Compression.GZIP)))) {
+            assertArrayEquals(data, in.readAllBytes());
+        }
+    }
+
+    @Test
+    void close_withoutData_writesValidEmptyStream() throws IOException {
+        byte[] compressed = compress(new byte[0], Compression.GZIP);
+
+        assertTrue(compressed.length > 0);
+        try (InputStream in = CompressedStreams.decompress(new ByteArrayInputStream(compressed))) {
+            assertEquals(0, in.readAllBytes().length);
+        }
+    }
+
+    @Test
+    void zstdSize_errorCode_throwsWithZstdErrorName() throws IOException {
+        long tooSmall = -Zstd.errDstSizeTooSmall();
+
+        IOException ex = assertThrows(IOException.class, () -> ParallelCompressorOutputStream.zstdSize(tooSmall));
+        assertTrue(ex.getMessage().contains(Zstd.getErrorName(tooSmall)), ex.getMessage());
+        assertEquals(42, ParallelCompressorOutputStream.zstdSize(42));
+    }
+
+    @Test
+    void decompress_plainData_passesThrough() throws IOException {
+        byte[] plain = "{\"id\":1}".getBytes();
+
+        try (InputStream in = CompressedStreams.decompress(new ByteArrayInputStream(plain))) {
+            assertArrayEquals(plain, in.readAllBytes());
+        }
+        assertEquals(Compression.NONE, Compression.detect(new byte[] { 0x1f }, 1));
+    }
+
+    private static byte[] compress(byte[] data, Compression compression) throws IOException {
+        ByteArrayOutputStream sink = new ByteArrayOutputStream();
+        try (OutputStream out = new ParallelCompressorOutputStream(sink, compression, ForkJoinPool.commonPool(),
+                BLOCK_SIZE, 2)) {
+            out.write(data, 0, data.length / 2);
+            for (int i = data.length / 2; i < data.length; i++) {
+                out.write(data[i]);
+            }
+        }
+        return sink.toByteArray();
+    }
+
+    /** Compressible text with some randomness, so blocks differ. */
+    private static byte[] sample(int length) {
+        Random random = new Random(42);
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = (byte) (random.nextInt(8) == 0 ? 'a' + random.nextInt(26) : ',');
+        }
+        return data;
+    }
+}
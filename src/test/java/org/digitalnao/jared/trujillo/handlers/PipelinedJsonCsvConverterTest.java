@@ -0,0 +1,86 @@
+package org.digitalnao.jared.trujillo.handlers;
+
+import org.digitalnao.jared.trujillo.classes.PipelineOptions;
+import org.digitalnao.jared.trujillo.classes.PipelineResult;
+import org.digitalnao.jared.trujillo.classes.User;
+import org.digitalnao.jared.trujillo.exceptions.JsonHandlerException;
+import org.digitalnao.jared.trujillo.interfaces.JsonCsvConverter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PipelinedJsonCsvConverterTest {
+
+    private final JsonCsvConverter converter = JsonCsvConverterFactory.createJsonCsvConverter();
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void convertPipelined_largeArray_matchesSequentialOutputUnderBackpressure() throws IOException {
+        Path json = tempDir.resolve("users.json");
+        Files.writeString(json, TestUsers.array(0, 10_000));
+        PipelineOptions options = new PipelineOptions(3, 100, 2);
+
+        PipelineResult result = converter.convertPipelined(json.toString(), tempDir.resolve("piped").toString(),
+                User.class, options);
+        converter.convert(json.toString(), tempDir.resolve("plain").toString(), User.class);
+
+        assertEquals(10_000, result.records());
+        assertEquals(100, result.batches());
+        assertTrue(result.peakQueueDepth() >= 1 && result.peakQueueDepth() <= 2);
+        assertEquals(Files.readAllLines(tempDir.resolve("plain.csv")), Files.readAllLines(tempDir.resolve("piped.csv")));
+    }
+
+    @Test
+    void convertPipelined_jsonLinesStream_writesRowsInOrder() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        PipelineResult result = converter.convertPipelined(
+                new ByteArrayInputStream(TestUsers.lines(0, 5).getBytes(StandardCharsets.UTF_8)), out, User.class,
+                PipelineOptions.defaults().withWorkers(2).withBatchSize(2));
+
+        assertEquals(5, result.records());
+        assertEquals(3, result.batches());
+        assertEquals(List.of("id,name,email", "0,n0,u0@example.com", "1,n1,u1@example.com", "2,n2,u2@example.com",
+                "3,n3,u3@example.com", "4,n4,u4@example.com"), out.toString(StandardCharsets.UTF_8).lines().toList());
+    }
+
+    @Test
+    void convertPipelined_badRecord_failsWithItsBatch_andStopsAllStages() throws IOException, InterruptedException {
+        Path json = tempDir.resolve("bad.json");
+        Files.writeString(json, TestUsers.array(0, 1_000).replace("{\"id\":250,", "{\"id\":\"x\","));
+
+        JsonHandlerException e = assertThrows(JsonHandlerException.class,
+                () -> converter.convertPipelined(json.toString(), tempDir.resolve("bad").toString(), User.class,
+                        new PipelineOptions(2, 100, 1)));
+
+        assertTrue(e.getMessage().contains(" (in the batch starting at record 201)"), e.getMessage());
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().startsWith("json-csv-pipeline-")) {
+                // the pool has terminated; its threads may still be on their way out
+                assertTrue(thread.join(Duration.ofSeconds(5)), thread.getName());
+            }
+        }
+    }
+
+    @Test
+    void convertPipelined_malformedInput_throwsJsonHandlerException() throws IOException {
+        Path json = tempDir.resolve("broken.json");
+        Files.writeString(json, "[{\"id\":1,\"name\":\"a\",\"email\":\"a@x.com\"}, {\"id\": ");
+
+        assertThrows(JsonHandlerException.class, () -> converter.convertPipelined(json.toString(),
+                tempDir.resolve("broken").toString(), User.class, PipelineOptions.defaults()));
+        assertThrows(IllegalArgumentException.class, () -> new PipelineOptions(0, 1, 1));
+    }
+}
@@ -0,0 +1,46 @@
+package org.digitalnao.jared.trujillo.handlers;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * JSON inputs of {@code User} records shared by the converter tests. User {@code i} is
+ * {@code {"id":i,"name":"ni","email":"ui@example.com"}}.
+ */
+final class TestUsers {
+
+    private TestUsers() {
+    }
+
+    /** @return user {@code id} as a compact JSON object */
+    static String user(int id) {
+        return user(id, "n" + id);
+    }
+
+    /** @return user {@code id} with another name, escaped for JSON */
+    static String user(int id, String name) {
+        return "{\"id\":" + id + ",\"name\":\"" + name.replace("\"", "\\\"").replace("\n", "\\n")
+                + "\",\"email\":\"u" + id + "@example.com\"}";
+    }
+
+    /** @return users {@code from} (inclusive) to {@code to} (exclusive) as a JSON array */
+    static String array(int from, int to) {
+        return array(from, to, ",");
+    }
+
+    /** @return users {@code from} to {@code to} as a JSON array whose elements are split by {@code separator} */
+    static String array(int from, int to, String separator) {
+        return IntStream.range(from, to).mapToObj(TestUsers::user).collect(Collectors.joining(separator, "[", "]"));
+    }
+
+    /** @return the users with the given ids, in that order, as a JSON array */
+    static String array(List<Integer> ids) {
+        return ids.stream().map(TestUsers::user).collect(Collectors.joining(",", "[", "]"));
+    }
+
+    /** @return users {@code from} to {@code to} as JSON Lines, each line ended by a line feed */
+    static String lines(int from, int to) {
+        return IntStream.range(from, to).mapToObj(i -> user(i) + "\n").collect(Collectors.joining());
+    }
+}